@@ -15,7 +15,7 @@ public class Main {
         TestSystemSetup.setupTestInstance(new Random().nextLong());
 
         // define the algorithms to be compared
-        List<MatchingAlg> algorithms = Arrays.asList(new RandomAlg(4762), new GreedyAlg(), new RoundRobinAlg(), new GaleShapleyAlg(true, true, false), new AuctionAlg());
+        List<MatchingAlg> algorithms = Arrays.asList(new RandomAlg(4762), new PowerOfChoicesAlg(2, 4762), new LeastLoadedAlg(), new GreedyAlg(), new RoundRobinAlg(), new ConcurrentRoundRobinAlg(), new GaleShapleyAlg(true, true, false), new AuctionAlg(), new MinCostFlowAlg(), new HypergraphMatchingAlg());
 
         // run the algorithms and collect results
         Map<Integer, AlgorithmResults> results = new HashMap<>();
@@ -1,24 +1,37 @@
 package algorithm;
 
 import algorithm.model.AlgorithmResults;
-import algorithm.model.ResourceAvailability;
 import algorithm.model.Preference;
+import algorithm.model.PreferenceTable;
+import algorithm.model.ResourceAvailability;
+import algorithm.model.ResourceTable;
 import algorithm.model.Ue2VmMapping;
-import algorithm.utils.PreferenceComparator;
+import algorithm.utils.PmScoringKernel;
 import model.PM;
+import utils.collections.DenseIntDoubleMap;
+import utils.collections.DenseIntMap;
 
 import java.util.*;
 
 public class AuctionAlg extends MatchingAlg {
-    // key is bid receiver (PMs), value is list of proposer bids (UEs/VMs) to that receiver
-    private final HashMap<Integer, ArrayList<Preference>> bids2Pms;
-    private final HashMap<Integer, ArrayList<Preference>> pmEvaluations;
-    private final HashMap<Integer,HashMap<Integer,Double>> energyCosts;
-    private final HashMap<Integer,Double> pmPrices;
+    // bids of the current round: the receiver is the PM, the proposer is the UE/VM placing the bid
+    private final PreferenceTable bids2Pms;
+    // PM evaluations of the current round, stored per unmatched UE in consecutive rows (see evaluationBounds)
+    private final PreferenceTable pmEvaluations;
+    private int[] evaluationBounds;
+    // energy cost of each UE/VM mapping (key) on each PM class (array index, see PmScoringKernel.getPmClass)
+    private final DenseIntMap<double[]> energyCosts;
+    private final DenseIntDoubleMap pmPrices;
+    private final PmScoringKernel scoringKernel;
+    private final int[] bestClassPms;
 
     // keep track of the available resources on each PM, considering the accepted UE/VM proposals
-    private final HashMap<Integer, ResourceAvailability> pmResources;
+    private final DenseIntMap<ResourceAvailability> pmResources;
     private final ArrayList<Ue2VmMapping> unmatchedUes = new ArrayList<>();
+    // PMs that unmatched UEs may bid for, when not all of them (warm start)
+    private final DenseIntMap<BitSet> candidatePmsByUe = new DenseIntMap<>();
+    // candidate PMs of each unmatched UE with candidate pruning (see setCandidatePmsPerUe), instead of the energy costs on all the PMs
+    private final DenseIntMap<Candidates> candidatesByUe = new DenseIntMap<>();
     private final double energyCoeff;
     private final double priceCoeff;
     private final double loadCoeff;
@@ -28,11 +41,12 @@ public class AuctionAlg extends MatchingAlg {
 
     public AuctionAlg(double energyCoeff, double priceCoeff, double loadCoeff, double speedCoeff) {
         super();
-        this.bids2Pms = new HashMap<>();
-        this.pmEvaluations = new HashMap<>();
-        this.pmPrices = new HashMap<>();
-        this.energyCosts = new HashMap<>();
-        this.pmResources = new HashMap<>();
+        this.bids2Pms = new PreferenceTable();
+        this.pmEvaluations = new PreferenceTable();
+        this.evaluationBounds = new int[1];
+        this.pmPrices = new DenseIntDoubleMap(mecService.getNumberOfPMs());
+        this.energyCosts = new DenseIntMap<>(mecService.getNumberOfUEs());
+        this.pmResources = new DenseIntMap<>(mecService.getNumberOfPMs());
         this.energyCoeff = energyCoeff;
         this.priceCoeff = priceCoeff;
         this.loadCoeff = loadCoeff;
@@ -40,9 +54,12 @@ public class AuctionAlg extends MatchingAlg {
         this.epsilon = 1e-6;
 
         // keep track of the available resources on PMs
+        ResourceTable pmTable = ResourceTable.ofPms(mecService.getPMs());
         for (PM pm : mecService.getPMs()) {
-            pmResources.put(pm.getId(), new ResourceAvailability(pm.getId(), pm.getTotCores(), pm.getTotMemoryGB(), pm.getMaxVmsHosted()));
+            pmResources.put(pm.getId(), pmTable.view(pm.getId()));
         }
+        this.scoringKernel = new PmScoringKernel(mecService.getPMs());
+        this.bestClassPms = new int[2 * scoringKernel.getTotalClasses()];
     }
 
     public AuctionAlg() {
@@ -50,144 +67,212 @@ public class AuctionAlg extends MatchingAlg {
     }
 
     /**
-     * Computes the energy costs for each UE/VM mapping to each PM.
+     * Candidate PMs of a UE/VM, best first, with their energy costs.
+     * @param limit the maximum number of candidates of the selection
+     * @param pruned true if the selection was limited, i.e. there may be other PMs to widen the search to
+     */
+    private record Candidates(int[] pmIds, double[] energyCosts, int limit, boolean pruned) {}
+
+    /**
+     * Select the most promising PMs for a UE/VM (see PmScoringKernel.selectCandidates) and compute their energy costs.
+     * The PM resources of the scoring kernel must be up to date.
+     * @param mapping the UE/VM mapping
+     * @param allowedPms the PMs to select from (null for all of them)
+     * @param limit the maximum number of PMs to be selected
+     * @return the candidate PMs
+     */
+    private Candidates selectCandidates(Ue2VmMapping mapping, BitSet allowedPms, int limit) {
+        int totalPms = scoringKernel.getTotalPms();
+        int[] pmIds = new int[Math.min(limit, totalPms)];
+        int totalCandidates = scoringKernel.selectCandidates(mapping.getCores(), mapping.getMemory(), allowedPms, pmIds.length, pmIds);
+
+        double[] costs = computeEnergyCosts(mapping, new double[scoringKernel.getTotalClasses()]);
+        double[] candidateCosts = new double[totalCandidates];
+        for (int i = 0; i < totalCandidates; i++)
+            candidateCosts[i] = costs[scoringKernel.getPmClass(pmIds[i])];
+        return new Candidates(Arrays.copyOf(pmIds, totalCandidates), candidateCosts, limit, limit < totalPms && totalCandidates == limit);
+    }
+
+    /**
+     * Computes the energy costs for each unmatched UE/VM mapping to each PM.
      */
     private void computeEnergyCosts() {
-        HashMap<Integer, Double> energyConsumptions = new HashMap<>();
-        for (Ue2VmMapping mapping : mecService.getUe2VmMappings()) {
-            energyConsumptions.clear();
-            for (PM pm : mecService.getPMs()) {
-                if (pmResources.get(pm.getId()).canPerformMatch(mapping.getCores(), mapping.getMemory())) {
-                    double energyConsumption = energyService.getEnergyConsumptionWithVmCoresAndPm(mecService.getVM(mapping.getVmId()), mapping.getCores(), pm);
-                    energyConsumptions.put(pm.getId(), energyConsumption);
-                }
-            }
+        scoringKernel.updateResources(pmResources);
 
-            // Normalize the energy consumption values
-            double maxConsumption = Math.max(energyConsumptions.values().stream().max(Comparator.naturalOrder()).orElse(0.), 100);
+        double[] energyConsumptions = new double[scoringKernel.getTotalClasses()];
+        for (Ue2VmMapping mapping : unmatchedUes) {
+            // the energy costs only depend on the scenario (all the PMs are empty here, unless warm-starting), so they can be shared between runs
+            if (scenarioCache != null && initialState == null)
+                energyCosts.put(mapping.getUeId(), scenarioCache.getAuctionEnergyCosts(mapping.getUeId(), k -> computeEnergyCosts(mapping, energyConsumptions)));
+            else
+                energyCosts.put(mapping.getUeId(), computeEnergyCosts(mapping, energyConsumptions));
+        }
+    }
 
-            energyCosts.putIfAbsent(mapping.getUeId(), new HashMap<>());
-            energyConsumptions.forEach((pmId, cons) -> energyCosts.get(mapping.getUeId()).put(pmId, Math.log(1 + maxConsumption / (cons + epsilon))));
+    /**
+     * Computes the energy costs of a UE/VM mapping to each PM class (the costs of the PMs that cannot host the UE/VM are
+     * not used, as these PMs are not evaluated).
+     * @param mapping the UE/VM mapping
+     * @param energyConsumptions buffer for the energy consumptions of the mapping on each PM class
+     * @return the energy cost of the mapping on each PM class
+     */
+    private double[] computeEnergyCosts(Ue2VmMapping mapping, double[] energyConsumptions) {
+        int totalClasses = scoringKernel.getTotalClasses();
+        scoringKernel.energyConsumptions(energyService.getComputationDurationTime(), mapping.getCores(), mecService.getVM(mapping.getVmId()).getEnergyConsumptionPerCoreOps(), energyConsumptions);
+
+        // Normalize the energy consumption values (of the PMs that can host the UE/VM: the highest one is on the fastest of these PMs)
+        double maxConsumption = 100;
+        int fastestClass = scoringKernel.getFastestFeasibleClass(mapping.getCores(), mapping.getMemory());
+        if (fastestClass != -1)
+            maxConsumption = Math.max(maxConsumption, energyConsumptions[fastestClass]);
+
+        double[] costs = new double[totalClasses];
+        for (int c = 0; c < totalClasses; c++) {
+            costs[c] = Math.log(1 + maxConsumption / (energyConsumptions[c] + epsilon));
         }
+        return costs;
     }
 
     /**
      * Evaluate PMs based on their load factor, compute speed, and price.
+     * The evaluations of the i-th unmatched UE are stored in the rows [evaluationBounds[i], evaluationBounds[i+1]) of pmEvaluations.
      */
     private void evaluatePMs(){
         pmEvaluations.clear();
+        if (evaluationBounds.length < unmatchedUes.size() + 1)
+            evaluationBounds = new int[unmatchedUes.size() + 1];
 
-        // min/max compute speed for normalization
-        double minCompute = mecService.getPMs().stream().mapToDouble(PM::getCoreComputeOpsPerSec).min().orElse(0);
-        double maxCompute = mecService.getPMs().stream().mapToDouble(PM::getCoreComputeOpsPerSec).max().orElse(1e-8);
+        scoringKernel.updateResources(pmResources);
+        scoringKernel.rankClassMembers(this.loadCoeff, this.speedCoeff, this.priceCoeff);
 
         // list of unmatched UEs
-        for (Ue2VmMapping mapping : unmatchedUes) {
-
-            for (PM pm : mecService.getPMs()) {
-                // ignore PMs that cannot host the VM
-                if (!pmResources.get(pm.getId()).canPerformMatch(mapping.getCores(), mapping.getMemory()))
-                    continue;
-
-                // load factor (lower is better)
-                double coresUsage = (double) pmResources.get(pm.getId()).getUsedCores() / pm.getTotCores();
-                double memUsage = (double) pmResources.get(pm.getId()).getUsedMemory() / pm.getTotMemoryGB();
-                double loadFactor = (coresUsage + memUsage) / 2.;
-
-                // normalized compute speed (higher is better)
-                double computeSpeed = (pm.getCoreComputeOpsPerSec() - minCompute) / (maxCompute - minCompute + 1e-8);
+        for (int i = 0; i < unmatchedUes.size(); i++) {
+            Ue2VmMapping mapping = unmatchedUes.get(i);
+            evaluationBounds[i] = pmEvaluations.size();
+
+            Candidates candidates = candidatesByUe.get(mapping.getUeId());
+            if (candidates != null) {
+                // only the candidate PMs are evaluated
+                for (int c = 0; c < candidates.pmIds().length; c++) {
+                    int pmId = candidates.pmIds()[c];
+                    if (scoringKernel.canPerformMatch(pmId, mapping.getCores(), mapping.getMemory()))
+                        pmEvaluations.add(mapping.getVmId(), pmId, scoringKernel.scoreRankedAuction(pmId, candidates.energyCosts()[c], this.energyCoeff), mapping.getUeId());
+                }
+                continue;
+            }
 
-                // final PM evaluation (higher is better)
-                double evaluation = - this.loadCoeff * loadFactor + this.speedCoeff * computeSpeed - this.priceCoeff * pmPrices.getOrDefault(pm.getId(), 0.0) + this.energyCoeff * energyCosts.get(mapping.getUeId()).get(pm.getId());
+            // final PM evaluations (higher is better), based on load factor (lower is better), normalized compute speed (higher is better), price and energy cost:
+            // only the two best PMs of each class can be the best or second-best PM, so the other ones are not evaluated
+            double[] costs = energyCosts.get(mapping.getUeId());
+            BitSet candidatePms = candidatePmsByUe.get(mapping.getUeId());
+            int totalBest = 0;
+            for (int c = 0; c < scoringKernel.getTotalClasses(); c++) {
+                // ignore PMs that cannot host the VM (or that are not candidates)
+                totalBest += scoringKernel.getBestClassMembers(c, mapping.getCores(), mapping.getMemory(), candidatePms, 2, bestClassPms, totalBest);
+            }
 
-                pmEvaluations.putIfAbsent(mapping.getUeId(), new ArrayList<>());
-                pmEvaluations.get(mapping.getUeId()).add(new Preference(mapping.getVmId(), pm.getId(), evaluation, mapping));
+            // in PM id order, as the first of the best evaluations wins the ties
+            Arrays.sort(bestClassPms, 0, totalBest);
+            for (int b = 0; b < totalBest; b++) {
+                int pmId = bestClassPms[b];
+                pmEvaluations.add(mapping.getVmId(), pmId, scoringKernel.scoreRankedAuction(pmId, costs[scoringKernel.getPmClass(pmId)], this.energyCoeff), mapping.getUeId());
             }
         }
+        evaluationBounds[unmatchedUes.size()] = pmEvaluations.size();
     }
 
     /**
-     * Auction-based main loop algorithm to match VMs to PMs.
+     * Auction-based main loop algorithm to match the unmatched VMs to PMs.
+     * @param mappingsByUeId the UE-to-VM mappings keyed by UE id
      */
-    private void vm2PmAuction() {
-        // list of not yet matched UEs
-        unmatchedUes.clear();
-        unmatchedUes.addAll(mecService.getUe2VmMappings());
+    private void vm2PmAuction(DenseIntMap<Ue2VmMapping> mappingsByUeId) {
+        // UEs/VMs matched in the current round, and UEs/VMs to delete because no PM can host them
+        BitSet matchedUes = new BitSet();
+        BitSet toDelete = new BitSet();
 
-        // list of new matches at each iteration/round
-        ArrayList<Preference> newMatches = new ArrayList<>();
+        // index of the winning bid of each PM in the current round
+        int[] winningBids = new int[mecService.getNumberOfPMs()];
+        int[] bestPrefs = new int[2];
 
-        while (!unmatchedUes.isEmpty()) {
+        // the winning bids are final, so the matches so far are feasible when the budget runs out
+        while (!unmatchedUes.isEmpty() && nextRound()) {
             this.evaluatePMs();
-
-            // UE/VM matches to delete because no PM can host them
-            ArrayList<Integer> toDelete = new ArrayList<>();
-
-            for (Map.Entry<Integer, ArrayList<Preference>> entry : pmEvaluations.entrySet()) {
-                // ignore UEs/VMs that are already matched
-                if (finalMatches.stream().anyMatch(m -> m.getUe2VmMapping().getUeId()==entry.getKey())) {
+            boolean widened = false;
+
+            for (int i = 0; i < unmatchedUes.size(); i++) {
+                Ue2VmMapping mapping = unmatchedUes.get(i);
+
+                // ignore (and delete from "unmatchedUes" list) UEs/VMs for which no PM can host them (no preferences for PMs left),
+                // unless their candidates were pruned: they are then selected again among twice as many PMs, for the next round
+                if (evaluationBounds[i] == evaluationBounds[i + 1]) {
+                    Candidates candidates = candidatesByUe.get(mapping.getUeId());
+                    if (candidates != null && candidates.pruned()) {
+                        candidates = selectCandidates(mapping, null, (int) Math.min(2L * candidates.limit(), scoringKernel.getTotalPms()));
+                        candidatesByUe.put(mapping.getUeId(), candidates);
+                        if (candidates.pmIds().length > 0) {
+                            widened = true;
+                            continue;
+                        }
+                    }
+                    toDelete.set(mapping.getUeId());
                     continue;
                 }
 
-                // ignore (and delete from "unmatchedUes" list) UEs/VMs for which no PM can host them (no preferences for PMs left)
-                if (entry.getValue().isEmpty()) {
-                    toDelete.add(entry.getKey());
-                    continue;
-                }
-
-                // get argmax of pmEvaluations
-                entry.getValue().sort((b1, b2) -> new PreferenceComparator().compare(b1, b2));
-                Preference bestPref = entry.getValue().get(0);
+                // get the best and second-best PM evaluations
+                int found = pmEvaluations.topK(evaluationBounds[i], evaluationBounds[i + 1], 2, bestPrefs);
+                int bestPref = bestPrefs[0];
+                int bestPm = pmEvaluations.getReceiver(bestPref);
 
                 // ignore PMs that cannot host the UE/VM
-                if (!pmResources.get(bestPref.getReceiver()).canPerformMatch(bestPref.getUe2VmMapping().getCores(), bestPref.getUe2VmMapping().getMemory())) {
+                if (!pmResources.get(bestPm).canPerformMatch(mapping.getResources())) {
                     continue;
                 }
 
                 // get the second-best PM value
-                double bestVal = bestPref.getPreference();
-                double secondBestValue = entry.getValue().size() >= 2 ? entry.getValue().get(1).getPreference() : bestVal;
+                double bestVal = pmEvaluations.getScore(bestPref);
+                double secondBestValue = found >= 2 ? pmEvaluations.getScore(bestPrefs[1]) : bestVal;
 
                 // compute bid:     bid = valuation(j*) - second_highest_valuation + epsilon
                 double bid = bestVal - secondBestValue + epsilon;
-                bids2Pms.putIfAbsent(bestPref.getReceiver(), new ArrayList<>());
-                bids2Pms.get(bestPref.getReceiver()).add(new Preference(bestPref.getProposer(), bestPref.getReceiver(), bid, bestPref.getUe2VmMapping()));
+                bids2Pms.add(pmEvaluations.getProposer(bestPref), bestPm, bid, mapping.getUeId());
             }
 
-            if (bids2Pms.isEmpty()){
+            if (bids2Pms.isEmpty() && !widened){
                 // no PM can host any VM
                 break;
             }
 
-            // loop over all the proposed bids
-            for (Map.Entry<Integer, ArrayList<Preference>> bids2Pm : bids2Pms.entrySet()) {
-                // sort the bids by their value
-                ArrayList<Preference> bids = bids2Pm.getValue();
-                bids.sort((b1, b2) -> new PreferenceComparator().compare(b1, b2));
+            // get the winning bid of each PM (the first highest one, in case of ties)
+            Arrays.fill(winningBids, -1);
+            for (int bid = 0; bid < bids2Pms.size(); bid++) {
+                int pmId = bids2Pms.getReceiver(bid);
+                if (winningBids[pmId] == -1 || bids2Pms.getScore(bid) > bids2Pms.getScore(winningBids[pmId]))
+                    winningBids[pmId] = bid;
+            }
 
-                // get the winning bid and add it to the new matches
-                Preference winningBid = bids.get(0);
-                newMatches.add(winningBid);
+            // loop over all the PMs that received bids
+            for (int pmId = 0; pmId < winningBids.length; pmId++) {
+                int winningBid = winningBids[pmId];
+                if (winningBid == -1)
+                    continue;
+
+                // add the winning bid to the final UE/VM/PM mapping list
+                Ue2VmMapping mapping = mappingsByUeId.get(bids2Pms.getUeId(winningBid));
+                this.finalMatches.add(bids2Pms.toPreference(winningBid, mapping));
+                matchedUes.set(mapping.getUeId());
 
                 // update the price of the PM
-                Ue2VmMapping mapping = winningBid.getUe2VmMapping();
-                double currPrice = pmPrices.getOrDefault(bids2Pm.getKey(), 0.0);
-                double updatedPrice = 0.6 * winningBid.getPreference() + (1 - 0.6) * currPrice;
-                pmPrices.put(bids2Pm.getKey(), updatedPrice);
+                double currPrice = pmPrices.getOrDefault(pmId, 0.0);
+                double updatedPrice = 0.6 * bids2Pms.getScore(winningBid) + (1 - 0.6) * currPrice;
+                pmPrices.put(pmId, updatedPrice);
+                scoringKernel.setPrice(pmId, updatedPrice);
 
                 // (temporarily) allocate the PM resources
-                pmResources.get(bids2Pm.getKey()).allocateResources(mapping.getCores(), mapping.getMemory());
+                pmResources.get(pmId).allocateResources(mapping.getResources());
             }
 
-            // remove the unmatched UEs for which there are no PMs available
-            unmatchedUes.removeIf(m -> toDelete.contains(m.getUeId()));
-
-            // remove the matched UEs/VMs from the unmatched list
-            newMatches.forEach(match -> unmatchedUes.removeIf(mapping -> mapping.getUeId() == match.getUe2VmMapping().getUeId()));
-
-            // add new matches to the final UE/VM/PM mapping list
-            this.finalMatches.addAll(newMatches);
-            newMatches.clear();
+            // remove the matched UEs/VMs, and the ones for which there are no PMs available, from the unmatched list
+            unmatchedUes.removeIf(m -> matchedUes.get(m.getUeId()) || toDelete.get(m.getUeId()));
 
             // clear current iteration's bids
             bids2Pms.clear();
@@ -200,13 +285,47 @@ public class AuctionAlg extends MatchingAlg {
      * @return the results of the algorithm
      */
     @Override
-    public AlgorithmResults run(boolean verbose) {
+    protected AlgorithmResults runMatching(boolean verbose) {
+        DenseIntMap<Ue2VmMapping> mappingsByUeId = getMappingsByUeId();
+
+        // keep the still valid matches of the initial state (if any), with their PM resources and the PM prices
+        BitSet keptUes = keepInitialMatches(mappingsByUeId);
+        for (Preference match : this.finalMatches)
+            pmResources.get(match.getReceiver()).allocateResources(match.getUe2VmMapping().getResources());
+        if (initialState != null) {
+            initialState.getPmPrices().forEach((pmId, price) -> {
+                pmPrices.put(pmId, price);
+                scoringKernel.setPrice(pmId, price);
+            });
+        }
 
-        // compute the energy costs for each (used) VM to each PMs
-        this.computeEnergyCosts();
+        // list of not yet matched UEs (in a warm start, only the ones affected by the change, possibly with fewer candidate PMs)
+        unmatchedUes.clear();
+        candidatePmsByUe.clear();
+        for (Ue2VmMapping mapping : mecService.getUe2VmMappings()) {
+            BitSet candidatePms = getCandidatePms(mapping, keptUes);
+            if (candidatePms == null) {
+                unmatchedUes.add(mapping);
+            }
+            else if (!candidatePms.isEmpty()) {
+                unmatchedUes.add(mapping);
+                candidatePmsByUe.put(mapping.getUeId(), candidatePms);
+            }
+        }
+
+        // compute the energy costs for each (used) VM to each PMs, or to its candidate PMs only
+        candidatesByUe.clear();
+        if (candidatePmsPerUe == ALL_PMS) {
+            this.computeEnergyCosts();
+        }
+        else {
+            scoringKernel.updateResources(pmResources);
+            for (Ue2VmMapping mapping : unmatchedUes)
+                candidatesByUe.put(mapping.getUeId(), selectCandidates(mapping, candidatePmsByUe.get(mapping.getUeId()), candidatePmsPerUe));
+        }
 
         // perform the UE/VM-PM auction
-        this.vm2PmAuction();
+        this.vm2PmAuction(mappingsByUeId);
 
         // allocate the matches to the PMs based on the found matches
         this.allocateMatchesToPMs();
@@ -215,6 +334,16 @@ public class AuctionAlg extends MatchingAlg {
         return prepareResults();
     }
 
+    @Override
+    protected Map<Integer, Double> getPmPrices() {
+        return pmPrices.toMap();
+    }
+
+    @Override
+    public boolean supportsWarmStart() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "Auction-based";
@@ -0,0 +1,77 @@
+package algorithm;
+
+import algorithm.model.AlgorithmResults;
+import algorithm.model.Ue2VmMapping;
+import algorithm.utils.BranchAndBoundSolver;
+
+import java.util.ArrayList;
+
+/**
+ * Exact placement baseline (see BranchAndBoundSolver): it maximizes the allocated UEs and then minimizes the energy
+ * consumption. Meant for small and medium instances, to measure the optimality gap of the heuristic algorithms.
+ */
+public class BranchAndBoundAlg extends MatchingAlg {
+    private final long timeLimitMillis;
+    private final int parallelism;
+    private BranchAndBoundSolver.Solution solution = null;
+
+    /**
+     * @param timeLimitMillis the time limit of the search in milliseconds
+     * @param parallelism the number of threads exploring the search tree
+     */
+    public BranchAndBoundAlg(long timeLimitMillis, int parallelism) {
+        if (timeLimitMillis <= 0 || parallelism <= 0)
+            throw new IllegalArgumentException("Invalid time limit or parallelism");
+        this.timeLimitMillis = timeLimitMillis;
+        this.parallelism = parallelism;
+    }
+
+    public BranchAndBoundAlg(long timeLimitMillis) {
+        this(timeLimitMillis, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    protected AlgorithmResults runMatching(boolean verbose) {
+        ArrayList<Ue2VmMapping> mappings = mecService.getUe2VmMappings();
+        BranchAndBoundSolver solver = new BranchAndBoundSolver(mecService, energyService, mappings);
+        // the time limit is also capped by the budget of the run; the run converged if the search completed
+        solution = solver.solve(Math.max(Math.min(timeLimitMillis, getRemainingNanos() / 1_000_000), 1), parallelism);
+        converged = solution.optimal();
+
+        for (int i = 0; i < mappings.size(); i++) {
+            int pmId = solution.pmByMapping()[i];
+            if (pmId == -1)
+                continue;
+
+            Ue2VmMapping mapping = mappings.get(i);
+            boolean allocated = allocateUe(mapping.getVmId(), pmId, mapping.getCores(), mapping.getMemory());
+            if (verbose && allocated)
+                System.out.println("\t UE_" + mapping.getUeId() + " assigned to VM_" + mapping.getVmId() + " allocated to " + mecService.getPM(pmId).getShortName() + " with " + mapping.getCores() + " cores and " + mapping.getMemory() + " GBs");
+        }
+        if (verbose)
+            System.out.println((solution.optimal() ? "Optimal" : "Time limit reached, best") + " solution found exploring " + solution.exploredNodes() + " nodes");
+
+        return prepareResults();
+    }
+
+    /**
+     * Check if the placement of the last run is proven optimal (i.e. the search ended before the time limit).
+     * @return true if the placement is optimal, false otherwise
+     */
+    public boolean isOptimal() {
+        return solution != null && solution.optimal();
+    }
+
+    /**
+     * Get the number of nodes of the search tree explored in the last run.
+     * @return the number of explored nodes
+     */
+    public long getExploredNodes() {
+        return solution == null ? 0 : solution.exploredNodes();
+    }
+
+    @Override
+    public String getName() {
+        return "Branch-and-bound (exact)";
+    }
+}
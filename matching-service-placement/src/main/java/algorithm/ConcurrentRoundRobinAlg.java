@@ -0,0 +1,110 @@
+package algorithm;
+
+import algorithm.model.AlgorithmResults;
+import algorithm.model.Ue2VmMapping;
+import service.PlacementService;
+import utils.collections.IndexSort;
+
+import java.util.List;
+
+/**
+ * Round robin placement from many threads (see PlacementService.placeRoundRobin): the UEs are split among the threads, and
+ * each thread places its UEs round robin on its own shard of the PMs first. The placements are made on the concurrent
+ * copy of the mapping, then committed to the system mapping.
+ */
+public class ConcurrentRoundRobinAlg extends MatchingAlg {
+    private final int totalThreads;
+
+    public ConcurrentRoundRobinAlg(int totalThreads) {
+        super();
+        if (totalThreads <= 0)
+            throw new IllegalArgumentException("Invalid number of threads");
+        this.totalThreads = totalThreads;
+    }
+
+    public ConcurrentRoundRobinAlg() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    protected AlgorithmResults runMatching(boolean verbose) {
+        PlacementService placementService = PlacementService.getInstance();
+        placementService.refresh();
+
+        List<Ue2VmMapping> mappings = mecService.getUe2VmMappings();
+        int[] vmIds = new int[mappings.size()];
+        int[] cores = new int[mappings.size()];
+        int[] memory = new int[mappings.size()];
+        for (int i = 0; i < mappings.size(); i++) {
+            vmIds[i] = mappings.get(i).getVmId();
+            cores[i] = mappings.get(i).getCores();
+            memory[i] = mappings.get(i).getMemory();
+        }
+
+        int[] pmIds = placementService.placeRoundRobin(vmIds, cores, memory, totalThreads);
+
+        // the placed UEs grouped by VM/PM cell, with the resources of each cell before the commit
+        int totalPms = mecService.getNumberOfPMs();
+        int totalPlaced = 0;
+        int[] placed = new int[pmIds.length];
+        double[] cellKeys = new double[pmIds.length];
+        for (int i = 0; i < pmIds.length; i++) {
+            if (pmIds[i] != -1) {
+                placed[totalPlaced++] = i;
+                cellKeys[i] = (double) vmIds[i] * totalPms + pmIds[i];
+            }
+        }
+        IndexSort.sortDescending(placed, 0, totalPlaced, cellKeys, new int[totalPlaced]);
+        int[] cellCores = new int[totalPlaced];
+        int[] cellGbs = new int[totalPlaced];
+        for (int k = 0; k < totalPlaced; k++) {
+            int i = placed[k];
+            if (k == 0 || cellKeys[placed[k - 1]] != cellKeys[i]) {
+                cellCores[k] = mecService.getVmCores2Pm(vmIds[i], pmIds[i]);
+                cellGbs[k] = mecService.getVmGb2Pm(vmIds[i], pmIds[i]);
+            }
+        }
+
+        placementService.commit();
+
+        // a cell counts its UEs as allocated only if it holds all their resources once committed (as in allocateUe)
+        for (int first = 0, last; first < totalPlaced; first = last) {
+            int expectedCores = cellCores[first];
+            int expectedGbs = cellGbs[first];
+            for (last = first; last < totalPlaced && cellKeys[placed[last]] == cellKeys[placed[first]]; last++) {
+                expectedCores += cores[placed[last]];
+                expectedGbs += memory[placed[last]];
+            }
+            int vmId = vmIds[placed[first]];
+            int pmId = pmIds[placed[first]];
+            boolean allocated = mecService.getVmCores2Pm(vmId, pmId) == expectedCores && mecService.getVmGb2Pm(vmId, pmId) == expectedGbs;
+            if (allocated)
+                this.totalAllocatedUEs += last - first;
+            if (verbose) {
+                for (int k = first; k < last; k++) {
+                    int ueId = mappings.get(placed[k]).getUeId();
+                    if (allocated)
+                        System.out.println("\t UE_" + ueId + " assigned to VM_" + vmId + " allocated to " + mecService.getPM(pmId).getShortName() + " with " + cores[placed[k]] + " cores and " + memory[placed[k]] + " GBs");
+                    else
+                        System.out.println("\t  ERROR ::: UE" + ueId + " cannot be allocated to VM_" + vmId + " allocated to " + mecService.getPM(pmId).getShortName() + " with " + cores[placed[k]] + " cores and " + memory[placed[k]] + " GBs");
+                }
+            }
+        }
+        for (int i = 0; i < pmIds.length; i++) {
+            if (pmIds[i] != -1)
+                continue;
+            // the UEs without resources need no PM (an empty placement, as in allocateUe)
+            if (cores[i] == 0 && memory[i] == 0)
+                this.totalAllocatedUEs++;
+            else if (verbose)
+                System.out.println("NO AVAILABLE PM FOUND FOR UE_" + mappings.get(i).getUeId());
+        }
+
+        return prepareResults();
+    }
+
+    @Override
+    public String getName() {
+        return "Round Robin (concurrent, threads=" + totalThreads + ")";
+    }
+}
@@ -1,21 +1,30 @@
 package algorithm;
 
 import algorithm.model.AlgorithmResults;
-import algorithm.model.ResourceAvailability;
 import algorithm.model.Preference;
+import algorithm.model.PreferenceTable;
+import algorithm.model.ResourceAvailability;
+import algorithm.model.ResourceTable;
 import algorithm.model.Ue2VmMapping;
-import algorithm.utils.PreferenceComparator;
+import algorithm.utils.PmScoringKernel;
 import model.PM;
+import utils.collections.DenseIntMap;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class GaleShapleyAlg extends MatchingAlg {
-    private final HashMap<Integer, ArrayList<Preference>> vmsPreferences;
-    private final HashMap<Integer, ArrayList<Preference>> pmsPreferences;
+    // preferences keyed by VM and PM id: the tables are cleared and filled again at each computation, so that their arrays are reused
+    private final DenseIntMap<PreferenceTable> vmsPreferences;
+    private final DenseIntMap<PreferenceTable> pmsPreferences;
     // keep track of the available resources on each PM, considering the (temporarily) accepted UE/VM proposals
-    private final HashMap<Integer, ResourceAvailability> pmResources;
+    private final DenseIntMap<ResourceAvailability> pmResources;
+    private DenseIntMap<Ue2VmMapping> mappingsByUeId;
+    private PmScoringKernel scoringKernel;
+    // candidate pruning (see setCandidatePmsPerUe): current number of candidate PMs per UE, UEs whose candidates were pruned
+    // to that number, and pruned UEs rejected by all their candidates
+    private int candidateLimit;
+    private final BitSet prunedUes = new BitSet();
+    private final BitSet exhaustedUes = new BitSet();
     private final double loadBalancingCoeff;
     private final double consolidationCoeff;
     private final double energyCoeff;
@@ -42,45 +51,125 @@ public class GaleShapleyAlg extends MatchingAlg {
         this.onlyAcceptsBestMatch = onlyAcceptsBestMatch;
         this.fragmentationInVMPreference = fragmentationInVMPreference;
         this.useDynamicPrefs = useDynamicPrefs;
-        this.vmsPreferences = new HashMap<>();
-        this.pmsPreferences = new HashMap<>();
-        this.pmResources = new HashMap<>();
+        this.vmsPreferences = new DenseIntMap<>();
+        this.pmsPreferences = new DenseIntMap<>();
+        this.pmResources = new DenseIntMap<>();
     }
 
     /**
      * Compute the preferences of all possible VM-to-PM match (and vice-versa) based on the available resources and energy consumption.
+     * In a warm start, only the UEs affected by the change are considered, with their candidate PMs (see getCandidatePms).
+     * With candidate pruning, only the most promising of these PMs are considered (see selectCandidates).
+     * @param keptUes UEs whose match was kept from the initial state
      */
-    protected void computePreferences() {
-        HashMap<Ue2VmMapping, ArrayList<PM>> mappingMatches = new HashMap<>();
+    protected void computePreferences(BitSet keptUes) {
+        int[] pmIds = mecService.getPMs().stream().mapToInt(PM::getId).toArray();
+        scoringKernel.updateResources(pmResources);
+
+        LinkedHashMap<Ue2VmMapping, int[]> mappingMatches = new LinkedHashMap<>();
         for (Ue2VmMapping ue2VmMapping : mecService.getUe2VmMappings()) {
-            for (PM pm : mecService.getPMs()) {
-                mappingMatches.putIfAbsent(ue2VmMapping, new ArrayList<>());
+            BitSet candidatePms = getCandidatePms(ue2VmMapping, keptUes);
+            if (candidatePms != null && candidatePms.isEmpty())
+                continue;
 
-                if (!mappingMatches.get(ue2VmMapping).contains(pm))
-                    mappingMatches.get(ue2VmMapping).add(pm);
-            }
+            if (candidatePmsPerUe != ALL_PMS)
+                mappingMatches.put(ue2VmMapping, selectCandidates(ue2VmMapping, candidatePms));
+            else if (candidatePms == null)
+                mappingMatches.put(ue2VmMapping, pmIds);
+            else
+                mappingMatches.put(ue2VmMapping, candidatePms.stream().toArray());
         }
 
         computePreferences(mappingMatches);
     }
 
     /**
-     * Compute the preferences of the VMs and PMs, considering only the specified VM-to-PM assignments.
-     * @param uePrefs assignments to be considered (i.e. the VM preferences to be computed for the PMs)
+     * Select the most promising PMs for a UE/VM (at most candidateLimit, see PmScoringKernel.selectCandidates), among the
+     * feasible ones and the allowed ones, and keep track of the UEs whose candidates were pruned.
+     * The PM resources of the scoring kernel must be up to date.
+     * @param ue2VmMapping the UE-to-VM mapping
+     * @param allowedPms the PMs to select from (null for all of them)
+     * @return the selected PM ids
+     */
+    private int[] selectCandidates(Ue2VmMapping ue2VmMapping, BitSet allowedPms) {
+        BitSet feasiblePms = mecService.getFeasiblePms(ue2VmMapping.getVmId(), ue2VmMapping.getCores(), ue2VmMapping.getMemory());
+        if (allowedPms != null) {
+            feasiblePms = (BitSet) feasiblePms.clone();
+            feasiblePms.and(allowedPms);
+        }
+
+        int totalPms = scoringKernel.getTotalPms();
+        int[] candidates = new int[Math.min(candidateLimit, totalPms)];
+        int totalCandidates = scoringKernel.selectCandidates(ue2VmMapping.getCores(), ue2VmMapping.getMemory(), feasiblePms, candidates.length, candidates);
+        if (candidateLimit < totalPms && totalCandidates == candidateLimit)
+            prunedUes.set(ue2VmMapping.getUeId());
+        else
+            prunedUes.clear(ue2VmMapping.getUeId());
+        return Arrays.copyOf(candidates, totalCandidates);
+    }
+
+    /**
+     * Widen the candidate PMs of the pruned UEs rejected by all their candidates: their preferences are computed again on
+     * twice as many PMs, selected with the current PM resources (all the other UEs are matched or have no PMs left).
+     * @param tempUesPrefs the UE preferences, replaced by the ones of the widened UEs
+     * @param unmatchedUes the unmatched UEs, to which the widened UEs are added
+     * @return true if some UEs were widened
+     */
+    private boolean widenCandidates(DenseIntMap<PreferenceTable> tempUesPrefs, BitSet unmatchedUes) {
+        if (exhaustedUes.isEmpty())
+            return false;
+
+        candidateLimit = (int) Math.min(2L * candidateLimit, scoringKernel.getTotalPms());
+        scoringKernel.updateResources(pmResources);
+        LinkedHashMap<Ue2VmMapping, int[]> mappingMatches = new LinkedHashMap<>();
+        for (int ueId = exhaustedUes.nextSetBit(0); ueId >= 0; ueId = exhaustedUes.nextSetBit(ueId + 1)) {
+            Ue2VmMapping ue2VmMapping = mappingsByUeId.get(ueId);
+            int[] candidates = selectCandidates(ue2VmMapping, null);
+            if (candidates.length > 0)
+                mappingMatches.put(ue2VmMapping, candidates);
+        }
+        exhaustedUes.clear();
+        if (mappingMatches.isEmpty())
+            return false;
+
+        computePreferences(mappingMatches);
+        tempUesPrefs.clear();
+        addUePreferences(tempUesPrefs);
+        for (int ueId = tempUesPrefs.nextKey(0); ueId >= 0; ueId = tempUesPrefs.nextKey(ueId + 1))
+            unmatchedUes.set(ueId);
+        return true;
+    }
+
+    /**
+     * Group the VM preferences by UE.
+     * @param tempUesPrefs the preferences of each UE/VM to PMs, keyed by UE id
      */
-    protected void computePreferences(List<ArrayList<Preference>> uePrefs) {
-        HashMap<Ue2VmMapping, ArrayList<PM>> mappingMatches = new HashMap<>();
+    private void addUePreferences(DenseIntMap<PreferenceTable> tempUesPrefs) {
+        this.vmsPreferences.forEachValue(vmPreferences -> {
+            for (int i = 0; i < vmPreferences.size(); i++) {
+                tempUesPrefs.computeIfAbsent(vmPreferences.getUeId(i), k -> new PreferenceTable()).add(vmPreferences, i);
+            }
+        });
+    }
 
-        for (List<Preference> uePref : uePrefs) {
-            for (Preference pref : uePref) {
+    /**
+     * Compute the preferences of the VMs and PMs, considering only the specified VM-to-PM assignments.
+     * @param uePrefs assignments to be considered (i.e. the VM preferences to be computed for the PMs), keyed by UE id
+     */
+    protected void computePreferences(DenseIntMap<PreferenceTable> uePrefs) {
+        LinkedHashMap<Ue2VmMapping, int[]> mappingMatches = new LinkedHashMap<>();
 
-                Ue2VmMapping ue2VmMapping = pref.getUe2VmMapping();
-                PM pm = mecService.getPM(pref.getReceiver());
-                mappingMatches.putIfAbsent(ue2VmMapping, new ArrayList<>());
+        for (int ueId = uePrefs.nextKey(0); ueId >= 0; ueId = uePrefs.nextKey(ueId + 1)) {
+            PreferenceTable uePref = uePrefs.get(ueId);
+            if (uePref.isEmpty())
+                continue;
 
-                if (!mappingMatches.get(ue2VmMapping).contains(pm))
-                    mappingMatches.get(ue2VmMapping).add(pm);
+            // each UE preference list holds at most one preference per PM
+            int[] pmIds = new int[uePref.size()];
+            for (int i = 0; i < uePref.size(); i++) {
+                pmIds[i] = uePref.getReceiver(i);
             }
+            mappingMatches.put(mappingsByUeId.get(uePref.getUeId(0)), pmIds);
         }
 
         computePreferences(mappingMatches);
@@ -88,247 +177,309 @@ public class GaleShapleyAlg extends MatchingAlg {
 
     /**
      * Compute the preferences of the VMs and PMs, considering only the specified VM-to-PM assignments.
-     * @param mappingMatches assignments to be considered
+     * @param mappingMatches assignments to be considered (PM ids for each UE-to-VM mapping)
      */
-    private void computePreferences(HashMap<Ue2VmMapping, ArrayList<PM>> mappingMatches) {
-        HashMap<Integer, ArrayList<Preference>> tempVmsPreferences = new HashMap<>();
-        HashMap<Integer, ArrayList<Preference>> tempPmsPreferences = new HashMap<>();
-        HashMap<Integer, ArrayList<Double>> pmsEnergyConsumptions = new HashMap<>();
-        ArrayList<Double> energyConsumptions = new ArrayList<>();
-
-        for (Ue2VmMapping ue2VmMapping : mappingMatches.keySet()) {
+    private void computePreferences(LinkedHashMap<Ue2VmMapping, int[]> mappingMatches) {
+        this.vmsPreferences.forEachValue(PreferenceTable::clear);
+        this.pmsPreferences.forEachValue(PreferenceTable::clear);
+
+        // score all the PMs at once for each UE/VM (the energy consumptions once per PM class), then pick the scores of the candidate PMs
+        int totalPms = scoringKernel.getTotalPms();
+        double computationDuration = energyService.getComputationDurationTime();
+        double[] loadBalancingScores = new double[totalPms];
+        double[] consolidationScores = new double[totalPms];
+        double[] energyConsumptionsBuffer = new double[scoringKernel.getTotalClasses()];
+        double[] energyConsumptions = new double[totalPms];
+        scoringKernel.updateResources(pmResources);
+        scoringKernel.scoreLoadBalancing(this.loadBalancingCoeff, loadBalancingScores);
+
+        for (Map.Entry<Ue2VmMapping, int[]> mappingMatch : mappingMatches.entrySet()) {
+            Ue2VmMapping ue2VmMapping = mappingMatch.getKey();
             int vmId = ue2VmMapping.getVmId();
             int cores = ue2VmMapping.getCores();
             int memory = ue2VmMapping.getMemory();
 
-            energyConsumptions.clear();
-            for (PM pm : mappingMatches.get(ue2VmMapping)) {
-                if (mecService.checkEnoughPmResources(vmId, pm.getId(), cores, memory) && mecService.checkAssignmentAllowed(vmId, pm.getId())) {
-
-                    double energyConsumption = energyService.getEnergyConsumptionWithVmCoresAndPm(mecService.getVM(vmId), cores, pm);
-                    energyConsumptions.add(energyConsumption);
-
-                    // vmPreference = -energyCoeff*energyConsumptionPerVm(vm, cores, pm) + loadBalancingCoeff*availableResrcs(pm)
-                    double vmPartialPreference = this.loadBalancingCoeff * (((double)pmResources.get(pm.getId()).getAvailableCores())/pmResources.get(pm.getId()).getTotCores() +
-                            ((double)pmResources.get(pm.getId()).getAvailableMemory()/pmResources.get(pm.getId()).getTotMemory()))/2.0;
+            BitSet feasiblePms = mecService.getFeasiblePms(vmId, cores, memory);
+            double energyConsumptionPerCoreOps = mecService.getVM(vmId).getEnergyConsumptionPerCoreOps();
+            double[] pmsEnergyConsumptions;
+            if (scenarioCache != null) {
+                // the energy consumptions only depend on the scenario, so they can be shared between rounds and runs
+                pmsEnergyConsumptions = scenarioCache.getEnergyConsumptions(ue2VmMapping.getUeId(), k -> {
+                    double[] consumptions = new double[scoringKernel.getTotalClasses()];
+                    scoringKernel.energyConsumptions(computationDuration, cores, energyConsumptionPerCoreOps, consumptions);
+                    return consumptions;
+                });
+            }
+            else {
+                pmsEnergyConsumptions = energyConsumptionsBuffer;
+                scoringKernel.energyConsumptions(computationDuration, cores, energyConsumptionPerCoreOps, pmsEnergyConsumptions);
+            }
+            if (this.fragmentationInVMPreference)
+                scoringKernel.scoreConsolidation(cores, memory, this.consolidationCoeff, consolidationScores);
 
-                    // pmPreference = -energyCoeff*energyConsumptionPerPm(pm, cores, vm) + consolidationCoeff*resrcsUsage(pm)
-                    double pmPartialPreference = this.consolidationCoeff * (((double)pmResources.get(pm.getId()).getUsedCores() + cores)/pmResources.get(pm.getId()).getTotCores() +
-                            ((double)pmResources.get(pm.getId()).getUsedMemory() + memory)/pmResources.get(pm.getId()).getTotMemory())/2.0;
+            int totalConsumptions = 0;
+            for (int pmId : mappingMatch.getValue()) {
+                if (feasiblePms.get(pmId)) {
 
-                    if (this.fragmentationInVMPreference){
-                        vmPartialPreference += this.consolidationCoeff * (((double)pmResources.get(pm.getId()).getUsedCores() + cores)/pmResources.get(pm.getId()).getTotCores() +
-                                ((double)pmResources.get(pm.getId()).getUsedMemory() + memory)/pmResources.get(pm.getId()).getTotMemory())/2.0;
+                    double energyConsumption = pmsEnergyConsumptions[scoringKernel.getPmClass(pmId)];
+                    energyConsumptions[totalConsumptions++] = energyConsumption;
 
-                        pmPartialPreference = 0;
-                    }
+                    // vmPreference = -energyCoeff*energyConsumptionPerVm(vm, cores, pm) + loadBalancingCoeff*availableResrcs(pm)
+                    double vmPartialPreference = loadBalancingScores[pmId];
+                    if (this.fragmentationInVMPreference)
+                        vmPartialPreference += consolidationScores[pmId];
 
-                    tempVmsPreferences.putIfAbsent(vmId, new ArrayList<>());
-                    tempVmsPreferences.get(vmId).add(new Preference(vmId, pm.getId(), vmPartialPreference, ue2VmMapping));
+                    this.vmsPreferences.computeIfAbsent(vmId, k -> new PreferenceTable()).add(vmId, pmId, vmPartialPreference, ue2VmMapping.getUeId());
 
-                    pmsEnergyConsumptions.putIfAbsent(pm.getId(), new ArrayList<>());
-                    pmsEnergyConsumptions.get(pm.getId()).add(energyConsumption);
-                    tempPmsPreferences.putIfAbsent(pm.getId(), new ArrayList<>());
-                    tempPmsPreferences.get(pm.getId()).add(new Preference(vmId, pm.getId(), pmPartialPreference, ue2VmMapping));
+                    // the PM preferences temporarily store the energy consumption, normalized below for each PM
+                    this.pmsPreferences.computeIfAbsent(pmId, k -> new PreferenceTable()).add(vmId, pmId, energyConsumption, ue2VmMapping.getUeId());
                 }
             }
             // normEnergyCons = (energyConsumption - minEnergyCons) / (maxEnergyCons - minEnergyCons)
-            double minEnergyCons = energyConsumptions.stream().min(Double::compare).orElse(0.);
-            double maxEnergyCons = energyConsumptions.stream().max(Double::compare).orElse(1e-8);
+            double minEnergyCons = totalConsumptions > 0 ? Double.MAX_VALUE : 0.;
+            double maxEnergyCons = totalConsumptions > 0 ? -Double.MAX_VALUE : 1e-8;
+            for (int i = 0; i < totalConsumptions; i++) {
+                minEnergyCons = Math.min(minEnergyCons, energyConsumptions[i]);
+                maxEnergyCons = Math.max(maxEnergyCons, energyConsumptions[i]);
+            }
 
             if (Math.abs(maxEnergyCons - minEnergyCons) < 1e-8)
                 continue;
-            for (int i = 0; i < energyConsumptions.size(); i++) {
-                double normalizedEnergy = this.energyCoeff * (energyConsumptions.get(i) - minEnergyCons) / (maxEnergyCons - minEnergyCons + 1e-6);
-                tempVmsPreferences.get(vmId).get(i).setPreference(tempVmsPreferences.get(vmId).get(i).getPreference() - normalizedEnergy);
+            PreferenceTable vmPreferences = this.vmsPreferences.get(vmId);
+            for (int i = 0; i < totalConsumptions; i++) {
+                double normalizedEnergy = this.energyCoeff * (energyConsumptions[i] - minEnergyCons) / (maxEnergyCons - minEnergyCons + 1e-6);
+                vmPreferences.setScore(i, vmPreferences.getScore(i) - normalizedEnergy);
             }
         }
 
-        for (Map.Entry<Integer, ArrayList<Double>> entry : pmsEnergyConsumptions.entrySet()) {
-            double minEnergyCons = entry.getValue().stream().min(Double::compare).orElse(0.);
-            double maxEnergyCons = entry.getValue().stream().max(Double::compare).orElse(1e-8);
+        this.pmsPreferences.forEachValue(pmPreferences -> {
+            double minEnergyCons = Double.MAX_VALUE;
+            double maxEnergyCons = -Double.MAX_VALUE;
+            for (int i = 0; i < pmPreferences.size(); i++) {
+                minEnergyCons = Math.min(minEnergyCons, pmPreferences.getScore(i));
+                maxEnergyCons = Math.max(maxEnergyCons, pmPreferences.getScore(i));
+            }
 
-            if (Math.abs(maxEnergyCons - minEnergyCons) < 1e-8)
-                continue;
-            for (int i = 0; i < entry.getValue().size(); i++) {
-                    double normalizedEnergy = this.energyCoeff * (entry.getValue().get(i) - minEnergyCons) / (maxEnergyCons - minEnergyCons + 1e-6);
-                    tempPmsPreferences.get(entry.getKey()).get(i).setPreference(tempPmsPreferences.get(entry.getKey()).get(i).getPreference() - normalizedEnergy);
+            boolean normalizeEnergy = Math.abs(maxEnergyCons - minEnergyCons) >= 1e-8;
+            for (int i = 0; i < pmPreferences.size(); i++) {
+                // pmPreference = -energyCoeff*energyConsumptionPerPm(pm, cores, vm) + consolidationCoeff*resrcsUsage(pm)
+                Ue2VmMapping ue2VmMapping = mappingsByUeId.get(pmPreferences.getUeId(i));
+                double pmPartialPreference = this.getPmPartialPreference(pmPreferences.getReceiver(i), ue2VmMapping.getCores(), ue2VmMapping.getMemory());
+                if (normalizeEnergy) {
+                    double normalizedEnergy = this.energyCoeff * (pmPreferences.getScore(i) - minEnergyCons) / (maxEnergyCons - minEnergyCons + 1e-6);
+                    pmPartialPreference -= normalizedEnergy;
+                }
+                pmPreferences.setScore(i, pmPartialPreference);
             }
-        }
+        });
 
-        tempPmsPreferences.replaceAll((k, v) -> IntStream.range(0, v.size())
-                .boxed()
-                .sorted((o1, o2) -> new PreferenceComparator().compare(v.get(o1), v.get(o2)))
-                .map(v::get).collect(Collectors.toCollection(ArrayList::new)));
+        this.pmsPreferences.forEachValue(PreferenceTable::sortDescending);
+        this.vmsPreferences.forEachValue(PreferenceTable::sortDescending);
+    }
 
-        tempVmsPreferences.replaceAll((k, v) -> IntStream.range(0, v.size())
-                .boxed()
-                .sorted((o1, o2) -> new PreferenceComparator().compare(v.get(o1), v.get(o2)))
-                .map(v::get).collect(Collectors.toCollection(ArrayList::new)));
+    /**
+     * Compute the partial preference of a PM for a VM, i.e. without the energy consumption term.
+     * @param pmId the PM id
+     * @param cores the number of cores requested by the UE/VM
+     * @param memory the number of memory GBs requested by the UE/VM
+     * @return the partial preference of the PM
+     */
+    private double getPmPartialPreference(int pmId, int cores, int memory) {
+        if (this.fragmentationInVMPreference)
+            return 0;
+
+        return getConsolidationPreference(pmResources.get(pmId), cores, memory);
+    }
 
-        this.vmsPreferences.clear();
-        this.pmsPreferences.clear();
-        this.vmsPreferences.putAll(tempVmsPreferences);
-        this.pmsPreferences.putAll(tempPmsPreferences);
+    private double getConsolidationPreference(ResourceAvailability resources, int cores, int memory) {
+        return this.consolidationCoeff * (((double)resources.getUsedCores() + cores)/resources.getTotCores() +
+                ((double)resources.getUsedMemory() + memory)/resources.getTotMemory())/2.0;
     }
 
     /**
      * Gale-Shapley main loop algorithm to match VMs to PMs.
      */
     private void vmToPmMatching() {
-        ArrayList<Preference> matches = new ArrayList<>();
+        // accepted UE/VM proposals (the receiver is the PM)
+        PreferenceTable matches = new PreferenceTable();
 
         // map of PMs and their partial matches (already accepted VMs)
-        HashMap<Integer, ArrayList<Preference>> pmsPartialMatches = new HashMap<>();
-
+        DenseIntMap<PreferenceTable> pmsPartialMatches = new DenseIntMap<>(mecService.getNumberOfPMs());
 
+        ResourceTable pmTable = ResourceTable.ofPms(mecService.getPMs());
         for (PM pm : mecService.getPMs()) {
-            pmResources.put(pm.getId(), new ResourceAvailability(pm.getId(), pm.getTotCores(), pm.getTotMemoryGB(), pm.getMaxVmsHosted()));
+            pmResources.put(pm.getId(), pmTable.view(pm.getId()));
         }
 
-        this.computePreferences();
+        this.mappingsByUeId = getMappingsByUeId();
 
-        // map of UEs/VMs and their preferences to PMs
-        HashMap<Integer, ArrayList<Preference>> tempUesPrefs = new HashMap<>();
-        for (Map.Entry<Integer, ArrayList<Preference>> vmPreferences : this.vmsPreferences.entrySet()) {
-            for (Preference vmPref : vmPreferences.getValue()) {
-                tempUesPrefs.putIfAbsent(vmPref.getUe2VmMapping().getUeId(), new ArrayList<>());
-                tempUesPrefs.get(vmPref.getUe2VmMapping().getUeId()).add(vmPref);
-            }
+        // keep the still valid matches of the initial state (if any) in the accepted sets of their PMs
+        BitSet keptUes = keepInitialMatches(mappingsByUeId);
+        for (Preference match : this.finalMatches) {
+            pmResources.get(match.getReceiver()).allocateResources(match.getUe2VmMapping().getResources());
+            pmsPartialMatches.computeIfAbsent(match.getReceiver(), k -> new PreferenceTable()).add(match.getProposer(), match.getReceiver(), match.getPreference(), match.getUe2VmMapping().getUeId());
         }
 
-        // list of not yet matched UEs
-        ArrayList<Integer> unmatchedUes = new ArrayList<>(tempUesPrefs.keySet());
+        this.scoringKernel = new PmScoringKernel(mecService.getPMs());
+        this.candidateLimit = candidatePmsPerUe;
+        this.computePreferences(keptUes);
+
+        // map of UEs/VMs and their preferences to PMs
+        DenseIntMap<PreferenceTable> tempUesPrefs = new DenseIntMap<>(mecService.getNumberOfUEs());
+        addUePreferences(tempUesPrefs);
+
+        // set of not yet matched UEs
+        BitSet unmatchedUes = new BitSet();
+        for (int ueId = tempUesPrefs.nextKey(0); ueId >= 0; ueId = tempUesPrefs.nextKey(ueId + 1))
+            unmatchedUes.set(ueId);
+
+        // new proposals at each iteration/round, grouped by the PM that received them (with the PM preference for the proposer)
+        DenseIntMap<PreferenceTable> pmsProposals = new DenseIntMap<>(mecService.getNumberOfPMs());
+        BitSet proposedPms = new BitSet();
 
-        // list of new matches at each iteration/round
-        ArrayList<Preference> newMatches = new ArrayList<>();
+        // proposals rejected because of resource unavailability
+        PreferenceTable matchesToRemove = new PreferenceTable();
 
-        // loop until all UEs are matched (or have no preferences left)
-        while (!unmatchedUes.isEmpty()){
-            // clear the new matches list for the current iteration
-            newMatches.clear();
+        // loop until all UEs are matched (or have no preferences left, after widening the pruned candidates), or the budget runs out: the accepted proposals are final, so the matches so far are feasible
+        while ((!unmatchedUes.isEmpty() || widenCandidates(tempUesPrefs, unmatchedUes)) && nextRound()){
+            // clear the proposals for the current iteration
+            proposedPms.stream().forEach(pmId -> pmsProposals.get(pmId).clear());
+            proposedPms.clear();
 
-            ArrayList<Integer> toRemove = new ArrayList<>();
             // loop over all unmatched UEs and propose to their top-choice PM
-            for (Map.Entry<Integer, ArrayList<Preference>> uePreferences : tempUesPrefs.entrySet()) {
-                if (unmatchedUes.contains(uePreferences.getKey())) {
-                    if (!uePreferences.getValue().isEmpty()) {
-                        newMatches.add(uePreferences.getValue().get(0));
-                    } else {
-                        // UE has no preferences left, remove it from the unmatched list
-                        toRemove.add(uePreferences.getKey());
-                    }
+            for (int ueId = tempUesPrefs.nextKey(0); ueId >= 0; ueId = tempUesPrefs.nextKey(ueId + 1)) {
+                if (!unmatchedUes.get(ueId))
+                    continue;
+
+                PreferenceTable uePreferences = tempUesPrefs.get(ueId);
+                if (uePreferences.isEmpty()) {
+                    // UE has no preferences left, remove it from the unmatched list (its candidates are widened later if they were pruned)
+                    unmatchedUes.clear(ueId);
+                    if (prunedUes.get(ueId))
+                        exhaustedUes.set(ueId);
+                    tempUesPrefs.remove(ueId);
+                    continue;
                 }
-            }
 
-            // remove the unmatched UEs that have no preferences left
-            unmatchedUes.removeAll(toRemove);
-            toRemove.forEach(tempUesPrefs::remove);
+                // (temporarily) accept all UE/VM proposals: to avoid resource over-subscription, the PM will afterwards reject (based on its preferences) the worst ones
+                int pmId = uePreferences.getReceiver(0);
+                PreferenceTable pmPreferences = this.pmsPreferences.get(pmId);
+                int pmPref = pmPreferences.indexOfUe(ueId);
+                if (pmPref != -1) {
+                    pmsProposals.computeIfAbsent(pmId, k -> new PreferenceTable()).add(pmPreferences, pmPref);
+                    proposedPms.set(pmId);
+                }
+            }
 
-            Set<Integer> pmIds = newMatches.stream().map(Preference::getReceiver).collect(Collectors.toSet());
             // loop over all PMs that received proposals
-            for (int pmId : pmIds) {
+            for (int pmId = proposedPms.nextSetBit(0); pmId >= 0; pmId = proposedPms.nextSetBit(pmId + 1)) {
                 // get the current PM preferences for the UEs/VMs that proposed to it
-                List<Preference> pmMatches = new ArrayList<>();
-                for (Preference pmMatch : newMatches.stream().filter(p -> p.getReceiver() == pmId).toList()) {
-                    // (temporarily) accept all UE/VM proposals: to avoid resource over-subscription, the PM will afterwards reject (based on its preferences) the worst ones
-                    this.pmsPreferences.get(pmId).stream().filter(pref -> pref.getUe2VmMapping().getUeId() == pmMatch.getUe2VmMapping().getUeId()).findFirst().ifPresent(pmMatches::add);
-                }
+                PreferenceTable pmMatches = pmsProposals.get(pmId);
+
                 // add the already matched UEs/VMs (in the previous iterations) to the current PM
-                pmsPartialMatches.putIfAbsent(pmId, new ArrayList<>());
+                PreferenceTable partialMatches = pmsPartialMatches.computeIfAbsent(pmId, k -> new PreferenceTable());
 
                 // sort the matched UEs/VMs based on the PM preferences
-                pmMatches.sort(new PreferenceComparator());
+                pmMatches.sortDescending();
 
                 // get the maximum capacity of the PM (in terms of VMs it can host)
                 int maxPMCapacity = mecService.getPM(pmId).getMaxVmsHosted();
 
-                List<Preference> matchesToRemove = new ArrayList<>();
-                // accept first proposals such that the requested resources are available
-                for (Preference pmMatch : pmMatches) {
-                    if (pmResources.get(pmId).canPerformMatch(pmMatch.getUe2VmMapping().getCores(), pmMatch.getUe2VmMapping().getMemory())) {
-
+                // accept first proposals such that the requested resources are available: the other ones are moved after them
+                ResourceAvailability resources = pmResources.get(pmId);
+                matchesToRemove.clear();
+                int totalFeasible = 0;
+                for (int i = 0; i < pmMatches.size(); i++) {
+                    Ue2VmMapping mapping = mappingsByUeId.get(pmMatches.getUeId(i));
+                    if (resources.canPerformMatch(mapping.getResources())) {
                         // (temporarily) allocate the resources to the PM
-                        pmResources.get(pmId).allocateResources(pmMatch.getUe2VmMapping().getCores(), pmMatch.getUe2VmMapping().getMemory());
+                        resources.allocateResources(mapping.getResources());
+                        pmMatches.moveRow(i, totalFeasible++);
                     }
                     else{
-                        matchesToRemove.add(pmMatch);
+                        matchesToRemove.add(pmMatches, i);
                     }
                 }
-                // remove the matches that are not acceptable for resources
-                pmMatches.removeAll(matchesToRemove);
 
                 // accept the first proposals that fit the PM capacity (in terms of resources and # of VMs it can host)
-                int totalAccepted = Math.min(pmMatches.size(), maxPMCapacity - pmsPartialMatches.get(pmId).size());
+                int totalAccepted = Math.max(Math.min(totalFeasible, maxPMCapacity - partialMatches.size()), 0);
 
                 // set to (max) 1 if accepting only one VM per iteration
                 if (this.onlyAcceptsBestMatch)
                     totalAccepted = Math.min(totalAccepted, 1);
 
-                List<Preference> accepted = new ArrayList<>(pmMatches.subList(0, totalAccepted));
-
-                // remove the accepted UEs from the unmatched list
-                accepted.forEach(p -> unmatchedUes.remove((Object)p.getUe2VmMapping().getUeId()));
-
-                // add the accepted UEs to the alreadyMatched list (keep track of the already matched UEs to PMs)
-                accepted.stream().filter(p -> !pmsPartialMatches.get(pmId).contains(p)).forEach(pmsPartialMatches.get(pmId)::add);
-
-                // get the rejected UEs
-                List<Preference> rejected = new ArrayList<>(pmMatches.subList(totalAccepted, pmMatches.size()));
+                for (int i = 0; i < totalAccepted; i++) {
+                    // remove the accepted UEs from the unmatched list and keep track of the already matched UEs to PMs
+                    unmatchedUes.clear(pmMatches.getUeId(i));
+                    partialMatches.add(pmMatches, i);
+                    matches.add(pmMatches, i);
+                }
 
-                // release the PM resources (temporarily) allocated by the rejected UEs
-                rejected.forEach(p -> pmResources.get(pmId).releaseResources(p.getUe2VmMapping().getCores(), p.getUe2VmMapping().getMemory()));
+                for (int i = totalAccepted; i < pmMatches.size(); i++) {
+                    // rejected UEs: first the ones exceeding the PM capacity, then the ones rejected because of resource unavailability
+                    boolean exceedsCapacity = i < totalFeasible;
+                    int ueId = exceedsCapacity ? pmMatches.getUeId(i) : matchesToRemove.getUeId(i - totalFeasible);
 
-                // add UEs/VMs that were rejected by the PM because of resource unavailability
-                rejected.addAll(matchesToRemove);
+                    // release the PM resources (temporarily) allocated by the rejected UEs
+                    if (exceedsCapacity) {
+                        Ue2VmMapping mapping = mappingsByUeId.get(ueId);
+                        resources.releaseResources(mapping.getResources());
+                    }
 
-                rejected.forEach(p -> {
                     // add the rejected UEs to the unmatched list
-                    if (!unmatchedUes.contains(p.getUe2VmMapping().getUeId())) {
-                        unmatchedUes.add(p.getUe2VmMapping().getUeId());
-                    }
+                    unmatchedUes.set(ueId);
+
                     // remove from the rejected UEs the PM preference of the one that rejected them
-                    tempUesPrefs.get(p.getUe2VmMapping().getUeId()).removeIf(pref -> pref.getReceiver() == pmId);
+                    PreferenceTable uePrefs = tempUesPrefs.get(ueId);
+                    uePrefs.removeByReceiver(pmId);
 
-                    pmsPartialMatches.get(pmId).removeIf(pref -> pref.getUe2VmMapping().getUeId() == p.getUe2VmMapping().getUeId());
+                    partialMatches.removeByUe(ueId);
 
                     // If UE (via its assigned VM) has no remaining PMs, remove it from unmatched list
-                    if (tempUesPrefs.get(p.getUe2VmMapping().getUeId()).isEmpty())
-                        unmatchedUes.remove((Object)p.getUe2VmMapping().getUeId());
-                });
-
-                // add the accepted UEs to (and remove the rejected ones from) the matches list
-                accepted.stream().filter(p -> !matches.contains(p)).forEach(matches::add);
-                matches.removeAll(rejected);
+                    if (uePrefs.isEmpty()) {
+                        unmatchedUes.clear(ueId);
+                        if (prunedUes.get(ueId))
+                            exhaustedUes.set(ueId);
+                    }
+                }
             }
 
             if (this.useDynamicPrefs) {
                 // recompute the preferences of the UEs/VMs based on the current PMs' preferences
-                this.computePreferences(tempUesPrefs.values().stream().toList());
+                this.computePreferences(tempUesPrefs);
+
+                // PMs still available to each UE/VM (the ones that did not reject it)
+                DenseIntMap<BitSet> uesAvailablePms = new DenseIntMap<>(mecService.getNumberOfUEs());
+                for (int ueId = tempUesPrefs.nextKey(0); ueId >= 0; ueId = tempUesPrefs.nextKey(ueId + 1)) {
+                    PreferenceTable uePrefs = tempUesPrefs.get(ueId);
+                    BitSet availablePms = new BitSet();
+                    for (int i = 0; i < uePrefs.size(); i++)
+                        availablePms.set(uePrefs.getReceiver(i));
+                    uesAvailablePms.put(ueId, availablePms);
+                }
 
                 // map of UEs/VMs and their preferences to PMs
-                HashMap<Integer, ArrayList<Preference>> helperMap = new HashMap<>();
-                for (Map.Entry<Integer, ArrayList<Preference>> vmPreferences : this.vmsPreferences.entrySet()) {
-                    for (Preference vmPref : vmPreferences.getValue()) {
-                        if (tempUesPrefs.getOrDefault(vmPref.getUe2VmMapping().getUeId(), new ArrayList<>()).stream().anyMatch(pref -> pref.getReceiver() == vmPref.getReceiver())) {
-                            // remove the PM preference of the one that rejected them
-                            helperMap.putIfAbsent(vmPref.getUe2VmMapping().getUeId(), new ArrayList<>());
-                            helperMap.get(vmPref.getUe2VmMapping().getUeId()).add(vmPref);
+                tempUesPrefs.clear();
+                this.vmsPreferences.forEachValue(vmPreferences -> {
+                    for (int i = 0; i < vmPreferences.size(); i++) {
+                        BitSet availablePms = uesAvailablePms.get(vmPreferences.getUeId(i));
+                        if (availablePms != null && availablePms.get(vmPreferences.getReceiver(i))) {
+                            tempUesPrefs.computeIfAbsent(vmPreferences.getUeId(i), k -> new PreferenceTable()).add(vmPreferences, i);
                         }
                     }
-                }
-                tempUesPrefs.clear();
-                tempUesPrefs.putAll(helperMap);
+                });
             }
         }
 
-        if (matches.isEmpty()){
+        if (matches.isEmpty() && totalKeptMatches == 0 && converged){
             System.out.println("NO MATCHES FOUND");
             System.out.println(mecService.getUe2VmMappings());
         }
 
         // add the matches to the final matches list
-        this.finalMatches.addAll(matches);
+        for (int i = 0; i < matches.size(); i++) {
+            this.finalMatches.add(matches.toPreference(i, mappingsByUeId.get(matches.getUeId(i))));
+        }
     }
 
     /**
@@ -337,7 +488,7 @@ public class GaleShapleyAlg extends MatchingAlg {
      * @return the results of the algorithm
      */
     @Override
-    public AlgorithmResults run(boolean verbose) {
+    protected AlgorithmResults runMatching(boolean verbose) {
         this.vmToPmMatching();
 
         this.allocateMatchesToPMs();
@@ -345,6 +496,11 @@ public class GaleShapleyAlg extends MatchingAlg {
         return prepareResults();
     }
 
+    @Override
+    public boolean supportsWarmStart() {
+        return true;
+    }
+
     @Override
     public String getName() {
         return "Gale-Shapley (" + (useDynamicPrefs ? "dynamic" : "static") + " prefs)";
@@ -1,29 +1,65 @@
 package algorithm;
 
 import algorithm.model.AlgorithmResults;
+import algorithm.model.DemandClass;
 import algorithm.model.Ue2VmMapping;
-import model.PM;
 
 public class GreedyAlg extends MatchingAlg {
+    // whether identical UE/VM mappings are placed together, by demand class (see DemandClass)
+    private final boolean groupDemands;
+
+    public GreedyAlg(boolean groupDemands) {
+        super();
+        this.groupDemands = groupDemands;
+    }
+
+    public GreedyAlg() {
+        this(false);
+    }
+
     @Override
-    public AlgorithmResults run(boolean verbose) {
+    protected AlgorithmResults runMatching(boolean verbose) {
+        if (groupDemands)
+            return runByDemandClass(verbose);
+
         for (Ue2VmMapping mapping : mecService.getUe2VmMappings()) {
             int vmId = mapping.getVmId();
             int cores = mapping.getCores();
             int memory = mapping.getMemory();
 
             // find the first PM that can host the UE/VM
-            for (PM pm : mecService.getPMs()) {
-                if (mecService.checkEnoughPmResources(vmId, pm.getId(), cores, memory) && mecService.checkAssignmentAllowed(vmId, pm.getId())) {
-                    try {
-                        this.totalAllocatedUEs++;
-                        mecService.addVMResourcesOnPm(vmId, pm.getId(), cores, memory);
-                    } catch (IllegalArgumentException e) {
-                        if (verbose)
-                            System.out.println("\t  ERROR ::: UE" + mapping.getUeId() + " cannot be allocated to VM_" + vmId + " allocated to " + pm.getShortName() + " with " + cores + " cores and " + memory + " GBs");
-                    }
-                    break;
+            int pmId = mecService.getNextFeasiblePm(vmId, cores, memory, 0);
+            if (pmId != -1) {
+                try {
+                    allocateUe(vmId, pmId, cores, memory);
+                } catch (IllegalArgumentException e) {
+                    if (verbose)
+                        System.out.println("\t  ERROR ::: UE" + mapping.getUeId() + " cannot be allocated to VM_" + vmId + " allocated to " + mecService.getPM(pmId).getShortName() + " with " + cores + " cores and " + memory + " GBs");
+                }
+            }
+        }
+
+        return prepareResults();
+    }
+
+    /**
+     * First-fit placement of the demand classes: the UEs of a class go to the first PM that can host them, as many as the PM
+     * can host at once, then to the next feasible PMs. The PMs before a feasible one cannot host the next UEs of the class
+     * either, so each class is placed as its UEs one at a time, with one capacity computation per PM used.
+     */
+    private AlgorithmResults runByDemandClass(boolean verbose) {
+        for (DemandClass demand : DemandClass.group(mecService.getUe2VmMappings())) {
+            int placed = 0;
+            int pmId = mecService.getNextFeasiblePm(demand.getVmId(), demand.getCores(), demand.getMemory(), 0);
+            // the next UEs of the class cannot be allocated either once their VM has not enough resources left
+            while (placed < demand.size() && pmId != -1 && mecService.checkEnoughVmResources(demand.getVmId(), demand.getCores(), demand.getMemory())) {
+                int allocated = allocateUes(demand, pmId, demand.size() - placed);
+                if (verbose) {
+                    for (int i = placed; i < placed + allocated; i++)
+                        System.out.println("\t UE_" + demand.getMapping(i).getUeId() + " assigned to VM_" + demand.getVmId() + " allocated to " + mecService.getPM(pmId).getShortName() + " with " + demand.getCores() + " cores and " + demand.getMemory() + " GBs");
                 }
+                placed += allocated;
+                pmId = mecService.getNextFeasiblePm(demand.getVmId(), demand.getCores(), demand.getMemory(), pmId + 1);
             }
         }
 
@@ -32,6 +68,6 @@ public class GreedyAlg extends MatchingAlg {
 
     @Override
     public String getName() {
-        return "Greedy (first-fit)";
+        return groupDemands ? "Greedy (first-fit, demand classes)" : "Greedy (first-fit)";
     }
-}
\ No newline at end of file
+}
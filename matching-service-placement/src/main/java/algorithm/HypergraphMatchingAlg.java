@@ -0,0 +1,54 @@
+package algorithm;
+
+import algorithm.model.AlgorithmResults;
+import algorithm.model.Ue2VmMapping;
+import algorithm.utils.HypergraphMatching;
+
+import java.util.ArrayList;
+
+/**
+ * Placement through weighted hypergraph matching over UE-VM-PM hyperedges (see HypergraphMatching), the approach of
+ * the reference paper: lazily generated hyperedges, greedy matching and local search.
+ */
+public class HypergraphMatchingAlg extends MatchingAlg {
+    private long improvingMoves = 0;
+
+    @Override
+    protected AlgorithmResults runMatching(boolean verbose) {
+        ArrayList<Ue2VmMapping> mappings = mecService.getUe2VmMappings();
+        HypergraphMatching matching = new HypergraphMatching(mecService, energyService, mappings);
+        int[] pmByMapping = matching.solve(this::nextRound);
+        improvingMoves = matching.getImprovingMoves();
+
+        for (int i = 0; i < mappings.size(); i++) {
+            Ue2VmMapping mapping = mappings.get(i);
+            int pmId = pmByMapping[i];
+            if (pmId == -1) {
+                if (verbose)
+                    System.out.println("NO AVAILABLE PM FOUND FOR UE_" + mapping.getUeId());
+                continue;
+            }
+
+            boolean allocated = allocateUe(mapping.getVmId(), pmId, mapping.getCores(), mapping.getMemory());
+            if (verbose && allocated)
+                System.out.println("\t UE_" + mapping.getUeId() + " assigned to VM_" + mapping.getVmId() + " allocated to " + mecService.getPM(pmId).getShortName() + " with " + mapping.getCores() + " cores and " + mapping.getMemory() + " GBs");
+        }
+        if (verbose)
+            System.out.println("Local search applied " + improvingMoves + " improving moves");
+
+        return prepareResults();
+    }
+
+    /**
+     * Get the number of improving moves applied by the local search in the last run.
+     * @return the number of moves
+     */
+    public long getImprovingMoves() {
+        return improvingMoves;
+    }
+
+    @Override
+    public String getName() {
+        return "Hypergraph matching";
+    }
+}
@@ -0,0 +1,77 @@
+package algorithm;
+
+import algorithm.model.AlgorithmResults;
+import algorithm.model.ResourceAvailability;
+import algorithm.model.ResourceTable;
+import algorithm.model.Ue2VmMapping;
+import model.PM;
+import utils.collections.IndexedMinHeap;
+
+/**
+ * Least-loaded placement: each UE goes to the PM with the lowest utilization that can host it. The PMs are kept in an
+ * indexed min-heap by utilization (the highest of the cores and memory GBs used, from their ResourceAvailability), whose
+ * key is updated in O(log P) after each allocation; the PMs that cannot host a UE are skipped without removing them from
+ * the heap (see IndexedMinHeap.findFirst).
+ */
+public class LeastLoadedAlg extends MatchingAlg {
+
+    @Override
+    protected AlgorithmResults runMatching(boolean verbose) {
+        int totalPms = mecService.getNumberOfPMs();
+        ResourceTable pmTable = ResourceTable.ofPms(mecService.getPMs());
+        ResourceAvailability[] pmResources = new ResourceAvailability[totalPms];
+        IndexedMinHeap pmsByLoad = new IndexedMinHeap(totalPms);
+        for (PM pm : mecService.getPMs()) {
+            ResourceAvailability resources = pmTable.view(pm.getId());
+            // the resources already placed on the PM count towards its load
+            resources.allocateCores(pm.getTotCores() - mecService.getRemainingCoresInPm(pm.getId()));
+            resources.allocateMemory(pm.getTotMemoryGB() - mecService.getRemainingGbsInPm(pm.getId()));
+            pmResources[pm.getId()] = resources;
+            pmsByLoad.add(pm.getId(), getLoad(resources));
+        }
+
+        for (Ue2VmMapping mapping : mecService.getUe2VmMappings()) {
+            int vmId = mapping.getVmId();
+            int cores = mapping.getCores();
+            int memory = mapping.getMemory();
+            // no PM can host the UE once its VM has not enough resources left
+            if (!mecService.checkEnoughVmResources(vmId, cores, memory))
+                continue;
+
+            int pmId = pmsByLoad.findFirst(id -> mecService.checkPlacementFeasible(vmId, id, cores, memory));
+            if (pmId == -1) {
+                if (verbose)
+                    System.out.println("NO AVAILABLE PM FOUND FOR UE_" + mapping.getUeId());
+                continue;
+            }
+
+            if (allocateUe(vmId, pmId, cores, memory)) {
+                pmResources[pmId].allocateCores(cores);
+                pmResources[pmId].allocateMemory(memory);
+                pmsByLoad.update(pmId, getLoad(pmResources[pmId]));
+                if (verbose)
+                    System.out.println("\t UE_" + mapping.getUeId() + " assigned to VM_" + vmId + " allocated to " + mecService.getPM(pmId).getShortName() + " with " + cores + " cores and " + memory + " GBs");
+            }
+        }
+
+        return prepareResults();
+    }
+
+    /**
+     * The load of a PM, as the highest utilization of its cores and memory GBs (a resource the PM has none of counts as full).
+     * @param resources the resources of the PM
+     * @return the load, from 0 (idle) to 1 (full)
+     */
+    private static double getLoad(ResourceAvailability resources) {
+        return Math.max(getUtilization(resources.getUsedCores(), resources.getTotCores()), getUtilization(resources.getUsedMemory(), resources.getTotMemory()));
+    }
+
+    private static double getUtilization(int used, int total) {
+        return total > 0 ? (double) used / total : 1;
+    }
+
+    @Override
+    public String getName() {
+        return "Least loaded";
+    }
+}
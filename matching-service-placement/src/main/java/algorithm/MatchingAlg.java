@@ -1,29 +1,73 @@
 package algorithm;
 
 import algorithm.model.AlgorithmResults;
+import algorithm.model.DemandClass;
+import algorithm.model.MatchingState;
 import algorithm.model.Preference;
+import algorithm.model.Ue2VmMapping;
+import algorithm.utils.ScenarioCache;
 import service.EnergyConsumptionService;
 import service.MecSystemService;
+import utils.collections.DenseIntMap;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
 
 public abstract class MatchingAlg {
     protected int totalAllocatedUEs = 0;
     protected final MecSystemService mecService = MecSystemService.getInstance();
     protected final EnergyConsumptionService energyService = EnergyConsumptionService.getInstance();
     protected final ArrayList<Preference> finalMatches;
+    // cache of the scenario precomputations shared with other runs (null if not shared)
+    protected ScenarioCache scenarioCache = null;
+    // state of a previous run to start from (null for a cold start), and number of its matches kept at the head of finalMatches
+    protected MatchingState initialState = null;
+    protected int totalKeptMatches = 0;
+    // PMs and VMs whose resources grew since the initial state (released by the matches not kept, or added)
+    private final BitSet grownPms = new BitSet();
+    private final BitSet grownVms = new BitSet();
+    private static final BitSet NO_PMS = new BitSet();
+    // budget of the current run (see run(boolean, Duration, int)): time from its start and rounds of the iterative algorithms
+    private static final long NO_TIME_BUDGET = -1;
+    private long budgetNanos = NO_TIME_BUDGET;
+    private long startNanos = 0;
+    private int roundBudget = Integer.MAX_VALUE;
+    private int rounds = 0;
+    // false if the last run was cut short by its budget
+    protected boolean converged = true;
+    // number of candidate PMs per UE of the algorithms that prune the UE-PM preferences (ALL_PMS to consider them all)
+    public static final int ALL_PMS = 0;
+    protected int candidatePmsPerUe = ALL_PMS;
 
     MatchingAlg() {
         finalMatches = new ArrayList<>();
     }
 
     /**
-     * Runs the algorithm.
+     * Runs the algorithm. Every run (with or without a budget) goes through here, so that the state of the previous run
+     * (its rounds, start time and convergence) never leaks into the next one.
      *
      * @param verbose whether to print verbose output
      * @return the results of the algorithm
      */
-    public abstract AlgorithmResults run(boolean verbose);
+    public final AlgorithmResults run(boolean verbose) {
+        this.startNanos = System.nanoTime();
+        this.rounds = 0;
+        this.converged = true;
+        return this.runMatching(verbose);
+    }
+
+    /**
+     * Runs the matching of the algorithm (see run(boolean)).
+     *
+     * @param verbose whether to print verbose output
+     * @return the results of the algorithm
+     */
+    protected abstract AlgorithmResults runMatching(boolean verbose);
 
     /**
      * Runs the algorithm with verbose output enabled.
@@ -34,20 +78,290 @@ public abstract class MatchingAlg {
         return this.run(true);
     }
 
+    /**
+     * Runs the algorithm within a budget: iterative algorithms stop when the time or the number of rounds runs out, and
+     * return the (feasible) matching found so far; the results then report that the run did not converge.
+     * The budget is checked between rounds, so the precomputations before the first round are not interrupted.
+     *
+     * @param verbose whether to print verbose output
+     * @param timeBudget the maximum duration of the run
+     * @param roundBudget the maximum number of rounds of the iterative algorithms
+     * @return the results of the algorithm
+     */
+    public AlgorithmResults run(boolean verbose, Duration timeBudget, int roundBudget) {
+        if (timeBudget.isNegative() || roundBudget < 0)
+            throw new IllegalArgumentException("Invalid time or round budget");
+
+        this.budgetNanos = timeBudget.toNanos();
+        this.roundBudget = roundBudget;
+        try {
+            return this.run(verbose);
+        }
+        finally {
+            this.budgetNanos = NO_TIME_BUDGET;
+            this.roundBudget = Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Runs the algorithm within a time budget (see run(boolean, Duration, int)).
+     *
+     * @param verbose whether to print verbose output
+     * @param timeBudget the maximum duration of the run
+     * @return the results of the algorithm
+     */
+    public AlgorithmResults run(boolean verbose, Duration timeBudget) {
+        return this.run(verbose, timeBudget, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Starts a new round of an iterative algorithm, unless the budget of the run is exhausted: the algorithm must then
+     * stop and keep its matching so far, and the run is marked as not converged.
+     *
+     * @return true if the round can start, false if the budget is exhausted
+     */
+    protected boolean nextRound() {
+        if (rounds >= roundBudget || (budgetNanos != NO_TIME_BUDGET && System.nanoTime() - startNanos >= budgetNanos)) {
+            converged = false;
+            return false;
+        }
+        rounds++;
+        return true;
+    }
+
+    /**
+     * Returns the time left to the run (Long.MAX_VALUE without a time budget), for algorithms with their own time limit.
+     *
+     * @return the remaining time in nanoseconds
+     */
+    protected long getRemainingNanos() {
+        if (budgetNanos == NO_TIME_BUDGET)
+            return Long.MAX_VALUE;
+        return Math.max(budgetNanos - (System.nanoTime() - startNanos), 0);
+    }
+
+    /**
+     * Returns the number of rounds of the last run (for iterative algorithms).
+     *
+     * @return the number of rounds
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+
+    /**
+     * Shares the precomputations of the current scenario with other algorithm runs on the same scenario.
+     *
+     * @param scenarioCache the cache of the scenario precomputations
+     */
+    public void setScenarioCache(ScenarioCache scenarioCache) {
+        this.scenarioCache = scenarioCache;
+    }
+
+    /**
+     * Limits the PMs considered for each UE to its k most promising ones (see PmScoringKernel.selectCandidates), with a
+     * wider search (2k, 4k, ... PMs) for the UEs rejected by all their candidates. Used by Gale-Shapley and Auction, whose
+     * preferences would otherwise grow as UEs x PMs.
+     *
+     * @param candidatePmsPerUe the number of candidate PMs per UE, or ALL_PMS
+     */
+    public void setCandidatePmsPerUe(int candidatePmsPerUe) {
+        if (candidatePmsPerUe < 0)
+            throw new IllegalArgumentException("Invalid number of candidate PMs");
+        this.candidatePmsPerUe = candidatePmsPerUe;
+    }
+
+    /**
+     * Warm-starts the next run from the state of a previous run: the matches still valid are kept, and only the UEs they
+     * do not cover are matched, so that the work depends on the size of the change rather than on the size of the system.
+     * The placement of the previous run must still be in the system (i.e. the mapping was not reset since then); UEs may be
+     * added, removed or changed, and PMs and VMs may be added.
+     *
+     * @param initialState the state of the previous run (see getMatchingState)
+     */
+    public void setInitialState(MatchingState initialState) {
+        this.initialState = initialState;
+    }
+
+    /**
+     * Whether the algorithm uses the initial state (see setInitialState): the others ignore it and place all the UEs again.
+     *
+     * @return true if the algorithm can be warm-started
+     */
+    public boolean supportsWarmStart() {
+        return false;
+    }
+
+    /**
+     * Returns the state reached by the last run, to warm-start a later run.
+     *
+     * @return the matching state
+     */
+    public MatchingState getMatchingState() {
+        BitSet matchedUes = new BitSet();
+        for (Preference match : finalMatches)
+            matchedUes.set(match.getUe2VmMapping().getUeId());
+        ArrayList<Ue2VmMapping> unmatched = new ArrayList<>();
+        for (Ue2VmMapping mapping : mecService.getUe2VmMappings()) {
+            if (!matchedUes.get(mapping.getUeId()))
+                unmatched.add(mapping);
+        }
+        return new MatchingState(finalMatches, unmatched, getPmPrices(), mecService.getNumberOfPMs(), mecService.getNumberOfVMs());
+    }
 
     /**
-     * Allocates the VMs to the PMs based on the final matches.
+     * Returns the PM prices reached by the last run (empty if the algorithm does not use prices).
+     *
+     * @return the PM prices keyed by PM id
+     */
+    protected Map<Integer, Double> getPmPrices() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Keeps the matches of the initial state that are still valid, i.e. whose UE is still mapped to the same VM with the
+     * same resources: they are added to the final matches (and counted as allocated), while the resources of the other
+     * matches are released from their PMs.
+     *
+     * @param mappingsByUeId the current UE-to-VM mappings keyed by UE id
+     * @return the ids of the UEs whose match was kept (empty for a cold start)
+     */
+    protected BitSet keepInitialMatches(DenseIntMap<Ue2VmMapping> mappingsByUeId) {
+        BitSet keptUes = new BitSet();
+        if (initialState == null)
+            return keptUes;
+        if (mecService.getNumberOfPMs() < initialState.getTotalPms() || mecService.getNumberOfVMs() < initialState.getTotalVms())
+            throw new IllegalArgumentException("PMs or VMs were removed after the initial state: a cold start is needed");
+
+        for (Preference match : initialState.getMatches()) {
+            Ue2VmMapping placed = match.getUe2VmMapping();
+            Ue2VmMapping mapping = mappingsByUeId.get(placed.getUeId());
+            if (mapping != null && mapping.getVmId() == placed.getVmId() && Arrays.equals(mapping.getResources(), placed.getResources())) {
+                keptUes.set(placed.getUeId());
+                finalMatches.add(new Preference(match.getProposer(), match.getReceiver(), match.getPreference(), mapping));
+            }
+            else {
+                mecService.removeVMResourcesOnPm(placed.getVmId(), match.getReceiver(), placed.getCores(), placed.getMemory());
+                grownPms.set(match.getReceiver());
+                grownVms.set(placed.getVmId());
+            }
+        }
+        grownPms.set(initialState.getTotalPms(), mecService.getNumberOfPMs());
+        grownVms.set(initialState.getTotalVms(), mecService.getNumberOfVMs());
+        totalKeptMatches = finalMatches.size();
+        totalAllocatedUEs += totalKeptMatches;
+        return keptUes;
+    }
+
+    /**
+     * Get the PMs a UE must be matched to: none if its match was kept, all of them if it is new or changed since the initial
+     * state (or for a cold start). A UE left unmatched by the previous run is matched only if its VM can host it, to all the
+     * PMs if the resources of its VM grew, otherwise only to the PMs whose resources grew (nothing else changed for it).
+     *
+     * @param mapping the UE-to-VM mapping
+     * @param keptUes the ids of the UEs whose match was kept (see keepInitialMatches)
+     * @return the candidate PMs (not to be modified), or null if all the PMs are candidates
+     */
+    protected BitSet getCandidatePms(Ue2VmMapping mapping, BitSet keptUes) {
+        if (initialState == null)
+            return null;
+        if (keptUes.get(mapping.getUeId()))
+            return NO_PMS;
+
+        Ue2VmMapping unmatched = initialState.getUnmatched().get(mapping.getUeId());
+        if (unmatched == null || unmatched.getVmId() != mapping.getVmId() || !Arrays.equals(unmatched.getResources(), mapping.getResources()))
+            return null;
+        if (!mecService.checkEnoughVmResources(mapping.getVmId(), mapping.getCores(), mapping.getMemory()))
+            return NO_PMS;
+        return grownVms.get(mapping.getVmId()) ? null : grownPms;
+    }
+
+    /**
+     * Allocates the VMs to the PMs based on the final matches (the kept matches of the initial state are already allocated).
+     * The matches the system does not take are dropped, so that the final matches reflect the placement.
      */
     protected void allocateMatchesToPMs(){
-        for (Preference match : this.finalMatches) {
-            int pmId = match.getReceiver();
-            int vmId = match.getProposer();
-            int cores = match.getUe2VmMapping().getCores();
-            int memory = match.getUe2VmMapping().getMemory();
-
-            mecService.addVMResourcesOnPm(vmId, pmId, cores, memory);
-            this.totalAllocatedUEs++;
+        int size = finalMatches.size() - totalKeptMatches;
+        int[] vmIds = new int[size];
+        int[] pmIds = new int[size];
+        int[] cores = new int[size];
+        int[] memory = new int[size];
+        for (int i = 0; i < size; i++) {
+            Preference match = finalMatches.get(totalKeptMatches + i);
+            vmIds[i] = match.getProposer();
+            pmIds[i] = match.getReceiver();
+            cores[i] = match.getUe2VmMapping().getCores();
+            memory[i] = match.getUe2VmMapping().getMemory();
+        }
+
+        // the matches were built within the residual resources, so the whole batch is normally taken at once
+        if (mecService.tryAddVmResourcesOnPms(vmIds, pmIds, cores, memory)) {
+            this.totalAllocatedUEs += size;
+            return;
+        }
+
+        // the batch was rejected as a whole: allocate the matches one at a time, dropping the ones that do not fit
+        int totalMatches = totalKeptMatches;
+        for (int i = 0; i < size; i++) {
+            if (allocateUe(vmIds[i], pmIds[i], cores[i], memory[i]))
+                finalMatches.set(totalMatches++, finalMatches.get(totalKeptMatches + i));
+        }
+        finalMatches.subList(totalMatches, finalMatches.size()).clear();
+    }
+
+    /**
+     * Places the resources of a UE on the PM hosting its VM, counting the UE as allocated only if the placement took effect
+     * (the system ignores placements that exceed the VM resources or the VM/PM assignment limits).
+     *
+     * @param vmId the VM id
+     * @param pmId the PM id
+     * @param cores the number of cores of the UE
+     * @param memory the number of memory GBs of the UE
+     * @return true if the UE was allocated, false otherwise
+     */
+    protected boolean allocateUe(int vmId, int pmId, int cores, int memory){
+        int expectedCores = mecService.getVmCores2Pm(vmId, pmId) + cores;
+        int expectedGbs = mecService.getVmGb2Pm(vmId, pmId) + memory;
+        mecService.addVMResourcesOnPm(vmId, pmId, cores, memory);
+        if (mecService.getVmCores2Pm(vmId, pmId) != expectedCores || mecService.getVmGb2Pm(vmId, pmId) != expectedGbs)
+            return false;
+
+        this.totalAllocatedUEs++;
+        return true;
+    }
+
+    /**
+     * Places the resources of up to count UEs of a demand class on a PM at once: the number of UEs the PM can host is
+     * computed once (see MecSystemService.getPlacementCapacity), and their resources are added in a single placement.
+     *
+     * @param demand the demand class
+     * @param pmId the PM id
+     * @param count the maximum number of UEs to be placed
+     * @return the number of UEs allocated (the next ones of the class are not placed)
+     */
+    protected int allocateUes(DemandClass demand, int pmId, int count){
+        int vmId = demand.getVmId();
+        int allocated = Math.min(count, mecService.getPlacementCapacity(vmId, pmId, demand.getCores(), demand.getMemory()));
+        if (allocated <= 0 || !allocateUe(vmId, pmId, allocated * demand.getCores(), allocated * demand.getMemory()))
+            return 0;
+
+        // allocateUe counted the placement as a single UE
+        this.totalAllocatedUEs += allocated - 1;
+        return allocated;
+    }
+
+    /**
+     * Indexes the UE-to-VM mappings of the system by UE id.
+     *
+     * @return the UE-to-VM mappings keyed by UE id
+     */
+    protected DenseIntMap<Ue2VmMapping> getMappingsByUeId(){
+        DenseIntMap<Ue2VmMapping> mappingsByUeId = new DenseIntMap<>(mecService.getNumberOfUEs());
+        for (Ue2VmMapping mapping : mecService.getUe2VmMappings()) {
+            mappingsByUeId.put(mapping.getUeId(), mapping);
         }
+        return mappingsByUeId;
     }
 
     /**
@@ -63,7 +377,7 @@ public abstract class MatchingAlg {
      * @return the results of the algorithm
      */
     public AlgorithmResults prepareResults(){
-        return new AlgorithmResults(this.getName(), totalAllocatedUEs, mecService.getNumberOfUEs(), mecService.getTotalAllocatedVms(), mecService.getTotalAllocatedPms(), energyService.getTotalEnergyConsumption());
+        return new AlgorithmResults(this.getName(), totalAllocatedUEs, mecService.getNumberOfUEs(), mecService.getTotalAllocatedVms(), mecService.getTotalAllocatedPms(), energyService.getTotalEnergyConsumption(), converged);
     }
 
     @Override
@@ -0,0 +1,238 @@
+package algorithm;
+
+import algorithm.model.AlgorithmResults;
+import algorithm.model.DemandClass;
+import algorithm.model.Ue2VmMapping;
+import algorithm.utils.MinCostFlow;
+import model.PM;
+import model.VM;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Placement through a min-cost flow relaxation: the cores requested by the UEs of each VM are shipped to the PMs as in a
+ * transportation problem, with a cost per core proportional to the energy consumption of the VM on the PM.
+ * The memory GBs are taken into account by the capacity of the VM-to-PM arcs (the cores of the VM the PM memory can host,
+ * at the average GBs per core of the VM requests); the VM/PM assignment limits are relaxed.
+ * To keep the network small, the PMs are grouped in classes of similar compute speed (i.e. of similar energy cost), and the
+ * costs are rounded to integer levels, which bounds the number of shortest path phases of the solver.
+ * A repair step then places the single UE requests on the PMs of the classes that received the flow of their VM (cheapest
+ * PM first), falling back to the cheapest feasible PM when the relaxed solution does not fit. Identical requests are
+ * placed together (see DemandClass), as many at once as the chosen PM can host.
+ */
+public class MinCostFlowAlg extends MatchingAlg {
+    // number of PM classes of the network, by compute speed
+    private static final int PM_CLASSES = 64;
+    // number of integer levels of the arc costs
+    private static final int COST_LEVELS = 1024;
+
+    @Override
+    protected AlgorithmResults runMatching(boolean verbose) {
+        ArrayList<Ue2VmMapping> mappings = mecService.getUe2VmMappings();
+        int totalVms = mecService.getNumberOfVMs();
+        int totalPms = mecService.getNumberOfPMs();
+
+        // requests of each VM, smallest first (to allocate as many UEs as possible within the VM resources)
+        List<List<Ue2VmMapping>> requestsByVm = new ArrayList<>(totalVms);
+        for (int vmId = 0; vmId < totalVms; vmId++)
+            requestsByVm.add(new ArrayList<>());
+        for (Ue2VmMapping mapping : mappings)
+            requestsByVm.get(mapping.getVmId()).add(mapping);
+        for (List<Ue2VmMapping> requests : requestsByVm)
+            requests.sort(Comparator.comparingInt(Ue2VmMapping::getCores).thenComparingInt(Ue2VmMapping::getMemory).thenComparing(Ue2VmMapping::getResources, Arrays::compare));
+
+        // PMs from the cheapest to the most expensive (the same order for all the VMs), grouped in classes of similar compute speed
+        List<PM> pmsByCost = new ArrayList<>(mecService.getPMs());
+        pmsByCost.sort(Comparator.comparingDouble(PM::getCoreComputeOpsPerSec));
+        int[] pmClasses = getPmClasses(pmsByCost);
+        int totalClasses = pmClasses[pmClasses.length - 1];
+        double[] classOps = new double[totalClasses];
+        long[] classCores = new long[totalClasses];
+        for (int c = 0; c < totalClasses; c++) {
+            double coresOps = 0;
+            for (int i = pmClasses[c]; i < pmClasses[c + 1]; i++) {
+                PM pm = pmsByCost.get(i);
+                classCores[c] += mecService.getRemainingCoresInPm(pm.getId());
+                coresOps += (double) mecService.getRemainingCoresInPm(pm.getId()) * pm.getCoreComputeOpsPerSec();
+            }
+            classOps[c] = classCores[c] > 0 ? coresOps / classCores[c] : pmsByCost.get(pmClasses[c]).getCoreComputeOpsPerSec();
+        }
+        double maxOps = pmsByCost.isEmpty() ? 1 : pmsByCost.get(totalPms - 1).getCoreComputeOpsPerSec();
+        double maxEnergy = mecService.getVMs().stream().mapToDouble(VM::getEnergyConsumptionPerCoreOps).max().orElse(1);
+
+        // network: source -> VMs -> PM classes -> sink
+        int source = 0, sink = totalVms + totalClasses + 1;
+        MinCostFlow network = new MinCostFlow(totalVms + totalClasses + 2, totalVms * totalClasses + totalVms + totalClasses);
+        int[][] vm2ClassArcs = new int[totalVms][];
+        for (int vmId = 0; vmId < totalVms; vmId++) {
+            long supply = getSupply(vmId, requestsByVm.get(vmId));
+            if (supply == 0)
+                continue;
+
+            network.addArc(source, 1 + vmId, supply, 0);
+            double gbsPerCore = getGbsPerCore(requestsByVm.get(vmId));
+            double energyPerCoreOps = mecService.getVM(vmId).getEnergyConsumptionPerCoreOps() / maxEnergy;
+            vm2ClassArcs[vmId] = new int[totalClasses];
+            for (int c = 0; c < totalClasses; c++) {
+                // cores of the VM the PMs of the class can host
+                long capacity = 0;
+                for (int i = pmClasses[c]; i < pmClasses[c + 1] && capacity < supply; i++) {
+                    int pmId = pmsByCost.get(i).getId();
+                    long pmCapacity = mecService.getRemainingCoresInPm(pmId);
+                    if (gbsPerCore > 0)
+                        pmCapacity = Math.min(pmCapacity, (long) (mecService.getRemainingGbsInPm(pmId) / gbsPerCore));
+                    capacity += pmCapacity;
+                }
+                vm2ClassArcs[vmId][c] = capacity > 0
+                        ? network.addArc(1 + vmId, 1 + totalVms + c, Math.min(capacity, supply), Math.round(COST_LEVELS * energyPerCoreOps * classOps[c] / maxOps))
+                        : -1;
+            }
+        }
+        for (int c = 0; c < totalClasses; c++)
+            network.addArc(1 + totalVms + c, sink, classCores[c], 0);
+
+        // the repair step places the requests left without flow when the budget cuts the phases short
+        long flow = network.solve(source, sink, this::nextRound);
+        if (verbose)
+            System.out.println("Relaxed placement of " + flow + " cores");
+
+        // repair: place the requests of each VM on the PMs of the classes that received its flow, cheapest first
+        long[] residualFlow = new long[totalClasses];
+        int[] repairClass = new int[2];
+        for (int vmId = 0; vmId < totalVms; vmId++) {
+            if (vm2ClassArcs[vmId] == null)
+                continue;
+
+            for (int c = 0; c < totalClasses; c++)
+                residualFlow[c] = vm2ClassArcs[vmId][c] >= 0 ? network.getFlow(vm2ClassArcs[vmId][c]) : 0;
+            // identical requests are consecutive (sorted by resources), and each class of them is placed a PM at a time
+            for (DemandClass demand : DemandClass.group(requestsByVm.get(vmId))) {
+                int cores = demand.getCores();
+                int memory = demand.getMemory();
+                int placed = 0;
+                while (placed < demand.size() && mecService.checkEnoughVmResources(vmId, cores, memory)) {
+                    int pmId = getRepairPm(vmId, cores, memory, pmsByCost, pmClasses, residualFlow, repairClass);
+                    if (pmId == -1)
+                        break;
+
+                    // the same PM is chosen for the next requests as long as it can host them and its class keeps enough flow
+                    int count = demand.size() - placed;
+                    int c = repairClass[0];
+                    if (c != -1 && cores > 0)
+                        count = (int) Math.min(count, repairClass[1] == 0 ? residualFlow[c] / cores : 1);
+                    int allocated = allocateUes(demand, pmId, count);
+                    if (c != -1)
+                        residualFlow[c] -= Math.min(residualFlow[c], (long) Math.max(allocated, 1) * cores);
+                    if (verbose) {
+                        for (int i = placed; i < placed + allocated; i++)
+                            System.out.println("\t UE_" + demand.getMapping(i).getUeId() + " assigned to VM_" + vmId + " allocated to " + mecService.getPM(pmId).getShortName() + " with " + cores + " cores and " + memory + " GBs");
+                    }
+                    // a request the PM does not take is skipped, as when placing the requests one at a time
+                    placed += Math.max(allocated, 1);
+                }
+                if (verbose) {
+                    for (int i = placed; i < demand.size(); i++) {
+                        if (mecService.checkEnoughVmResources(vmId, cores, memory))
+                            System.out.println("NO AVAILABLE PM FOUND FOR UE_" + demand.getMapping(i).getUeId());
+                    }
+                }
+            }
+        }
+
+        return prepareResults();
+    }
+
+    /**
+     * Get the PM for a request in the repair step: the cheapest feasible PM of the classes with enough residual flow of the VM,
+     * then of the classes with some flow of the VM, then the cheapest feasible PM. The residual flow of the chosen class is
+     * to be updated by the caller, for the requests placed on the PM.
+     * @param repairClass where the class of the PM and the pass that found it (0 for enough flow, 1 for some flow) are
+     *                    written, or -1 for the class if the PM is not in a class with flow of the VM
+     * @return the PM id, or -1 if no PM can host the request
+     */
+    private int getRepairPm(int vmId, int cores, int memory, List<PM> pmsByCost, int[] pmClasses, long[] residualFlow, int[] repairClass) {
+        for (int pass = 0; pass < 2; pass++) {
+            for (int c = 0; c < residualFlow.length; c++) {
+                if (residualFlow[c] == 0 || (pass == 0 && residualFlow[c] < cores))
+                    continue;
+                for (int i = pmClasses[c]; i < pmClasses[c + 1]; i++) {
+                    int pmId = pmsByCost.get(i).getId();
+                    if (mecService.checkPlacementFeasible(vmId, pmId, cores, memory)) {
+                        repairClass[0] = c;
+                        repairClass[1] = pass;
+                        return pmId;
+                    }
+                }
+            }
+        }
+
+        repairClass[0] = -1;
+        BitSet feasiblePms = mecService.getFeasiblePms(vmId, cores, memory);
+        int cheapestPmId = -1;
+        for (int pmId = feasiblePms.nextSetBit(0); pmId >= 0; pmId = feasiblePms.nextSetBit(pmId + 1)) {
+            if (cheapestPmId == -1 || mecService.getPM(pmId).getCoreComputeOpsPerSec() < mecService.getPM(cheapestPmId).getCoreComputeOpsPerSec())
+                cheapestPmId = pmId;
+        }
+        return cheapestPmId;
+    }
+
+    /**
+     * Split the PMs (sorted by compute speed) in classes of equal compute speed range.
+     * @return the index of the first PM of each class, followed by the number of PMs (the number of classes is in the last position)
+     */
+    private static int[] getPmClasses(List<PM> pmsByCost) {
+        int totalPms = pmsByCost.size();
+        if (totalPms == 0)
+            return new int[]{0, 0};
+
+        double minOps = pmsByCost.get(0).getCoreComputeOpsPerSec();
+        double range = pmsByCost.get(totalPms - 1).getCoreComputeOpsPerSec() - minOps;
+        int[] bounds = new int[PM_CLASSES + 2];
+        int totalClasses = 0;
+        int previousClass = -1;
+        for (int i = 0; i < totalPms; i++) {
+            int pmClass = range > 0 ? (int) Math.min(PM_CLASSES - 1, (pmsByCost.get(i).getCoreComputeOpsPerSec() - minOps) / range * PM_CLASSES) : 0;
+            if (pmClass != previousClass) {
+                bounds[totalClasses++] = i;
+                previousClass = pmClass;
+            }
+        }
+        bounds[totalClasses] = totalPms;
+        int[] classes = Arrays.copyOf(bounds, totalClasses + 2);
+        classes[totalClasses + 1] = totalClasses;
+        return classes;
+    }
+
+    /**
+     * Get the cores of a VM to be shipped to the PMs: the cores requested by its UEs, within the residual resources of the VM.
+     */
+    private long getSupply(int vmId, List<Ue2VmMapping> requests) {
+        long cores = 0, gbs = 0;
+        for (Ue2VmMapping mapping : requests) {
+            cores += mapping.getCores();
+            gbs += mapping.getMemory();
+        }
+        long supply = Math.min(cores, mecService.getRemainingCoresInVm(vmId));
+        if (gbs > 0 && cores > 0)
+            supply = Math.min(supply, (long) (mecService.getRemainingGbsInVm(vmId) / ((double) gbs / cores)));
+        return supply;
+    }
+
+    private static double getGbsPerCore(List<Ue2VmMapping> requests) {
+        long cores = 0, gbs = 0;
+        for (Ue2VmMapping mapping : requests) {
+            cores += mapping.getCores();
+            gbs += mapping.getMemory();
+        }
+        return cores == 0 ? 0 : (double) gbs / cores;
+    }
+
+    @Override
+    public String getName() {
+        return "Min-cost flow";
+    }
+}
@@ -0,0 +1,102 @@
+package algorithm;
+
+import algorithm.model.AlgorithmResults;
+import algorithm.model.Ue2VmMapping;
+import model.PM;
+
+import java.util.Random;
+
+/**
+ * Randomized placement with the power of d choices: each UE samples d random PMs and goes to the least loaded one that can
+ * host it, so that the placement costs O(d) per UE (instead of a scan of all the PMs as RandomAlg) and the load is far
+ * better balanced than with a single random choice. When none of the d samples can host the UE, the feasibility index
+ * gives the next feasible PM from a random one.
+ */
+public class PowerOfChoicesAlg extends MatchingAlg {
+    private final int choices;
+    private final long seed;
+
+    public PowerOfChoicesAlg(int choices, long seed) {
+        super();
+        if (choices <= 0)
+            throw new IllegalArgumentException("Invalid number of choices");
+        this.choices = choices;
+        this.seed = seed;
+    }
+
+    public PowerOfChoicesAlg(int choices) {
+        this(choices, new Random().nextLong());
+    }
+
+    public PowerOfChoicesAlg() {
+        this(2);
+    }
+
+    @Override
+    protected AlgorithmResults runMatching(boolean verbose) {
+        Random rand = new Random(this.seed);
+        int totalPms = mecService.getNumberOfPMs();
+        if (totalPms == 0)
+            return prepareResults();
+
+        for (Ue2VmMapping mapping : mecService.getUe2VmMappings()) {
+            int vmId = mapping.getVmId();
+            int cores = mapping.getCores();
+            int memory = mapping.getMemory();
+            // no PM can host the UE once its VM has not enough resources left
+            if (!mecService.checkEnoughVmResources(vmId, cores, memory))
+                continue;
+
+            // least loaded of the d sampled PMs that can host the UE
+            int pmId = -1;
+            double minLoad = Double.MAX_VALUE;
+            for (int choice = 0; choice < choices; choice++) {
+                int sampledPm = rand.nextInt(totalPms);
+                if (!mecService.checkPlacementFeasible(vmId, sampledPm, cores, memory))
+                    continue;
+                double load = getLoad(sampledPm);
+                if (load < minLoad) {
+                    pmId = sampledPm;
+                    minLoad = load;
+                }
+            }
+
+            // all the samples failed: first feasible PM from a random one, wrapping around
+            if (pmId == -1) {
+                int fromPmId = rand.nextInt(totalPms);
+                pmId = mecService.getNextFeasiblePm(vmId, cores, memory, fromPmId);
+                if (pmId == -1 && fromPmId > 0)
+                    pmId = mecService.getNextFeasiblePm(vmId, cores, memory, 0);
+            }
+
+            if (pmId != -1) {
+                boolean allocated = allocateUe(vmId, pmId, cores, memory);
+                if (verbose && allocated)
+                    System.out.println("\t UE_" + mapping.getUeId() + " assigned to VM_" + vmId + " allocated to " + mecService.getPM(pmId).getShortName() + " with " + cores + " cores and " + memory + " GBs");
+            }
+        }
+
+        return prepareResults();
+    }
+
+    /**
+     * The load of a PM, as the highest utilization of its cores and memory GBs (a resource the PM has none of counts as full).
+     * @param pmId the PM id
+     * @return the load, from 0 (idle) to 1 (full)
+     */
+    private double getLoad(int pmId) {
+        PM pm = mecService.getPM(pmId);
+        double coresLoad = getUtilization(pm.getTotCores() - mecService.getRemainingCoresInPm(pmId), pm.getTotCores());
+        double gbsLoad = getUtilization(pm.getTotMemoryGB() - mecService.getRemainingGbsInPm(pmId), pm.getTotMemoryGB());
+        return Math.max(coresLoad, gbsLoad);
+    }
+
+    private static double getUtilization(int used, int total) {
+        return total > 0 ? (double) used / total : 1;
+    }
+
+    @Override
+    public String getName() {
+        return "Power of d choices (d=" + choices + ")";
+    }
+}
@@ -2,8 +2,11 @@ package algorithm;
 
 import algorithm.model.AlgorithmResults;
 import algorithm.model.ResourceAvailability;
+import algorithm.model.ResourceTable;
 import algorithm.model.Ue2VmMapping;
 import model.PM;
+import utils.collections.DenseIntMap;
+import utils.collections.IntList;
 
 import java.util.*;
 
@@ -20,7 +23,7 @@ public class RandomAlg extends MatchingAlg {
     }
 
     @Override
-    public AlgorithmResults run(boolean verbose) {
+    protected AlgorithmResults runMatching(boolean verbose) {
         // set seed for random number generator
         Random rand = new Random(this.seed);
 
@@ -30,24 +33,28 @@ public class RandomAlg extends MatchingAlg {
         Collections.shuffle(unmatchedVMs);
 
         // track available PM resources
-        Map<Integer, ResourceAvailability> pmResources = new HashMap<>();
+        DenseIntMap<ResourceAvailability> pmResources = new DenseIntMap<>(mecService.getNumberOfPMs());
+        ResourceTable pmTable = ResourceTable.ofPms(mecService.getPMs());
         for (PM pm : mecService.getPMs()) {
-            pmResources.put(pm.getId(), new ResourceAvailability(pm.getId(), pm.getTotCores(), pm.getTotMemoryGB(), pm.getMaxVmsHosted()));
+            pmResources.put(pm.getId(), pmTable.view(pm.getId()));
         }
 
         // assign VMs randomly
+        IntList feasiblePms = new IntList(mecService.getNumberOfPMs());
         for (Ue2VmMapping mapping : unmatchedVMs) {
 
             // filter PMs that can host the VM
-            List<PM> feasiblePMs = mecService.getPMs().stream()
-                    .filter(pm -> pmResources.get(pm.getId()).canPerformMatch(mapping.getCores(), mapping.getMemory())).toList();
+            feasiblePms.clear();
+            for (PM pm : mecService.getPMs()) {
+                if (pmResources.get(pm.getId()).canPerformMatch(mapping.getResources()))
+                    feasiblePms.add(pm.getId());
+            }
 
             // if there are feasible PMs, randomly select one and allocate the VM
-            if (!feasiblePMs.isEmpty()) {
-                PM selectedPM = feasiblePMs.get(rand.nextInt(feasiblePMs.size()));
-                mecService.addVMResourcesOnPm(mapping.getVmId(), selectedPM.getId(), mapping.getCores(), mapping.getMemory());
-                pmResources.get(selectedPM.getId()).allocateResources(mapping.getCores(), mapping.getMemory());
-                this.totalAllocatedUEs++;
+            if (!feasiblePms.isEmpty()) {
+                int selectedPm = feasiblePms.get(rand.nextInt(feasiblePms.size()));
+                allocateUe(mapping.getVmId(), selectedPm, mapping.getCores(), mapping.getMemory());
+                pmResources.get(selectedPm).allocateResources(mapping.getResources());
             }
         }
 
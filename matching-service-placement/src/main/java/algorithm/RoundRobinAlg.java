@@ -7,7 +7,7 @@ import model.PM;
 public class RoundRobinAlg extends MatchingAlg {
 
     @Override
-    public AlgorithmResults run(boolean verbose) {
+    protected AlgorithmResults runMatching(boolean verbose) {
         int totalPms = mecService.getNumberOfPMs();
         int lastPmId = 0;
 
@@ -18,21 +18,15 @@ public class RoundRobinAlg extends MatchingAlg {
             // allocate the VM to the UE
             boolean pmFound = false;
             PM pm = null;
-            // find the first PM that can host the UE/VM requirements, in a Round Robin fashion
-            int firstPmId = lastPmId;
-            while(true){
-                int pmId = lastPmId;
-                lastPmId = (lastPmId+1)%totalPms;
-
-                if (lastPmId == firstPmId){
-                    break;
-                }
-
-                if (mecService.checkEnoughPmResources(mapping.getVmId(), pmId,cores,memory) && mecService.checkAssignmentAllowed(mapping.getVmId(), pmId)) {
-                    pm = mecService.getPM(pmId);
-                    pmFound = true;
-                    break;
-                }
+            // find the first PM that can host the UE/VM requirements, in a Round Robin fashion (wrapping around after the last PM)
+            int pmId = mecService.getNextFeasiblePm(mapping.getVmId(), cores, memory, lastPmId);
+            if (pmId == -1)
+                pmId = mecService.getNextFeasiblePm(mapping.getVmId(), cores, memory, 0);
+
+            if (pmId != -1) {
+                pm = mecService.getPM(pmId);
+                pmFound = true;
+                lastPmId = (pmId+1)%totalPms;
             }
             if (!pmFound){
                 if (verbose)
@@ -40,9 +34,8 @@ public class RoundRobinAlg extends MatchingAlg {
             }
             else {
                 try {
-                    this.totalAllocatedUEs++;
-                    mecService.addVMResourcesOnPm(mapping.getVmId(), pm.getId(), cores, memory);
-                    if (verbose)
+                    boolean allocated = allocateUe(mapping.getVmId(), pm.getId(), cores, memory);
+                    if (verbose && allocated)
                         System.out.println("\t UE_" + mapping.getUeId() + " assigned to VM_" + mapping.getVmId() + " allocated to " + pm.getShortName() + " with " + cores + " cores and " + memory + " GBs");
 
                 } catch (IllegalArgumentException e) {
@@ -1,6 +1,14 @@
 package algorithm.model;
 
+/**
+ * Results of an algorithm run.
+ * @param converged false if the run was cut short by its budget (see MatchingAlg.run(boolean, Duration, int))
+ */
 public record AlgorithmResults(String algorithmName, int totalAllocatedUes, int totalUes, int totalAllocatedVms,
-                               int totalAllocatedPms, double totalEnergyConsumed) {
+                               int totalAllocatedPms, double totalEnergyConsumed, boolean converged) {
 
-}
\ No newline at end of file
+    public AlgorithmResults(String algorithmName, int totalAllocatedUes, int totalUes, int totalAllocatedVms,
+                            int totalAllocatedPms, double totalEnergyConsumed) {
+        this(algorithmName, totalAllocatedUes, totalUes, totalAllocatedVms, totalAllocatedPms, totalEnergyConsumed, true);
+    }
+}
@@ -0,0 +1,74 @@
+package algorithm.model;
+
+import model.ResourceType;
+import model.ResourceVector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * UE/VM mappings requesting the same VM with the same resources. The algorithms can place a whole class with a single
+ * capacity computation per PM (see MecSystemService.getPlacementCapacity), instead of one feasibility check per UE.
+ */
+public class DemandClass {
+    private final int vmId;
+    // amount of each resource type (see ResourceType) required by each UE of the class
+    private final int[] resources;
+    private final ArrayList<Ue2VmMapping> mappings = new ArrayList<>();
+
+    private DemandClass(int vmId, int[] resources) {
+        this.vmId = vmId;
+        this.resources = resources;
+    }
+
+    private record Key(int vmId, ResourceVector resources) {}
+
+    /**
+     * Group UE/VM mappings in demand classes.
+     * @param mappings the UE/VM mappings
+     * @return the demand classes, in order of their first mapping (the mappings of each class keep their order)
+     */
+    public static List<DemandClass> group(List<Ue2VmMapping> mappings) {
+        HashMap<Key, DemandClass> classesByKey = new HashMap<>();
+        List<DemandClass> classes = new ArrayList<>();
+        for (Ue2VmMapping mapping : mappings) {
+            DemandClass demand = classesByKey.computeIfAbsent(new Key(mapping.getVmId(), ResourceVector.of(mapping.getResources())), k -> {
+                DemandClass newClass = new DemandClass(mapping.getVmId(), mapping.getResources().clone());
+                classes.add(newClass);
+                return newClass;
+            });
+            demand.mappings.add(mapping);
+        }
+        return classes;
+    }
+
+    public int getVmId() {
+        return vmId;
+    }
+
+    public int getCores() {
+        return resources[ResourceType.CORES.ordinal()];
+    }
+
+    public int getMemory() {
+        return resources[ResourceType.MEMORY_GB.ordinal()];
+    }
+
+    /**
+     * Get the number of UEs of the class.
+     * @return the number of UEs
+     */
+    public int size() {
+        return mappings.size();
+    }
+
+    /**
+     * Get the mapping of the i-th UE of the class, e.g. to expand a placement of the class into per-UE matches.
+     * @param i the index of the UE in the class
+     * @return the UE/VM mapping
+     */
+    public Ue2VmMapping getMapping(int i) {
+        return mappings.get(i);
+    }
+}
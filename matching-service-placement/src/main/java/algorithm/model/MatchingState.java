@@ -0,0 +1,73 @@
+package algorithm.model;
+
+import model.ResourceVector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * State reached by a run of a matching algorithm, used to warm-start the next run after a change of the system (see
+ * MatchingAlg.setInitialState): the accepted UE/VM-to-PM matches (i.e. the accepted sets of the PMs), with a copy of the
+ * resources placed on the PMs, the UE/VM mappings left unmatched, and the PM prices of the auction.
+ */
+public class MatchingState {
+    private final List<Preference> matches;
+    private final Map<Integer, Ue2VmMapping> unmatched;
+    private final Map<Integer, Double> pmPrices;
+    private final int totalPms;
+    private final int totalVms;
+
+    /**
+     * @param matches the accepted UE/VM-to-PM matches
+     * @param unmatched the UE/VM mappings left unmatched
+     * @param pmPrices the PM prices (empty if the algorithm does not use prices)
+     * @param totalPms the number of PMs of the system when the state was taken
+     * @param totalVms the number of VMs of the system when the state was taken
+     */
+    public MatchingState(List<Preference> matches, List<Ue2VmMapping> unmatched, Map<Integer, Double> pmPrices, int totalPms, int totalVms) {
+        // the mappings of the system may change afterwards, so they are copied
+        ArrayList<Preference> copies = new ArrayList<>(matches.size());
+        for (Preference match : matches)
+            copies.add(new Preference(match.getProposer(), match.getReceiver(), match.getPreference(), copy(match.getUe2VmMapping())));
+        HashMap<Integer, Ue2VmMapping> unmatchedByUeId = new HashMap<>();
+        for (Ue2VmMapping mapping : unmatched)
+            unmatchedByUeId.put(mapping.getUeId(), copy(mapping));
+
+        this.matches = Collections.unmodifiableList(copies);
+        this.unmatched = Collections.unmodifiableMap(unmatchedByUeId);
+        this.pmPrices = Collections.unmodifiableMap(new HashMap<>(pmPrices));
+        this.totalPms = totalPms;
+        this.totalVms = totalVms;
+    }
+
+    public List<Preference> getMatches() {
+        return matches;
+    }
+
+    /**
+     * Get the UE/VM mappings left unmatched, keyed by UE id.
+     * @return the unmatched mappings
+     */
+    public Map<Integer, Ue2VmMapping> getUnmatched() {
+        return unmatched;
+    }
+
+    public Map<Integer, Double> getPmPrices() {
+        return pmPrices;
+    }
+
+    public int getTotalPms() {
+        return totalPms;
+    }
+
+    public int getTotalVms() {
+        return totalVms;
+    }
+
+    private static Ue2VmMapping copy(Ue2VmMapping mapping) {
+        return new Ue2VmMapping(mapping.getUeId(), mapping.getVmId(), ResourceVector.of(mapping.getResources()));
+    }
+}
@@ -0,0 +1,279 @@
+package algorithm.model;
+
+import utils.collections.IndexSort;
+
+import java.util.Arrays;
+
+/**
+ * Packed list of preferences: each row is a (proposer, receiver, score, UE id) tuple stored in parallel primitive arrays,
+ * so that building, sorting and pruning preference lists does not allocate one Preference object per UE/PM pair.
+ */
+public class PreferenceTable {
+    private static final int DEFAULT_CAPACITY = 8;
+    private int[] proposers;
+    private int[] receivers;
+    private double[] scores;
+    private int[] ueIds;
+    private int size;
+
+    // scratch buffers used by the (stable) index sort
+    private int[] order;
+    private int[] orderBuffer;
+
+    public PreferenceTable(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.proposers = new int[capacity];
+        this.receivers = new int[capacity];
+        this.scores = new double[capacity];
+        this.ueIds = new int[capacity];
+        this.size = 0;
+    }
+
+    public PreferenceTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Appends a new preference row.
+     * @param proposer the proposer id (VM)
+     * @param receiver the receiver id (PM)
+     * @param score the preference value
+     * @param ueId the id of the UE the preference refers to
+     * @return the index of the added row
+     */
+    public int add(int proposer, int receiver, double score, int ueId) {
+        if (size == proposers.length)
+            grow(size + 1);
+
+        proposers[size] = proposer;
+        receivers[size] = receiver;
+        scores[size] = score;
+        ueIds[size] = ueId;
+        return size++;
+    }
+
+    /**
+     * Appends a copy of a row of another table.
+     * @param other the source table
+     * @param row the index of the row in the source table
+     * @return the index of the added row
+     */
+    public int add(PreferenceTable other, int row) {
+        return add(other.proposers[row], other.receivers[row], other.scores[row], other.ueIds[row]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int getProposer(int row) {
+        return proposers[row];
+    }
+
+    public int getReceiver(int row) {
+        return receivers[row];
+    }
+
+    public double getScore(int row) {
+        return scores[row];
+    }
+
+    public void setScore(int row, double score) {
+        scores[row] = score;
+    }
+
+    public int getUeId(int row) {
+        return ueIds[row];
+    }
+
+    /**
+     * Get the index of the first row referring to the specified UE.
+     * @param ueId the UE id
+     * @return the index of the row, or -1 if the UE is not in the table
+     */
+    public int indexOfUe(int ueId) {
+        for (int i = 0; i < size; i++) {
+            if (ueIds[i] == ueId)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Get the index of the first row with the specified receiver.
+     * @param receiver the receiver id
+     * @return the index of the row, or -1 if the receiver is not in the table
+     */
+    public int indexOfReceiver(int receiver) {
+        for (int i = 0; i < size; i++) {
+            if (receivers[i] == receiver)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Remove all the rows with the specified receiver, keeping the order of the remaining rows.
+     * @param receiver the receiver id
+     * @return the number of removed rows
+     */
+    public int removeByReceiver(int receiver) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (receivers[i] != receiver)
+                moveRow(i, kept++);
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    /**
+     * Remove all the rows referring to the specified UE, keeping the order of the remaining rows.
+     * @param ueId the UE id
+     * @return the number of removed rows
+     */
+    public int removeByUe(int ueId) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (ueIds[i] != ueId)
+                moveRow(i, kept++);
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    /**
+     * Sort the rows by score in descending order. The sort is stable, i.e. rows with equal scores keep their insertion order.
+     */
+    public void sortDescending() {
+        if (size < 2)
+            return;
+
+        if (order == null || order.length < size) {
+            order = new int[proposers.length];
+            orderBuffer = new int[proposers.length];
+        }
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+
+        IndexSort.sortDescending(order, 0, size, scores, orderBuffer);
+
+        // apply the permutation to all the columns in place, following its cycles
+        for (int i = 0; i < size; i++) {
+            if (order[i] < 0)
+                continue;
+
+            int proposer = proposers[i], receiver = receivers[i], ueId = ueIds[i];
+            double score = scores[i];
+            int j = i;
+            while (true) {
+                int src = order[j];
+                order[j] = -1;
+                if (src == i) {
+                    proposers[j] = proposer;
+                    receivers[j] = receiver;
+                    scores[j] = score;
+                    ueIds[j] = ueId;
+                    break;
+                }
+                moveRow(src, j);
+                j = src;
+            }
+        }
+    }
+
+    /**
+     * Get the indexes of the k best rows (highest scores) within a range of rows, without sorting the table.
+     * Rows with equal scores are returned in their insertion order.
+     * @param from the first row of the range (inclusive)
+     * @param to the last row of the range (exclusive)
+     * @param k the number of rows to select
+     * @param out the array where the indexes of the best rows are written, in descending score order
+     * @return the number of selected rows (at most k)
+     */
+    public int topK(int from, int to, int k, int[] out) {
+        if (k <= 0)
+            return 0;
+
+        int found = 0;
+        for (int i = from; i < to; i++) {
+            double score = scores[i];
+            if (found == k && score <= scores[out[found - 1]])
+                continue;
+
+            int pos = found < k ? found++ : found - 1;
+            while (pos > 0 && scores[out[pos - 1]] < score) {
+                out[pos] = out[pos - 1];
+                pos--;
+            }
+            out[pos] = i;
+        }
+        return found;
+    }
+
+    /**
+     * Get the indexes of the k best rows (highest scores) of the table, without sorting it.
+     * @param k the number of rows to select
+     * @param out the array where the indexes of the best rows are written, in descending score order
+     * @return the number of selected rows (at most k)
+     */
+    public int topK(int k, int[] out) {
+        return topK(0, size, k, out);
+    }
+
+    /**
+     * Build a Preference object from a row of the table.
+     * @param row the row index
+     * @param ue2VmMapping the UE-to-VM mapping the row refers to
+     * @return the Preference object
+     */
+    public Preference toPreference(int row, Ue2VmMapping ue2VmMapping) {
+        return new Preference(proposers[row], receivers[row], scores[row], ue2VmMapping);
+    }
+
+    /**
+     * Overwrite a row with a copy of another row of the table (e.g. to compact the table while scanning it).
+     * @param from the index of the row to copy
+     * @param to the index of the row to overwrite
+     */
+    public void moveRow(int from, int to) {
+        if (from == to)
+            return;
+        proposers[to] = proposers[from];
+        receivers[to] = receivers[from];
+        scores[to] = scores[from];
+        ueIds[to] = ueIds[from];
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, proposers.length * 2);
+        proposers = Arrays.copyOf(proposers, capacity);
+        receivers = Arrays.copyOf(receivers, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        ueIds = Arrays.copyOf(ueIds, capacity);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("PreferenceTable{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append("(proposer=").append(proposers[i])
+                    .append(", receiver=").append(receivers[i])
+                    .append(", preference=").append(scores[i])
+                    .append(", ue=").append(ueIds[i]).append(')');
+        }
+        return sb.append('}').toString();
+    }
+}
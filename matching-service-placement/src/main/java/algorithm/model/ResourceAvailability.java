@@ -1,22 +1,28 @@
 package algorithm.model;
 
+import model.ResourceType;
+import model.ResourceVector;
+
+/**
+ * Resources of a single machine, as a view of a row of a ResourceTable.
+ */
 public class ResourceAvailability {
+    private final ResourceTable table;
     private final int id;
-    private final int totCores;
-    private final int totMemory;
-    private final int totAllocations;
-    private int usedCores;
-    private int usedMemory;
-    private int usedAllocations;
+    // row of the machine in the table (a standalone availability has its own single row table)
+    private final int row;
 
     public ResourceAvailability(int id, int totCores, int totMemory, int totAllocations) {
+        this.table = new ResourceTable(1);
+        this.table.setCapacity(0, ResourceVector.of(totCores, totMemory), totAllocations);
+        this.id = id;
+        this.row = 0;
+    }
+
+    ResourceAvailability(ResourceTable table, int id) {
+        this.table = table;
         this.id = id;
-        this.totCores = totCores;
-        this.totMemory = totMemory;
-        this.totAllocations = totAllocations;
-        this.usedCores = 0;
-        this.usedMemory = 0;
-        this.usedAllocations = 0;
+        this.row = id;
     }
 
     public int getId() {
@@ -24,74 +30,91 @@ public class ResourceAvailability {
     }
 
     public int getTotCores() {
-        return totCores;
+        return table.getCapacity(ResourceType.CORES, row);
     }
 
     public int getTotMemory() {
-        return totMemory;
+        return table.getCapacity(ResourceType.MEMORY_GB, row);
     }
 
     public void allocateResources(int cores, int memory) {
         allocateCores(cores);
         allocateMemory(memory);
-        this.usedAllocations++;
+        table.addAllocations(row, 1);
     }
 
     public void releaseResources(int cores, int memory) {
         releaseCores(cores);
         releaseMemory(memory);
-        this.usedAllocations--;
+        table.addAllocations(row, -1);
+    }
+
+    /**
+     * Reserve the resources of every type of a request, only if all of them fit (see ResourceTable.fitsAndReserve).
+     * @param demand the amount of each resource type requested, indexed by ResourceType ordinal
+     * @return true if the resources were reserved, false otherwise
+     */
+    public boolean allocateResources(int[] demand) {
+        return table.fitsAndReserve(row, demand);
+    }
+
+    public void releaseResources(int[] demand) {
+        table.release(row, demand);
     }
 
     public void allocateCores(int cores) {
-        if (this.usedCores + cores <= this.totCores) {
-            this.usedCores += cores;
-        }
+        table.allocate(row, ResourceTable.CORES, cores);
     }
 
     public void releaseCores(int cores) {
-        if (this.usedCores - cores >= 0) {
-            this.usedCores -= cores;
-        }
+        table.release(row, ResourceTable.CORES, cores);
     }
 
     public void allocateMemory(int memory) {
-        if (this.usedMemory + memory <= this.totMemory) {
-            this.usedMemory += memory;
-        }
+        table.allocate(row, ResourceTable.MEMORY, memory);
     }
 
     public void releaseMemory(int memory) {
-        if (this.usedMemory - memory >= 0) {
-            this.usedMemory -= memory;
-        }
+        table.release(row, ResourceTable.MEMORY, memory);
     }
 
     public int getAvailableCores() {
-        return this.totCores - this.usedCores;
+        return table.getAvailable(ResourceType.CORES, row);
     }
 
     public int getAvailableMemory() {
-        return this.totMemory - this.usedMemory;
+        return table.getAvailable(ResourceType.MEMORY_GB, row);
+    }
+
+    public int getAvailable(ResourceType type) {
+        return table.getAvailable(type, row);
     }
 
     public int getUsedCores() {
-        return this.usedCores;
+        return table.getUsed(ResourceType.CORES, row);
     }
 
     public int getUsedMemory() {
-        return this.usedMemory;
+        return table.getUsed(ResourceType.MEMORY_GB, row);
+    }
+
+    public int getUsed(ResourceType type) {
+        return table.getUsed(type, row);
     }
 
     public int getUsedAllocations() {
-        return usedAllocations;
+        return table.getUsedAllocations(row);
     }
 
     public boolean areResourcesAvailable(int cores, int memory) {
-        return this.usedCores + cores <= this.totCores && this.usedMemory + memory <= this.totMemory;
+        return table.areResourcesAvailable(row, cores, memory);
     }
 
     public boolean canPerformMatch(int cores, int memory) {
-        return areResourcesAvailable(cores, memory) && this.usedAllocations < this.totAllocations;
+        return table.canPerformMatch(row, cores, memory);
+    }
+
+    public boolean canPerformMatch(int[] demand) {
+        return table.canPerformMatch(row, demand);
     }
 }
@@ -0,0 +1,167 @@
+package algorithm.model;
+
+import model.PM;
+import model.ResourceType;
+import model.ResourceVector;
+
+import java.util.List;
+
+/**
+ * Struct-of-arrays table of the total and used resources of a set of machines (e.g. the PMs), with one primitive array
+ * per resource type across all the machines and an allocation (slot) count per machine.
+ * Multi-resource requests are checked and reserved over all the resource types at once (see fitsAndReserve).
+ */
+public class ResourceTable {
+    static final int CORES = ResourceType.CORES.ordinal();
+    static final int MEMORY = ResourceType.MEMORY_GB.ordinal();
+    private final int size;
+    private final int[][] capacity; // resource type rows, machine columns
+    private final int[][] used; // resource type rows, machine columns
+    private final int[] maxAllocations;
+    private final int[] usedAllocations;
+
+    public ResourceTable(int size) {
+        this.size = size;
+        this.capacity = new int[ResourceType.COUNT][size];
+        this.used = new int[ResourceType.COUNT][size];
+        this.maxAllocations = new int[size];
+        this.usedAllocations = new int[size];
+    }
+
+    /**
+     * Build the resource table of a list of PMs (indexed by PM id), with the maximum number of hosted VMs as allocation limit.
+     * @param pms the PMs
+     * @return the resource table
+     */
+    public static ResourceTable ofPms(List<PM> pms) {
+        ResourceTable table = new ResourceTable(pms.size());
+        for (PM pm : pms) {
+            table.setCapacity(pm.getId(), pm.getCapacity(), pm.getMaxVmsHosted());
+        }
+        return table;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void setCapacity(int id, ResourceVector resources, int allocations) {
+        for (int d = 0; d < ResourceType.COUNT; d++) {
+            capacity[d][id] = resources.get(d);
+        }
+        maxAllocations[id] = allocations;
+    }
+
+    /**
+     * Get the resource availability view of a machine of the table.
+     * @param id the machine id
+     * @return the resource availability of the machine
+     */
+    public ResourceAvailability view(int id) {
+        return new ResourceAvailability(this, id);
+    }
+
+    /**
+     * Check if a machine has enough resources of every type for a request.
+     * @param id the machine id
+     * @param demand the amount of each resource type requested, indexed by ResourceType ordinal
+     * @return true if the request fits the machine, false otherwise
+     */
+    public boolean fits(int id, int[] demand) {
+        for (int d = 0; d < ResourceType.COUNT; d++) {
+            if (used[d][id] + demand[d] > capacity[d][id])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Check if a machine can host a request, i.e. if it has enough resources of every type and a free allocation slot.
+     * @param id the machine id
+     * @param demand the amount of each resource type requested, indexed by ResourceType ordinal
+     * @return true if the machine can host the request, false otherwise
+     */
+    public boolean canPerformMatch(int id, int[] demand) {
+        return usedAllocations[id] < maxAllocations[id] && fits(id, demand);
+    }
+
+    /**
+     * Reserve the resources of every type (and an allocation slot) of a request on a machine, only if all of them fit.
+     * @param id the machine id
+     * @param demand the amount of each resource type requested, indexed by ResourceType ordinal
+     * @return true if the resources were reserved, false if the machine cannot host the request (nothing is reserved)
+     */
+    public boolean fitsAndReserve(int id, int[] demand) {
+        if (!canPerformMatch(id, demand))
+            return false;
+
+        for (int d = 0; d < ResourceType.COUNT; d++) {
+            used[d][id] += demand[d];
+        }
+        usedAllocations[id]++;
+        return true;
+    }
+
+    /**
+     * Release the resources of every type (and the allocation slot) of a request previously reserved on a machine.
+     * @param id the machine id
+     * @param demand the amount of each resource type to be released, indexed by ResourceType ordinal
+     */
+    public void release(int id, int[] demand) {
+        for (int d = 0; d < ResourceType.COUNT; d++) {
+            if (used[d][id] - demand[d] < 0)
+                throw new IllegalArgumentException("Cannot release more resources than reserved");
+        }
+        for (int d = 0; d < ResourceType.COUNT; d++) {
+            used[d][id] -= demand[d];
+        }
+        usedAllocations[id]--;
+    }
+
+    // cores and memory only requests: the other resource types are not requested, so they always fit
+
+    boolean canPerformMatch(int id, int cores, int memory) {
+        return usedAllocations[id] < maxAllocations[id]
+                && used[CORES][id] + cores <= capacity[CORES][id] && used[MEMORY][id] + memory <= capacity[MEMORY][id];
+    }
+
+    boolean areResourcesAvailable(int id, int cores, int memory) {
+        return used[CORES][id] + cores <= capacity[CORES][id] && used[MEMORY][id] + memory <= capacity[MEMORY][id];
+    }
+
+    void allocate(int id, int type, int amount) {
+        if (used[type][id] + amount <= capacity[type][id]) {
+            used[type][id] += amount;
+        }
+    }
+
+    void release(int id, int type, int amount) {
+        if (used[type][id] - amount >= 0) {
+            used[type][id] -= amount;
+        }
+    }
+
+    void addAllocations(int id, int allocations) {
+        usedAllocations[id] += allocations;
+    }
+
+    public int getCapacity(ResourceType type, int id) {
+        return capacity[type.ordinal()][id];
+    }
+
+    public int getUsed(ResourceType type, int id) {
+        return used[type.ordinal()][id];
+    }
+
+    public int getAvailable(ResourceType type, int id) {
+        return capacity[type.ordinal()][id] - used[type.ordinal()][id];
+    }
+
+    public int getMaxAllocations(int id) {
+        return maxAllocations[id];
+    }
+
+    public int getUsedAllocations(int id) {
+        return usedAllocations[id];
+    }
+}
@@ -1,16 +1,26 @@
 package algorithm.model;
 
+import model.ResourceType;
+import model.ResourceVector;
+
 public class Ue2VmMapping{
     private int ueId;
     private int vmId;
-    private int cores;
-    private int memory;
+    // amount of each resource type (see ResourceType) required by the UE on the VM
+    private final int[] resources;
 
     public Ue2VmMapping(int ueId, int vmId, int cores, int memory) {
         this.ueId = ueId;
         this.vmId = vmId;
-        this.cores = cores;
-        this.memory = memory;
+        this.resources = new int[ResourceType.COUNT];
+        this.resources[ResourceType.CORES.ordinal()] = cores;
+        this.resources[ResourceType.MEMORY_GB.ordinal()] = memory;
+    }
+
+    public Ue2VmMapping(int ueId, int vmId, ResourceVector resources) {
+        this.ueId = ueId;
+        this.vmId = vmId;
+        this.resources = resources.toArray();
     }
 
     public int getUeId() {
@@ -30,18 +40,35 @@ public class Ue2VmMapping{
     }
 
     public int getCores() {
-        return cores;
+        return resources[ResourceType.CORES.ordinal()];
     }
 
     public void setCores(int cores) {
-        this.cores = cores;
+        this.resources[ResourceType.CORES.ordinal()] = cores;
     }
 
     public int getMemory() {
-        return memory;
+        return resources[ResourceType.MEMORY_GB.ordinal()];
     }
 
     public void setMemory(int memory) {
-        this.memory = memory;
+        this.resources[ResourceType.MEMORY_GB.ordinal()] = memory;
+    }
+
+    public int getResource(ResourceType type) {
+        return resources[type.ordinal()];
+    }
+
+    public void setResource(ResourceType type, int amount) {
+        this.resources[type.ordinal()] = amount;
+    }
+
+    /**
+     * Get the amount of each resource type required by the UE, indexed by ResourceType ordinal.
+     * The returned array is the internal state of the mapping (to avoid a copy in the fits-and-reserve loops): it must not be modified.
+     * @return the required resources
+     */
+    public int[] getResources() {
+        return resources;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,544 @@
+package algorithm.utils;
+
+import algorithm.model.Ue2VmMapping;
+import model.PM;
+import model.VM;
+import service.EnergyConsumptionService;
+import service.MecSystemService;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Exact solver of the UE/VM-to-PM placement: it maximizes the number of allocated UEs and, among the placements with the
+ * most allocated UEs, minimizes the energy consumption (see EnergyConsumptionService), under the PM/VM capacities and
+ * the VM/PM assignment limits (maxVmsHosted, maxPmPlacements).
+ * The search is a depth-first branch-and-bound over the UE requests, pruned with combinatorial (LP-free) bounds:
+ * - allocated UEs: the smallest remaining requests that fit in the total residual cores (and memory GBs) of the PMs,
+ *   and in the residual resources of each VM;
+ * - energy: the lightest remaining requests, all placed on the cheapest PM that can still host a request.
+ * Symmetric solutions are skipped: identical empty PMs are tried only once, and identical requests of the same VM are
+ * placed in non-decreasing PM order. Subtrees are explored in parallel by a work-stealing pool sharing the best solution.
+ */
+public class BranchAndBoundSolver {
+    // subtrees with fewer requests left are always explored by the current task
+    private static final int MIN_SPLIT_REQUESTS = 6;
+    // number of explored nodes between two checks of the time limit
+    private static final int TIME_CHECK_INTERVAL = 1024;
+    private static final double ENERGY_TOLERANCE = 1e-9;
+
+    private final int totalMappings;
+    // requests that can be placed, in search order (largest first)
+    private final int totalRequests;
+    private final int[] mappingIdx;
+    private final int[] requestVm;
+    private final int[] requestCores;
+    private final int[] requestGbs;
+    private final double[] requestWeight;
+    private final boolean[] sameAsPrevious;
+
+    // PMs by position, in ascending energy cost order (identical PMs are adjacent)
+    private final int totalPms;
+    private final int[] pmIds;
+    private final double[] pmOps;
+    private final int[] pmTotCores;
+    private final int[] pmTotGbs;
+    private final int[] pmMaxVms;
+    private final boolean[] identicalToPrevious;
+
+    private final int[] vmTotCores;
+    private final int[] vmTotGbs;
+    private final int[] vmMaxPms;
+
+    // for each request i, sums of the k smallest cores, memory GBs and energy weights among the requests i..n-1
+    private final long[][] suffixCores;
+    private final long[][] suffixGbs;
+    private final double[][] suffixWeights;
+    private final int[] suffixMinCores;
+    private final int[] suffixMinGbs;
+    // requests of each VM, by ascending cores and by ascending memory GBs
+    private final int[][] vmRequestsByCores;
+    private final int[][] vmRequestsByGbs;
+
+    private final SearchState initialState;
+
+    private AtomicReference<Solution> incumbent;
+    private LongAdder exploredNodes;
+    private long deadline;
+    private volatile boolean stopped;
+
+    /**
+     * Build the placement problem of some UE/VM requests, starting from the current mapping of the system.
+     * @param mecService the MEC system service
+     * @param energyService the energy consumption service
+     * @param mappings the UE/VM requests to be placed
+     */
+    public BranchAndBoundSolver(MecSystemService mecService, EnergyConsumptionService energyService, List<Ue2VmMapping> mappings) {
+        this.totalMappings = mappings.size();
+        this.totalPms = mecService.getNumberOfPMs();
+        int totalVms = mecService.getNumberOfVMs();
+
+        // PMs: cheapest first (the energy cost of a request is proportional to the compute speed of the PM)
+        Integer[] pmOrder = new Integer[totalPms];
+        for (int pmId = 0; pmId < totalPms; pmId++)
+            pmOrder[pmId] = pmId;
+        Arrays.sort(pmOrder, Comparator.<Integer>comparingDouble(pmId -> mecService.getPM(pmId).getCoreComputeOpsPerSec())
+                .thenComparingInt(pmId -> mecService.getPM(pmId).getTotCores())
+                .thenComparingInt(pmId -> mecService.getPM(pmId).getTotMemoryGB())
+                .thenComparingInt(pmId -> mecService.getPM(pmId).getMaxVmsHosted())
+                .thenComparingInt(pmId -> pmId));
+        this.pmIds = new int[totalPms];
+        this.pmOps = new double[totalPms];
+        this.pmTotCores = new int[totalPms];
+        this.pmTotGbs = new int[totalPms];
+        this.pmMaxVms = new int[totalPms];
+        this.identicalToPrevious = new boolean[totalPms];
+        for (int pos = 0; pos < totalPms; pos++) {
+            PM pm = mecService.getPM(pmOrder[pos]);
+            pmIds[pos] = pm.getId();
+            pmOps[pos] = pm.getCoreComputeOpsPerSec();
+            pmTotCores[pos] = pm.getTotCores();
+            pmTotGbs[pos] = pm.getTotMemoryGB();
+            pmMaxVms[pos] = pm.getMaxVmsHosted();
+            identicalToPrevious[pos] = pos > 0 && pmOps[pos] == pmOps[pos - 1] && pmTotCores[pos] == pmTotCores[pos - 1]
+                    && pmTotGbs[pos] == pmTotGbs[pos - 1] && pmMaxVms[pos] == pmMaxVms[pos - 1];
+        }
+
+        this.vmTotCores = new int[totalVms];
+        this.vmTotGbs = new int[totalVms];
+        this.vmMaxPms = new int[totalVms];
+        for (int vmId = 0; vmId < totalVms; vmId++) {
+            VM vm = mecService.getVM(vmId);
+            vmTotCores[vmId] = vm.getTotCores();
+            vmTotGbs[vmId] = vm.getTotMemoryGB();
+            vmMaxPms[vmId] = vm.getMaxPmPlacements();
+        }
+
+        // initial state from the current mapping
+        this.initialState = new SearchState(totalPms, totalVms, 0);
+        for (int pos = 0; pos < totalPms; pos++) {
+            int pmId = pmIds[pos];
+            initialState.pmCores[pos] = pmTotCores[pos] - mecService.getRemainingCoresInPm(pmId);
+            initialState.pmGbs[pos] = pmTotGbs[pos] - mecService.getRemainingGbsInPm(pmId);
+            initialState.pmVms[pos] = mecService.getTotVmsHostedByPm(pmId);
+            for (int vmId = 0; vmId < totalVms; vmId++) {
+                if (mecService.getVmCores2Pm(vmId, pmId) > 0 || mecService.getVmGb2Pm(vmId, pmId) > 0)
+                    initialState.vmPlacements[vmId][pos] = 1;
+            }
+        }
+        for (int vmId = 0; vmId < totalVms; vmId++) {
+            initialState.vmPms[vmId] = mecService.getTotPmsHostingVm(vmId);
+            initialState.vmCores[vmId] = vmTotCores[vmId] - mecService.getRemainingCoresInVm(vmId);
+            initialState.vmGbs[vmId] = vmTotGbs[vmId] - mecService.getRemainingGbsInVm(vmId);
+        }
+
+        // requests: the ones that cannot be placed on any PM are left out of the search
+        double computeDuration = energyService.getComputationDurationTime();
+        List<Integer> requests = new ArrayList<>();
+        for (int i = 0; i < totalMappings; i++) {
+            Ue2VmMapping mapping = mappings.get(i);
+            if (mapping.getCores() > vmTotCores[mapping.getVmId()] || mapping.getMemory() > vmTotGbs[mapping.getVmId()])
+                continue;
+            for (int pos = 0; pos < totalPms; pos++) {
+                if (mapping.getCores() <= pmTotCores[pos] - initialState.pmCores[pos] && mapping.getMemory() <= pmTotGbs[pos] - initialState.pmGbs[pos]) {
+                    requests.add(i);
+                    break;
+                }
+            }
+        }
+        // largest first, with identical requests of the same VM next to each other
+        requests.sort(Comparator.<Integer>comparingInt(i -> -mappings.get(i).getCores())
+                .thenComparingInt(i -> -mappings.get(i).getMemory())
+                .thenComparingInt(i -> mappings.get(i).getVmId())
+                .thenComparingInt(i -> i));
+
+        this.totalRequests = requests.size();
+        this.mappingIdx = new int[totalRequests];
+        this.requestVm = new int[totalRequests];
+        this.requestCores = new int[totalRequests];
+        this.requestGbs = new int[totalRequests];
+        this.requestWeight = new double[totalRequests];
+        this.sameAsPrevious = new boolean[totalRequests];
+        for (int r = 0; r < totalRequests; r++) {
+            Ue2VmMapping mapping = mappings.get(requests.get(r));
+            mappingIdx[r] = requests.get(r);
+            requestVm[r] = mapping.getVmId();
+            requestCores[r] = mapping.getCores();
+            requestGbs[r] = mapping.getMemory();
+            requestWeight[r] = computeDuration * mapping.getCores() * mecService.getVM(mapping.getVmId()).getEnergyConsumptionPerCoreOps();
+            sameAsPrevious[r] = r > 0 && requestVm[r] == requestVm[r - 1] && requestCores[r] == requestCores[r - 1] && requestGbs[r] == requestGbs[r - 1];
+        }
+
+        this.suffixCores = new long[totalRequests + 1][];
+        this.suffixGbs = new long[totalRequests + 1][];
+        this.suffixWeights = new double[totalRequests + 1][];
+        this.suffixMinCores = new int[totalRequests + 1];
+        this.suffixMinGbs = new int[totalRequests + 1];
+        for (int r = 0; r <= totalRequests; r++) {
+            int[] cores = Arrays.copyOfRange(requestCores, r, totalRequests);
+            int[] gbs = Arrays.copyOfRange(requestGbs, r, totalRequests);
+            double[] weights = Arrays.copyOfRange(requestWeight, r, totalRequests);
+            Arrays.sort(cores);
+            Arrays.sort(gbs);
+            Arrays.sort(weights);
+            suffixCores[r] = new long[cores.length + 1];
+            suffixGbs[r] = new long[gbs.length + 1];
+            suffixWeights[r] = new double[weights.length + 1];
+            for (int k = 0; k < cores.length; k++) {
+                suffixCores[r][k + 1] = suffixCores[r][k] + cores[k];
+                suffixGbs[r][k + 1] = suffixGbs[r][k] + gbs[k];
+                suffixWeights[r][k + 1] = suffixWeights[r][k] + weights[k];
+            }
+            suffixMinCores[r] = cores.length > 0 ? cores[0] : 0;
+            suffixMinGbs[r] = gbs.length > 0 ? gbs[0] : 0;
+        }
+
+        this.vmRequestsByCores = new int[totalVms][];
+        this.vmRequestsByGbs = new int[totalVms][];
+        for (int vmId = 0; vmId < totalVms; vmId++) {
+            int finalVmId = vmId;
+            vmRequestsByCores[vmId] = IntStream.range(0, totalRequests).filter(r -> requestVm[r] == finalVmId).boxed()
+                    .sorted(Comparator.comparingInt(r -> requestCores[r])).mapToInt(Integer::intValue).toArray();
+            vmRequestsByGbs[vmId] = IntStream.range(0, totalRequests).filter(r -> requestVm[r] == finalVmId).boxed()
+                    .sorted(Comparator.comparingInt(r -> requestGbs[r])).mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Solution of the placement problem.
+     * @param allocatedUes the number of allocated UEs
+     * @param energy the energy consumption of the allocated UEs
+     * @param pmByMapping the PM id of each UE/VM request (in the order they were given), or -1 if not allocated
+     * @param optimal whether the solution is proven optimal (false if the time limit was reached)
+     * @param exploredNodes the number of explored nodes of the search tree
+     */
+    public record Solution(int allocatedUes, double energy, int[] pmByMapping, boolean optimal, long exploredNodes) {
+    }
+
+    /**
+     * Search the optimal placement.
+     * @param timeLimitMillis the time limit of the search in milliseconds (the best solution found so far is returned when reached)
+     * @param parallelism the number of threads exploring the search tree
+     * @return the best solution found
+     */
+    public Solution solve(long timeLimitMillis, int parallelism) {
+        if (timeLimitMillis <= 0 || parallelism <= 0)
+            throw new IllegalArgumentException("Invalid time limit or parallelism");
+
+        // start from the empty placement of the requests
+        int[] noPlacements = new int[totalRequests];
+        Arrays.fill(noPlacements, totalPms);
+        this.incumbent = new AtomicReference<>(new Solution(0, 0., noPlacements, false, 0));
+        this.exploredNodes = new LongAdder();
+        this.deadline = System.nanoTime() + timeLimitMillis * 1_000_000L;
+        this.stopped = false;
+
+        SearchState root = initialState.copy();
+        root.placements = new int[totalRequests];
+        root.energies = new double[totalRequests + 1];
+        for (int pos = 0; pos < totalPms; pos++) {
+            root.freeCores += pmTotCores[pos] - root.pmCores[pos];
+            root.freeGbs += pmTotGbs[pos] - root.pmGbs[pos];
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new SubtreeTask(root, 0));
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        Solution best = incumbent.get();
+        int[] pmByMapping = new int[totalMappings];
+        Arrays.fill(pmByMapping, -1);
+        for (int r = 0; r < totalRequests; r++) {
+            if (best.pmByMapping()[r] < totalPms)
+                pmByMapping[mappingIdx[r]] = pmIds[best.pmByMapping()[r]];
+        }
+        return new Solution(best.allocatedUes(), best.energy(), pmByMapping, !stopped, exploredNodes.sum());
+    }
+
+    /**
+     * Search state: the PM/VM resources in use, and the PM position of the requests placed so far (totalPms if not placed).
+     */
+    private static final class SearchState {
+        final int[] pmCores;
+        final int[] pmGbs;
+        final int[] pmVms;
+        final int[] vmPms;
+        final int[] vmCores;
+        final int[] vmGbs;
+        // number of requests (or previous placements) of each VM on each PM
+        final int[][] vmPlacements;
+        long freeCores;
+        long freeGbs;
+        int allocated;
+        int[] placements;
+        // energy of the placed requests, before each request
+        double[] energies;
+
+        SearchState(int totalPms, int totalVms, int allocated) {
+            this.pmCores = new int[totalPms];
+            this.pmGbs = new int[totalPms];
+            this.pmVms = new int[totalPms];
+            this.vmPms = new int[totalVms];
+            this.vmCores = new int[totalVms];
+            this.vmGbs = new int[totalVms];
+            this.vmPlacements = new int[totalVms][totalPms];
+            this.allocated = allocated;
+        }
+
+        SearchState copy() {
+            SearchState copy = new SearchState(pmCores.length, vmPms.length, allocated);
+            System.arraycopy(pmCores, 0, copy.pmCores, 0, pmCores.length);
+            System.arraycopy(pmGbs, 0, copy.pmGbs, 0, pmGbs.length);
+            System.arraycopy(pmVms, 0, copy.pmVms, 0, pmVms.length);
+            System.arraycopy(vmPms, 0, copy.vmPms, 0, vmPms.length);
+            System.arraycopy(vmCores, 0, copy.vmCores, 0, vmCores.length);
+            System.arraycopy(vmGbs, 0, copy.vmGbs, 0, vmGbs.length);
+            for (int vmId = 0; vmId < vmPlacements.length; vmId++)
+                System.arraycopy(vmPlacements[vmId], 0, copy.vmPlacements[vmId], 0, pmCores.length);
+            copy.freeCores = freeCores;
+            copy.freeGbs = freeGbs;
+            copy.placements = placements == null ? null : placements.clone();
+            copy.energies = energies == null ? null : energies.clone();
+            return copy;
+        }
+    }
+
+    /**
+     * Exploration of the subtree below a request (the requests before it are already decided in the state).
+     */
+    private final class SubtreeTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        // tasks are never serialized: the state is only shared with the fork/join pool
+        private final transient SearchState state;
+        private final int request;
+        private int nodesSinceCheck = 0;
+
+        SubtreeTask(SearchState state, int request) {
+            this.state = state;
+            this.request = request;
+        }
+
+        @Override
+        protected void compute() {
+            explore(request);
+            exploredNodes.add(nodesSinceCheck);
+        }
+
+        private void explore(int r) {
+            if (stopped || ++nodesSinceCheck % TIME_CHECK_INTERVAL == 0 && checkTimeLimit())
+                return;
+
+            if (r == totalRequests) {
+                offer(state.allocated, state.energies[r], state.placements);
+                return;
+            }
+            if (canPrune(r))
+                return;
+
+            // identical requests are placed in non-decreasing PM order
+            int firstPos = sameAsPrevious[r] ? state.placements[r - 1] : 0;
+            if (totalRequests - r > MIN_SPLIT_REQUESTS && ForkJoinTask.getSurplusQueuedTaskCount() < 2) {
+                split(r, firstPos);
+                return;
+            }
+
+            for (int pos = firstPos; pos < totalPms; pos++) {
+                if (!canPlace(state, r, pos))
+                    continue;
+                boolean newPlacement = place(state, r, pos);
+                explore(r + 1);
+                unplace(state, r, pos, newPlacement);
+            }
+            // leave the request unallocated
+            state.placements[r] = totalPms;
+            state.energies[r + 1] = state.energies[r];
+            explore(r + 1);
+        }
+
+        /**
+         * Explore the children of a node as separate tasks, which idle threads can steal.
+         */
+        private void split(int r, int firstPos) {
+            List<SubtreeTask> children = new ArrayList<>();
+            for (int pos = firstPos; pos < totalPms; pos++) {
+                if (!canPlace(state, r, pos))
+                    continue;
+                boolean newPlacement = place(state, r, pos);
+                children.add(new SubtreeTask(state.copy(), r + 1));
+                unplace(state, r, pos, newPlacement);
+            }
+            state.placements[r] = totalPms;
+            state.energies[r + 1] = state.energies[r];
+            children.add(new SubtreeTask(state.copy(), r + 1));
+            invokeAll(children);
+        }
+
+        private boolean checkTimeLimit() {
+            exploredNodes.add(nodesSinceCheck);
+            nodesSinceCheck = 0;
+            if (System.nanoTime() > deadline)
+                stopped = true;
+            return stopped;
+        }
+
+        private boolean canPrune(int r) {
+            Solution best = incumbent.get();
+            int remaining = totalRequests - r;
+            int maxAllocations = Math.min(remaining, Math.min(maxFitting(suffixCores[r], state.freeCores), maxFitting(suffixGbs[r], state.freeGbs)));
+            maxAllocations = Math.min(maxAllocations, maxFittingVms(r));
+            int maxAllocated = state.allocated + maxAllocations;
+            if (maxAllocated != best.allocatedUes())
+                return maxAllocated < best.allocatedUes();
+
+            // the best solution can only be improved with less energy for the same number of allocated UEs
+            int toAllocate = best.allocatedUes() - state.allocated;
+            double minEnergy = state.energies[r];
+            if (toAllocate > 0)
+                minEnergy += suffixWeights[r][toAllocate] * minRemainingOps(r);
+            return minEnergy >= best.energy() - ENERGY_TOLERANCE * Math.abs(best.energy());
+        }
+
+        /**
+         * Get the maximum number of remaining requests that fit in the residual resources of their VMs.
+         */
+        private int maxFittingVms(int r) {
+            int total = 0;
+            for (int vmId = 0; vmId < vmRequestsByCores.length; vmId++) {
+                int byCores = maxFitting(vmRequestsByCores[vmId], requestCores, r, vmTotCores[vmId] - state.vmCores[vmId]);
+                int byGbs = maxFitting(vmRequestsByGbs[vmId], requestGbs, r, vmTotGbs[vmId] - state.vmGbs[vmId]);
+                total += Math.min(byCores, byGbs);
+            }
+            return total;
+        }
+
+        /**
+         * Get the compute speed of the cheapest PM that can still host one of the remaining requests.
+         */
+        private double minRemainingOps(int r) {
+            for (int pos = 0; pos < totalPms; pos++) {
+                if (pmTotCores[pos] - state.pmCores[pos] >= suffixMinCores[r] && pmTotGbs[pos] - state.pmGbs[pos] >= suffixMinGbs[r]
+                        && (state.pmVms[pos] < pmMaxVms[pos] || state.pmVms[pos] > 0))
+                    return pmOps[pos];
+            }
+            return Double.POSITIVE_INFINITY;
+        }
+    }
+
+    private boolean canPlace(SearchState state, int r, int pos) {
+        int vmId = requestVm[r];
+        int cores = requestCores[r];
+        int gbs = requestGbs[r];
+        if (state.pmCores[pos] + cores > pmTotCores[pos] || state.pmGbs[pos] + gbs > pmTotGbs[pos]
+                || state.vmCores[vmId] + cores > vmTotCores[vmId] || state.vmGbs[vmId] + gbs > vmTotGbs[vmId])
+            return false;
+        if (state.vmPlacements[vmId][pos] > 0)
+            return true;
+
+        if (state.pmVms[pos] >= pmMaxVms[pos] || state.vmPms[vmId] >= vmMaxPms[vmId])
+            return false;
+        // identical empty PMs are interchangeable: only the first one is tried
+        return !(isEmpty(state, pos) && identicalToPrevious[pos] && isEmpty(state, pos - 1));
+    }
+
+    private static boolean isEmpty(SearchState state, int pos) {
+        return state.pmVms[pos] == 0 && state.pmCores[pos] == 0 && state.pmGbs[pos] == 0;
+    }
+
+    private boolean place(SearchState state, int r, int pos) {
+        int vmId = requestVm[r];
+        boolean newPlacement = state.vmPlacements[vmId][pos]++ == 0;
+        if (newPlacement) {
+            state.pmVms[pos]++;
+            state.vmPms[vmId]++;
+        }
+        state.pmCores[pos] += requestCores[r];
+        state.pmGbs[pos] += requestGbs[r];
+        state.vmCores[vmId] += requestCores[r];
+        state.vmGbs[vmId] += requestGbs[r];
+        state.freeCores -= requestCores[r];
+        state.freeGbs -= requestGbs[r];
+        state.allocated++;
+        state.placements[r] = pos;
+        state.energies[r + 1] = state.energies[r] + requestWeight[r] * pmOps[pos];
+        return newPlacement;
+    }
+
+    private void unplace(SearchState state, int r, int pos, boolean newPlacement) {
+        int vmId = requestVm[r];
+        state.vmPlacements[vmId][pos]--;
+        if (newPlacement) {
+            state.pmVms[pos]--;
+            state.vmPms[vmId]--;
+        }
+        state.pmCores[pos] -= requestCores[r];
+        state.pmGbs[pos] -= requestGbs[r];
+        state.vmCores[vmId] -= requestCores[r];
+        state.vmGbs[vmId] -= requestGbs[r];
+        state.freeCores += requestCores[r];
+        state.freeGbs += requestGbs[r];
+        state.allocated--;
+    }
+
+    /**
+     * Replace the best solution if the new one allocates more UEs, or the same UEs with less energy.
+     */
+    private void offer(int allocated, double energy, int[] placements) {
+        Solution best = incumbent.get();
+        while (allocated > best.allocatedUes() || (allocated == best.allocatedUes() && energy < best.energy() - ENERGY_TOLERANCE * Math.abs(best.energy()))) {
+            Solution candidate = new Solution(allocated, energy, placements.clone(), false, 0);
+            if (incumbent.compareAndSet(best, candidate))
+                return;
+            best = incumbent.get();
+        }
+    }
+
+    /**
+     * Get the maximum number of requests (among the ones from the specified request on) that fit in some capacity.
+     * @param sortedRequests the requests, by ascending demand
+     * @param demands the demand of each request
+     * @param fromRequest the first request to consider
+     * @param capacity the capacity
+     * @return the number of requests
+     */
+    private static int maxFitting(int[] sortedRequests, int[] demands, int fromRequest, int capacity) {
+        int count = 0;
+        for (int r : sortedRequests) {
+            if (r < fromRequest)
+                continue;
+            capacity -= demands[r];
+            if (capacity < 0)
+                break;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Get the maximum number of requests that fit in some capacity, given the sums of the smallest requests.
+     */
+    private static int maxFitting(long[] smallestSums, long capacity) {
+        int lo = 0, hi = smallestSums.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (smallestSums[mid] <= capacity)
+                lo = mid;
+            else
+                hi = mid - 1;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,530 @@
+package algorithm.utils;
+
+import algorithm.model.Ue2VmMapping;
+import model.PM;
+import model.VM;
+import service.EnergyConsumptionService;
+import service.MecSystemService;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Weighted hypergraph matching of the UE/VM-to-PM placement (the hypergraph matching approach of Zhang et al.): each
+ * hyperedge joins a UE request (i.e. the UE and its VM) with a PM, and its weight rewards the allocation of the UE and
+ * penalizes its energy consumption on the PM. The chosen hyperedges must respect the PM/VM capacities and the VM/PM
+ * assignment limits (maxVmsHosted, maxPmPlacements).
+ * The hyperedges are never enumerated: the best feasible hyperedge of a request is generated on demand by a search over a
+ * tree of the residual resources of the PMs (in ascending energy cost order), which prunes the PMs that cannot host it.
+ * The matching is built greedily (lightest hyperedge cost first) and then improved by local search:
+ * - insert: an unallocated request is placed on a PM that freed enough resources;
+ * - relocate: a request moves to a cheaper PM that freed enough resources;
+ * - exchange: an unallocated request takes the place of an allocated one, which moves to another PM.
+ * The gain of each move follows from the energy weight of the request and the compute speeds of the PMs, and only the PMs
+ * whose residual resources increased are examined again.
+ */
+public class HypergraphMatching {
+    private static final double ENERGY_TOLERANCE = 1e-9;
+    // allocated requests examined for the exchange with each unallocated request
+    private static final int EXCHANGE_CANDIDATES = 64;
+    // maximum number of local search rounds (each round ends with an exchange pass)
+    private static final int MAX_ROUNDS = 16;
+
+    private final int totalMappings;
+    private final int[] requestVm;
+    private final int[] requestCores;
+    private final int[] requestGbs;
+    // energy of each request per unit of core compute speed of the PM
+    private final double[] requestWeight;
+    // share of the resources of its VM used by each request (cores plus memory GBs)
+    private final double[] requestShare;
+    // PM position of each request (-1 if unallocated), and index of the request in the list of its PM
+    private final int[] requestPosition;
+    private final int[] requestSlot;
+    private final int minRequestCores;
+    private final int minRequestGbs;
+
+    // PMs by position, in ascending energy cost order
+    private final int totalPms;
+    private final int[] pmIds;
+    private final double[] pmOps;
+    private final int[] pmResCores;
+    private final int[] pmResGbs;
+    private final int[] pmVms;
+    private final int[] pmMaxVms;
+    // requests hosted by each PM, and lower bounds of their cores and memory GBs
+    private final int[][] pmRequests;
+    private final int[] pmTotRequests;
+    private final int[] pmMinCores;
+    private final int[] pmMinGbs;
+
+    private final int[] vmResCores;
+    private final int[] vmResGbs;
+    private final int[] vmPms;
+    private final int[] vmMaxPms;
+    // PMs (by position) hosting each VM, with the number of requests of the VM on each of them (placements that existed
+    // before the matching count as one more request, so that they are never removed)
+    private final int[][] vmHostPositions;
+    private final int[][] vmHostLoads;
+    private final int[] vmTotHosts;
+
+    // segment tree of the maximum residual cores and memory GBs of the PMs with free VM slots (-1 for the other PMs)
+    private final int treeLeaves;
+    private final int[] treeCores;
+    private final int[] treeGbs;
+
+    private int[] unallocated = new int[0];
+    private int totalUnallocated = 0;
+    private int totalAllocated = 0;
+    private double totalEnergy = 0;
+    private long improvingMoves = 0;
+
+    /**
+     * Build the matching problem of some UE/VM requests, starting from the current mapping of the system.
+     * @param mecService the MEC system service
+     * @param energyService the energy consumption service
+     * @param mappings the UE/VM requests to be placed
+     */
+    public HypergraphMatching(MecSystemService mecService, EnergyConsumptionService energyService, List<Ue2VmMapping> mappings) {
+        this.totalMappings = mappings.size();
+        this.totalPms = mecService.getNumberOfPMs();
+        int totalVms = mecService.getNumberOfVMs();
+        double duration = energyService.getComputationDurationTime();
+
+        requestVm = new int[totalMappings];
+        requestCores = new int[totalMappings];
+        requestGbs = new int[totalMappings];
+        requestWeight = new double[totalMappings];
+        requestShare = new double[totalMappings];
+        requestPosition = new int[totalMappings];
+        requestSlot = new int[totalMappings];
+        Arrays.fill(requestPosition, -1);
+        int minCores = Integer.MAX_VALUE, minGbs = Integer.MAX_VALUE;
+        for (int i = 0; i < totalMappings; i++) {
+            Ue2VmMapping mapping = mappings.get(i);
+            requestVm[i] = mapping.getVmId();
+            requestCores[i] = mapping.getCores();
+            requestGbs[i] = mapping.getMemory();
+            VM vm = mecService.getVM(mapping.getVmId());
+            requestWeight[i] = duration * mapping.getCores() * vm.getEnergyConsumptionPerCoreOps();
+            requestShare[i] = (double) mapping.getCores() / Math.max(vm.getTotCores(), 1) + (double) mapping.getMemory() / Math.max(vm.getTotMemoryGB(), 1);
+            minCores = Math.min(minCores, requestCores[i]);
+            minGbs = Math.min(minGbs, requestGbs[i]);
+        }
+        minRequestCores = minCores;
+        minRequestGbs = minGbs;
+
+        pmIds = mecService.getPMs().stream().sorted(Comparator.comparingDouble(PM::getCoreComputeOpsPerSec)).mapToInt(PM::getId).toArray();
+        int[] pmPositions = new int[totalPms];
+        pmOps = new double[totalPms];
+        pmResCores = new int[totalPms];
+        pmResGbs = new int[totalPms];
+        pmVms = new int[totalPms];
+        pmMaxVms = new int[totalPms];
+        pmRequests = new int[totalPms][];
+        pmTotRequests = new int[totalPms];
+        pmMinCores = new int[totalPms];
+        pmMinGbs = new int[totalPms];
+        for (int p = 0; p < totalPms; p++) {
+            PM pm = mecService.getPM(pmIds[p]);
+            pmPositions[pmIds[p]] = p;
+            pmOps[p] = pm.getCoreComputeOpsPerSec();
+            pmResCores[p] = mecService.getRemainingCoresInPm(pm.getId());
+            pmResGbs[p] = mecService.getRemainingGbsInPm(pm.getId());
+            pmVms[p] = mecService.getTotVmsHostedByPm(pm.getId());
+            pmMaxVms[p] = pm.getMaxVmsHosted();
+            pmRequests[p] = new int[4];
+            pmMinCores[p] = Integer.MAX_VALUE;
+            pmMinGbs[p] = Integer.MAX_VALUE;
+        }
+
+        vmResCores = new int[totalVms];
+        vmResGbs = new int[totalVms];
+        vmPms = new int[totalVms];
+        vmMaxPms = new int[totalVms];
+        vmHostPositions = new int[totalVms][];
+        vmHostLoads = new int[totalVms][];
+        vmTotHosts = new int[totalVms];
+        for (int vmId = 0; vmId < totalVms; vmId++) {
+            VM vm = mecService.getVM(vmId);
+            vmResCores[vmId] = mecService.getRemainingCoresInVm(vmId);
+            vmResGbs[vmId] = mecService.getRemainingGbsInVm(vmId);
+            vmPms[vmId] = mecService.getTotPmsHostingVm(vmId);
+            vmMaxPms[vmId] = vm.getMaxPmPlacements();
+            vmHostPositions[vmId] = new int[Math.max(vmPms[vmId], 2)];
+            vmHostLoads[vmId] = new int[vmHostPositions[vmId].length];
+            if (vmPms[vmId] == 0)
+                continue;
+            for (int pmId : mecService.getPmsHostingVm(vmId)) {
+                vmHostPositions[vmId][vmTotHosts[vmId]] = pmPositions[pmId];
+                vmHostLoads[vmId][vmTotHosts[vmId]++] = 1;
+            }
+        }
+
+        int leaves = 1;
+        while (leaves < totalPms)
+            leaves <<= 1;
+        treeLeaves = leaves;
+        treeCores = new int[2 * leaves];
+        treeGbs = new int[2 * leaves];
+        Arrays.fill(treeCores, -1);
+        Arrays.fill(treeGbs, -1);
+        for (int p = 0; p < totalPms; p++)
+            updateTree(p);
+    }
+
+    /**
+     * Build the matching and improve it by local search.
+     * @return the PM id of each request (in the order of the mappings), or -1 if the request is not allocated
+     */
+    public int[] solve() {
+        return solve(() -> true);
+    }
+
+    /**
+     * Build the matching and improve it by local search while the rounds are allowed (the matching is feasible after
+     * each move, so the search can stop at any round).
+     * @param nextRound checked before each local search round, false to stop
+     * @return the PM id of each request (in the order of the mappings), or -1 if the request is not allocated
+     */
+    public int[] solve(BooleanSupplier nextRound) {
+        buildGreedyMatching();
+        improveMatching(nextRound);
+
+        int[] pmByMapping = new int[totalMappings];
+        for (int i = 0; i < totalMappings; i++)
+            pmByMapping[i] = requestPosition[i] == -1 ? -1 : pmIds[requestPosition[i]];
+        return pmByMapping;
+    }
+
+    /**
+     * Get the number of allocated requests of the matching.
+     * @return the number of allocated requests
+     */
+    public int getTotalAllocated() {
+        return totalAllocated;
+    }
+
+    /**
+     * Get the energy consumption of the requests allocated by the matching.
+     * @return the energy consumption
+     */
+    public double getTotalEnergy() {
+        return totalEnergy;
+    }
+
+    /**
+     * Get the number of improving moves applied by the local search.
+     * @return the number of moves
+     */
+    public long getImprovingMoves() {
+        return improvingMoves;
+    }
+
+    /**
+     * Greedy matching: the requests are allocated in ascending order of the cost of their best hyperedge, i.e. the energy
+     * on the PM times the share of the VM resources used by the request (the VMs are usually the scarcest resource, so the
+     * small requests come first). The best hyperedge of a request only gets worse while the PMs fill up, so it is
+     * recomputed (from the PM it pointed to) only when the request reaches the top of the queue.
+     */
+    private void buildGreedyMatching() {
+        int[] cursor = new int[totalMappings];
+        double[] keys = new double[totalMappings];
+        PriorityQueue<Integer> queue = new PriorityQueue<>(Comparator.comparingDouble(r -> keys[r]));
+        unallocated = new int[totalMappings];
+        for (int r = 0; r < totalMappings; r++) {
+            if (!vmFits(r))
+                continue;
+            cursor[r] = firstFit(r, 0);
+            if (cursor[r] == -1) {
+                unallocated[totalUnallocated++] = r;
+                continue;
+            }
+            keys[r] = requestWeight[r] * pmOps[cursor[r]] * requestShare[r];
+            queue.offer(r);
+        }
+
+        while (!queue.isEmpty()) {
+            int r = queue.poll();
+            // the resources of a VM are never released, so a request that does not fit in its VM is dropped
+            if (!vmFits(r))
+                continue;
+
+            int p = firstFit(r, cursor[r]);
+            if (p == -1) {
+                unallocated[totalUnallocated++] = r;
+                continue;
+            }
+            double cost = requestWeight[r] * pmOps[p] * requestShare[r];
+            if (cost > keys[r] + ENERGY_TOLERANCE) {
+                cursor[r] = p;
+                keys[r] = cost;
+                queue.offer(r);
+                continue;
+            }
+            assign(r, p);
+        }
+    }
+
+    /**
+     * Local search: the PMs whose residual resources increased are filled (cheapest first) with unallocated requests and
+     * with requests moved from more expensive PMs, then each unallocated request tries an exchange.
+     */
+    private void improveMatching(BooleanSupplier nextRound) {
+        // unallocated requests that still fit in their VM, smallest first
+        removeUnallocated(r -> requestPosition[r] != -1 || !vmFits(r));
+        Integer[] sorted = IntStream.range(0, totalUnallocated).mapToObj(i -> unallocated[i]).toArray(Integer[]::new);
+        Arrays.sort(sorted, Comparator.<Integer>comparingInt(r -> requestCores[r]).thenComparingInt(r -> requestGbs[r]));
+        for (int i = 0; i < totalUnallocated; i++)
+            unallocated[i] = sorted[i];
+
+        BitSet freedPms = new BitSet(totalPms);
+        freedPms.set(0, totalPms);
+        for (int round = 0; round < MAX_ROUNDS && nextRound.getAsBoolean(); round++) {
+            for (int p = freedPms.nextSetBit(0); p >= 0; p = freedPms.nextSetBit(0)) {
+                freedPms.clear(p);
+                fillPm(p, freedPms);
+            }
+            removeUnallocated(r -> requestPosition[r] != -1 || !vmFits(r));
+            if (totalUnallocated == 0 || !exchangeUnallocated())
+                break;
+        }
+    }
+
+    /**
+     * Fill the residual resources of a PM with the unallocated requests and then with the requests of the more expensive PMs
+     * (most expensive first). The PMs left by the moved requests are marked as freed.
+     */
+    private void fillPm(int p, BitSet freedPms) {
+        for (int i = 0; i < totalUnallocated && requestCores[unallocated[i]] <= pmResCores[p]; i++) {
+            int u = unallocated[i];
+            if (requestPosition[u] == -1 && vmFits(u) && canHost(u, p)) {
+                assign(u, p);
+                improvingMoves++;
+            }
+        }
+
+        for (int q = totalPms - 1; q > p && pmResCores[p] >= minRequestCores && pmResGbs[p] >= minRequestGbs; q--) {
+            // the PMs are in ascending cost order: no move to p is improving for the PMs up to q
+            if (pmOps[q] - pmOps[p] <= ENERGY_TOLERANCE)
+                break;
+            if (pmTotRequests[q] == 0 || pmMinCores[q] > pmResCores[p] || pmMinGbs[q] > pmResGbs[p])
+                continue;
+
+            // moved requests are swapped with the last one, which was already examined
+            for (int i = pmTotRequests[q] - 1; i >= 0; i--) {
+                int r = pmRequests[q][i];
+                if (canRelocate(r, p)) {
+                    unassign(r);
+                    assign(r, p);
+                    freedPms.set(q);
+                    improvingMoves++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Try to allocate each unallocated request in place of an allocated request with at least the missing resources,
+     * moving the latter to another PM.
+     * @return true if at least one exchange succeeded, false otherwise
+     */
+    private boolean exchangeUnallocated() {
+        boolean improved = false;
+        for (int i = 0; i < totalUnallocated; i++) {
+            int u = unallocated[i];
+            if (requestPosition[u] == -1 && vmFits(u) && exchange(u)) {
+                improvingMoves++;
+                improved = true;
+            }
+        }
+        return improved;
+    }
+
+    private boolean exchange(int u) {
+        int vmId = requestVm[u];
+        int examined = 0;
+        for (int p = 0; p < totalPms && examined < EXCHANGE_CANDIDATES; p++) {
+            int missingCores = requestCores[u] - pmResCores[p];
+            int missingGbs = requestGbs[u] - pmResGbs[p];
+            if (!slotAvailable(vmId, p))
+                continue;
+
+            for (int i = 0; i < pmTotRequests[p] && examined < EXCHANGE_CANDIDATES; i++) {
+                int r = pmRequests[p][i];
+                if (requestCores[r] < missingCores || requestGbs[r] < missingGbs)
+                    continue;
+
+                examined++;
+                unassign(r);
+                if (vmFits(u) && canHost(u, p)) {
+                    assign(u, p);
+                    int q = vmFits(r) ? firstFit(r, 0) : -1;
+                    if (q != -1) {
+                        assign(r, q);
+                        return true;
+                    }
+                    unassign(u);
+                }
+                assign(r, p);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the cheapest PM (from a position on) that can host a request, without considering the VM resources.
+     * @return the PM position, or -1 if no PM can host the request
+     */
+    private int firstFit(int r, int from) {
+        int vmId = requestVm[r];
+        int best = -1;
+        // PMs already hosting the VM
+        for (int k = 0; k < vmTotHosts[vmId]; k++) {
+            int p = vmHostPositions[vmId][k];
+            if (p >= from && (best == -1 || p < best) && pmResCores[p] >= requestCores[r] && pmResGbs[p] >= requestGbs[r])
+                best = p;
+        }
+        // PMs with free VM slots
+        if (vmPms[vmId] < vmMaxPms[vmId]) {
+            int p = searchTree(1, 0, treeLeaves - 1, from, best == -1 ? totalPms : best, requestCores[r], requestGbs[r]);
+            if (p != -1)
+                best = p;
+        }
+        return best;
+    }
+
+    /**
+     * Get the first position in [from, limit) with at least the specified residual resources, skipping the subtrees whose
+     * maximum residual resources are not enough.
+     */
+    private int searchTree(int node, int low, int high, int from, int limit, int cores, int gbs) {
+        if (high < from || low >= limit || treeCores[node] < cores || treeGbs[node] < gbs)
+            return -1;
+        if (low == high)
+            return low;
+
+        int middle = (low + high) >>> 1;
+        int p = searchTree(2 * node, low, middle, from, limit, cores, gbs);
+        return p != -1 ? p : searchTree(2 * node + 1, middle + 1, high, from, limit, cores, gbs);
+    }
+
+    private void updateTree(int p) {
+        int node = treeLeaves + p;
+        boolean freeSlots = pmVms[p] < pmMaxVms[p];
+        treeCores[node] = freeSlots ? pmResCores[p] : -1;
+        treeGbs[node] = freeSlots ? pmResGbs[p] : -1;
+        for (node >>>= 1; node > 0; node >>>= 1) {
+            treeCores[node] = Math.max(treeCores[2 * node], treeCores[2 * node + 1]);
+            treeGbs[node] = Math.max(treeGbs[2 * node], treeGbs[2 * node + 1]);
+        }
+    }
+
+    private boolean vmFits(int r) {
+        return vmResCores[requestVm[r]] >= requestCores[r] && vmResGbs[requestVm[r]] >= requestGbs[r];
+    }
+
+    private boolean slotAvailable(int vmId, int p) {
+        return hostIndex(vmId, p) != -1 || (pmVms[p] < pmMaxVms[p] && vmPms[vmId] < vmMaxPms[vmId]);
+    }
+
+    private boolean canHost(int r, int p) {
+        return pmResCores[p] >= requestCores[r] && pmResGbs[p] >= requestGbs[r] && slotAvailable(requestVm[r], p);
+    }
+
+    /**
+     * Check if an allocated request can move to a PM, considering that its VM may leave its current PM.
+     */
+    private boolean canRelocate(int r, int p) {
+        if (pmResCores[p] < requestCores[r] || pmResGbs[p] < requestGbs[r])
+            return false;
+
+        int vmId = requestVm[r];
+        if (hostIndex(vmId, p) != -1)
+            return true;
+        boolean leavesCurrentPm = vmHostLoads[vmId][hostIndex(vmId, requestPosition[r])] == 1;
+        return pmVms[p] < pmMaxVms[p] && (vmPms[vmId] < vmMaxPms[vmId] || leavesCurrentPm);
+    }
+
+    private int hostIndex(int vmId, int p) {
+        for (int k = 0; k < vmTotHosts[vmId]; k++) {
+            if (vmHostPositions[vmId][k] == p)
+                return k;
+        }
+        return -1;
+    }
+
+    private void assign(int r, int p) {
+        int vmId = requestVm[r];
+        int k = hostIndex(vmId, p);
+        if (k == -1) {
+            if (vmTotHosts[vmId] == vmHostPositions[vmId].length) {
+                vmHostPositions[vmId] = Arrays.copyOf(vmHostPositions[vmId], 2 * vmTotHosts[vmId]);
+                vmHostLoads[vmId] = Arrays.copyOf(vmHostLoads[vmId], 2 * vmTotHosts[vmId]);
+            }
+            k = vmTotHosts[vmId]++;
+            vmHostPositions[vmId][k] = p;
+            vmHostLoads[vmId][k] = 0;
+            pmVms[p]++;
+            vmPms[vmId]++;
+        }
+        vmHostLoads[vmId][k]++;
+
+        if (pmTotRequests[p] == pmRequests[p].length)
+            pmRequests[p] = Arrays.copyOf(pmRequests[p], 2 * pmTotRequests[p]);
+        requestSlot[r] = pmTotRequests[p];
+        pmRequests[p][pmTotRequests[p]++] = r;
+        pmMinCores[p] = Math.min(pmMinCores[p], requestCores[r]);
+        pmMinGbs[p] = Math.min(pmMinGbs[p], requestGbs[r]);
+
+        pmResCores[p] -= requestCores[r];
+        pmResGbs[p] -= requestGbs[r];
+        vmResCores[vmId] -= requestCores[r];
+        vmResGbs[vmId] -= requestGbs[r];
+        requestPosition[r] = p;
+        totalAllocated++;
+        totalEnergy += requestWeight[r] * pmOps[p];
+        updateTree(p);
+    }
+
+    private void unassign(int r) {
+        int p = requestPosition[r];
+        int vmId = requestVm[r];
+        int k = hostIndex(vmId, p);
+        if (--vmHostLoads[vmId][k] == 0) {
+            int last = --vmTotHosts[vmId];
+            vmHostPositions[vmId][k] = vmHostPositions[vmId][last];
+            vmHostLoads[vmId][k] = vmHostLoads[vmId][last];
+            pmVms[p]--;
+            vmPms[vmId]--;
+        }
+
+        int last = pmRequests[p][--pmTotRequests[p]];
+        pmRequests[p][requestSlot[r]] = last;
+        requestSlot[last] = requestSlot[r];
+
+        pmResCores[p] += requestCores[r];
+        pmResGbs[p] += requestGbs[r];
+        vmResCores[vmId] += requestCores[r];
+        vmResGbs[vmId] += requestGbs[r];
+        requestPosition[r] = -1;
+        totalAllocated--;
+        totalEnergy -= requestWeight[r] * pmOps[p];
+        updateTree(p);
+    }
+
+    private void removeUnallocated(IntPredicate removed) {
+        int size = 0;
+        for (int i = 0; i < totalUnallocated; i++) {
+            if (!removed.test(unallocated[i]))
+                unallocated[size++] = unallocated[i];
+        }
+        totalUnallocated = size;
+    }
+}
@@ -0,0 +1,246 @@
+package algorithm.utils;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Min-cost max-flow solver (successive shortest paths, primal-dual variant) on a network stored in primitive adjacency
+ * arrays (forward star). Each phase computes the shortest path distances with Dijkstra on the reduced costs, updates the
+ * node potentials and then pushes a blocking flow along all the arcs with zero reduced cost, so that many augmenting
+ * paths of the same cost are found with a single shortest path computation.
+ * The arc costs must be non-negative.
+ */
+public class MinCostFlow {
+    private static final long INFINITE = Long.MAX_VALUE / 4;
+
+    private final int totalNodes;
+    private final int[] firstArc;
+    private int[] nextArc;
+    private int[] arcHead;
+    // residual capacity of the arcs (the reverse arc of arc a is a ^ 1)
+    private long[] arcCapacity;
+    private long[] arcCost;
+    private int totalArcs;
+
+    private final long[] potentials;
+    private final long[] distances;
+    private final boolean[] visited;
+    private final int[] currentArc;
+    // binary heap of the nodes by distance, and position of each node in the heap (-1 if never reached, -2 if settled)
+    private final int[] heap;
+    private final int[] heapPositions;
+    private int heapSize;
+    private long totalCost;
+
+    /**
+     * @param totalNodes the number of nodes of the network
+     * @param expectedArcs the expected number of arcs (the arrays grow when needed)
+     */
+    public MinCostFlow(int totalNodes, int expectedArcs) {
+        if (totalNodes <= 0)
+            throw new IllegalArgumentException("Invalid number of nodes");
+        int capacity = Math.max(2 * expectedArcs, 2);
+        this.totalNodes = totalNodes;
+        this.firstArc = new int[totalNodes];
+        Arrays.fill(firstArc, -1);
+        this.nextArc = new int[capacity];
+        this.arcHead = new int[capacity];
+        this.arcCapacity = new long[capacity];
+        this.arcCost = new long[capacity];
+        this.potentials = new long[totalNodes];
+        this.distances = new long[totalNodes];
+        this.visited = new boolean[totalNodes];
+        this.currentArc = new int[totalNodes];
+        this.heap = new int[totalNodes];
+        this.heapPositions = new int[totalNodes];
+    }
+
+    /**
+     * Add an arc (and its residual reverse arc) to the network.
+     * @param from the tail node
+     * @param to the head node
+     * @param capacity the capacity of the arc
+     * @param cost the cost of a unit of flow on the arc (non-negative)
+     * @return the arc id
+     */
+    public int addArc(int from, int to, long capacity, long cost) {
+        if (from < 0 || from >= totalNodes || to < 0 || to >= totalNodes)
+            throw new IllegalArgumentException("Invalid node");
+        if (capacity < 0 || cost < 0)
+            throw new IllegalArgumentException("Invalid capacity or cost");
+
+        if (totalArcs + 2 > arcHead.length) {
+            int newCapacity = arcHead.length * 2;
+            nextArc = Arrays.copyOf(nextArc, newCapacity);
+            arcHead = Arrays.copyOf(arcHead, newCapacity);
+            arcCapacity = Arrays.copyOf(arcCapacity, newCapacity);
+            arcCost = Arrays.copyOf(arcCost, newCapacity);
+        }
+        int arc = totalArcs;
+        link(arc, from, to, capacity, cost);
+        link(arc + 1, to, from, 0, -cost);
+        totalArcs += 2;
+        return arc;
+    }
+
+    /**
+     * Get the flow on an arc (after solve).
+     * @param arc the arc id
+     * @return the flow
+     */
+    public long getFlow(int arc) {
+        return arcCapacity[arc ^ 1];
+    }
+
+    /**
+     * Get the cost of the flow computed by the last solve.
+     * @return the total cost
+     */
+    public long getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Send the maximum flow from the source to the sink, with minimum cost among the maximum flows.
+     * @param source the source node
+     * @param sink the sink node
+     * @return the value of the flow
+     */
+    public long solve(int source, int sink) {
+        return solve(source, sink, () -> true);
+    }
+
+    /**
+     * Send flow from the source to the sink along shortest paths, phase by phase, while the phases are allowed: the
+     * flow sent when they stop is a minimum cost flow of its value (not necessarily the maximum one).
+     * @param source the source node
+     * @param sink the sink node
+     * @param nextPhase checked before each shortest path phase, false to stop
+     * @return the value of the flow
+     */
+    public long solve(int source, int sink, BooleanSupplier nextPhase) {
+        if (source == sink)
+            throw new IllegalArgumentException("The source and the sink must be different");
+
+        long totalFlow = 0;
+        totalCost = 0;
+        while (nextPhase.getAsBoolean() && computeDistances(source, sink)) {
+            // push flow until the sink is no longer reachable through arcs with zero reduced cost
+            long pushed;
+            do {
+                Arrays.fill(visited, false);
+                for (int node = 0; node < totalNodes; node++)
+                    currentArc[node] = firstArc[node];
+                pushed = push(source, sink, INFINITE);
+                totalFlow += pushed;
+                totalCost += pushed * (potentials[sink] - potentials[source]);
+            } while (pushed > 0);
+        }
+        return totalFlow;
+    }
+
+    /**
+     * Dijkstra on the reduced costs (with an indexed binary heap of the nodes), then update of the potentials.
+     * @return true if the sink is reachable, false otherwise
+     */
+    private boolean computeDistances(int source, int sink) {
+        Arrays.fill(distances, INFINITE);
+        Arrays.fill(heapPositions, -1);
+        heapSize = 0;
+        distances[source] = 0;
+        siftUp(source, heapSize++);
+        long maxDistance = 0;
+        while (heapSize > 0) {
+            int node = heap[0];
+            heapPositions[node] = -2;
+            if (--heapSize > 0)
+                siftDown(heap[heapSize], 0);
+
+            maxDistance = distances[node];
+            long base = distances[node] + potentials[node];
+            for (int arc = firstArc[node]; arc != -1; arc = nextArc[arc]) {
+                if (arcCapacity[arc] == 0)
+                    continue;
+                int head = arcHead[arc];
+                long distance = base + arcCost[arc] - potentials[head];
+                if (distance < distances[head]) {
+                    distances[head] = distance;
+                    siftUp(head, heapPositions[head] >= 0 ? heapPositions[head] : heapSize++);
+                }
+            }
+        }
+        if (distances[sink] == INFINITE)
+            return false;
+
+        // unreachable nodes get the largest distance, so that the reduced costs of the residual arcs stay non-negative
+        for (int node = 0; node < totalNodes; node++)
+            potentials[node] += distances[node] < INFINITE ? distances[node] : maxDistance;
+        return true;
+    }
+
+    private void siftUp(int node, int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (distances[heap[parent]] <= distances[node])
+                break;
+            heap[position] = heap[parent];
+            heapPositions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = node;
+        heapPositions[node] = position;
+    }
+
+    private void siftDown(int node, int position) {
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && distances[heap[child + 1]] < distances[heap[child]])
+                child++;
+            if (distances[heap[child]] >= distances[node])
+                break;
+            heap[position] = heap[child];
+            heapPositions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = node;
+        heapPositions[node] = position;
+    }
+
+    /**
+     * Push flow from a node to the sink along arcs with zero reduced cost (each node is visited at most once per round).
+     */
+    private long push(int node, int sink, long limit) {
+        if (node == sink)
+            return limit;
+
+        visited[node] = true;
+        long pushed = 0;
+        for (int arc = currentArc[node]; arc != -1; arc = nextArc[arc]) {
+            currentArc[node] = arc;
+            int head = arcHead[arc];
+            if (visited[head] || arcCapacity[arc] == 0 || arcCost[arc] + potentials[node] - potentials[head] != 0)
+                continue;
+
+            long flow = push(head, sink, Math.min(limit - pushed, arcCapacity[arc]));
+            if (flow > 0) {
+                arcCapacity[arc] -= flow;
+                arcCapacity[arc ^ 1] += flow;
+                pushed += flow;
+                if (pushed == limit)
+                    return pushed;
+            }
+        }
+        currentArc[node] = -1;
+        return pushed;
+    }
+
+    private void link(int arc, int from, int to, long capacity, long cost) {
+        arcHead[arc] = to;
+        arcCapacity[arc] = capacity;
+        arcCost[arc] = cost;
+        nextArc[arc] = firstArc[from];
+        firstArc[from] = arc;
+    }
+}
@@ -0,0 +1,338 @@
+package algorithm.utils;
+
+import algorithm.model.ResourceAvailability;
+import model.PM;
+import utils.collections.DenseIntMap;
+import utils.collections.IndexSort;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Struct-of-arrays view of the PM state used to score one UE/VM against all the PMs in a single pass.
+ * The scoring loops are branch-free over primitive arrays (indexed by PM id), so that the JIT compiler can vectorize them.
+ * PMs of the same type (cores, memory, compute speed and maximum number of VMs, e.g. the hardware SKUs of a fleet) form
+ * an equivalence class: the terms that only depend on the type, such as the energy consumption, are computed once per class.
+ */
+public class PmScoringKernel {
+    private final int totalPms;
+    // PM classes: class of each PM, compute speed of each class, classes by increasing compute speed, and PMs of each
+    // class (the PMs of class c are classMembers[classMemberStarts[c]] to classMembers[classMemberStarts[c + 1] - 1])
+    private final int totalClasses;
+    private final int[] pmClasses;
+    private final double[] classComputeOps;
+    private final int[] classesBySpeed;
+    private final int[] classMemberStarts;
+    private final int[] classMembers;
+    // PMs of each class ranked by their auction evaluation terms that do not depend on the UE/VM (see rankClassMembers)
+    private final int[] rankedMembers;
+    private final int[] rankBuffer;
+    private final double[] baseScores;
+    private final double[] totCores;
+    private final double[] totMemory;
+    private final int[] totAllocations;
+    private final double[] normalizedComputeSpeed;
+    private final double[] usedCores;
+    private final double[] usedMemory;
+    private final int[] usedAllocations;
+    private final double[] prices;
+
+    public PmScoringKernel(List<PM> pms) {
+        this.totalPms = pms.size();
+        this.totCores = new double[totalPms];
+        this.totMemory = new double[totalPms];
+        this.totAllocations = new int[totalPms];
+        this.normalizedComputeSpeed = new double[totalPms];
+        this.usedCores = new double[totalPms];
+        this.usedMemory = new double[totalPms];
+        this.usedAllocations = new int[totalPms];
+        this.prices = new double[totalPms];
+
+        // min/max compute speed for normalization
+        double minCompute = pms.stream().mapToDouble(PM::getCoreComputeOpsPerSec).min().orElse(0);
+        double maxCompute = pms.stream().mapToDouble(PM::getCoreComputeOpsPerSec).max().orElse(1e-8);
+
+        for (PM pm : pms) {
+            int i = pm.getId();
+            totCores[i] = pm.getTotCores();
+            totMemory[i] = pm.getTotMemoryGB();
+            totAllocations[i] = pm.getMaxVmsHosted();
+            normalizedComputeSpeed[i] = (pm.getCoreComputeOpsPerSec() - minCompute) / (maxCompute - minCompute + 1e-8);
+        }
+
+        // group the PMs by type
+        HashMap<PmType, Integer> classesByType = new HashMap<>();
+        this.pmClasses = new int[totalPms];
+        for (PM pm : pms) {
+            PmType type = new PmType(pm.getTotCores(), pm.getTotMemoryGB(), pm.getCoreComputeOpsPerSec(), pm.getMaxVmsHosted());
+            pmClasses[pm.getId()] = classesByType.computeIfAbsent(type, k -> classesByType.size());
+        }
+        this.totalClasses = classesByType.size();
+        this.classComputeOps = new double[totalClasses];
+        classesByType.forEach((type, c) -> classComputeOps[c] = type.computeOps());
+        this.classesBySpeed = IntStream.range(0, totalClasses).boxed()
+                .sorted(Comparator.comparingDouble(c -> classComputeOps[c])).mapToInt(Integer::intValue).toArray();
+
+        this.classMemberStarts = new int[totalClasses + 1];
+        for (int i = 0; i < totalPms; i++)
+            classMemberStarts[pmClasses[i] + 1]++;
+        for (int c = 0; c < totalClasses; c++)
+            classMemberStarts[c + 1] += classMemberStarts[c];
+        this.classMembers = new int[totalPms];
+        int[] nextMember = Arrays.copyOf(classMemberStarts, totalClasses);
+        for (int i = 0; i < totalPms; i++)
+            classMembers[nextMember[pmClasses[i]]++] = i;
+        this.rankedMembers = classMembers.clone();
+        this.rankBuffer = new int[totalPms];
+        this.baseScores = new double[totalPms];
+    }
+
+    private record PmType(int cores, int memory, double computeOps, int maxVmsHosted) {}
+
+    public int getTotalPms() {
+        return totalPms;
+    }
+
+    /**
+     * Get the number of PM classes (i.e. of distinct PM types).
+     * @return the number of classes
+     */
+    public int getTotalClasses() {
+        return totalClasses;
+    }
+
+    /**
+     * Get the class of a PM, i.e. the index of its type in the arrays of the per-class terms (such as energyConsumptions).
+     * @param pmId the PM id
+     * @return the class of the PM
+     */
+    public int getPmClass(int pmId) {
+        return pmClasses[pmId];
+    }
+
+    /**
+     * Get the fastest PM class with a PM that can host a UE/VM: its PMs have the highest energy consumption among these PMs.
+     * The classes are scanned from the fastest one, each up to its first PM that can host the UE/VM.
+     * @param cores the number of cores requested
+     * @param memory the number of memory GBs requested
+     * @return the class, or -1 if no PM can host the UE/VM
+     */
+    public int getFastestFeasibleClass(int cores, int memory) {
+        for (int k = totalClasses - 1; k >= 0; k--) {
+            int c = classesBySpeed[k];
+            for (int m = classMemberStarts[c]; m < classMemberStarts[c + 1]; m++) {
+                if (canPerformMatch(classMembers[m], cores, memory))
+                    return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Copy the used resources of the PMs from their resource availability trackers.
+     * @param pmResources the available resources of each PM, keyed by PM id
+     */
+    public void updateResources(DenseIntMap<ResourceAvailability> pmResources) {
+        pmResources.forEachValue(this::updateResources);
+    }
+
+    /**
+     * Copy the used resources of a PM from its resource availability tracker.
+     * @param resources the available resources of the PM
+     */
+    public void updateResources(ResourceAvailability resources) {
+        int i = resources.getId();
+        usedCores[i] = resources.getUsedCores();
+        usedMemory[i] = resources.getUsedMemory();
+        usedAllocations[i] = resources.getUsedAllocations();
+    }
+
+    public void setPrice(int pmId, double price) {
+        prices[pmId] = price;
+    }
+
+    /**
+     * Check if a PM can host a UE/VM (same as ResourceAvailability.canPerformMatch).
+     * @param pmId the PM id
+     * @param cores the number of cores requested
+     * @param memory the number of memory GBs requested
+     * @return true if the PM can host the UE/VM, false otherwise
+     */
+    public boolean canPerformMatch(int pmId, int cores, int memory) {
+        return usedCores[pmId] + cores <= totCores[pmId] && usedMemory[pmId] + memory <= totMemory[pmId] && usedAllocations[pmId] < totAllocations[pmId];
+    }
+
+    /**
+     * Rank the PMs of each class on the auction evaluation terms that do not depend on the UE/VM (load factor, compute
+     * speed and price): as the energy cost term is the same for the PMs of a class, the best PMs of a class for any UE/VM
+     * are the first ones of the ranking that can host it (see getBestClassMembers). Ties are ranked by PM id.
+     * @param loadCoeff the load factor coefficient
+     * @param speedCoeff the compute speed coefficient
+     * @param priceCoeff the price coefficient
+     */
+    public void rankClassMembers(double loadCoeff, double speedCoeff, double priceCoeff) {
+        for (int i = 0; i < totalPms; i++) {
+            double loadFactor = (usedCores[i] / totCores[i] + usedMemory[i] / totMemory[i]) / 2.;
+            baseScores[i] = - loadCoeff * loadFactor + speedCoeff * normalizedComputeSpeed[i] - priceCoeff * prices[i];
+        }
+
+        // members of each class by PM id, so that the stable sort ranks the ties by PM id
+        System.arraycopy(classMembers, 0, rankedMembers, 0, totalPms);
+        for (int c = 0; c < totalClasses; c++)
+            IndexSort.sortDescending(rankedMembers, classMemberStarts[c], classMemberStarts[c + 1], baseScores, rankBuffer);
+    }
+
+    /**
+     * Get the best PMs of a class for a UE/VM, according to the last ranking (see rankClassMembers).
+     * @param c the PM class
+     * @param cores the number of cores requested
+     * @param memory the number of memory GBs requested
+     * @param allowedPms the PMs to be considered (null for all of them)
+     * @param max the maximum number of PMs
+     * @param out the array where the PM ids are written
+     * @param offset the position of the first PM id in the array
+     * @return the number of PMs written (at most max)
+     */
+    public int getBestClassMembers(int c, int cores, int memory, BitSet allowedPms, int max, int[] out, int offset) {
+        int found = 0;
+        for (int m = classMemberStarts[c]; m < classMemberStarts[c + 1] && found < max; m++) {
+            int i = rankedMembers[m];
+            if ((allowedPms == null || allowedPms.get(i)) && canPerformMatch(i, cores, memory))
+                out[offset + found++] = i;
+        }
+        return found;
+    }
+
+    /**
+     * Auction evaluation of a PM for a UE/VM, from the terms of the last ranking (same as scoreAuction, see rankClassMembers).
+     * @param pmId the PM id
+     * @param energyCost the energy cost term of the UE/VM on the PM
+     * @param energyCoeff the energy cost coefficient
+     * @return the evaluation of the PM
+     */
+    public double scoreRankedAuction(int pmId, double energyCost, double energyCoeff) {
+        return baseScores[pmId] + energyCoeff * energyCost;
+    }
+
+    /**
+     * Select the k most promising PMs for a UE/VM among the ones that can host it: the ones with the lowest energy cost (the
+     * energy of a task grows with the compute speed of its PM) and the best capacity fit (least resources left after hosting
+     * it), with equal weights. A bounded heap of the k best PMs keeps the selection in O(PMs log k), and the classes are
+     * scanned by increasing compute speed, up to the first one that cannot improve the selection.
+     * @param cores the number of cores requested
+     * @param memory the number of memory GBs requested
+     * @param allowedPms the PMs to be considered (null for all of them)
+     * @param k the maximum number of PMs to be selected
+     * @param out the selected PM ids, best first (at least k long)
+     * @return the number of selected PMs (less than k only if fewer PMs can host the UE/VM)
+     */
+    public int selectCandidates(int cores, int memory, BitSet allowedPms, int k, int[] out) {
+        // max-heap of the selected PMs on their score (lower is better), so that the worst one is replaced first
+        double[] heapScores = new double[k];
+        int size = 0;
+        for (int c : classesBySpeed) {
+            // the capacity fit term is not negative for the PMs that can host the UE/VM, so the next classes only score worse
+            int first = classMemberStarts[c];
+            if (size == k && (k == 0 || normalizedComputeSpeed[classMembers[first]] >= heapScores[0]))
+                break;
+
+            for (int m = first; m < classMemberStarts[c + 1]; m++) {
+                int i = classMembers[m];
+                if ((allowedPms != null && !allowedPms.get(i)) || !canPerformMatch(i, cores, memory))
+                    continue;
+
+                double fit = ((totCores[i] - usedCores[i] - cores) / totCores[i] + (totMemory[i] - usedMemory[i] - memory) / totMemory[i]) / 2.;
+                double score = normalizedComputeSpeed[i] + fit;
+                if (size < k) {
+                    siftUp(heapScores, out, size++, score, i);
+                }
+                else if (score < heapScores[0]) {
+                    siftDown(heapScores, out, size, score, i);
+                }
+            }
+        }
+
+        // heap sort: the worst PM is moved to the end of the heap until it is empty
+        for (int last = size - 1; last > 0; last--) {
+            double score = heapScores[last];
+            int pmId = out[last];
+            heapScores[last] = heapScores[0];
+            out[last] = out[0];
+            siftDown(heapScores, out, last, score, pmId);
+        }
+        return size;
+    }
+
+    private static void siftUp(double[] heapScores, int[] heapPms, int position, double score, int pmId) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heapScores[parent] >= score)
+                break;
+            heapScores[position] = heapScores[parent];
+            heapPms[position] = heapPms[parent];
+            position = parent;
+        }
+        heapScores[position] = score;
+        heapPms[position] = pmId;
+    }
+
+    private static void siftDown(double[] heapScores, int[] heapPms, int size, double score, int pmId) {
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && heapScores[child + 1] > heapScores[child])
+                child++;
+            if (heapScores[child] <= score)
+                break;
+            heapScores[position] = heapScores[child];
+            heapPms[position] = heapPms[child];
+            position = child;
+        }
+        heapScores[position] = score;
+        heapPms[position] = pmId;
+    }
+
+    /**
+     * Share of the available resources of all the PMs, weighted by a load balancing coefficient.
+     * @param loadBalancingCoeff the load balancing coefficient
+     * @param out the load balancing term of each PM
+     */
+    public void scoreLoadBalancing(double loadBalancingCoeff, double[] out) {
+        for (int i = 0; i < totalPms; i++) {
+            out[i] = loadBalancingCoeff * ((totCores[i] - usedCores[i]) / totCores[i] + (totMemory[i] - usedMemory[i]) / totMemory[i]) / 2.0;
+        }
+    }
+
+    /**
+     * Share of the used resources of all the PMs after hosting a UE/VM, weighted by a consolidation coefficient.
+     * @param cores the number of cores requested
+     * @param memory the number of memory GBs requested
+     * @param consolidationCoeff the consolidation coefficient
+     * @param out the consolidation term of each PM
+     */
+    public void scoreConsolidation(int cores, int memory, double consolidationCoeff, double[] out) {
+        for (int i = 0; i < totalPms; i++) {
+            out[i] = consolidationCoeff * ((usedCores[i] + cores) / totCores[i] + (usedMemory[i] + memory) / totMemory[i]) / 2.0;
+        }
+    }
+
+    /**
+     * Energy consumption of a UE/VM task on each PM class (same as EnergyConsumptionService.getEnergyConsumptionWithVmCoresAndPm
+     * on the PMs of the class).
+     * @param computeDuration the computation duration (total duration minus offloading duration)
+     * @param cores the number of cores of the task
+     * @param energyConsumptionPerCoreOps the energy consumption per core operation of the VM
+     * @param out the energy consumption on each PM class (see getPmClass)
+     */
+    public void energyConsumptions(double computeDuration, int cores, double energyConsumptionPerCoreOps, double[] out) {
+        for (int c = 0; c < totalClasses; c++) {
+            out[c] = computeDuration * classComputeOps[c] * cores * energyConsumptionPerCoreOps;
+        }
+    }
+}
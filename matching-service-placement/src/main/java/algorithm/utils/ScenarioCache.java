@@ -0,0 +1,46 @@
+package algorithm.utils;
+
+import java.util.HashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Cache of the precomputations that only depend on the scenario (PMs, VMs, UEs and UE-to-VM mappings), and not on the
+ * algorithm parameters, so that they can be shared by many algorithm runs on the same scenario (e.g. in a parameter sweep).
+ * A cache must only be used with the scenario it was created for, and the cached arrays must not be modified.
+ */
+public class ScenarioCache {
+    // energy consumption of each UE/VM mapping (key: UE id) on each PM class (array index, see PmScoringKernel.getPmClass)
+    private final HashMap<Integer, double[]> energyConsumptions;
+    // normalized auction energy costs of each UE/VM mapping (key: UE id) on each PM class (array index), with all the PMs empty
+    private final HashMap<Integer, double[]> auctionEnergyCosts;
+
+    public ScenarioCache() {
+        this.energyConsumptions = new HashMap<>();
+        this.auctionEnergyCosts = new HashMap<>();
+    }
+
+    /**
+     * Get the energy consumption of a UE/VM mapping on each PM class, computing it on the first request.
+     * @param ueId the UE id of the mapping
+     * @param compute the function computing the energy consumptions of the mapping
+     * @return the energy consumption on each PM class
+     */
+    public double[] getEnergyConsumptions(int ueId, IntFunction<double[]> compute) {
+        return energyConsumptions.computeIfAbsent(ueId, compute::apply);
+    }
+
+    /**
+     * Get the auction energy costs of a UE/VM mapping on each PM class, computing them on the first request.
+     * @param ueId the UE id of the mapping
+     * @param compute the function computing the energy costs of the mapping
+     * @return the energy cost on each PM class
+     */
+    public double[] getAuctionEnergyCosts(int ueId, IntFunction<double[]> compute) {
+        return auctionEnergyCosts.computeIfAbsent(ueId, compute::apply);
+    }
+
+    public void clear() {
+        energyConsumptions.clear();
+        auctionEnergyCosts.clear();
+    }
+}
@@ -0,0 +1,62 @@
+package experiment;
+
+import algorithm.AuctionAlg;
+import algorithm.GaleShapleyAlg;
+import algorithm.MatchingAlg;
+import algorithm.RandomAlg;
+import algorithm.model.AlgorithmResults;
+import service.MecSystemService;
+import utils.TestSystemSetup;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Heap allocation profile of the matching algorithms: bytes allocated by the thread of each run (after warm-up runs, so
+ * that class loading and compilation are not counted), with its runtime.
+ */
+public class AllocationReport {
+
+    /**
+     * @param args the number of PMs, VMs and UEs, the seed, and the number of warm-up runs of each algorithm
+     */
+    public static void main(String[] args) {
+        int totalPms = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int totalVms = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int totalUes = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        int warmUpRuns = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadBean.isThreadAllocatedMemorySupported())
+            throw new IllegalArgumentException("Thread allocation accounting is not supported by this JVM");
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        MecSystemService mecService = MecSystemService.getInstance(0.5);
+        mecService.resetSystem();
+        mecService.setTotalDurationTime(0.5);
+        TestSystemSetup.setupTestInstance(seed, totalPms, totalVms, totalUes);
+
+        List<Supplier<MatchingAlg>> algorithms = List.of(() -> new GaleShapleyAlg(true, true, false), () -> new GaleShapleyAlg(false, true, false),
+                AuctionAlg::new, () -> new RandomAlg(seed));
+        long threadId = Thread.currentThread().threadId();
+        for (Supplier<MatchingAlg> algorithm : algorithms) {
+            for (int run = 0; run < warmUpRuns; run++) {
+                mecService.resetMapping();
+                algorithm.get().run(false);
+            }
+
+            mecService.resetMapping();
+            MatchingAlg alg = algorithm.get();
+            long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+            long startTime = System.nanoTime();
+            AlgorithmResults results = alg.run(false);
+            double millis = (System.nanoTime() - startTime) / 1e6;
+            long bytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+            System.out.printf("%-30s %6d UEs, allocated %9.1f MB (%8.0f bytes/UE), %8.1f ms%n", results.algorithmName(),
+                    results.totalAllocatedUes(), bytes / 1e6, (double) bytes / totalUes, millis);
+        }
+    }
+}
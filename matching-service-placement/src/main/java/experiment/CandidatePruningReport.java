@@ -0,0 +1,54 @@
+package experiment;
+
+import algorithm.AuctionAlg;
+import algorithm.GaleShapleyAlg;
+import algorithm.MatchingAlg;
+import algorithm.model.AlgorithmResults;
+import service.MecSystemService;
+import utils.TestSystemSetup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runtime and allocation rate of Gale-Shapley and Auction when the PMs considered for each UE are pruned to its K most
+ * promising ones (see MatchingAlg.setCandidatePmsPerUe), against K.
+ */
+public class CandidatePruningReport {
+
+    /**
+     * @param args the number of PMs, VMs and UEs, the seed, and the values of K to be compared (0 for all the PMs)
+     */
+    public static void main(String[] args) {
+        int totalPms = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int totalVms = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int totalUes = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        int[] candidateCounts = args.length > 4
+                ? Arrays.stream(args, 4, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[]{MatchingAlg.ALL_PMS, 64, 32, 16, 8, 4};
+
+        MecSystemService mecService = MecSystemService.getInstance(0.5);
+        mecService.resetSystem();
+        mecService.setTotalDurationTime(0.5);
+        TestSystemSetup.setupTestInstance(seed, totalPms, totalVms, totalUes);
+
+        List<Supplier<MatchingAlg>> algorithms = List.of(() -> new GaleShapleyAlg(true, true, false), AuctionAlg::new);
+        for (Supplier<MatchingAlg> algorithm : algorithms) {
+            for (int candidates : candidateCounts) {
+                mecService.resetMapping();
+                MatchingAlg alg = algorithm.get();
+                alg.setCandidatePmsPerUe(candidates);
+
+                long startTime = System.nanoTime();
+                AlgorithmResults results = alg.run(false);
+                double millis = (System.nanoTime() - startTime) / 1e6;
+
+                System.out.printf("%-30s K=%-5s %6d/%d UEs (%5.1f%%), energy %12.2f, %9.1f ms%n", results.algorithmName(),
+                        candidates == MatchingAlg.ALL_PMS ? "all" : candidates, results.totalAllocatedUes(), results.totalUes(),
+                        100. * results.totalAllocatedUes() / results.totalUes(), results.totalEnergyConsumed(), millis);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package experiment;
+
+import algorithm.model.AlgorithmResults;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe aggregator of algorithm results: each result is folded into the online statistics of its algorithm as soon
+ * as it arrives, so that the memory used does not depend on the number of runs.
+ */
+public class ExperimentAggregator {
+    private final ConcurrentHashMap<String, AlgorithmStatistics> statistics;
+
+    public ExperimentAggregator() {
+        this.statistics = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Statistics of the runs of a single algorithm.
+     */
+    public static class AlgorithmStatistics {
+        private final OnlineStatistics energy = new OnlineStatistics();
+        private final OnlineStatistics allocationRate = new OnlineStatistics();
+        private final OnlineStatistics runtimeMillis = new OnlineStatistics();
+
+        public OnlineStatistics getEnergy() {
+            return energy;
+        }
+
+        public OnlineStatistics getAllocationRate() {
+            return allocationRate;
+        }
+
+        public OnlineStatistics getRuntimeMillis() {
+            return runtimeMillis;
+        }
+
+        private synchronized void add(AlgorithmResults results, double runtime) {
+            energy.add(results.totalEnergyConsumed());
+            allocationRate.add(results.totalUes() > 0 ? (double) results.totalAllocatedUes() / results.totalUes() : 0);
+            runtimeMillis.add(runtime);
+        }
+
+        private synchronized void merge(AlgorithmStatistics other) {
+            synchronized (other) {
+                energy.merge(other.energy);
+                allocationRate.merge(other.allocationRate);
+                runtimeMillis.merge(other.runtimeMillis);
+            }
+        }
+    }
+
+    /**
+     * Fold the results of an algorithm run into the statistics of the algorithm.
+     * @param results the results of the run
+     * @param runtimeMillis the runtime of the run, in milliseconds
+     */
+    public void add(AlgorithmResults results, double runtimeMillis) {
+        statistics.computeIfAbsent(results.algorithmName(), k -> new AlgorithmStatistics()).add(results, runtimeMillis);
+    }
+
+    /**
+     * Fold the statistics collected by another aggregator.
+     * @param other the other aggregator
+     */
+    public void merge(ExperimentAggregator other) {
+        for (Map.Entry<String, AlgorithmStatistics> entry : other.statistics.entrySet()) {
+            statistics.computeIfAbsent(entry.getKey(), k -> new AlgorithmStatistics()).merge(entry.getValue());
+        }
+    }
+
+    public AlgorithmStatistics getStatistics(String algorithmName) {
+        return statistics.get(algorithmName);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, AlgorithmStatistics> entry : new TreeMap<>(statistics).entrySet()) {
+            AlgorithmStatistics algorithmStatistics = entry.getValue();
+            synchronized (algorithmStatistics) {
+                sb.append(entry.getKey()).append(" (").append(algorithmStatistics.energy.getCount()).append(" runs)\n");
+                sb.append("  energy:          ").append(algorithmStatistics.energy).append('\n');
+                sb.append("  allocation rate: ").append(algorithmStatistics.allocationRate).append('\n');
+                sb.append("  runtime (ms):    ").append(algorithmStatistics.runtimeMillis).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package experiment;
+
+import algorithm.LeastLoadedAlg;
+import algorithm.MatchingAlg;
+import algorithm.PowerOfChoicesAlg;
+import algorithm.RandomAlg;
+import algorithm.model.AlgorithmResults;
+import model.PM;
+import service.MecSystemService;
+import utils.TestSystemSetup;
+
+import java.util.List;
+
+/**
+ * Runtime and load balance of the load-balancing placements on a large UE population: uniform random choice among all
+ * the feasible PMs (RandomAlg), the power of d choices (PowerOfChoicesAlg) and the least loaded PM (LeastLoadedAlg).
+ * The load of a PM is the highest utilization of its cores and memory GBs.
+ */
+public class LoadBalanceReport {
+
+    /**
+     * @param args the number of PMs, VMs and UEs, and the seed
+     */
+    public static void main(String[] args) {
+        int totalPms = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int totalVms = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int totalUes = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        MecSystemService mecService = MecSystemService.getInstance(0.5);
+        mecService.resetSystem();
+        mecService.setTotalDurationTime(0.5);
+        TestSystemSetup.setupTestInstance(seed, totalPms, totalVms, totalUes);
+
+        List<MatchingAlg> algorithms = List.of(new RandomAlg(seed), new PowerOfChoicesAlg(1, seed), new PowerOfChoicesAlg(2, seed), new PowerOfChoicesAlg(4, seed), new LeastLoadedAlg());
+        for (MatchingAlg alg : algorithms) {
+            mecService.resetMapping();
+            long startTime = System.nanoTime();
+            AlgorithmResults results = alg.run(false);
+            double millis = (System.nanoTime() - startTime) / 1e6;
+
+            double totalLoad = 0;
+            double totalSquaredLoad = 0;
+            double maxLoad = 0;
+            for (PM pm : mecService.getPMs()) {
+                double load = Math.max(1 - (double) mecService.getRemainingCoresInPm(pm.getId()) / pm.getTotCores(),
+                        1 - (double) mecService.getRemainingGbsInPm(pm.getId()) / pm.getTotMemoryGB());
+                totalLoad += load;
+                totalSquaredLoad += load * load;
+                maxLoad = Math.max(maxLoad, load);
+            }
+            double meanLoad = totalLoad / totalPms;
+            double stdDevLoad = Math.sqrt(Math.max(totalSquaredLoad / totalPms - meanLoad * meanLoad, 0));
+
+            System.out.printf("%-26s %8d UEs, %10.1f ms (%6.3f us/UE), PM load mean %.3f, std dev %.3f, max %.3f%n", results.algorithmName(),
+                    results.totalAllocatedUes(), millis, millis * 1e3 / totalUes, meanLoad, stdDevLoad, maxLoad);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package experiment;
+
+import algorithm.model.AlgorithmResults;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Monte-Carlo comparison of the matching algorithms over many seeded scenarios. The seeds are split among parallel worker
+ * processes (see MonteCarloWorker), whose results are folded into an ExperimentAggregator as they arrive.
+ */
+public class MonteCarloExperiment {
+    private final int totalPms;
+    private final int totalVms;
+    private final int totalUes;
+    private final int parallelism;
+
+    public MonteCarloExperiment(int totalPms, int totalVms, int totalUes, int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("Invalid parallelism");
+        this.totalPms = totalPms;
+        this.totalVms = totalVms;
+        this.totalUes = totalUes;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Run the experiment on the seeds [firstSeed, firstSeed + totalSeeds).
+     * @param firstSeed the first seed
+     * @param totalSeeds the number of seeds (i.e. of scenarios)
+     * @return the aggregated statistics of the algorithms
+     */
+    public ExperimentAggregator run(long firstSeed, int totalSeeds) throws IOException, InterruptedException {
+        ExperimentAggregator aggregator = new ExperimentAggregator();
+        int workers = Math.min(parallelism, totalSeeds);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(workers, 1));
+        try {
+            List<Future<?>> slices = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                // contiguous slice of seeds of the worker
+                long sliceStart = firstSeed + (long) totalSeeds * w / workers;
+                int sliceSize = (int) (firstSeed + (long) totalSeeds * (w + 1) / workers - sliceStart);
+                slices.add(executor.submit(() -> {
+                    runWorker(sliceStart, sliceSize, aggregator);
+                    return null;
+                }));
+            }
+            for (Future<?> slice : slices) {
+                slice.get();
+            }
+        }
+        catch (ExecutionException e) {
+            throw new IOException("Experiment failed", e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return aggregator;
+    }
+
+    private void runWorker(long firstSeed, int totalSeeds, ExperimentAggregator aggregator) throws IOException, InterruptedException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process worker = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), MonteCarloWorker.class.getName(),
+                String.valueOf(firstSeed), String.valueOf(totalSeeds), String.valueOf(totalPms), String.valueOf(totalVms), String.valueOf(totalUes))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        try (BufferedReader workerOutput = new BufferedReader(new InputStreamReader(worker.getInputStream()))) {
+            String line;
+            while ((line = workerOutput.readLine()) != null) {
+                String[] fields = line.split(",");
+                aggregator.add(parseResults(fields), Double.parseDouble(fields[6]));
+            }
+        }
+
+        if (worker.waitFor() != 0)
+            throw new IllegalStateException("Experiment worker failed on seeds from " + firstSeed);
+    }
+
+    /**
+     * Parse the results of a run written by a worker: algorithm name, allocated UEs, total UEs, allocated VMs, allocated PMs, energy (and runtime).
+     * @param fields the fields of the result line
+     * @return the results of the run
+     */
+    static AlgorithmResults parseResults(String[] fields) {
+        return new AlgorithmResults(fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                Integer.parseInt(fields[4]), Double.parseDouble(fields[5]));
+    }
+
+    /**
+     * Compare the algorithms over many random scenarios.
+     * @param args the number of seeds (default 1000) and the first seed (default 0)
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int totalSeeds = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long firstSeed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+
+        long startTime = System.nanoTime();
+        MonteCarloExperiment experiment = new MonteCarloExperiment(30, 30, 30, Runtime.getRuntime().availableProcessors());
+        ExperimentAggregator aggregator = experiment.run(firstSeed, totalSeeds);
+        System.out.print(aggregator);
+        System.out.printf("%d scenarios in %.1fs%n", totalSeeds, (System.nanoTime() - startTime) / 1e9);
+    }
+}
@@ -0,0 +1,49 @@
+package experiment;
+
+import algorithm.*;
+import algorithm.model.AlgorithmResults;
+import service.MecSystemService;
+import utils.TestSystemSetup;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Worker process of a Monte-Carlo experiment: for each seed of a range it sets up a new scenario and runs all the
+ * algorithms on it, writing one result line per run (see MonteCarloExperiment.parseResults).
+ */
+public class MonteCarloWorker {
+
+    /**
+     * @param args the first seed, the number of seeds, and the number of PMs, VMs and UEs of each scenario
+     */
+    public static void main(String[] args) {
+        long firstSeed = Long.parseLong(args[0]);
+        int totalSeeds = Integer.parseInt(args[1]);
+        int totalPms = Integer.parseInt(args[2]);
+        int totalVms = Integer.parseInt(args[3]);
+        int totalUes = Integer.parseInt(args[4]);
+
+        MecSystemService mecService = MecSystemService.getInstance(0.5);
+        PrintStream out = System.out;
+        for (long seed = firstSeed; seed < firstSeed + totalSeeds; seed++) {
+            // new scenario (the system is reset, together with the element ids)
+            mecService.resetSystem();
+            mecService.setTotalDurationTime(0.5);
+            TestSystemSetup.setupTestInstance(seed, totalPms, totalVms, totalUes);
+
+            List<MatchingAlg> algorithms = Arrays.asList(new RandomAlg(seed), new GreedyAlg(), new RoundRobinAlg(), new GaleShapleyAlg(true, true, false), new AuctionAlg());
+            for (MatchingAlg alg : algorithms) {
+                long startTime = System.nanoTime();
+                AlgorithmResults results = alg.run(false);
+                double runtimeMillis = (System.nanoTime() - startTime) / 1e6;
+                mecService.resetMapping();
+
+                out.println(results.algorithmName() + "," + results.totalAllocatedUes() + "," + results.totalUes() + ","
+                        + results.totalAllocatedVms() + "," + results.totalAllocatedPms() + "," + results.totalEnergyConsumed() + "," + runtimeMillis);
+            }
+            out.flush();
+        }
+    }
+}
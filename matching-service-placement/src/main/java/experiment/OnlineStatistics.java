@@ -0,0 +1,89 @@
+package experiment;
+
+/**
+ * Constant-memory statistics of a stream of values: count, mean and variance (Welford's algorithm), min/max and
+ * quantiles (t-digest). Two statistics can be merged, e.g. when they are collected by parallel workers.
+ */
+public class OnlineStatistics {
+    private long count;
+    private double mean;
+    private double m2; // sum of the squared differences from the mean
+    private double min;
+    private double max;
+    private final TDigest digest;
+
+    public OnlineStatistics() {
+        this.count = 0;
+        this.mean = 0;
+        this.m2 = 0;
+        this.min = Double.POSITIVE_INFINITY;
+        this.max = Double.NEGATIVE_INFINITY;
+        this.digest = new TDigest();
+    }
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        digest.add(value);
+    }
+
+    /**
+     * Add all the values summarized by other statistics (Chan et al. parallel variance).
+     * @param other the other statistics
+     */
+    public void merge(OnlineStatistics other) {
+        if (other.count == 0)
+            return;
+
+        long totalCount = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / totalCount;
+        m2 += other.m2 + delta * delta * count * other.count / totalCount;
+        count = totalCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        digest.merge(other.digest);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count > 0 ? mean : Double.NaN;
+    }
+
+    /**
+     * Get the (sample) variance of the values.
+     * @return the variance, or NaN if there are less than two values
+     */
+    public double getVariance() {
+        return count > 1 ? m2 / (count - 1) : Double.NaN;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getMin() {
+        return count > 0 ? min : Double.NaN;
+    }
+
+    public double getMax() {
+        return count > 0 ? max : Double.NaN;
+    }
+
+    public double getQuantile(double q) {
+        return digest.quantile(q);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mean=%.4f, std=%.4f, min=%.4f, p50=%.4f, p95=%.4f, p99=%.4f, max=%.4f",
+                getMean(), getStdDev(), getMin(), getQuantile(.5), getQuantile(.95), getQuantile(.99), getMax());
+    }
+}
@@ -0,0 +1,54 @@
+package experiment;
+
+import algorithm.*;
+import algorithm.model.AlgorithmResults;
+import service.MecSystemService;
+import utils.TestSystemSetup;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Optimality gap of the heuristic algorithms with respect to the exact placement (see BranchAndBoundAlg), on small
+ * seeded scenarios. The UE gap is the share of UEs the heuristic leaves unallocated compared to the optimum; the energy
+ * gap is the extra energy compared to the optimum, reported only when the heuristic allocates as many UEs.
+ */
+public class OptimalityGapReport {
+
+    /**
+     * @param args the number of seeds, the number of PMs, VMs and UEs of each scenario, and the time limit of the exact search in milliseconds
+     */
+    public static void main(String[] args) {
+        int totalSeeds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int totalPms = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int totalVms = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int totalUes = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        long timeLimitMillis = args.length > 4 ? Long.parseLong(args[4]) : 10_000;
+
+        MecSystemService mecService = MecSystemService.getInstance(0.5);
+        for (long seed = 0; seed < totalSeeds; seed++) {
+            mecService.resetSystem();
+            mecService.setTotalDurationTime(0.5);
+            TestSystemSetup.setupTestInstance(seed, totalPms, totalVms, totalUes);
+
+            BranchAndBoundAlg exact = new BranchAndBoundAlg(timeLimitMillis);
+            long startTime = System.nanoTime();
+            AlgorithmResults optimum = exact.run(false);
+            double runtimeMillis = (System.nanoTime() - startTime) / 1e6;
+            mecService.resetMapping();
+            System.out.printf("seed %d: %s%d UEs, energy %.4f (%d nodes, %.0f ms)%n", seed, exact.isOptimal() ? "" : "time limit reached, ",
+                    optimum.totalAllocatedUes(), optimum.totalEnergyConsumed(), exact.getExploredNodes(), runtimeMillis);
+
+            List<MatchingAlg> heuristics = Arrays.asList(new GreedyAlg(), new RoundRobinAlg(), new GaleShapleyAlg(true, true, false), new AuctionAlg(), new MinCostFlowAlg(), new HypergraphMatchingAlg());
+            for (MatchingAlg alg : heuristics) {
+                AlgorithmResults results = alg.run(false);
+                mecService.resetMapping();
+
+                double ueGap = optimum.totalAllocatedUes() == 0 ? 0 : 100. * (optimum.totalAllocatedUes() - results.totalAllocatedUes()) / optimum.totalAllocatedUes();
+                String energyGap = results.totalAllocatedUes() != optimum.totalAllocatedUes() ? "-"
+                        : String.format("%.2f%%", 100. * (results.totalEnergyConsumed() - optimum.totalEnergyConsumed()) / optimum.totalEnergyConsumed());
+                System.out.printf("\t%-35s UE gap %6.2f%%   energy gap %s%n", results.algorithmName(), ueGap, energyGap);
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package experiment;
+
+import algorithm.AuctionAlg;
+import algorithm.BranchAndBoundAlg;
+import algorithm.GaleShapleyAlg;
+import algorithm.GreedyAlg;
+import algorithm.HypergraphMatchingAlg;
+import algorithm.LeastLoadedAlg;
+import algorithm.MatchingAlg;
+import algorithm.MinCostFlowAlg;
+import algorithm.PowerOfChoicesAlg;
+import algorithm.RandomAlg;
+import algorithm.RoundRobinAlg;
+import algorithm.model.Ue2VmMapping;
+import service.EnergyConsumptionService;
+import service.MecSystemService;
+import utils.TestSystemSetup;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Scaling regression suite: each matching algorithm and the core MecSystemService queries are run on instances of doubling
+ * size n (n PMs, n VMs and UES_PER_PM*n UEs), the growth exponents of their runtime and allocated bytes in n are fitted,
+ * and the suite fails (exit status 1) when an operation grows faster than its declared complexity budget, or exceeds its
+ * time or allocation limit. It only prints a table, so that it runs headless (e.g. in a CI job).
+ */
+public class ScalingRegressionSuite {
+    private static final int UES_PER_PM = 10;
+    // the time and allocation limits of the budgets are declared for this size
+    private static final int REFERENCE_SIZE = 128;
+    // each run of an operation calls it until its calls last this long, so that the runtime per call is not dominated by
+    // timer noise (a repeatable operation is called in batches of doubling size, any other one after its setup each time)
+    private static final double MIN_BATCH_MILLIS = 10.;
+    private static final int MAX_CALLS = 1 << 20;
+    // the fitted exponents may exceed the declared ones by this much (timer noise, JIT, GC)
+    private static final double EXPONENT_TOLERANCE = 0.5;
+    private static final long BRANCH_AND_BOUND_TIME_LIMIT_MILLIS = 100;
+    // results of the queries, so that the JIT cannot drop them
+    private static long sink = 0;
+
+    /**
+     * Declared complexity budget of an operation.
+     * @param maxExponent growth exponent in n of the runtime and of the allocated bytes (up to EXPONENT_TOLERANCE more)
+     * @param maxMillis maximum runtime at the reference size (extrapolated with the exponent to larger sizes)
+     * @param maxMegabytes maximum allocation at the reference size (extrapolated with the exponent to larger sizes)
+     */
+    record Budget(double maxExponent, double maxMillis, double maxMegabytes) {
+        Budget {
+            if (maxExponent < 0 || maxMillis <= 0 || maxMegabytes <= 0)
+                throw new IllegalArgumentException("Invalid complexity budget");
+        }
+
+        double getMillisLimit(int size) {
+            return maxMillis * getScale(size);
+        }
+
+        double getMegabytesLimit(int size) {
+            return maxMegabytes * getScale(size);
+        }
+
+        private double getScale(int size) {
+            return Math.pow(Math.max((double) size / REFERENCE_SIZE, 1.), maxExponent);
+        }
+    }
+
+    /**
+     * Operation measured by the suite.
+     * @param name the name of the operation
+     * @param budget the complexity budget of the operation
+     * @param setup the (untimed) preparation of each run, e.g. resetting the mapping
+     * @param body the measured operation
+     * @param repeatable true if the body can be run again without the setup (e.g. a query), so that it is timed in batches
+     *                   rather than call by call
+     */
+    private record Operation(String name, Budget budget, Runnable setup, Runnable body, boolean repeatable) {}
+
+    /**
+     * Best runtime and allocation of the runs of an operation on an instance.
+     */
+    private record Sample(int size, double millis, long bytes) {}
+
+    /**
+     * @param args the seed, the number of runs of each operation on each instance (the best one is kept, the first ones
+     *             warm the code up), and the instance sizes n (at least two, in increasing order)
+     */
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 0;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int[] sizes = args.length > 2
+                ? Arrays.stream(args, 2, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[]{16, 32, 64, 128};
+        if (runs <= 0)
+            throw new IllegalArgumentException("Invalid number of runs");
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i] <= 0 || (i > 0 && sizes[i] <= sizes[i - 1]))
+                throw new IllegalArgumentException("The sizes must be positive and increasing");
+        }
+        if (sizes.length < 2)
+            throw new IllegalArgumentException("At least two sizes are needed to fit the growth exponents");
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadBean.isThreadAllocatedMemorySupported())
+            throw new IllegalArgumentException("Thread allocation accounting is not supported by this JVM");
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        MecSystemService mecService = MecSystemService.getInstance(0.5);
+        List<Operation> operations = getOperations(mecService, seed);
+        List<List<Sample>> samples = new ArrayList<>();
+        operations.forEach(operation -> samples.add(new ArrayList<>()));
+
+        for (int size : sizes) {
+            mecService.resetSystem();
+            mecService.setTotalDurationTime(0.5);
+            TestSystemSetup.setupTestInstance(seed, size, size, UES_PER_PM * size);
+            for (int i = 0; i < operations.size(); i++)
+                samples.get(i).add(measure(operations.get(i), size, runs, threadBean));
+        }
+
+        int failures = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            Operation operation = operations.get(i);
+            Budget budget = operation.budget();
+            Sample largest = samples.get(i).get(sizes.length - 1);
+            double timeExponent = fitExponent(samples.get(i), true);
+            double allocationExponent = fitExponent(samples.get(i), false);
+            double megabytes = largest.bytes() / 1e6;
+
+            List<String> violations = new ArrayList<>();
+            // an exponent that cannot be fitted cannot be checked against the budget, so it fails the operation
+            if (Double.isNaN(timeExponent))
+                violations.add("time growth not measurable");
+            else if (timeExponent > budget.maxExponent() + EXPONENT_TOLERANCE)
+                violations.add(String.format("time grows as n^%.2f", timeExponent));
+            if (Double.isNaN(allocationExponent))
+                violations.add("allocation growth not measurable");
+            else if (allocationExponent > budget.maxExponent() + EXPONENT_TOLERANCE)
+                violations.add(String.format("allocation grows as n^%.2f", allocationExponent));
+            if (largest.millis() > budget.getMillisLimit(largest.size()))
+                violations.add(String.format("%.1f ms over the %.1f ms limit", largest.millis(), budget.getMillisLimit(largest.size())));
+            if (megabytes > budget.getMegabytesLimit(largest.size()))
+                violations.add(String.format("%.1f MB over the %.1f MB limit", megabytes, budget.getMegabytesLimit(largest.size())));
+            if (!violations.isEmpty())
+                failures++;
+
+            System.out.printf("%-50s time n^%-5s alloc n^%-5s (budget n^%.1f), n=%d: %9.1f ms %9.1f MB  %s%n", operation.name(),
+                    formatExponent(timeExponent), formatExponent(allocationExponent), budget.maxExponent(), largest.size(),
+                    largest.millis(), megabytes, violations.isEmpty() ? "OK" : "FAIL: " + String.join(", ", violations));
+        }
+
+        System.out.println(failures == 0 ? "All operations within their budgets" : failures + " operation(s) over budget");
+        if (failures > 0)
+            System.exit(1);
+    }
+
+    /**
+     * The measured operations: every matching algorithm on the UE-to-VM mappings of the instance, then the core queries of
+     * the system on the placement of the greedy algorithm (each query on all the PMs, VMs, UEs or VM/PM pairs).
+     * @param mecService the system service
+     * @param seed the seed of the random algorithm
+     * @return the operations with their budgets
+     */
+    private static List<Operation> getOperations(MecSystemService mecService, long seed) {
+        List<Operation> operations = new ArrayList<>();
+        Runnable resetMapping = mecService::resetMapping;
+        addAlgorithm(operations, () -> new RandomAlg(seed), new Budget(2, 100, 20), resetMapping);
+        // O(d) per UE, except for the UEs whose samples all fail (a scan of the feasibility index)
+        addAlgorithm(operations, () -> new PowerOfChoicesAlg(2, seed), new Budget(1, 20, 10), resetMapping);
+        // O(log P) per UE, except for the PMs skipped because they cannot host the UE
+        addAlgorithm(operations, LeastLoadedAlg::new, new Budget(1, 50, 10), resetMapping);
+        // the next feasible PMs are found in the feasibility index, which skips the full PMs 64 at a time
+        addAlgorithm(operations, GreedyAlg::new, new Budget(1, 100, 20), resetMapping);
+        addAlgorithm(operations, () -> new GreedyAlg(true), new Budget(1, 100, 20), resetMapping);
+        addAlgorithm(operations, RoundRobinAlg::new, new Budget(1, 100, 20), resetMapping);
+        addAlgorithm(operations, () -> new GaleShapleyAlg(true, true, false), new Budget(3, 10000, 1500), resetMapping);
+        addAlgorithm(operations, AuctionAlg::new, new Budget(3, 3000, 50), resetMapping);
+        addAlgorithm(operations, MinCostFlowAlg::new, new Budget(3, 1000, 20), resetMapping);
+        addAlgorithm(operations, HypergraphMatchingAlg::new, new Budget(3, 1000, 20), resetMapping);
+        // the exact search is exponential: only its time limit is checked (as a bound on the runtime of any size)
+        addAlgorithm(operations, () -> new BranchAndBoundAlg(BRANCH_AND_BOUND_TIME_LIMIT_MILLIS, 1), new Budget(2, 10 * BRANCH_AND_BOUND_TIME_LIMIT_MILLIS, 200), resetMapping);
+
+        Runnable placeGreedy = () -> {
+            mecService.resetMapping();
+            new GreedyAlg().run(false);
+        };
+        EnergyConsumptionService energyService = EnergyConsumptionService.getInstance();
+        Budget pairsBudget = new Budget(2, 20, 5);
+        operations.add(new Operation("MecSystemService.getVmsHostedByPm (all PMs)", pairsBudget, placeGreedy, () -> {
+            for (int pmId = 0; pmId < mecService.getNumberOfPMs(); pmId++)
+                sink += mecService.getVmsHostedByPm(pmId).size();
+        }, true));
+        operations.add(new Operation("MecSystemService.getPmsHostingVm (all VMs)", pairsBudget, placeGreedy, () -> {
+            for (int vmId = 0; vmId < mecService.getNumberOfVMs(); vmId++)
+                sink += mecService.getPmsHostingVm(vmId).size();
+        }, true));
+        operations.add(new Operation("MecSystemService.checkPlacementFeasible (all pairs)", pairsBudget, placeGreedy, () -> {
+            for (int vmId = 0; vmId < mecService.getNumberOfVMs(); vmId++) {
+                for (int pmId = 0; pmId < mecService.getNumberOfPMs(); pmId++)
+                    sink += mecService.checkPlacementFeasible(vmId, pmId, 1, 1) ? 1 : 0;
+            }
+        }, true));
+        operations.add(new Operation("MecSystemService.getPlacementCapacity (all pairs)", pairsBudget, placeGreedy, () -> {
+            for (int vmId = 0; vmId < mecService.getNumberOfVMs(); vmId++) {
+                for (int pmId = 0; pmId < mecService.getNumberOfPMs(); pmId++)
+                    sink += mecService.getPlacementCapacity(vmId, pmId, 1, 1);
+            }
+        }, true));
+        operations.add(new Operation("MecSystemService.getFeasiblePms (all UEs)", pairsBudget, placeGreedy, () -> {
+            for (Ue2VmMapping mapping : mecService.getUe2VmMappings())
+                sink += mecService.getFeasiblePms(mapping.getVmId(), mapping.getCores(), mapping.getMemory()).cardinality();
+        }, true));
+        operations.add(new Operation("MecSystemService.getTotalAllocatedPms/Vms", pairsBudget, placeGreedy, () ->
+                sink += mecService.getTotalAllocatedPms() + mecService.getTotalAllocatedVms(), true));
+        operations.add(new Operation("EnergyConsumptionService.getTotalEnergyConsumption", pairsBudget, placeGreedy, () ->
+                sink += (long) energyService.getTotalEnergyConsumption(), true));
+        // the mapping is reset in constant time, and the feasibility index only restores the PMs changed since the last reset
+        // (its VMs are rebuilt on their first access)
+        operations.add(new Operation("MecSystemService.resetMapping", new Budget(1, 2, 1), placeGreedy, mecService::resetMapping, true));
+        return operations;
+    }
+
+    private static void addAlgorithm(List<Operation> operations, Supplier<MatchingAlg> algorithm, Budget budget, Runnable setup) {
+        operations.add(new Operation(algorithm.get().getName(), budget, setup, () -> algorithm.get().run(false), false));
+    }
+
+    /**
+     * Run an operation on the current instance, keeping the best runtime and the lowest allocation per call of its runs.
+     * In each run, the operation is called until its calls last MIN_BATCH_MILLIS: a repeatable operation in batches of
+     * doubling size after a single setup, any other one after its (untimed) setup each time.
+     * @param operation the operation
+     * @param size the instance size
+     * @param runs the number of runs
+     * @param threadBean the thread bean of the allocation accounting
+     * @return the sample of the operation on the instance (per call)
+     */
+    private static Sample measure(Operation operation, int size, int runs, com.sun.management.ThreadMXBean threadBean) {
+        long threadId = Thread.currentThread().threadId();
+        double bestMillis = Double.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        for (int run = 0; run < runs; run++) {
+            if (operation.repeatable())
+                operation.setup().run();
+            double millis = 0;
+            long bytes = 0;
+            int totalCalls = 0;
+            for (int calls = 1; millis < MIN_BATCH_MILLIS && totalCalls < MAX_CALLS; calls = operation.repeatable() ? 2 * calls : 1) {
+                if (!operation.repeatable())
+                    operation.setup().run();
+                long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+                long startTime = System.nanoTime();
+                for (int call = 0; call < calls; call++)
+                    operation.body().run();
+                millis += (System.nanoTime() - startTime) / 1e6;
+                bytes += threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+                totalCalls += calls;
+            }
+            bestMillis = Math.min(bestMillis, millis / totalCalls);
+            bestBytes = Math.min(bestBytes, bytes / totalCalls);
+        }
+        return new Sample(size, bestMillis, bestBytes);
+    }
+
+    /**
+     * Fit the growth exponent of the runtime or of the allocation, i.e. the least-squares slope of log(value) against
+     * log(n), over the samples with a positive value.
+     * @param samples the samples of an operation, by increasing size
+     * @param time true for the runtime, false for the allocated bytes
+     * @return the exponent (0 if the operation allocates nothing at any size), or NaN if fewer than two samples have a
+     * positive value
+     */
+    private static double fitExponent(List<Sample> samples, boolean time) {
+        double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+        int count = 0;
+        for (Sample sample : samples) {
+            double value = time ? sample.millis() : sample.bytes();
+            if (value <= 0)
+                continue;
+
+            double x = Math.log(sample.size());
+            double y = Math.log(value);
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumXY += x * y;
+            count++;
+        }
+        // nothing allocated at any size: no growth
+        if (count == 0 && !time)
+            return 0;
+        if (count < 2)
+            return Double.NaN;
+        return (count * sumXY - sumX * sumY) / (count * sumXX - sumX * sumX);
+    }
+
+    private static String formatExponent(double exponent) {
+        return Double.isNaN(exponent) ? "-" : String.format("%.2f", exponent);
+    }
+}
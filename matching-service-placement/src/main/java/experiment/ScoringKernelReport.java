@@ -0,0 +1,232 @@
+package experiment;
+
+import algorithm.model.ResourceAvailability;
+import algorithm.model.ResourceTable;
+import algorithm.model.Ue2VmMapping;
+import algorithm.utils.PmScoringKernel;
+import model.PM;
+import service.EnergyConsumptionService;
+import service.MecSystemService;
+import utils.TestSystemSetup;
+import utils.collections.DenseIntMap;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Time of the two scoring steps of an auction round (energy costs of the UEs on the PMs, then evaluation of the PMs for
+ * each UE) with the scoring kernel (see PmScoringKernel) and with the previous scoring on boxed HashMaps and PM getters,
+ * on the same partially loaded PMs. Both must give each UE the same best and second-best evaluations, i.e. the same bid.
+ */
+public class ScoringKernelReport {
+    private static final double ENERGY_COEFF = .7;
+    private static final double PRICE_COEFF = .125;
+    private static final double LOAD_COEFF = .05;
+    private static final double SPEED_COEFF = .125;
+    private static final double EPSILON = 1e-6;
+
+    private final MecSystemService mecService = MecSystemService.getInstance();
+    private final EnergyConsumptionService energyService = EnergyConsumptionService.getInstance();
+    private final List<Ue2VmMapping> mappings;
+    // same PM state for both scorings
+    private final HashMap<Integer, ResourceAvailability> pmResources = new HashMap<>();
+    private final HashMap<Integer, Double> pmPrices = new HashMap<>();
+    private final PmScoringKernel scoringKernel;
+    // best and second-best evaluation of each UE (by position in mappings), as used for its bid
+    private final double[] bestEvaluations;
+    private final double[] secondEvaluations;
+
+    /**
+     * @param seed the seed of the PM loads and prices
+     * @param load the share of the PMs resources to be used
+     */
+    public ScoringKernelReport(long seed, double load) {
+        this.mappings = mecService.getUe2VmMappings();
+        this.bestEvaluations = new double[mappings.size()];
+        this.secondEvaluations = new double[mappings.size()];
+
+        Random rand = new Random(seed);
+        ResourceTable pmTable = ResourceTable.ofPms(mecService.getPMs());
+        DenseIntMap<ResourceAvailability> kernelResources = new DenseIntMap<>(mecService.getNumberOfPMs());
+        this.scoringKernel = new PmScoringKernel(mecService.getPMs());
+        for (PM pm : mecService.getPMs()) {
+            int cores = (int) (rand.nextDouble() * load * 2 * pm.getTotCores());
+            int memory = (int) (rand.nextDouble() * load * 2 * pm.getTotMemoryGB());
+            ResourceAvailability resources = new ResourceAvailability(pm.getId(), pm.getTotCores(), pm.getTotMemoryGB(), pm.getMaxVmsHosted());
+            resources.allocateResources(Math.min(cores, pm.getTotCores()), Math.min(memory, pm.getTotMemoryGB()));
+            pmResources.put(pm.getId(), resources);
+            ResourceAvailability kernelView = pmTable.view(pm.getId());
+            kernelView.allocateResources(resources.getUsedCores(), resources.getUsedMemory());
+            kernelResources.put(pm.getId(), kernelView);
+
+            double price = rand.nextDouble();
+            pmPrices.put(pm.getId(), price);
+            scoringKernel.setPrice(pm.getId(), price);
+        }
+        scoringKernel.updateResources(kernelResources);
+    }
+
+    /**
+     * Time of the energy costs and of the evaluations with the previous scoring (HashMaps and PM getters).
+     * @return the time of the two steps in nanoseconds
+     */
+    public long[] runLegacy() {
+        long startTime = System.nanoTime();
+        HashMap<Integer, HashMap<Integer, Double>> energyCosts = new HashMap<>();
+        HashMap<Integer, Double> energyConsumptions = new HashMap<>();
+        for (Ue2VmMapping mapping : mappings) {
+            energyConsumptions.clear();
+            for (PM pm : mecService.getPMs()) {
+                if (pmResources.get(pm.getId()).canPerformMatch(mapping.getCores(), mapping.getMemory())) {
+                    double energyConsumption = energyService.getEnergyConsumptionWithVmCoresAndPm(mecService.getVM(mapping.getVmId()), mapping.getCores(), pm);
+                    energyConsumptions.put(pm.getId(), energyConsumption);
+                }
+            }
+
+            double maxConsumption = Math.max(energyConsumptions.values().stream().max(Comparator.naturalOrder()).orElse(0.), 100);
+            energyCosts.putIfAbsent(mapping.getUeId(), new HashMap<>());
+            energyConsumptions.forEach((pmId, cons) -> energyCosts.get(mapping.getUeId()).put(pmId, Math.log(1 + maxConsumption / (cons + EPSILON))));
+        }
+        long costsTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        double minCompute = mecService.getPMs().stream().mapToDouble(PM::getCoreComputeOpsPerSec).min().orElse(0);
+        double maxCompute = mecService.getPMs().stream().mapToDouble(PM::getCoreComputeOpsPerSec).max().orElse(1e-8);
+        for (int i = 0; i < mappings.size(); i++) {
+            Ue2VmMapping mapping = mappings.get(i);
+            double best = Double.NEGATIVE_INFINITY;
+            double second = Double.NEGATIVE_INFINITY;
+            for (PM pm : mecService.getPMs()) {
+                if (!pmResources.get(pm.getId()).canPerformMatch(mapping.getCores(), mapping.getMemory()))
+                    continue;
+
+                double coresUsage = (double) pmResources.get(pm.getId()).getUsedCores() / pm.getTotCores();
+                double memUsage = (double) pmResources.get(pm.getId()).getUsedMemory() / pm.getTotMemoryGB();
+                double loadFactor = (coresUsage + memUsage) / 2.;
+                double computeSpeed = (pm.getCoreComputeOpsPerSec() - minCompute) / (maxCompute - minCompute + 1e-8);
+                double evaluation = - LOAD_COEFF * loadFactor + SPEED_COEFF * computeSpeed - PRICE_COEFF * pmPrices.getOrDefault(pm.getId(), 0.0) + ENERGY_COEFF * energyCosts.get(mapping.getUeId()).get(pm.getId());
+                if (evaluation > best) {
+                    second = best;
+                    best = evaluation;
+                }
+                else if (evaluation > second) {
+                    second = evaluation;
+                }
+            }
+            bestEvaluations[i] = best;
+            secondEvaluations[i] = second;
+        }
+        return new long[]{costsTime, System.nanoTime() - startTime};
+    }
+
+    /**
+     * Time of the energy costs and of the evaluations with the scoring kernel, as in AuctionAlg.
+     * @return the time of the two steps in nanoseconds
+     */
+    public long[] runKernel() {
+        long startTime = System.nanoTime();
+        int totalClasses = scoringKernel.getTotalClasses();
+        double[][] energyCosts = new double[mappings.size()][];
+        double[] energyConsumptions = new double[totalClasses];
+        for (int i = 0; i < mappings.size(); i++) {
+            Ue2VmMapping mapping = mappings.get(i);
+            scoringKernel.energyConsumptions(energyService.getComputationDurationTime(), mapping.getCores(), mecService.getVM(mapping.getVmId()).getEnergyConsumptionPerCoreOps(), energyConsumptions);
+            double maxConsumption = 100;
+            int fastestClass = scoringKernel.getFastestFeasibleClass(mapping.getCores(), mapping.getMemory());
+            if (fastestClass != -1)
+                maxConsumption = Math.max(maxConsumption, energyConsumptions[fastestClass]);
+
+            double[] costs = new double[totalClasses];
+            for (int c = 0; c < totalClasses; c++)
+                costs[c] = Math.log(1 + maxConsumption / (energyConsumptions[c] + EPSILON));
+            energyCosts[i] = costs;
+        }
+        long costsTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        int[] bestClassPms = new int[2 * totalClasses];
+        scoringKernel.rankClassMembers(LOAD_COEFF, SPEED_COEFF, PRICE_COEFF);
+        for (int i = 0; i < mappings.size(); i++) {
+            Ue2VmMapping mapping = mappings.get(i);
+            int totalBest = 0;
+            for (int c = 0; c < totalClasses; c++)
+                totalBest += scoringKernel.getBestClassMembers(c, mapping.getCores(), mapping.getMemory(), null, 2, bestClassPms, totalBest);
+
+            double best = Double.NEGATIVE_INFINITY;
+            double second = Double.NEGATIVE_INFINITY;
+            for (int b = 0; b < totalBest; b++) {
+                int pmId = bestClassPms[b];
+                double evaluation = scoringKernel.scoreRankedAuction(pmId, energyCosts[i][scoringKernel.getPmClass(pmId)], ENERGY_COEFF);
+                if (evaluation > best) {
+                    second = best;
+                    best = evaluation;
+                }
+                else if (evaluation > second) {
+                    second = evaluation;
+                }
+            }
+            bestEvaluations[i] = best;
+            secondEvaluations[i] = second;
+        }
+        return new long[]{costsTime, System.nanoTime() - startTime};
+    }
+
+    /**
+     * Best time of each step over the runs, after as many warm-up runs.
+     * @param scoring the scoring to be timed
+     * @param runs the number of runs
+     * @return the best time of each step in nanoseconds
+     */
+    private static long[] bestTimes(Supplier<long[]> scoring, int runs) {
+        for (int run = 0; run < runs; run++)
+            scoring.get();
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int run = 0; run < runs; run++) {
+            long[] times = scoring.get();
+            best[0] = Math.min(best[0], times[0]);
+            best[1] = Math.min(best[1], times[1]);
+        }
+        return best;
+    }
+
+    /**
+     * @param args the number of PMs, VMs and UEs, the seed, the share of the PM resources in use, and the number of runs
+     */
+    public static void main(String[] args) {
+        int totalPms = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int totalVms = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int totalUes = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        double load = args.length > 4 ? Double.parseDouble(args[4]) : 0.5;
+        int runs = args.length > 5 ? Integer.parseInt(args[5]) : 10;
+
+        MecSystemService mecService = MecSystemService.getInstance(0.5);
+        mecService.resetSystem();
+        mecService.setTotalDurationTime(0.5);
+        TestSystemSetup.setupTestInstance(seed, totalPms, totalVms, totalUes);
+        ScoringKernelReport report = new ScoringKernelReport(seed, load);
+
+        long[] legacyTimes = bestTimes(report::runLegacy, runs);
+        double[] legacyBest = report.bestEvaluations.clone();
+        double[] legacySecond = report.secondEvaluations.clone();
+        long[] kernelTimes = bestTimes(report::runKernel, runs);
+        boolean same = Arrays.equals(legacyBest, report.bestEvaluations) && Arrays.equals(legacySecond, report.secondEvaluations);
+
+        double pairs = (double) totalUes * totalPms;
+        System.out.printf("%d PMs (%d classes), %d UEs, load %.2f, best of %d runs%n", totalPms, report.scoringKernel.getTotalClasses(), totalUes, load, runs);
+        System.out.printf("%-20s %14s %14s %16s%n", "step", "HashMap (ms)", "kernel (ms)", "speed-up");
+        String[] steps = {"energy costs", "PM evaluations"};
+        for (int s = 0; s < steps.length; s++) {
+            System.out.printf("%-20s %14.2f %14.2f %15.1fx%n", steps[s], legacyTimes[s] / 1e6, kernelTimes[s] / 1e6, (double) legacyTimes[s] / kernelTimes[s]);
+        }
+        long legacyTotal = legacyTimes[0] + legacyTimes[1];
+        long kernelTotal = kernelTimes[0] + kernelTimes[1];
+        System.out.printf("%-20s %14.2f %14.2f %15.1fx%n", "round", legacyTotal / 1e6, kernelTotal / 1e6, (double) legacyTotal / kernelTotal);
+        System.out.printf("%-20s %14.2f %14.2f%n", "ns per UE-PM pair", legacyTotal / pairs, kernelTotal / pairs);
+        System.out.println(same ? "Same bids with both scorings" : "DIFFERENT bids with the scoring kernel");
+    }
+}
@@ -0,0 +1,203 @@
+package experiment;
+
+/**
+ * Merging t-digest for streaming quantile estimation in constant memory.
+ * Values are buffered and periodically merged into a sorted list of centroids, whose size is bounded by the compression:
+ * centroids near the tails (q close to 0 or 1) are kept small, so that extreme quantiles stay accurate.
+ */
+public class TDigest {
+    private final double compression;
+    private final double[] means;
+    private final double[] weights;
+    private int totalCentroids;
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int totalBuffered;
+    private double totalWeight;
+    private double min;
+    private double max;
+
+    // scratch arrays used to merge the centroids with the buffered values
+    private final double[] mergeMeans;
+    private final double[] mergeWeights;
+
+    public TDigest(double compression) {
+        if (compression < 10)
+            throw new IllegalArgumentException("Invalid compression");
+        this.compression = compression;
+        int capacity = (int) Math.ceil(2 * compression) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferMeans = new double[5 * capacity];
+        this.bufferWeights = new double[5 * capacity];
+        this.mergeMeans = new double[6 * capacity];
+        this.mergeWeights = new double[6 * capacity];
+        this.min = Double.POSITIVE_INFINITY;
+        this.max = Double.NEGATIVE_INFINITY;
+    }
+
+    public TDigest() {
+        this(200);
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Add a weighted value to the digest.
+     * @param value the value
+     * @param weight the weight of the value
+     */
+    public void add(double value, double weight) {
+        if (Double.isNaN(value) || weight <= 0)
+            throw new IllegalArgumentException("Invalid value or weight");
+
+        if (totalBuffered == bufferMeans.length)
+            compress();
+        bufferMeans[totalBuffered] = value;
+        bufferWeights[totalBuffered] = weight;
+        totalBuffered++;
+        totalWeight += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Add all the values summarized by another digest.
+     * @param other the other digest
+     */
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.totalCentroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Estimate a quantile of the added values.
+     * @param q the quantile (between 0 and 1)
+     * @return the estimated value of the quantile, or NaN if no value was added
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1)
+            throw new IllegalArgumentException("Invalid quantile");
+
+        compress();
+        if (totalCentroids == 0)
+            return Double.NaN;
+        if (q == 0)
+            return min;
+        if (q == 1)
+            return max;
+        if (totalCentroids == 1)
+            return means[0];
+
+        // interpolate between the centers of the centroids (and the min/max values at the tails)
+        double index = q * totalWeight;
+        double firstHalf = weights[0] / 2;
+        if (index < firstHalf)
+            return min + (means[0] - min) * index / firstHalf;
+
+        double cumulativeWeight = firstHalf;
+        for (int i = 0; i < totalCentroids - 1; i++) {
+            double delta = (weights[i] + weights[i + 1]) / 2;
+            if (cumulativeWeight + delta > index)
+                return means[i] + (means[i + 1] - means[i]) * (index - cumulativeWeight) / delta;
+            cumulativeWeight += delta;
+        }
+
+        double lastHalf = weights[totalCentroids - 1] / 2;
+        return means[totalCentroids - 1] + (max - means[totalCentroids - 1]) * Math.min((index - cumulativeWeight) / lastHalf, 1);
+    }
+
+    /**
+     * Merge the buffered values into the centroids.
+     */
+    private void compress() {
+        if (totalBuffered == 0)
+            return;
+
+        sortByMean(bufferMeans, bufferWeights, totalBuffered);
+
+        // merge the (sorted) centroids and buffered values
+        int i = 0, j = 0, n = 0;
+        while (i < totalCentroids || j < totalBuffered) {
+            if (j == totalBuffered || (i < totalCentroids && means[i] <= bufferMeans[j])) {
+                mergeMeans[n] = means[i];
+                mergeWeights[n++] = weights[i++];
+            }
+            else {
+                mergeMeans[n] = bufferMeans[j];
+                mergeWeights[n++] = bufferWeights[j++];
+            }
+        }
+        totalBuffered = 0;
+
+        // greedily merge neighbours as long as the centroid spans at most one unit of the scale function
+        totalCentroids = 0;
+        double weightSoFar = 0;
+        double currentMean = mergeMeans[0];
+        double currentWeight = mergeWeights[0];
+        for (int k = 1; k < n; k++) {
+            double proposedWeight = currentWeight + mergeWeights[k];
+            if (scale((weightSoFar + proposedWeight) / totalWeight) - scale(weightSoFar / totalWeight) <= 1) {
+                currentMean += (mergeMeans[k] - currentMean) * mergeWeights[k] / proposedWeight;
+                currentWeight = proposedWeight;
+            }
+            else {
+                means[totalCentroids] = currentMean;
+                weights[totalCentroids++] = currentWeight;
+                weightSoFar += currentWeight;
+                currentMean = mergeMeans[k];
+                currentWeight = mergeWeights[k];
+            }
+        }
+        means[totalCentroids] = currentMean;
+        weights[totalCentroids++] = currentWeight;
+    }
+
+    // k1 scale function: k(q) = compression / (2 * pi) * asin(2q - 1)
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(Math.max(-1, Math.min(1, 2 * q - 1)));
+    }
+
+    // in-place heap sort of the values (and their weights) by value
+    private static void sortByMean(double[] values, double[] valueWeights, int size) {
+        for (int i = size / 2 - 1; i >= 0; i--)
+            siftDown(values, valueWeights, i, size);
+        for (int end = size - 1; end > 0; end--) {
+            swap(values, valueWeights, 0, end);
+            siftDown(values, valueWeights, 0, end);
+        }
+    }
+
+    private static void siftDown(double[] values, double[] valueWeights, int i, int size) {
+        while (true) {
+            int largest = i, left = 2 * i + 1, right = left + 1;
+            if (left < size && values[left] > values[largest])
+                largest = left;
+            if (right < size && values[right] > values[largest])
+                largest = right;
+            if (largest == i)
+                return;
+            swap(values, valueWeights, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(double[] values, double[] valueWeights, int i, int j) {
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        double weight = valueWeights[i];
+        valueWeights[i] = valueWeights[j];
+        valueWeights[j] = weight;
+    }
+}
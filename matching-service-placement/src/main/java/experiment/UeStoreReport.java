@@ -0,0 +1,92 @@
+package experiment;
+
+import algorithm.AuctionAlg;
+import algorithm.GaleShapleyAlg;
+import algorithm.MatchingAlg;
+import model.UE;
+import model.UeStore;
+import service.MecSystemService;
+import utils.TestSystemSetup;
+
+import java.util.List;
+
+/**
+ * Heap usage and scan time of the UE population with UE objects on the heap and with the off-heap store (see UeStore),
+ * after checking that the algorithms give the same results with both stores.
+ */
+public class UeStoreReport {
+    private static final int SCANS = 5;
+
+    /**
+     * @param args the number of UEs of the population, and the number of PMs, VMs and UEs of the scenario of the check
+     */
+    public static void main(String[] args) {
+        int totalUes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int checkPms = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int checkVms = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        int checkUes = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+
+        MecSystemService mecService = MecSystemService.getInstance(0.5);
+        List<String> onHeapResults = runAlgorithms(mecService, false, checkPms, checkVms, checkUes);
+        List<String> offHeapResults = runAlgorithms(mecService, true, checkPms, checkVms, checkUes);
+        onHeapResults.forEach(System.out::println);
+        System.out.println(onHeapResults.equals(offHeapResults) ? "Same results with the off-heap store" : "DIFFERENT results with the off-heap store: " + offHeapResults);
+
+        for (boolean offHeap : new boolean[]{false, true}) {
+            mecService.resetSystem();
+            mecService.setOffHeapUeStore(offHeap);
+            long heapBefore = getUsedHeap();
+            TestSystemSetup.addTestUes(0, totalUes);
+            long heapBytes = Math.max(getUsedHeap() - heapBefore, 0);
+
+            // best of a few scans, after the first ones warmed up the code
+            long totalTaskSize = 0;
+            double scanMillis = Double.MAX_VALUE;
+            for (int scan = 0; scan < SCANS; scan++) {
+                long startTime = System.nanoTime();
+                totalTaskSize = offHeap ? scanStore(mecService.getUeStore()) : scanList(mecService.getUEs());
+                scanMillis = Math.min(scanMillis, (System.nanoTime() - startTime) / 1e6);
+            }
+
+            System.out.printf("%-8s %d UEs: heap %7.1f MB (%5.1f bytes/UE)%s, scan %7.1f ms (total task size %d)%n",
+                    offHeap ? "off-heap" : "heap", mecService.getNumberOfUEs(), heapBytes / 1e6, (double) heapBytes / totalUes,
+                    offHeap ? String.format(", off-heap %7.1f MB", mecService.getUeStore().getCapacityBytes() / 1e6) : "",
+                    scanMillis, totalTaskSize);
+        }
+        mecService.resetSystem();
+        mecService.setOffHeapUeStore(false);
+    }
+
+    private static List<String> runAlgorithms(MecSystemService mecService, boolean offHeap, int totalPms, int totalVms, int totalUes) {
+        mecService.resetSystem();
+        mecService.setOffHeapUeStore(offHeap);
+        mecService.setTotalDurationTime(0.5);
+        TestSystemSetup.setupTestInstance(0, totalPms, totalVms, totalUes);
+
+        List<MatchingAlg> algorithms = List.of(new GaleShapleyAlg(true, true, false), new AuctionAlg());
+        return algorithms.stream().map(alg -> {
+            mecService.resetMapping();
+            return alg.run(false).toString();
+        }).toList();
+    }
+
+    private static long scanList(List<UE> ues) {
+        long totalTaskSize = 0;
+        for (UE ue : ues)
+            totalTaskSize += ue.getOffloadedTaskSize();
+        return totalTaskSize;
+    }
+
+    private static long scanStore(UeStore ues) {
+        long[] totalTaskSize = new long[1];
+        ues.forEach(ue -> totalTaskSize[0] += ue.getOffloadedTaskSize());
+        return totalTaskSize[0];
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
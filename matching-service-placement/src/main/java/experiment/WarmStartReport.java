@@ -0,0 +1,79 @@
+package experiment;
+
+import algorithm.AuctionAlg;
+import algorithm.GaleShapleyAlg;
+import algorithm.MatchingAlg;
+import algorithm.model.AlgorithmResults;
+import algorithm.model.MatchingState;
+import algorithm.model.Ue2VmMapping;
+import service.MecSystemService;
+import utils.TestSystemSetup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Re-matching after a small change of the system: a share of the UEs leaves and as many new UEs arrive, then the
+ * placement is computed again from scratch (cold start) and from the previous matching (warm start, see
+ * MatchingAlg.setInitialState), comparing their runtime and results.
+ */
+public class WarmStartReport {
+
+    /**
+     * @param args the number of PMs, VMs and UEs, the share of UEs that change (in percent), and the seed
+     */
+    public static void main(String[] args) {
+        int totalPms = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int totalVms = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int totalUes = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        double changePercent = args.length > 3 ? Double.parseDouble(args[3]) : 1;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+
+        List<Supplier<MatchingAlg>> algorithms = List.of(() -> new GaleShapleyAlg(true, true, false), AuctionAlg::new);
+        for (Supplier<MatchingAlg> algorithm : algorithms) {
+            MecSystemService mecService = MecSystemService.getInstance(0.5);
+            mecService.resetSystem();
+            mecService.setTotalDurationTime(0.5);
+            TestSystemSetup.setupTestInstance(seed, totalPms, totalVms, totalUes);
+
+            MatchingAlg initial = algorithm.get();
+            long startTime = System.nanoTime();
+            AlgorithmResults initialResults = initial.run(false);
+            double initialMillis = (System.nanoTime() - startTime) / 1e6;
+            MatchingState state = initial.getMatchingState();
+
+            int totalChanges = applyChange(mecService, seed, changePercent);
+
+            MatchingAlg warm = algorithm.get();
+            warm.setInitialState(state);
+            startTime = System.nanoTime();
+            AlgorithmResults warmResults = warm.run(false);
+            double warmMillis = (System.nanoTime() - startTime) / 1e6;
+
+            mecService.resetMapping();
+            startTime = System.nanoTime();
+            AlgorithmResults coldResults = algorithm.get().run(false);
+            double coldMillis = (System.nanoTime() - startTime) / 1e6;
+
+            System.out.printf("%s: initial %d UEs in %.0f ms, %d UEs changed%n", initialResults.algorithmName(), initialResults.totalAllocatedUes(), initialMillis, totalChanges);
+            System.out.printf("\tcold start %6d UEs, energy %12.2f, %8.1f ms%n", coldResults.totalAllocatedUes(), coldResults.totalEnergyConsumed(), coldMillis);
+            System.out.printf("\twarm start %6d UEs, energy %12.2f, %8.1f ms%n", warmResults.totalAllocatedUes(), warmResults.totalEnergyConsumed(), warmMillis);
+        }
+    }
+
+    /**
+     * Remove the mappings of a share of the UEs and add as many new UEs.
+     * @return the number of removed (and of added) UEs
+     */
+    private static int applyChange(MecSystemService mecService, long seed, double changePercent) {
+        ArrayList<Ue2VmMapping> mappings = mecService.getUe2VmMappings();
+        int totalChanges = (int) Math.ceil(mappings.size() * changePercent / 100);
+        Random rand = new Random(seed);
+        for (int i = 0; i < totalChanges && !mappings.isEmpty(); i++)
+            mappings.remove(rand.nextInt(mappings.size()));
+        TestSystemSetup.addTestUes(seed + 1, totalChanges);
+        return totalChanges;
+    }
+}
@@ -0,0 +1,87 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Array of int counters reset lazily: each cell is stamped with the epoch of its last write, and the cells written before
+ * the current epoch read as zero, so that a reset only increments the epoch.
+ */
+class EpochIntArray {
+    private int[] values;
+    private int[] stamps;
+    private int size;
+    // the stamps of new cells are 0, so the first epoch is 1
+    private int epoch = 1;
+
+    EpochIntArray(int size) {
+        this.values = new int[size];
+        this.stamps = new int[size];
+        this.size = size;
+    }
+
+    int get(int index) {
+        Objects.checkIndex(index, size);
+        return stamps[index] == epoch ? values[index] : 0;
+    }
+
+    /**
+     * Set the value of a cell.
+     * @param index the cell index
+     * @param value the new value
+     * @return the previous value of the cell
+     */
+    int set(int index, int value) {
+        int previous = get(index);
+        values[index] = value;
+        stamps[index] = epoch;
+        return previous;
+    }
+
+    void add(int index, int delta) {
+        set(index, get(index) + delta);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Reset all the cells to zero, in constant time (except when the epoch wraps around, once every 2^31 resets).
+     */
+    void reset() {
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Append a cell set to zero.
+     */
+    void append() {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(2 * size, 8));
+            stamps = Arrays.copyOf(stamps, values.length);
+        }
+        // the cell may hold the stamp of a removed one
+        stamps[size++] = 0;
+    }
+
+    /**
+     * Remove a cell, shifting the next ones.
+     * @param index the cell index
+     */
+    void remove(int index) {
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        System.arraycopy(stamps, index + 1, stamps, index, size - index - 1);
+        size--;
+    }
+
+    /**
+     * Remove all the cells (a reset is not needed afterwards).
+     */
+    void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,169 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Matrix of int cells (VM rows, PM columns) reset lazily: each cell is stamped with the epoch of its last write, and the
+ * cells written before the current epoch read as zero, so that a reset only increments the epoch (see EpochIntArray).
+ */
+class EpochIntMatrix {
+    private final ArrayList<int[]> values = new ArrayList<>();
+    private final ArrayList<int[]> stamps = new ArrayList<>();
+    private int columns;
+    // row capacity, the same for all the rows
+    private int capacity;
+    // the stamps of new cells are 0, so the first epoch is 1
+    private int epoch = 1;
+
+    EpochIntMatrix(int rows, int columns) {
+        this.columns = columns;
+        this.capacity = columns;
+        for (int row = 0; row < rows; row++)
+            appendRow();
+    }
+
+    int get(int row, int column) {
+        Objects.checkIndex(column, columns);
+        return stamps.get(row)[column] == epoch ? values.get(row)[column] : 0;
+    }
+
+    /**
+     * Set the value of a cell.
+     * @param row the row (VM id)
+     * @param column the column (PM id)
+     * @param value the new value
+     * @return the previous value of the cell
+     */
+    int set(int row, int column, int value) {
+        int previous = get(row, column);
+        values.get(row)[column] = value;
+        stamps.get(row)[column] = epoch;
+        return previous;
+    }
+
+    int getRows() {
+        return values.size();
+    }
+
+    int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Reset all the cells to zero, in constant time (except when the epoch wraps around, once every 2^31 resets).
+     */
+    void reset() {
+        if (++epoch == Integer.MAX_VALUE) {
+            stamps.forEach(row -> Arrays.fill(row, 0));
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Append a row of zeros.
+     */
+    void appendRow() {
+        values.add(new int[capacity]);
+        stamps.add(new int[capacity]);
+    }
+
+    void removeRow(int row) {
+        values.remove(row);
+        stamps.remove(row);
+    }
+
+    /**
+     * Append a column of zeros.
+     */
+    void appendColumn() {
+        if (columns == capacity) {
+            capacity = Math.max(2 * capacity, 8);
+            for (int row = 0; row < values.size(); row++) {
+                values.set(row, Arrays.copyOf(values.get(row), capacity));
+                stamps.set(row, Arrays.copyOf(stamps.get(row), capacity));
+            }
+        }
+        else {
+            // the cells may hold the stamps of a removed column
+            for (int[] rowStamps : stamps)
+                rowStamps[columns] = 0;
+        }
+        columns++;
+    }
+
+    void removeColumn(int column) {
+        Objects.checkIndex(column, columns);
+        for (int row = 0; row < values.size(); row++) {
+            System.arraycopy(values.get(row), column + 1, values.get(row), column, columns - column - 1);
+            System.arraycopy(stamps.get(row), column + 1, stamps.get(row), column, columns - column - 1);
+        }
+        columns--;
+    }
+
+    /**
+     * Remove all the rows and columns (a reset is not needed afterwards).
+     */
+    void clear() {
+        values.clear();
+        stamps.clear();
+        columns = 0;
+        capacity = 0;
+    }
+
+    /**
+     * Copy a row of the matrix.
+     * @param row the row
+     * @return the values of the row
+     */
+    ArrayList<Integer> getRow(int row) {
+        ArrayList<Integer> copy = new ArrayList<>(columns);
+        for (int column = 0; column < columns; column++)
+            copy.add(get(row, column));
+        return copy;
+    }
+
+    /**
+     * Copy a column of the matrix.
+     * @param column the column
+     * @return the values of the column
+     */
+    ArrayList<Integer> getColumn(int column) {
+        ArrayList<Integer> copy = new ArrayList<>(getRows());
+        for (int row = 0; row < getRows(); row++)
+            copy.add(get(row, column));
+        return copy;
+    }
+
+    /**
+     * Copy the matrix.
+     * @return the rows of the matrix
+     */
+    ArrayList<ArrayList<Integer>> toLists() {
+        ArrayList<ArrayList<Integer>> copy = new ArrayList<>(getRows());
+        for (int row = 0; row < getRows(); row++)
+            copy.add(getRow(row));
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof EpochIntMatrix other) || getRows() != other.getRows() || columns != other.columns)
+            return false;
+        for (int row = 0; row < getRows(); row++) {
+            for (int column = 0; column < columns; column++) {
+                if (get(row, column) != other.get(row, column))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return toLists().hashCode();
+    }
+}
@@ -4,15 +4,17 @@ import java.util.Objects;
 
 public abstract class MecMachine extends MecElement{
     private final int id;
-    private final int totCores;
-    private final int totMemoryGB;
+    private final ResourceVector capacity;
 
 
     public MecMachine(int id, int totCores, int totMemoryGB, String elementName) {
+        this(id, ResourceVector.of(totCores, totMemoryGB), elementName);
+    }
+
+    public MecMachine(int id, ResourceVector capacity, String elementName) {
         super(elementName);
         this.id = id;
-        this.totCores = totCores;
-        this.totMemoryGB = totMemoryGB;
+        this.capacity = capacity;
     }
 
     @Override
@@ -30,7 +32,7 @@ public abstract class MecMachine extends MecElement{
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, totCores, totMemoryGB);
+        return Objects.hash(id, capacity);
     }
 
     @Override
@@ -38,7 +40,7 @@ public abstract class MecMachine extends MecElement{
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MecMachine mc = (MecMachine) o;
-        return id == mc.id && totCores == mc.totCores && totMemoryGB == mc.totMemoryGB;
+        return id == mc.id && capacity.equals(mc.capacity);
     }
 
     public int getId() {
@@ -46,10 +48,18 @@ public abstract class MecMachine extends MecElement{
     }
 
     public int getTotCores() {
-        return totCores;
+        return capacity.get(ResourceType.CORES);
     }
 
     public int getTotMemoryGB() {
-        return totMemoryGB;
+        return capacity.get(ResourceType.MEMORY_GB);
+    }
+
+    public ResourceVector getCapacity() {
+        return capacity;
+    }
+
+    public int getCapacity(ResourceType type) {
+        return capacity.get(type);
     }
 }
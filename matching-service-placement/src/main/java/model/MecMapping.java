@@ -1,30 +1,43 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class MecMapping {
     private static MecMapping instance = null;
     private int totalVms;
     private int totalPms;
-    private final ArrayList<ArrayList<Integer>> vm2PmPlacement; // vm rows, pm columns
-    private final ArrayList<ArrayList<Integer>> vmGb2PmPlacement; // vm rows, pm columns
-    private final ArrayList<ArrayList<Integer>> vmCores2PmPlacement; // vm rows, pm columns
+    // the matrices and counters are reset lazily (see EpochIntMatrix), so that resetMapping takes constant time
+    private final EpochIntMatrix vm2PmPlacement; // vm rows, pm columns
+    // for each resource type, vm rows and pm columns (allocated on first use, except for cores and memory GBs)
+    private final EpochIntMatrix[] vmResources2PmPlacement;
+
+    // aggregate counters of the placement matrices, kept up to date on every cell update
+    private final EpochIntArray vmsHostedByPm;
+    private final EpochIntArray pmsHostingVm;
+    private final EpochIntArray[] usedResourcesByPm; // for each resource type, pm cells
+    private final EpochIntArray[] usedResourcesByVm; // for each resource type, vm cells
+
+    private static final int CORES = ResourceType.CORES.ordinal();
+    private static final int MEMORY_GB = ResourceType.MEMORY_GB.ordinal();
 
     private MecMapping(int totalVms, int totalPms) {
         this.totalVms = totalVms;
         this.totalPms = totalPms;
-        vm2PmPlacement = new ArrayList<>();
-        vmGb2PmPlacement = new ArrayList<>();
-        vmCores2PmPlacement = new ArrayList<>();
-
-        for (int i = 0; i < totalVms; i++) {
-            vm2PmPlacement.add(new ArrayList<>(Collections.nCopies(totalPms, 0)));
-            vmGb2PmPlacement.add(new ArrayList<>(Collections.nCopies(totalPms, 0)));
-            vmCores2PmPlacement.add(new ArrayList<>(Collections.nCopies(totalPms, 0)));
+        vm2PmPlacement = newPlacementMatrix();
+        vmResources2PmPlacement = new EpochIntMatrix[ResourceType.COUNT];
+        vmResources2PmPlacement[CORES] = newPlacementMatrix();
+        vmResources2PmPlacement[MEMORY_GB] = newPlacementMatrix();
+
+        vmsHostedByPm = new EpochIntArray(totalPms);
+        pmsHostingVm = new EpochIntArray(totalVms);
+        usedResourcesByPm = new EpochIntArray[ResourceType.COUNT];
+        usedResourcesByVm = new EpochIntArray[ResourceType.COUNT];
+        for (int type = 0; type < ResourceType.COUNT; type++) {
+            usedResourcesByPm[type] = new EpochIntArray(totalPms);
+            usedResourcesByVm[type] = new EpochIntArray(totalVms);
         }
     }
 
@@ -40,95 +53,243 @@ public class MecMapping {
     }
 
 
+    /**
+     * Copy the binary placement matrix (VM rows, PM columns).
+     * @return the copy of the matrix
+     */
     public ArrayList<ArrayList<Integer>> getVm2PmPlacement() {
-        return vm2PmPlacement;
+        return vm2PmPlacement.toLists();
     }
 
+    /**
+     * Copy the memory GBs placement matrix (VM rows, PM columns).
+     * @return the copy of the matrix
+     */
     public ArrayList<ArrayList<Integer>> getVmGb2PmPlacement() {
-        return vmGb2PmPlacement;
+        return vmResources2PmPlacement[MEMORY_GB].toLists();
     }
 
+    /**
+     * Copy the cores placement matrix (VM rows, PM columns).
+     * @return the copy of the matrix
+     */
     public ArrayList<ArrayList<Integer>> getVmCores2PmPlacement() {
-        return vmCores2PmPlacement;
+        return vmResources2PmPlacement[CORES].toLists();
     }
 
     public void setVmPlacement(int vmId, int pmId) {
-        if (vmId >= 0 && vmId < totalVms && pmId >= 0 && pmId < totalPms)
-            vm2PmPlacement.get(vmId).set(pmId, 1);
+        if (vmId >= 0 && vmId < totalVms && pmId >= 0 && pmId < totalPms && vm2PmPlacement.set(vmId, pmId, 1) == 0) {
+            vmsHostedByPm.add(pmId, 1);
+            pmsHostingVm.add(vmId, 1);
+        }
     }
 
     public void removeVmPlacement(int vmId, int pmId) {
-        if (vmId >= 0 && vmId < totalVms && pmId >= 0 && pmId < totalPms)
-            vm2PmPlacement.get(vmId).set(pmId, 0);
+        if (vmId >= 0 && vmId < totalVms && pmId >= 0 && pmId < totalPms && vm2PmPlacement.set(vmId, pmId, 0) == 1) {
+            vmsHostedByPm.add(pmId, -1);
+            pmsHostingVm.add(vmId, -1);
+        }
     }
 
     public void setVmCores2Pm(int vmId, int pmId, int vmCores) {
-        vmCores2PmPlacement.get(vmId).set(pmId, vmCores);
-        setVmPlacement(vmId, pmId);
+        setVmResource2Pm(CORES, vmId, pmId, vmCores);
     }
 
     public void setVmGb2Pm(int vmId, int pmId, int vmGb) {
-        vmGb2PmPlacement.get(vmId).set(pmId, vmGb);
+        setVmResource2Pm(MEMORY_GB, vmId, pmId, vmGb);
+    }
+
+    public void setVmResource2Pm(ResourceType type, int vmId, int pmId, int amount) {
+        setVmResource2Pm(type.ordinal(), vmId, pmId, amount);
+    }
+
+    private void setVmResource2Pm(int type, int vmId, int pmId, int amount) {
+        EpochIntMatrix placement = vmResources2PmPlacement[type];
+        if (placement == null) {
+            if (amount == 0) {
+                setVmPlacement(vmId, pmId);
+                return;
+            }
+            placement = newPlacementMatrix();
+            vmResources2PmPlacement[type] = placement;
+        }
+
+        int delta = amount - placement.set(vmId, pmId, amount);
+        usedResourcesByPm[type].add(pmId, delta);
+        usedResourcesByVm[type].add(vmId, delta);
         setVmPlacement(vmId, pmId);
     }
 
-    public ArrayList<Integer> getPmsHostingVm(int vmId) {
-        return (ArrayList<Integer>) IntStream.range(0, vm2PmPlacement.get(vmId).size())
-                .filter(i -> vm2PmPlacement.get(vmId).get(i) == 1)
-                .boxed()
-                .collect(Collectors.toList());
+    /**
+     * Set to zero all the resources of a VM on a PM (the placement itself is not changed).
+     * @param vmId the VM id
+     * @param pmId the PM id
+     */
+    public void clearVmResources2Pm(int vmId, int pmId) {
+        for (int type = 0; type < ResourceType.COUNT; type++) {
+            EpochIntMatrix placement = vmResources2PmPlacement[type];
+            if (placement != null) {
+                int delta = - placement.set(vmId, pmId, 0);
+                usedResourcesByPm[type].add(pmId, delta);
+                usedResourcesByVm[type].add(vmId, delta);
+            }
+        }
+    }
+
+    public int getVmResource2Pm(ResourceType type, int vmId, int pmId) {
+        EpochIntMatrix placement = vmResources2PmPlacement[type.ordinal()];
+        return placement == null ? 0 : placement.get(vmId, pmId);
+    }
+
+    /**
+     * Copy the amounts of a resource of a VM on each PM.
+     * @param type the resource type
+     * @param vmId the VM id
+     * @return the amount on each PM
+     */
+    public ArrayList<Integer> getVmResources2Pms(ResourceType type, int vmId) {
+        EpochIntMatrix placement = vmResources2PmPlacement[type.ordinal()];
+        return placement == null ? new ArrayList<>(Collections.nCopies(totalPms, 0)) : placement.getRow(vmId);
+    }
+
+    /**
+     * Copy the amounts of a resource of each VM on a PM.
+     * @param type the resource type
+     * @param pmId the PM id
+     * @return the amount of each VM
+     */
+    public ArrayList<Integer> getHostedVmsResources(ResourceType type, int pmId) {
+        EpochIntMatrix placement = vmResources2PmPlacement[type.ordinal()];
+        return placement == null ? new ArrayList<>(Collections.nCopies(totalVms, 0)) : placement.getColumn(pmId);
+    }
+
+    public boolean isVmPlacedOnPm(int vmId, int pmId) {
+        return vm2PmPlacement.get(vmId, pmId) == 1;
+    }
+
+    public int getTotVmsHostedByPm(int pmId) {
+        return vmsHostedByPm.get(pmId);
+    }
+
+    public int getTotPmsHostingVm(int vmId) {
+        return pmsHostingVm.get(vmId);
+    }
 
+    public int getUsedCoresByPm(int pmId) {
+        return usedResourcesByPm[CORES].get(pmId);
+    }
+
+    public int getUsedGbByPm(int pmId) {
+        return usedResourcesByPm[MEMORY_GB].get(pmId);
+    }
+
+    public int getUsedCoresByVm(int vmId) {
+        return usedResourcesByVm[CORES].get(vmId);
+    }
+
+    public int getUsedGbByVm(int vmId) {
+        return usedResourcesByVm[MEMORY_GB].get(vmId);
+    }
+
+    public int getUsedResourceByPm(ResourceType type, int pmId) {
+        return usedResourcesByPm[type.ordinal()].get(pmId);
+    }
+
+    public int getUsedResourceByVm(ResourceType type, int vmId) {
+        return usedResourcesByVm[type.ordinal()].get(vmId);
+    }
+
+    public ArrayList<Integer> getPmsHostingVm(int vmId) {
+        ArrayList<Integer> pmIds = new ArrayList<>(pmsHostingVm.get(vmId));
+        for (int pmId = 0; pmId < totalPms && pmIds.size() < pmsHostingVm.get(vmId); pmId++) {
+            if (vm2PmPlacement.get(vmId, pmId) == 1)
+                pmIds.add(pmId);
+        }
+        return pmIds;
     }
 
     public ArrayList<Integer> getVmsHostedByPm(int pmId) {
-        return (ArrayList<Integer>) IntStream.range(0, vm2PmPlacement.size())
-                .filter(i -> vm2PmPlacement.stream().map(row -> row.get(pmId)).toList().get(i) == 1)
-                .boxed()
-                .collect(Collectors.toList());
+        // one lookup per VM, stopping at the last hosted one (none for an unused PM)
+        ArrayList<Integer> vmIds = new ArrayList<>(vmsHostedByPm.get(pmId));
+        for (int vmId = 0; vmId < totalVms && vmIds.size() < vmsHostedByPm.get(pmId); vmId++) {
+            if (vm2PmPlacement.get(vmId, pmId) == 1)
+                vmIds.add(vmId);
+        }
+        return vmIds;
     }
 
     public void addVm() {
-        vm2PmPlacement.add(new ArrayList<>(Collections.nCopies(totalPms, 0)));
-        vmGb2PmPlacement.add(new ArrayList<>(Collections.nCopies(totalPms, 0)));
-        vmCores2PmPlacement.add(new ArrayList<>(Collections.nCopies(totalPms, 0)));
+        vm2PmPlacement.appendRow();
+        for (EpochIntMatrix placement : vmResources2PmPlacement) {
+            if (placement != null)
+                placement.appendRow();
+        }
+        pmsHostingVm.append();
+        for (int type = 0; type < ResourceType.COUNT; type++) {
+            usedResourcesByVm[type].append();
+        }
         this.totalVms++;
     }
 
     public void removeVm(int vmId) {
-        vm2PmPlacement.remove(vmId);
-        vmGb2PmPlacement.remove(vmId);
-        vmCores2PmPlacement.remove(vmId);
+        // release the resources of the VM from the PMs hosting it
+        for (int pmId = 0; pmId < totalPms; pmId++) {
+            vmsHostedByPm.add(pmId, -vm2PmPlacement.get(vmId, pmId));
+        }
+        vm2PmPlacement.removeRow(vmId);
+        for (int type = 0; type < ResourceType.COUNT; type++) {
+            EpochIntMatrix placement = vmResources2PmPlacement[type];
+            if (placement != null) {
+                for (int pmId = 0; pmId < totalPms; pmId++) {
+                    usedResourcesByPm[type].add(pmId, -placement.get(vmId, pmId));
+                }
+                placement.removeRow(vmId);
+            }
+            usedResourcesByVm[type].remove(vmId);
+        }
+        pmsHostingVm.remove(vmId);
         this.totalVms--;
     }
 
     public void addPm() {
-        for (ArrayList<Integer> vmPlacement : vm2PmPlacement) {
-            vmPlacement.add(0);
-        }
-        for (ArrayList<Integer> vmPlacement : vmGb2PmPlacement) {
-            vmPlacement.add(0);
+        vm2PmPlacement.appendColumn();
+        for (EpochIntMatrix placement : vmResources2PmPlacement) {
+            if (placement != null)
+                placement.appendColumn();
         }
-        for (ArrayList<Integer> vmPlacement : vmCores2PmPlacement) {
-            vmPlacement.add(0);
+        vmsHostedByPm.append();
+        for (int type = 0; type < ResourceType.COUNT; type++) {
+            usedResourcesByPm[type].append();
         }
 
         this.totalPms++;
     }
 
     public void removePm(int pmId) {
-        for (ArrayList<Integer> vmPlacement : vm2PmPlacement) {
-            vmPlacement.remove(pmId);
-        }
-        for (ArrayList<Integer> vmPlacement : vmGb2PmPlacement) {
-            vmPlacement.remove(pmId);
+        // release the resources of the VMs hosted by the PM
+        for (int vmId = 0; vmId < totalVms; vmId++) {
+            pmsHostingVm.add(vmId, -vm2PmPlacement.get(vmId, pmId));
         }
-        for (ArrayList<Integer> vmPlacement : vmCores2PmPlacement) {
-            vmPlacement.remove(pmId);
+        vm2PmPlacement.removeColumn(pmId);
+        for (int type = 0; type < ResourceType.COUNT; type++) {
+            EpochIntMatrix placement = vmResources2PmPlacement[type];
+            if (placement != null) {
+                for (int vmId = 0; vmId < totalVms; vmId++) {
+                    usedResourcesByVm[type].add(vmId, -placement.get(vmId, pmId));
+                }
+                placement.removeColumn(pmId);
+            }
+            usedResourcesByPm[type].remove(pmId);
         }
+        vmsHostedByPm.remove(pmId);
 
         this.totalPms--;
     }
 
+    private EpochIntMatrix newPlacementMatrix() {
+        return new EpochIntMatrix(totalVms, totalPms);
+    }
+
     public boolean equals(Object obj) {
         if (this == obj) {
             return true;
@@ -138,27 +299,47 @@ public class MecMapping {
         }
         MecMapping mecMapping = (MecMapping) obj;
         return vm2PmPlacement.equals(mecMapping.vm2PmPlacement) &&
-                vmGb2PmPlacement.equals(mecMapping.vmGb2PmPlacement) &&
-                vmCores2PmPlacement.equals(mecMapping.vmCores2PmPlacement);
+                Arrays.equals(vmResources2PmPlacement, mecMapping.vmResources2PmPlacement);
     }
 
+    /**
+     * Reset the placement to empty, in constant time: the matrices and the counters only move to a new epoch.
+     */
     public void resetMapping() {
-        vm2PmPlacement.forEach(row -> Collections.fill(row, 0));
-        vmGb2PmPlacement.forEach(row -> Collections.fill(row, 0));
-        vmCores2PmPlacement.forEach(row -> Collections.fill(row, 0));
+        vm2PmPlacement.reset();
+        for (EpochIntMatrix placement : vmResources2PmPlacement) {
+            if (placement != null)
+                placement.reset();
+        }
+        vmsHostedByPm.reset();
+        pmsHostingVm.reset();
+        for (int type = 0; type < ResourceType.COUNT; type++) {
+            usedResourcesByPm[type].reset();
+            usedResourcesByVm[type].reset();
+        }
     }
 
     public void resetSystem() {
         vm2PmPlacement.clear();
-        vmGb2PmPlacement.clear();
-        vmCores2PmPlacement.clear();
+        for (EpochIntMatrix placement : vmResources2PmPlacement) {
+            if (placement != null)
+                placement.clear();
+        }
         totalVms = 0;
         totalPms = 0;
+        vmsHostedByPm.clear();
+        pmsHostingVm.clear();
+        for (int type = 0; type < ResourceType.COUNT; type++) {
+            usedResourcesByPm[type].clear();
+            usedResourcesByVm[type].clear();
+        }
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
+        ArrayList<ArrayList<Integer>> vmCores2PmPlacement = getVmCores2PmPlacement();
+        ArrayList<ArrayList<Integer>> vmGb2PmPlacement = getVmGb2PmPlacement();
 
         // Display header
         sb.append("=== VM to PM Resource Placement ===\n");
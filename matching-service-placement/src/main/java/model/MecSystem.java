@@ -10,7 +10,9 @@ public class MecSystem {
     private double offloadingDurationTime;
     private final ArrayList<VM> virtualMachines;
     private final ArrayList<PM> physicalMachines;
-    private final ArrayList<UE> userEquipments;
+    // UEs on the heap, or adapter of the off-heap store (see setOffHeapUeStore)
+    private List<UE> userEquipments;
+    private UeStore ueStore = null;
     private final ArrayList<Ue2VmMapping> ue2VmMappings;
 
 
@@ -60,9 +62,29 @@ public class MecSystem {
     public ArrayList<PM> getPhysicalMachines() {
         return physicalMachines;
     }
-    public ArrayList<UE> getUserEquipments() {
+    public List<UE> getUserEquipments() {
         return userEquipments;
     }
+
+    /**
+     * Keep the UEs in an off-heap store (see UeStore) instead of a list of UE objects, e.g. for millions of UEs.
+     * The store can only be changed when the system has no UEs.
+     * @param offHeap whether the UEs are stored off-heap
+     */
+    public void setOffHeapUeStore(boolean offHeap) {
+        if (!userEquipments.isEmpty())
+            throw new IllegalArgumentException("The UE store can only be changed when there are no UEs");
+        this.ueStore = offHeap ? new UeStore() : null;
+        this.userEquipments = offHeap ? ueStore.asList() : new ArrayList<>();
+    }
+
+    /**
+     * Get the off-heap store of the UEs, e.g. to scan them without building UE objects.
+     * @return the store, or null if the UEs are on the heap
+     */
+    public UeStore getUeStore() {
+        return ueStore;
+    }
     public ArrayList<Ue2VmMapping> getUe2VmMappings() {
         return ue2VmMappings;
     }
@@ -122,6 +144,12 @@ public class MecSystem {
         this.virtualMachines.clear();
         this.physicalMachines.clear();
         this.userEquipments.clear();
+        this.ue2VmMappings.clear();
+
+        // ids are also indexes in the element lists, so they restart from 0 for the new elements
+        PM.resetIncrementalId();
+        VM.resetIncrementalId();
+        UE.resetIncrementalId();
     }
 
     @Override
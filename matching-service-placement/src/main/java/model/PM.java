@@ -18,6 +18,12 @@ public class PM extends MecMachine {
         this.maxVmsHosted = maxVmsHosted;
     }
 
+    public PM(ResourceVector capacity, double coreComputeOpsPerSec, int maxVmsHosted) {
+        super(incrementalId++, capacity, "PM");
+        this.coreComputeOpsPerSec = coreComputeOpsPerSec;
+        this.maxVmsHosted = maxVmsHosted;
+    }
+
     public double getCoreComputeOpsPerSec() {
         return coreComputeOpsPerSec;
     }
@@ -34,4 +40,9 @@ public class PM extends MecMachine {
     public void setCoreComputeOpsPerSec(double coreComputeOpsPerSec) {
         this.coreComputeOpsPerSec = coreComputeOpsPerSec;
     }
-}
\ No newline at end of file
+
+    // restart the ids from 0, after all the PMs of the system have been removed
+    static void resetIncrementalId() {
+        incrementalId = 0;
+    }
+}
@@ -0,0 +1,23 @@
+package model;
+
+/**
+ * Resource dimensions of the MEC system. The ordinal of each type is its index in the resource vectors and tables.
+ * Adding a dimension only requires adding it here: the mapping and the resource tables are indexed by dimension.
+ */
+public enum ResourceType {
+    CORES("cores"),
+    MEMORY_GB("GB"),
+    BANDWIDTH_MBPS("Mbps"),
+    STORAGE_GB("storage GB");
+
+    public static final int COUNT = values().length;
+    private final String label;
+
+    ResourceType(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,94 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Immutable amount of each resource type (see ResourceType), e.g. the capacity of a machine or the demand of a UE.
+ */
+public final class ResourceVector {
+    private static final ResourceVector ZERO = new ResourceVector(new int[ResourceType.COUNT]);
+    private final int[] amounts;
+
+    private ResourceVector(int[] amounts) {
+        this.amounts = amounts;
+    }
+
+    /**
+     * Build a resource vector with the specified cores and memory GBs (no other resources).
+     * @param cores the number of cores
+     * @param memoryGb the number of memory GBs
+     * @return the resource vector
+     */
+    public static ResourceVector of(int cores, int memoryGb) {
+        int[] amounts = new int[ResourceType.COUNT];
+        amounts[ResourceType.CORES.ordinal()] = cores;
+        amounts[ResourceType.MEMORY_GB.ordinal()] = memoryGb;
+        return of(amounts);
+    }
+
+    /**
+     * Build a resource vector from the amounts of the resource types, in the order of ResourceType (missing ones are 0).
+     * @param amounts the amount of each resource type
+     * @return the resource vector
+     */
+    public static ResourceVector of(int... amounts) {
+        if (amounts.length > ResourceType.COUNT)
+            throw new IllegalArgumentException("Too many resource amounts");
+        for (int amount : amounts) {
+            if (amount < 0)
+                throw new IllegalArgumentException("Invalid resource amount");
+        }
+        return new ResourceVector(Arrays.copyOf(amounts, ResourceType.COUNT));
+    }
+
+    public static ResourceVector zero() {
+        return ZERO;
+    }
+
+    public int get(ResourceType type) {
+        return amounts[type.ordinal()];
+    }
+
+    public int get(int dimension) {
+        return amounts[dimension];
+    }
+
+    /**
+     * Build a copy of the vector with a different amount of a resource type.
+     * @param type the resource type
+     * @param amount the new amount
+     * @return the new resource vector
+     */
+    public ResourceVector with(ResourceType type, int amount) {
+        int[] newAmounts = amounts.clone();
+        newAmounts[type.ordinal()] = amount;
+        return of(newAmounts);
+    }
+
+    public int[] toArray() {
+        return amounts.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(amounts, ((ResourceVector) o).amounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(amounts);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("(");
+        for (ResourceType type : ResourceType.values()) {
+            if (type.ordinal() > 0)
+                sb.append(", ");
+            sb.append(type.getLabel()).append('=').append(amounts[type.ordinal()]);
+        }
+        return sb.append(')').toString();
+    }
+}
@@ -3,8 +3,7 @@ package model;
 public class UE extends MecElement {
     private static int incrementalId = 0;
     private final int id;
-    private final int requiredOffloadedCores;
-    private final int requiredOffloadedMemoryGB;
+    private final ResourceVector requiredOffloadedResources;
     private final int offloadedTaskSize;
     private final double transmitPower;
     private final int localTaskSize;
@@ -13,9 +12,8 @@ public class UE extends MecElement {
 
     public UE(int requiredOffloadedCores, int requiredOffloadedMemoryGB, int offloadedTaskSize, double transmitPower, int localTaskSize, int localCoresAvailable, int coreComputeOpsPerSec){
         super("UE");
-        id = incrementalId++;
-        this.requiredOffloadedCores = requiredOffloadedCores;
-        this.requiredOffloadedMemoryGB = requiredOffloadedMemoryGB;
+        id = nextId();
+        this.requiredOffloadedResources = ResourceVector.of(requiredOffloadedCores, requiredOffloadedMemoryGB);
         this.localTaskSize = localTaskSize;
         this.transmitPower = transmitPower;
         this.offloadedTaskSize = offloadedTaskSize;
@@ -24,10 +22,13 @@ public class UE extends MecElement {
     }
 
     public UE(int requiredOffloadedCores, int requiredOffloadedMemoryGB, int offloadedTaskSize, double transmitPower){
+        this(ResourceVector.of(requiredOffloadedCores, requiredOffloadedMemoryGB), offloadedTaskSize, transmitPower);
+    }
+
+    public UE(ResourceVector requiredOffloadedResources, int offloadedTaskSize, double transmitPower){
         super("UE");
-        id = incrementalId++;
-        this.requiredOffloadedCores = requiredOffloadedCores;
-        this.requiredOffloadedMemoryGB = requiredOffloadedMemoryGB;
+        id = nextId();
+        this.requiredOffloadedResources = requiredOffloadedResources;
         this.offloadedTaskSize = offloadedTaskSize;
         this.transmitPower = transmitPower;
         this.localTaskSize = 0;
@@ -35,6 +36,18 @@ public class UE extends MecElement {
         this.coreComputeOpsPerSec = 0;
     }
 
+    // UE with a given id, e.g. built from its record in a UeStore (no new id is taken)
+    UE(int id, ResourceVector requiredOffloadedResources, int offloadedTaskSize, double transmitPower, int localTaskSize, int localCoresAvailable, int coreComputeOpsPerSec){
+        super("UE");
+        this.id = id;
+        this.requiredOffloadedResources = requiredOffloadedResources;
+        this.offloadedTaskSize = offloadedTaskSize;
+        this.transmitPower = transmitPower;
+        this.localTaskSize = localTaskSize;
+        this.localCoresAvailable = localCoresAvailable;
+        this.coreComputeOpsPerSec = coreComputeOpsPerSec;
+    }
+
     @Override
     public String toString() {
         return super.getElementName() + "_" + getId() + " (cores=" + getRequiredOffloadedCores() + ", GB=" + getRequiredOffloadedMemoryGB() + ")";
@@ -45,7 +58,7 @@ public class UE extends MecElement {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         UE ue = (UE) o;
-        return id == ue.id && requiredOffloadedCores == ue.requiredOffloadedCores && requiredOffloadedMemoryGB == ue.requiredOffloadedMemoryGB;
+        return id == ue.id && requiredOffloadedResources.equals(ue.requiredOffloadedResources);
     }
 
     public int getId() {
@@ -53,11 +66,15 @@ public class UE extends MecElement {
     }
 
     public int getRequiredOffloadedCores() {
-        return requiredOffloadedCores;
+        return requiredOffloadedResources.get(ResourceType.CORES);
     }
 
     public int getRequiredOffloadedMemoryGB() {
-        return requiredOffloadedMemoryGB;
+        return requiredOffloadedResources.get(ResourceType.MEMORY_GB);
+    }
+
+    public ResourceVector getRequiredOffloadedResources() {
+        return requiredOffloadedResources;
     }
 
     public int getOffloadedTaskSize() {
@@ -79,4 +96,14 @@ public class UE extends MecElement {
     public int getCoreComputeOpsPerSec() {
         return coreComputeOpsPerSec;
     }
-}
\ No newline at end of file
+
+    // take the next UE id (UEs stored without a UE object take their id here too)
+    static int nextId() {
+        return incrementalId++;
+    }
+
+    // restart the ids from 0, after all the UEs of the system have been removed
+    static void resetIncrementalId() {
+        incrementalId = 0;
+    }
+}
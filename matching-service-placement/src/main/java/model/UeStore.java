@@ -0,0 +1,251 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+/**
+ * Off-heap store of the UEs of the system: one fixed-stride record per UE in a direct buffer, indexed by UE id, instead of
+ * one UE object (with its header, element name and resource vector) per UE on the heap. Scanning the UEs is a sequential
+ * read of the buffer through a flyweight View, and asList adapts the store to the callers of the UE lists (each get builds
+ * a UE from its record).
+ */
+public class UeStore {
+    // record layout: required resources (one int per ResourceType), then the task and local computation fields
+    private static final int RESOURCES_OFFSET = 0;
+    private static final int OFFLOADED_TASK_SIZE_OFFSET = RESOURCES_OFFSET + Integer.BYTES * ResourceType.COUNT;
+    private static final int LOCAL_TASK_SIZE_OFFSET = OFFLOADED_TASK_SIZE_OFFSET + Integer.BYTES;
+    private static final int LOCAL_CORES_OFFSET = LOCAL_TASK_SIZE_OFFSET + Integer.BYTES;
+    private static final int CORE_OPS_OFFSET = LOCAL_CORES_OFFSET + Integer.BYTES;
+    // the double field is aligned to 8 bytes, as is the stride
+    private static final int TRANSMIT_POWER_OFFSET = (CORE_OPS_OFFSET + Integer.BYTES + 7) & ~7;
+    private static final int RECORD_BYTES = TRANSMIT_POWER_OFFSET + Double.BYTES;
+
+    private ByteBuffer records;
+    private int size = 0;
+
+    public UeStore(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Invalid initial capacity");
+        this.records = allocate(Math.max(initialCapacity, 16));
+    }
+
+    public UeStore() {
+        this(1024);
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        if ((long) capacity * RECORD_BYTES > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Too many UEs for an off-heap store");
+        return ByteBuffer.allocateDirect(capacity * RECORD_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Add a UE (its id must be the next index of the store, as for the UE lists of the system).
+     * @param ue the UE
+     */
+    public void add(UE ue) {
+        if (ue.getId() != size)
+            throw new IllegalArgumentException("The id of UE_" + ue.getId() + " is not the next index of the store (" + size + ")");
+        write(ue.getRequiredOffloadedResources(), ue.getOffloadedTaskSize(), ue.getTransmitPower(), ue.getLocalTaskSize(),
+                ue.getLocalCoresAvailable(), ue.getCoreComputeOpsPerSec());
+    }
+
+    /**
+     * Add a UE without building a UE object (it takes the next UE id, as a new UE would).
+     * @param requiredOffloadedResources the resources required by the offloaded task
+     * @param offloadedTaskSize the size of the offloaded task
+     * @param transmitPower the transmit power of the UE
+     * @return the id of the new UE
+     */
+    public int add(ResourceVector requiredOffloadedResources, int offloadedTaskSize, double transmitPower) {
+        int id = UE.nextId();
+        if (id != size)
+            throw new IllegalArgumentException("The next UE id (" + id + ") is not the next index of the store (" + size + ")");
+        write(requiredOffloadedResources, offloadedTaskSize, transmitPower, 0, 0, 0);
+        return id;
+    }
+
+    private void write(ResourceVector resources, int offloadedTaskSize, double transmitPower, int localTaskSize, int localCoresAvailable, int coreComputeOpsPerSec) {
+        if ((size + 1L) * RECORD_BYTES > records.capacity()) {
+            ByteBuffer grown = allocate((int) Math.min(2L * size, Integer.MAX_VALUE / RECORD_BYTES));
+            grown.put(0, records, 0, size * RECORD_BYTES);
+            records = grown;
+        }
+
+        int base = size * RECORD_BYTES;
+        for (int r = 0; r < ResourceType.COUNT; r++)
+            records.putInt(base + RESOURCES_OFFSET + r * Integer.BYTES, resources.get(r));
+        records.putInt(base + OFFLOADED_TASK_SIZE_OFFSET, offloadedTaskSize);
+        records.putInt(base + LOCAL_TASK_SIZE_OFFSET, localTaskSize);
+        records.putInt(base + LOCAL_CORES_OFFSET, localCoresAvailable);
+        records.putInt(base + CORE_OPS_OFFSET, coreComputeOpsPerSec);
+        records.putDouble(base + TRANSMIT_POWER_OFFSET, transmitPower);
+        size++;
+    }
+
+    /**
+     * Remove a UE: only the last one can be removed, as the ids are the indexes of the store.
+     * @param ueId the id of the UE
+     */
+    public void remove(int ueId) {
+        if (ueId != size - 1)
+            throw new IllegalArgumentException("Only the last UE can be removed from the store");
+        size--;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the off-heap memory reserved by the store (the records of the UEs and the room for the next ones).
+     * @return the number of bytes
+     */
+    public long getCapacityBytes() {
+        return records.capacity();
+    }
+
+    /**
+     * Build the UE object of a record, e.g. for the callers of getUE.
+     * @param ueId the UE id
+     * @return the UE
+     */
+    public UE get(int ueId) {
+        View ue = view().moveTo(ueId);
+        return new UE(ueId, ue.getRequiredOffloadedResources(), ue.getOffloadedTaskSize(), ue.getTransmitPower(),
+                ue.getLocalTaskSize(), ue.getLocalCoresAvailable(), ue.getCoreComputeOpsPerSec());
+    }
+
+    /**
+     * Get a flyweight view of the records (positioned on no UE until moveTo is called).
+     * @return the view
+     */
+    public View view() {
+        return new View();
+    }
+
+    /**
+     * Scan all the UEs in id order, with a single flyweight view moved from record to record.
+     * @param action the action on each UE (the view must not be kept after the call)
+     */
+    public void forEach(Consumer<View> action) {
+        View ue = view();
+        for (int ueId = 0; ueId < size; ueId++)
+            action.accept(ue.moveTo(ueId));
+    }
+
+    /**
+     * Adapt the store to the UE lists of the system: the list is backed by the store, and each get builds a UE.
+     * Only the last UE can be removed (see remove).
+     * @return the list of the UEs
+     */
+    public List<UE> asList() {
+        return new UeList();
+    }
+
+    /**
+     * Reusable accessor of the record of a UE.
+     */
+    public class View {
+        private int id = -1;
+        private int base = -1;
+
+        private View() {}
+
+        /**
+         * Move the view to the record of a UE.
+         * @param ueId the UE id
+         * @return the view itself
+         */
+        public View moveTo(int ueId) {
+            if (ueId < 0 || ueId >= size)
+                throw new IllegalArgumentException("Invalid UE id");
+            this.id = ueId;
+            this.base = ueId * RECORD_BYTES;
+            return this;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getRequiredOffloadedCores() {
+            return getRequiredOffloaded(ResourceType.CORES);
+        }
+
+        public int getRequiredOffloadedMemoryGB() {
+            return getRequiredOffloaded(ResourceType.MEMORY_GB);
+        }
+
+        public int getRequiredOffloaded(ResourceType type) {
+            return records.getInt(base + RESOURCES_OFFSET + type.ordinal() * Integer.BYTES);
+        }
+
+        public ResourceVector getRequiredOffloadedResources() {
+            int[] amounts = new int[ResourceType.COUNT];
+            for (int r = 0; r < ResourceType.COUNT; r++)
+                amounts[r] = records.getInt(base + RESOURCES_OFFSET + r * Integer.BYTES);
+            return ResourceVector.of(amounts);
+        }
+
+        public int getOffloadedTaskSize() {
+            return records.getInt(base + OFFLOADED_TASK_SIZE_OFFSET);
+        }
+
+        public double getTransmitPower() {
+            return records.getDouble(base + TRANSMIT_POWER_OFFSET);
+        }
+
+        public int getLocalTaskSize() {
+            return records.getInt(base + LOCAL_TASK_SIZE_OFFSET);
+        }
+
+        public int getLocalCoresAvailable() {
+            return records.getInt(base + LOCAL_CORES_OFFSET);
+        }
+
+        public int getCoreComputeOpsPerSec() {
+            return records.getInt(base + CORE_OPS_OFFSET);
+        }
+    }
+
+    private class UeList extends AbstractList<UE> implements RandomAccess {
+        @Override
+        public UE get(int index) {
+            return UeStore.this.get(Objects.checkIndex(index, size));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean add(UE ue) {
+            UeStore.this.add(ue);
+            return true;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof UE ue) || ue.getId() < 0 || ue.getId() >= size || !ue.equals(get(ue.getId())))
+                return false;
+            UeStore.this.remove(ue.getId());
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            UeStore.this.clear();
+        }
+    }
+}
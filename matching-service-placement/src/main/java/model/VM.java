@@ -19,6 +19,12 @@ public class VM extends MecMachine {
         this.maxPmPlacements = maxPmPlacements;
     }
 
+    public VM(ResourceVector capacity, double energyConsumptionPerCoreOps, int maxPmPlacements) {
+        super(incrementalId++, capacity, "VM");
+        this.energyConsumptionPerCoreOps = energyConsumptionPerCoreOps;
+        this.maxPmPlacements = maxPmPlacements;
+    }
+
     public double getEnergyConsumptionPerCoreOps() {
         return energyConsumptionPerCoreOps;
     }
@@ -31,4 +37,9 @@ public class VM extends MecMachine {
     public int getMaxPmPlacements() {
         return maxPmPlacements;
     }
-}
\ No newline at end of file
+
+    // restart the ids from 0, after all the VMs of the system have been removed
+    static void resetIncrementalId() {
+        incrementalId = 0;
+    }
+}
@@ -0,0 +1,355 @@
+package service;
+
+import model.PM;
+import model.VM;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent copy of the resource mapping, used to place VMs on PMs from many threads at once.
+ * The state of each PM (used cores, used memory GBs and hosted VMs) is packed in a single word and reserved atomically
+ * with compare-and-set, so that a PM is never overcommitted. The state of each VM is guarded by a striped lock, so that
+ * requests for different VMs do not contend with each other.
+ */
+class ConcurrentMapping {
+    // bit layout of the PM state word: used cores (low bits) | used memory GBs | hosted VMs (high bits)
+    private static final int FIELD_BITS = 21;
+    private static final long FIELD_MASK = (1L << FIELD_BITS) - 1;
+    private static final int GBS_SHIFT = FIELD_BITS;
+    private static final int SLOTS_SHIFT = 2 * FIELD_BITS;
+
+    // outcomes of placeOn
+    static final int PLACED = 0;
+    static final int PM_REJECTED = 1;
+    static final int VM_FULL = 2;
+    static final int VM_SATURATED = 3;
+
+    private final int totalPms;
+    private final int[] totCoresByPm;
+    private final int[] totGbByPm;
+    private final int[] maxVmsByPm;
+    private final AtomicLongArray pmStates;
+
+    private final int[] totCoresByVm;
+    private final int[] totGbByVm;
+    private final int[] maxPmsByVm;
+    private final ReentrantLock[] vmLocks;
+
+    // VM state, guarded by the lock of the VM stripe
+    private final int[] usedCoresByVm;
+    private final int[] usedGbByVm;
+    private final int[] pmsHostingVm;
+    private final int[][] vmCores2Pm;
+    private final int[][] vmGb2Pm;
+    // PMs whose placement of each VM changed since the mapping was built or stored
+    private final BitSet[] changedPmsByVm;
+    // PM where the next placement of each VM starts looking from (next fit)
+    private final int[] nextPmByVm;
+
+    /**
+     * Build the concurrent mapping from the current mapping of the system.
+     * @param mecService the MEC system service
+     */
+    ConcurrentMapping(MecSystemService mecService) {
+        int totalVms = mecService.getNumberOfVMs();
+        this.totalPms = mecService.getNumberOfPMs();
+        this.totCoresByPm = new int[totalPms];
+        this.totGbByPm = new int[totalPms];
+        this.maxVmsByPm = new int[totalPms];
+        this.pmStates = new AtomicLongArray(totalPms);
+        this.totCoresByVm = new int[totalVms];
+        this.totGbByVm = new int[totalVms];
+        this.maxPmsByVm = new int[totalVms];
+        this.usedCoresByVm = new int[totalVms];
+        this.usedGbByVm = new int[totalVms];
+        this.pmsHostingVm = new int[totalVms];
+        this.vmCores2Pm = new int[totalVms][];
+        this.vmGb2Pm = new int[totalVms][];
+        this.changedPmsByVm = new BitSet[totalVms];
+        this.nextPmByVm = new int[totalVms];
+
+        int stripes = Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors() * 4, 1) * 2 - 1);
+        this.vmLocks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++)
+            vmLocks[i] = new ReentrantLock();
+
+        for (int pmId = 0; pmId < totalPms; pmId++) {
+            PM pm = mecService.getPM(pmId);
+            if (pm.getTotCores() > FIELD_MASK || pm.getTotMemoryGB() > FIELD_MASK || pm.getMaxVmsHosted() > FIELD_MASK)
+                throw new IllegalArgumentException("PM resources too large for the concurrent mapping");
+            totCoresByPm[pmId] = pm.getTotCores();
+            totGbByPm[pmId] = pm.getTotMemoryGB();
+            maxVmsByPm[pmId] = pm.getMaxVmsHosted();
+        }
+
+        long[] usedByPm = new long[totalPms];
+        for (int vmId = 0; vmId < totalVms; vmId++) {
+            VM vm = mecService.getVM(vmId);
+            totCoresByVm[vmId] = vm.getTotCores();
+            totGbByVm[vmId] = vm.getTotMemoryGB();
+            maxPmsByVm[vmId] = vm.getMaxPmPlacements();
+
+            // only placements with some resources assigned are tracked
+            for (int pmId = 0; pmId < totalPms; pmId++) {
+                int cores = mecService.getVmCores2Pm(vmId, pmId);
+                int gbs = mecService.getVmGb2Pm(vmId, pmId);
+                if (cores == 0 && gbs == 0)
+                    continue;
+
+                ensurePmRow(vmId);
+                vmCores2Pm[vmId][pmId] = cores;
+                vmGb2Pm[vmId][pmId] = gbs;
+                usedCoresByVm[vmId] += cores;
+                usedGbByVm[vmId] += gbs;
+                pmsHostingVm[vmId]++;
+                usedByPm[pmId] += pack(cores, gbs, 1);
+            }
+        }
+        for (int pmId = 0; pmId < totalPms; pmId++)
+            pmStates.set(pmId, usedByPm[pmId]);
+    }
+
+    /**
+     * Place the resources requested for a VM on a PM, looking for a feasible PM starting from the last one used by the VM.
+     * @param vmId the VM id
+     * @param vmCores the number of cores to be placed
+     * @param vmGbs the number of memory GBs to be placed
+     * @return the id of the PM hosting the resources, or -1 if no PM can host them
+     */
+    int place(int vmId, int vmCores, int vmGbs) {
+        checkVmId(vmId);
+        if (vmCores < 0 || vmGbs < 0 || vmCores + vmGbs == 0)
+            throw new IllegalArgumentException("Invalid number of cores or GBs");
+
+        ReentrantLock lock = lockOf(vmId);
+        lock.lock();
+        try {
+            if (usedCoresByVm[vmId] + vmCores > totCoresByVm[vmId] || usedGbByVm[vmId] + vmGbs > totGbByVm[vmId])
+                return -1;
+
+            ensurePmRow(vmId);
+            boolean saturated = pmsHostingVm[vmId] >= maxPmsByVm[vmId];
+            int startPmId = nextPmByVm[vmId];
+            for (int i = 0; i < totalPms; i++) {
+                int pmId = startPmId + i < totalPms ? startPmId + i : startPmId + i - totalPms;
+                boolean newPlacement = !isPlaced(vmId, pmId);
+                if (newPlacement && saturated)
+                    continue;
+
+                if (reserve(pmId, vmCores, vmGbs, newPlacement ? 1 : 0)) {
+                    changedPmsByVm[vmId].set(pmId);
+                    vmCores2Pm[vmId][pmId] += vmCores;
+                    vmGb2Pm[vmId][pmId] += vmGbs;
+                    usedCoresByVm[vmId] += vmCores;
+                    usedGbByVm[vmId] += vmGbs;
+                    if (newPlacement)
+                        pmsHostingVm[vmId]++;
+                    nextPmByVm[vmId] = pmId;
+                    return pmId;
+                }
+            }
+            return -1;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Place the resources requested for a VM on a specific PM, if both the VM and the PM can take them.
+     * @param vmId the VM id
+     * @param pmId the PM id
+     * @param vmCores the number of cores to be placed
+     * @param vmGbs the number of memory GBs to be placed
+     * @return PLACED, PM_REJECTED if the PM cannot host the resources, VM_FULL if the VM has not enough resources left, or
+     * VM_SATURATED if the VM is not on the PM and cannot be placed on more PMs
+     */
+    int placeOn(int vmId, int pmId, int vmCores, int vmGbs) {
+        ReentrantLock lock = lockOf(vmId);
+        lock.lock();
+        try {
+            if (usedCoresByVm[vmId] + vmCores > totCoresByVm[vmId] || usedGbByVm[vmId] + vmGbs > totGbByVm[vmId])
+                return VM_FULL;
+
+            ensurePmRow(vmId);
+            boolean newPlacement = !isPlaced(vmId, pmId);
+            if (newPlacement && pmsHostingVm[vmId] >= maxPmsByVm[vmId])
+                return VM_SATURATED;
+            if (!reserve(pmId, vmCores, vmGbs, newPlacement ? 1 : 0))
+                return PM_REJECTED;
+
+            changedPmsByVm[vmId].set(pmId);
+            vmCores2Pm[vmId][pmId] += vmCores;
+            vmGb2Pm[vmId][pmId] += vmGbs;
+            usedCoresByVm[vmId] += vmCores;
+            usedGbByVm[vmId] += vmGbs;
+            if (newPlacement)
+                pmsHostingVm[vmId]++;
+            nextPmByVm[vmId] = pmId;
+            return PLACED;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Check if a PM has enough free cores and memory GBs for a request (regardless of its VM slots).
+     * @param pmId the PM id
+     * @param vmCores the number of cores requested
+     * @param vmGbs the number of memory GBs requested
+     * @return true if the resources fit in the PM, false otherwise
+     */
+    boolean hasRoom(int pmId, int vmCores, int vmGbs) {
+        long state = pmStates.get(pmId);
+        return (state & FIELD_MASK) + vmCores <= totCoresByPm[pmId] && ((state >>> GBS_SHIFT) & FIELD_MASK) + vmGbs <= totGbByPm[pmId];
+    }
+
+    int getTotalPms() {
+        return totalPms;
+    }
+
+    int getTotalVms() {
+        return vmCores2Pm.length;
+    }
+
+    /**
+     * Release resources of a VM placed on a PM (the placement is removed when no resources are left).
+     * @param vmId the VM id
+     * @param pmId the PM id
+     * @param vmCores the number of cores to be released
+     * @param vmGbs the number of memory GBs to be released
+     */
+    void release(int vmId, int pmId, int vmCores, int vmGbs) {
+        checkVmId(vmId);
+        if (pmId < 0 || pmId >= totalPms)
+            throw new IllegalArgumentException("Invalid PM id");
+        if (vmCores < 0 || vmGbs < 0)
+            throw new IllegalArgumentException("Invalid number of cores or GBs");
+
+        ReentrantLock lock = lockOf(vmId);
+        lock.lock();
+        try {
+            ensurePmRow(vmId);
+            int currCores = getVmCores2Pm(vmId, pmId);
+            int currGbs = getVmGb2Pm(vmId, pmId);
+            if (currCores - vmCores < 0 || currGbs - vmGbs < 0)
+                throw new IllegalArgumentException("Cannot remove more resources than assigned");
+
+            boolean removedPlacement = currCores == vmCores && currGbs == vmGbs && (currCores > 0 || currGbs > 0);
+            changedPmsByVm[vmId].set(pmId);
+            vmCores2Pm[vmId][pmId] -= vmCores;
+            vmGb2Pm[vmId][pmId] -= vmGbs;
+            usedCoresByVm[vmId] -= vmCores;
+            usedGbByVm[vmId] -= vmGbs;
+            if (removedPlacement)
+                pmsHostingVm[vmId]--;
+
+            // no capacity check is needed to give resources back: the fields cannot underflow
+            pmStates.addAndGet(pmId, -pack(vmCores, vmGbs, removedPlacement ? 1 : 0));
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the placements changed since the last store (or since the mapping was built) back to the mapping of the system.
+     * It must not run concurrently with place/release.
+     * @param mecService the MEC system service
+     * @throws IllegalStateException if the system cannot take a placement (i.e. its mapping changed since this one was built)
+     */
+    void store(MecSystemService mecService) {
+        int totalVms = vmCores2Pm.length;
+
+        // release the changed placements first, so that the new ones always fit in the PMs
+        for (int vmId = 0; vmId < totalVms; vmId++) {
+            BitSet changedPms = changedPmsByVm[vmId];
+            if (changedPms == null)
+                continue;
+            for (int pmId = changedPms.nextSetBit(0); pmId != -1; pmId = changedPms.nextSetBit(pmId + 1)) {
+                if (isChanged(mecService, vmId, pmId))
+                    mecService.setVmResourcesOnPm(vmId, pmId, 0, 0);
+            }
+        }
+        for (int vmId = 0; vmId < totalVms; vmId++) {
+            BitSet changedPms = changedPmsByVm[vmId];
+            if (changedPms == null)
+                continue;
+            for (int pmId = changedPms.nextSetBit(0); pmId != -1; pmId = changedPms.nextSetBit(pmId + 1)) {
+                if (!isChanged(mecService, vmId, pmId))
+                    continue;
+
+                // the system ignores the placements it cannot take
+                mecService.setVmResourcesOnPm(vmId, pmId, getVmCores2Pm(vmId, pmId), getVmGb2Pm(vmId, pmId));
+                if (isChanged(mecService, vmId, pmId))
+                    throw new IllegalStateException("Cannot store the placement of VM " + vmId + " on PM " + pmId);
+            }
+            changedPms.clear();
+        }
+    }
+
+    int getUsedCoresByPm(int pmId) {
+        return (int) (pmStates.get(pmId) & FIELD_MASK);
+    }
+
+    int getUsedGbByPm(int pmId) {
+        return (int) ((pmStates.get(pmId) >>> GBS_SHIFT) & FIELD_MASK);
+    }
+
+    int getTotVmsHostedByPm(int pmId) {
+        return (int) ((pmStates.get(pmId) >>> SLOTS_SHIFT) & FIELD_MASK);
+    }
+
+    int getVmCores2Pm(int vmId, int pmId) {
+        return vmCores2Pm[vmId] == null ? 0 : vmCores2Pm[vmId][pmId];
+    }
+
+    int getVmGb2Pm(int vmId, int pmId) {
+        return vmGb2Pm[vmId] == null ? 0 : vmGb2Pm[vmId][pmId];
+    }
+
+    private boolean reserve(int pmId, int cores, int gbs, int slots) {
+        long delta = pack(cores, gbs, slots);
+        while (true) {
+            long state = pmStates.get(pmId);
+            if ((state & FIELD_MASK) + cores > totCoresByPm[pmId]
+                    || ((state >>> GBS_SHIFT) & FIELD_MASK) + gbs > totGbByPm[pmId]
+                    || ((state >>> SLOTS_SHIFT) & FIELD_MASK) + slots > maxVmsByPm[pmId])
+                return false;
+            if (pmStates.compareAndSet(pmId, state, state + delta))
+                return true;
+        }
+    }
+
+    private boolean isPlaced(int vmId, int pmId) {
+        return vmCores2Pm[vmId][pmId] > 0 || vmGb2Pm[vmId][pmId] > 0;
+    }
+
+    private boolean isChanged(MecSystemService mecService, int vmId, int pmId) {
+        return mecService.getVmCores2Pm(vmId, pmId) != getVmCores2Pm(vmId, pmId) || mecService.getVmGb2Pm(vmId, pmId) != getVmGb2Pm(vmId, pmId);
+    }
+
+    private void checkVmId(int vmId) {
+        if (vmId < 0 || vmId >= vmCores2Pm.length)
+            throw new IllegalArgumentException("Invalid VM id");
+    }
+
+    private void ensurePmRow(int vmId) {
+        if (vmCores2Pm[vmId] == null) {
+            vmCores2Pm[vmId] = new int[totalPms];
+            vmGb2Pm[vmId] = new int[totalPms];
+            changedPmsByVm[vmId] = new BitSet(totalPms);
+        }
+    }
+
+    private ReentrantLock lockOf(int vmId) {
+        return vmLocks[vmId & (vmLocks.length - 1)];
+    }
+
+    private static long pack(int cores, int gbs, int slots) {
+        return cores | ((long) gbs << GBS_SHIFT) | ((long) slots << SLOTS_SHIFT);
+    }
+}
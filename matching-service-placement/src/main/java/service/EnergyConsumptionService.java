@@ -49,6 +49,14 @@ public class EnergyConsumptionService {
         return getTotalEnergyConsumption(true);
     }
 
+    /**
+     * Gets the duration of the computation step (i.e. the total duration without the offloading step).
+     * @return the computation duration
+     */
+    public double getComputationDurationTime() {
+        return mecSystem.getTotalDurationTime() - mecSystem.getOffloadingDurationTime();
+    }
+
     /**
      * Calculates the energy consumption of a specific task with the VM-to-PM match.
      * @param vm the VM
@@ -67,7 +75,7 @@ public class EnergyConsumptionService {
      * @return the energy consumption
      */
     public double getEnergyConsumptionWithVmAndPm(VM vm, PM pm) {
-        return  getEnergyConsumptionWithVmCoresAndPm(vm, mapping.getVmCores2PmPlacement().get(vm.getId()).get(pm.getId()), pm);
+        return  getEnergyConsumptionWithVmCoresAndPm(vm, mapping.getVmResource2Pm(ResourceType.CORES, vm.getId(), pm.getId()), pm);
     }
 
     /**
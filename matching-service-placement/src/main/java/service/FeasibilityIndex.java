@@ -0,0 +1,299 @@
+package service;
+
+import model.MecMapping;
+import model.MecSystem;
+import model.PM;
+import model.VM;
+import utils.collections.IntList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Index of the PMs that can still host each VM, kept up to date on every placement change.
+ * For each VM it keeps the set of PMs allowed by the VM/PM assignment limits (maxVmsHosted, maxPmPlacements), and for each
+ * demand class (powers of two of cores and memory GBs) the set of PMs whose residual capacity reaches the class threshold.
+ * A mapping reset does not rebuild the index (see reset): the sets of each VM are stamped with the epoch of their last
+ * rebuild and rebuilt on their first access after a reset, and only the PMs changed since the last reset are restored.
+ */
+class FeasibilityIndex {
+    private static final int TOTAL_DEMAND_CLASSES = Integer.SIZE - 1;
+    private final MecSystem mecSystem;
+    private final MecMapping mapping;
+
+    // for each VM, PMs where the VM can be (or already is) placed, considering the VM/PM assignment limits
+    private final ArrayList<BitSet> allowedPmsByVm;
+    // PMs that can host at least one more VM
+    private final BitSet pmsWithFreeSlots;
+    // VMs that reached their maximum number of PM placements
+    private final BitSet saturatedVms;
+    // for each demand class k, PMs with at least 2^k residual cores (or memory GBs)
+    private final BitSet[] pmsByResidualCores;
+    private final BitSet[] pmsByResidualGbs;
+    // epoch of the last reset, and epoch of the allowed PMs and saturation of each VM (stale if older)
+    private int epoch = 0;
+    private int[] vmEpochs = new int[0];
+    // PMs changed since the last reset (each listed once)
+    private final IntList changedPms;
+    private final BitSet changedPmSet;
+
+    FeasibilityIndex(MecSystem mecSystem, MecMapping mapping) {
+        this.mecSystem = mecSystem;
+        this.mapping = mapping;
+        this.allowedPmsByVm = new ArrayList<>();
+        this.pmsWithFreeSlots = new BitSet();
+        this.saturatedVms = new BitSet();
+        this.pmsByResidualCores = new BitSet[TOTAL_DEMAND_CLASSES];
+        this.pmsByResidualGbs = new BitSet[TOTAL_DEMAND_CLASSES];
+        this.changedPms = new IntList();
+        this.changedPmSet = new BitSet();
+        for (int k = 0; k < TOTAL_DEMAND_CLASSES; k++) {
+            pmsByResidualCores[k] = new BitSet();
+            pmsByResidualGbs[k] = new BitSet();
+        }
+        rebuild();
+    }
+
+    /**
+     * Rebuild the whole index from the current mapping (e.g. after a mapping reset or after adding/removing VMs or PMs).
+     */
+    void rebuild() {
+        int totalVms = mecSystem.getNumberOfVMs();
+        int totalPms = mecSystem.getNumberOfPMs();
+
+        pmsWithFreeSlots.clear();
+        saturatedVms.clear();
+        for (int k = 0; k < TOTAL_DEMAND_CLASSES; k++) {
+            pmsByResidualCores[k].clear();
+            pmsByResidualGbs[k].clear();
+        }
+        for (int pmId = 0; pmId < totalPms; pmId++) {
+            if (hasFreeSlots(pmId))
+                pmsWithFreeSlots.set(pmId);
+            updateResidualClasses(pmId);
+        }
+
+        changedPms.clear();
+        changedPmSet.clear();
+
+        allowedPmsByVm.clear();
+        vmEpochs = new int[totalVms];
+        Arrays.fill(vmEpochs, epoch);
+        for (int vmId = 0; vmId < totalVms; vmId++) {
+            if (isSaturated(vmId))
+                saturatedVms.set(vmId);
+            allowedPmsByVm.add(new BitSet(totalPms));
+            rebuildAllowedPms(vmId);
+        }
+    }
+
+    /**
+     * Bring the index back in line with the mapping after a mapping reset (no VM placed on any PM), without rebuilding it:
+     * the PMs changed since the last reset are restored, and the VMs are rebuilt on their first access (see allowedPms).
+     */
+    void reset() {
+        if (epoch == Integer.MAX_VALUE) {
+            epoch = 0;
+            rebuild();
+            return;
+        }
+
+        for (int i = 0; i < changedPms.size(); i++) {
+            int pmId = changedPms.get(i);
+            pmsWithFreeSlots.set(pmId, hasFreeSlots(pmId));
+            updateResidualClasses(pmId);
+            changedPmSet.clear(pmId);
+        }
+        changedPms.clear();
+        epoch++;
+    }
+
+    /**
+     * Add the last VM of the system to the index (the VM is not placed on any PM yet).
+     */
+    void addVm() {
+        int vmId = allowedPmsByVm.size();
+        saturatedVms.set(vmId, isSaturated(vmId));
+        if (vmEpochs.length <= vmId)
+            vmEpochs = Arrays.copyOf(vmEpochs, Math.max(vmId + 1, 2 * vmEpochs.length));
+        vmEpochs[vmId] = epoch;
+
+        BitSet allowedPms = new BitSet(mecSystem.getNumberOfPMs());
+        if (!saturatedVms.get(vmId))
+            allowedPms.or(pmsWithFreeSlots);
+        allowedPmsByVm.add(allowedPms);
+    }
+
+    /**
+     * Add the last PM of the system to the index (the PM does not host any VM yet).
+     */
+    void addPm() {
+        int pmId = mecSystem.getNumberOfPMs() - 1;
+        updateResidualClasses(pmId);
+
+        if (hasFreeSlots(pmId)) {
+            pmsWithFreeSlots.set(pmId);
+            for (int vmId = saturatedVms.nextClearBit(0); vmId < allowedPmsByVm.size(); vmId = saturatedVms.nextClearBit(vmId + 1)) {
+                allowedPmsByVm.get(vmId).set(pmId);
+            }
+        }
+    }
+
+    /**
+     * Update the index after the placement (or the resources) of a VM on a PM changed.
+     * @param vmId the VM id
+     * @param pmId the PM id
+     */
+    void update(int vmId, int pmId) {
+        if (!changedPmSet.get(pmId)) {
+            changedPmSet.set(pmId);
+            changedPms.add(pmId);
+        }
+        updateResidualClasses(pmId);
+
+        boolean pmHadFreeSlots = pmsWithFreeSlots.get(pmId);
+        boolean pmHasFreeSlots = hasFreeSlots(pmId);
+        if (pmHadFreeSlots != pmHasFreeSlots) {
+            // the PM became full (or was freed): only the VMs it does not host are affected (the stale VMs are rebuilt anyway)
+            pmsWithFreeSlots.set(pmId, pmHasFreeSlots);
+            for (int otherVmId = saturatedVms.nextClearBit(0); otherVmId < allowedPmsByVm.size(); otherVmId = saturatedVms.nextClearBit(otherVmId + 1)) {
+                if (!mapping.isVmPlacedOnPm(otherVmId, pmId))
+                    allowedPmsByVm.get(otherVmId).set(pmId, pmHasFreeSlots);
+            }
+        }
+
+        BitSet allowedPms = allowedPms(vmId);
+        boolean vmWasSaturated = saturatedVms.get(vmId);
+        boolean vmIsSaturated = isSaturated(vmId);
+        if (vmWasSaturated != vmIsSaturated) {
+            saturatedVms.set(vmId, vmIsSaturated);
+            rebuildAllowedPms(vmId);
+        }
+        else {
+            allowedPms.set(pmId, mapping.isVmPlacedOnPm(vmId, pmId) || (!vmIsSaturated && pmHasFreeSlots));
+        }
+    }
+
+    /**
+     * Check if a VM can be placed on a PM (as checkAssignmentAllowed and checkEnoughPmResources of MecSystemService together).
+     * @param vmId the VM id
+     * @param pmId the PM id
+     * @param vmCores the number of VM cores to be assigned to the PM
+     * @param vmGbs the number of VM memory GBs to be assigned to the PM
+     * @return true if the placement is feasible, false otherwise
+     */
+    boolean isFeasible(int vmId, int pmId, int vmCores, int vmGbs) {
+        return allowedPms(vmId).get(pmId) && fitsPm(pmId, vmCores, vmGbs) && fitsVm(vmId, vmCores, vmGbs);
+    }
+
+    /**
+     * Get the first PM (starting from the specified one) where a VM can be placed with the specified resources.
+     * @param vmId the VM id
+     * @param vmCores the number of VM cores to be assigned to the PM
+     * @param vmGbs the number of VM memory GBs to be assigned to the PM
+     * @param fromPmId the first PM id to consider
+     * @return the PM id, or -1 if there is no such PM
+     */
+    int nextFeasiblePm(int vmId, int vmCores, int vmGbs, int fromPmId) {
+        if (!fitsVm(vmId, vmCores, vmGbs))
+            return -1;
+
+        BitSet allowedPms = allowedPms(vmId);
+        BitSet coresClass = vmCores > 0 ? pmsByResidualCores[demandClass(vmCores)] : null;
+        BitSet gbsClass = vmGbs > 0 ? pmsByResidualGbs[demandClass(vmGbs)] : null;
+        for (int pmId = allowedPms.nextSetBit(fromPmId); pmId >= 0; pmId = allowedPms.nextSetBit(pmId + 1)) {
+            if ((coresClass == null || coresClass.get(pmId)) && (gbsClass == null || gbsClass.get(pmId)) && fitsPm(pmId, vmCores, vmGbs))
+                return pmId;
+        }
+        return -1;
+    }
+
+    /**
+     * Get all the PMs where a VM can be placed with the specified resources.
+     * @param vmId the VM id
+     * @param vmCores the number of VM cores to be assigned to the PM
+     * @param vmGbs the number of VM memory GBs to be assigned to the PM
+     * @return the set of PM ids
+     */
+    BitSet getFeasiblePms(int vmId, int vmCores, int vmGbs) {
+        if (!fitsVm(vmId, vmCores, vmGbs))
+            return new BitSet();
+
+        BitSet feasiblePms = (BitSet) allowedPms(vmId).clone();
+        if (vmCores > 0)
+            feasiblePms.and(pmsByResidualCores[demandClass(vmCores)]);
+        if (vmGbs > 0)
+            feasiblePms.and(pmsByResidualGbs[demandClass(vmGbs)]);
+
+        // the demand classes are lower bounds: check the exact residual capacity of the remaining PMs
+        for (int pmId = feasiblePms.nextSetBit(0); pmId >= 0; pmId = feasiblePms.nextSetBit(pmId + 1)) {
+            if (!fitsPm(pmId, vmCores, vmGbs))
+                feasiblePms.clear(pmId);
+        }
+        return feasiblePms;
+    }
+
+    /**
+     * Get the PMs where a VM can be placed considering the VM/PM assignment limits, rebuilding them (and the saturation of
+     * the VM) from the current PM sets if they are older than the last reset.
+     * @param vmId the VM id
+     * @return the set of PM ids
+     */
+    private BitSet allowedPms(int vmId) {
+        if (vmEpochs[vmId] != epoch) {
+            vmEpochs[vmId] = epoch;
+            saturatedVms.set(vmId, isSaturated(vmId));
+            rebuildAllowedPms(vmId);
+        }
+        return allowedPmsByVm.get(vmId);
+    }
+
+    private void rebuildAllowedPms(int vmId) {
+        BitSet allowedPms = allowedPmsByVm.get(vmId);
+        allowedPms.clear();
+        if (!saturatedVms.get(vmId))
+            allowedPms.or(pmsWithFreeSlots);
+
+        // PMs already hosting the VM are always allowed (none after a mapping reset)
+        for (int pmId = 0; pmId < mecSystem.getNumberOfPMs() && mapping.getTotPmsHostingVm(vmId) > 0; pmId++) {
+            if (mapping.isVmPlacedOnPm(vmId, pmId))
+                allowedPms.set(pmId);
+        }
+    }
+
+    private void updateResidualClasses(int pmId) {
+        PM pm = mecSystem.getPM(pmId);
+        setResidualClasses(pmsByResidualCores, pmId, pm.getTotCores() - mapping.getUsedCoresByPm(pmId));
+        setResidualClasses(pmsByResidualGbs, pmId, pm.getTotMemoryGB() - mapping.getUsedGbByPm(pmId));
+    }
+
+    private static void setResidualClasses(BitSet[] classes, int pmId, int residual) {
+        int highestClass = residual > 0 ? demandClass(residual) : -1;
+        for (int k = 0; k < TOTAL_DEMAND_CLASSES; k++) {
+            classes[k].set(pmId, k <= highestClass);
+        }
+    }
+
+    private static int demandClass(int demand) {
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(demand);
+    }
+
+    private boolean hasFreeSlots(int pmId) {
+        return mapping.getTotVmsHostedByPm(pmId) < mecSystem.getPM(pmId).getMaxVmsHosted();
+    }
+
+    private boolean isSaturated(int vmId) {
+        return mapping.getTotPmsHostingVm(vmId) >= mecSystem.getVM(vmId).getMaxPmPlacements();
+    }
+
+    private boolean fitsPm(int pmId, int vmCores, int vmGbs) {
+        PM pm = mecSystem.getPM(pmId);
+        return pm.getTotCores() - mapping.getUsedCoresByPm(pmId) >= vmCores && pm.getTotMemoryGB() - mapping.getUsedGbByPm(pmId) >= vmGbs;
+    }
+
+    private boolean fitsVm(int vmId, int vmCores, int vmGbs) {
+        VM vm = mecSystem.getVM(vmId);
+        return vmCores <= vm.getTotCores() && vmGbs <= vm.getTotMemoryGB();
+    }
+}
@@ -4,21 +4,28 @@ import algorithm.model.Ue2VmMapping;
 import model.*;
 
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.BitSet;
+import java.util.List;
 
 public class MecSystemService {
     private static MecSystemService instance = null;
     private static MecSystem mecSystem = null;
     private static MecMapping mapping;
+    private static FeasibilityIndex feasibilityIndex;
+    private static PlacementBatch placementBatch;
 
     private MecSystemService() {
         mecSystem = MecSystem.getInstance();
         mapping = MecMapping.getInstance();
+        feasibilityIndex = new FeasibilityIndex(mecSystem, mapping);
+        placementBatch = new PlacementBatch(mecSystem, mapping);
     }
 
     private MecSystemService(double totalDurationTime) {
         mecSystem = MecSystem.getInstance(totalDurationTime);
         mapping = MecMapping.getInstance();
+        feasibilityIndex = new FeasibilityIndex(mecSystem, mapping);
+        placementBatch = new PlacementBatch(mecSystem, mapping);
     }
 
     public static MecSystemService getInstance() {
@@ -36,7 +43,7 @@ public class MecSystemService {
     }
 
     /**
-     * Get the binary mapping between VMs and PMs
+     * Get the binary mapping between VMs and PMs (a copy, built in O(VMs x PMs))
      * @return the binary mapping between VMs and PMs
      */
     public ArrayList<ArrayList<Integer>> getVm2PmPlacement() {
@@ -44,7 +51,7 @@ public class MecSystemService {
     }
 
     /**
-     * Get the number of GBs of each VM assigned to each PM
+     * Get the number of GBs of each VM assigned to each PM (a copy, built in O(VMs x PMs))
      * @return the number of GBs of each VM assigned to each PM
      */
     public ArrayList<ArrayList<Integer>> getVmGb2PmPlacement() {
@@ -52,7 +59,7 @@ public class MecSystemService {
     }
 
     /**
-     * Get the number of cores of each VM assigned to each PM
+     * Get the number of cores of each VM assigned to each PM (a copy, built in O(VMs x PMs))
      * @return the number of cores of each VM assigned to each PM
      */
     public ArrayList<ArrayList<Integer>> getVmCores2PmPlacement() {
@@ -68,13 +75,7 @@ public class MecSystemService {
         if (vmId < 0 || vmId >= mecSystem.getNumberOfVMs())
             throw new IllegalArgumentException("Invalid VM id");
 
-        ArrayList<Integer> pms = new ArrayList<>();
-        for (int i = 0; i < mecSystem.getNumberOfPMs(); i++){
-            if (mapping.getVm2PmPlacement().get(vmId).get(i) == 1)
-                pms.add(i);
-        }
-
-        return pms;
+        return mapping.getPmsHostingVm(vmId);
     }
 
 
@@ -87,7 +88,7 @@ public class MecSystemService {
         if (vmId < 0 || vmId >= mecSystem.getNumberOfVMs())
             throw new IllegalArgumentException("Invalid VM id");
 
-        return getPmsHostingVm(vmId).size();
+        return mapping.getTotPmsHostingVm(vmId);
     }
 
     /**
@@ -99,13 +100,7 @@ public class MecSystemService {
         if (pmId < 0 || pmId >= mecSystem.getNumberOfPMs())
             throw new IllegalArgumentException("Invalid PM id");
 
-        ArrayList<Integer> vms = new ArrayList<>();
-        for (int i = 0; i < mecSystem.getNumberOfVMs(); i++){
-            if (mapping.getVm2PmPlacement().get(i).get(pmId) == 1)
-                vms.add(i);
-        }
-
-        return vms;
+        return mapping.getVmsHostedByPm(pmId);
     }
 
     /**
@@ -117,7 +112,7 @@ public class MecSystemService {
         if (pmId < 0 || pmId >= mecSystem.getNumberOfPMs())
             throw new IllegalArgumentException("Invalid PM id");
 
-        return getVmsHostedByPm(pmId).size();
+        return mapping.getTotVmsHostedByPm(pmId);
     }
 
     /**
@@ -130,7 +125,7 @@ public class MecSystemService {
         if (vmId < 0 || vmId >= mecSystem.getNumberOfVMs() || pmId < 0 || pmId >= mecSystem.getNumberOfPMs())
             throw new IllegalArgumentException("Invalid VM or PM id");
 
-        if (getVmsHostedByPm(pmId).contains(vmId))
+        if (mapping.isVmPlacedOnPm(vmId, pmId))
             return true;
 
         if (getTotVmsHostedByPm(pmId) >= mecSystem.getPhysicalMachines().get(pmId).getMaxVmsHosted())
@@ -153,7 +148,7 @@ public class MecSystemService {
         if (vmId < 0 || vmId >= mecSystem.getNumberOfVMs() || pmId < 0 || pmId >= mecSystem.getNumberOfPMs())
             throw new IllegalArgumentException("Invalid VM or PM id");
 
-        if (!getVmsHostedByPm(pmId).contains(vmId) && getTotVmsHostedByPm(pmId) >= mecSystem.getPhysicalMachines().get(pmId).getMaxVmsHosted())
+        if (!mapping.isVmPlacedOnPm(vmId, pmId) && getTotVmsHostedByPm(pmId) >= mecSystem.getPhysicalMachines().get(pmId).getMaxVmsHosted())
             return true;
 
         if (vmCores < 0 || vmGbs < 0)
@@ -179,8 +174,81 @@ public class MecSystemService {
         if (vmId < 0 || vmId >= mecSystem.getNumberOfVMs())
             throw new IllegalArgumentException("Invalid VM id");
 
-        return getVmCores2Pms(vmId).stream().mapToInt(Integer::intValue).sum() + ueCores <= mecSystem.getVirtualMachines().get(vmId).getTotCores() &&
-                getVmGb2Pms(vmId).stream().mapToInt(Integer::intValue).sum() + ueGbs <= mecSystem.getVirtualMachines().get(vmId).getTotMemoryGB();
+        return mapping.getUsedCoresByVm(vmId) + ueCores <= mecSystem.getVirtualMachines().get(vmId).getTotCores() &&
+                mapping.getUsedGbByVm(vmId) + ueGbs <= mecSystem.getVirtualMachines().get(vmId).getTotMemoryGB();
+    }
+
+    /**
+     * Check if a VM can be placed on a PM with the specified resources, i.e. if both checkAssignmentAllowed and checkEnoughPmResources hold
+     * @param vmId the VM id
+     * @param pmId the PM id
+     * @param vmCores the number of VM cores to be assigned to the PM
+     * @param vmGbs the number of VM memory GBs to be assigned to the PM
+     * @return true if the placement is feasible, false otherwise
+     */
+    public boolean checkPlacementFeasible(int vmId, int pmId, int vmCores, int vmGbs) {
+        if (vmId < 0 || vmId >= mecSystem.getNumberOfVMs() || pmId < 0 || pmId >= mecSystem.getNumberOfPMs())
+            throw new IllegalArgumentException("Invalid VM or PM id");
+        if (vmCores < 0 || vmGbs < 0)
+            throw new IllegalArgumentException("Invalid number of cores or GBs");
+
+        return feasibilityIndex.isFeasible(vmId, pmId, vmCores, vmGbs);
+    }
+
+    /**
+     * Get the first PM (with id greater than or equal to the specified one) where a VM can be placed with the specified resources
+     * @param vmId the VM id
+     * @param vmCores the number of VM cores to be assigned to the PM
+     * @param vmGbs the number of VM memory GBs to be assigned to the PM
+     * @param fromPmId the first PM id to consider
+     * @return the PM id, or -1 if no PM can host the VM
+     */
+    public int getNextFeasiblePm(int vmId, int vmCores, int vmGbs, int fromPmId) {
+        if (vmId < 0 || vmId >= mecSystem.getNumberOfVMs())
+            throw new IllegalArgumentException("Invalid VM id");
+        if (vmCores < 0 || vmGbs < 0)
+            throw new IllegalArgumentException("Invalid number of cores or GBs");
+
+        return feasibilityIndex.nextFeasiblePm(vmId, vmCores, vmGbs, Math.max(fromPmId, 0));
+    }
+
+    /**
+     * Get the set of PMs where a VM can be placed with the specified resources
+     * @param vmId the VM id
+     * @param vmCores the number of VM cores to be assigned to the PM
+     * @param vmGbs the number of VM memory GBs to be assigned to the PM
+     * @return the ids of the PMs that can host the VM
+     */
+    public BitSet getFeasiblePms(int vmId, int vmCores, int vmGbs) {
+        if (vmId < 0 || vmId >= mecSystem.getNumberOfVMs())
+            throw new IllegalArgumentException("Invalid VM id");
+        if (vmCores < 0 || vmGbs < 0)
+            throw new IllegalArgumentException("Invalid number of cores or GBs");
+
+        return feasibilityIndex.getFeasiblePms(vmId, vmCores, vmGbs);
+    }
+
+    /**
+     * Get the number of identical requests of a VM that a PM can host, within the residual resources of both the PM and
+     * the VM and the VM/PM assignment limits (e.g. to place a whole demand class at once)
+     * @param vmId the VM id
+     * @param pmId the PM id
+     * @param vmCores the number of VM cores of each request
+     * @param vmGbs the number of VM memory GBs of each request
+     * @return the number of requests that can be placed (Integer.MAX_VALUE for empty requests on an allowed PM)
+     */
+    public int getPlacementCapacity(int vmId, int pmId, int vmCores, int vmGbs) {
+        if (vmCores < 0 || vmGbs < 0)
+            throw new IllegalArgumentException("Invalid number of cores or GBs");
+        if (!checkAssignmentAllowed(vmId, pmId))
+            return 0;
+
+        int capacity = Integer.MAX_VALUE;
+        if (vmCores > 0)
+            capacity = Math.min(capacity, Math.min(getRemainingCoresInPm(pmId), getRemainingCoresInVm(vmId)) / vmCores);
+        if (vmGbs > 0)
+            capacity = Math.min(capacity, Math.min(getRemainingGbsInPm(pmId), getRemainingGbsInVm(vmId)) / vmGbs);
+        return Math.max(capacity, 0);
     }
 
     /**
@@ -189,8 +257,10 @@ public class MecSystemService {
      * @param pmId the PM id
      */
     public void setVmPlacementOnPm(int vmId, int pmId) throws IllegalArgumentException {
-        if (checkAssignmentAllowed(vmId, pmId))
+        if (checkAssignmentAllowed(vmId, pmId)) {
             mapping.setVmPlacement(vmId, pmId);
+            feasibilityIndex.update(vmId, pmId);
+        }
     }
 
     /**
@@ -203,6 +273,7 @@ public class MecSystemService {
             throw new IllegalArgumentException("Invalid VM or PM id");
 
         mapping.removeVmPlacement(vmId, pmId);
+        feasibilityIndex.update(vmId, pmId);
     }
 
     /**
@@ -220,17 +291,18 @@ public class MecSystemService {
 
         // check that the VM has enough cores
         // get already assigned cores of the VM to any other PM
-        int currentlyAssignedVmCores2Pm = mapping.getVmCores2PmPlacement().get(vmId).get(pmId);
-        int totalVmUsedCores = mapping.getVmCores2PmPlacement().get(vmId).stream().mapToInt(Integer::intValue).sum() - currentlyAssignedVmCores2Pm;
+        int currentlyAssignedVmCores2Pm = mapping.getVmResource2Pm(ResourceType.CORES, vmId, pmId);
+        int totalVmUsedCores = mapping.getUsedCoresByVm(vmId) - currentlyAssignedVmCores2Pm;
         if (vmCores > mecSystem.getVirtualMachines().get(vmId).getTotCores() || totalVmUsedCores + vmCores > mecSystem.getVirtualMachines().get(vmId).getTotCores())
             throw new IllegalArgumentException("Not enough cores in the VM");
 
         // check that the PM has enough cores
-        int totalPMUsedCores = mapping.getVmCores2PmPlacement().stream().mapToInt(row -> row.get(pmId)).sum();
+        int totalPMUsedCores = mapping.getUsedCoresByPm(pmId);
         if (totalPMUsedCores + vmCores - currentlyAssignedVmCores2Pm > mecSystem.getPhysicalMachines().get(pmId).getTotCores())
             throw new IllegalArgumentException("Not enough cores in the PM");
 
         mapping.setVmCores2Pm(vmId, pmId, vmCores);
+        feasibilityIndex.update(vmId, pmId);
         setVmPlacementOnPm(vmId, pmId);
     }
 
@@ -248,17 +320,18 @@ public class MecSystemService {
             throw new IllegalArgumentException("Invalid number of GBs");
 
         // check that the VM has enough GBs
-        int currentlyAssignedVmGbs2Pm = mapping.getVmGb2PmPlacement().get(vmId).get(pmId);
-        int totalVmUsedGbs = mapping.getVmGb2PmPlacement().get(vmId).stream().mapToInt(Integer::intValue).sum() - currentlyAssignedVmGbs2Pm;
+        int currentlyAssignedVmGbs2Pm = mapping.getVmResource2Pm(ResourceType.MEMORY_GB, vmId, pmId);
+        int totalVmUsedGbs = mapping.getUsedGbByVm(vmId) - currentlyAssignedVmGbs2Pm;
         if (vmGbs > mecSystem.getVirtualMachines().get(vmId).getTotMemoryGB() || totalVmUsedGbs + vmGbs > mecSystem.getVirtualMachines().get(vmId).getTotMemoryGB())
             throw new IllegalArgumentException("Not enough GBs in the VM");
 
         // check that the PM has enough GBs
-        int totalPmUsedGb = mapping.getVmGb2PmPlacement().stream().mapToInt(row -> row.get(pmId)).sum();
+        int totalPmUsedGb = mapping.getUsedGbByPm(pmId);
         if (totalPmUsedGb + vmGbs - currentlyAssignedVmGbs2Pm > mecSystem.getPhysicalMachines().get(pmId).getTotMemoryGB())
             throw new IllegalArgumentException("Not enough GBs in the PM");
 
         mapping.setVmGb2Pm(vmId, pmId, vmGbs);
+        feasibilityIndex.update(vmId, pmId);
         setVmPlacementOnPm(vmId, pmId);
     }
 
@@ -270,10 +343,20 @@ public class MecSystemService {
      * @param vmGbs the number of memory GBs to be assigned to the VM on the PM
      */
     public void setVmResourcesOnPm(int vmId, int pmId, int vmCores, int vmGbs) throws IllegalArgumentException {
-        if (vmCores == 0 && vmGbs == 0)
+        if (vmCores == 0 && vmGbs == 0) {
+            if (vmId < 0 || vmId >= mecSystem.getNumberOfVMs() || pmId < 0 || pmId >= mecSystem.getNumberOfPMs())
+                throw new IllegalArgumentException("Invalid VM or PM id");
+
+            // release all the resources of the VM on the PM, and its placement
+            mapping.clearVmResources2Pm(vmId, pmId);
             removeVmPlacementOnPm(vmId, pmId);
+            return;
+        }
 
-        if (!checkAssignmentAllowed(vmId, pmId) || !checkEnoughPmResources(vmId, pmId, vmCores, vmGbs) || !checkEnoughVmResources(vmId, vmCores, vmGbs))
+        // the resources of the VM already on the PM are replaced, so only the difference must fit in the VM and in the PM
+        int deltaCores = vmCores - getVmCores2Pm(vmId, pmId);
+        int deltaGbs = vmGbs - getVmGb2Pm(vmId, pmId);
+        if (!checkAssignmentAllowed(vmId, pmId) || !checkEnoughPmResources(vmId, pmId, Math.max(deltaCores, 0), Math.max(deltaGbs, 0)) || !checkEnoughVmResources(vmId, deltaCores, deltaGbs))
             return;
 
         setVmCores2Pm(vmId, pmId, vmCores);
@@ -311,6 +394,201 @@ public class MecSystemService {
         setVmResourcesOnPm(vmId, pmId, currCores - vmCores, currGbs - vmGbs);
     }
 
+    /**
+     * Add the cores and memory GBs of a batch of placements, with the same result as addVMResourcesOnPm for each of them
+     * when all of them fit, but checking the resources and the VM/PM assignment limits once per VM and per PM and writing
+     * each VM/PM cell once. The batch is atomic: if any VM or PM would exceed its resources or limits, nothing is changed.
+     * @param vmIds the VM id of each placement
+     * @param pmIds the PM id of each placement
+     * @param vmCores the number of cores to be added for each placement
+     * @param vmGbs the number of memory GBs to be added for each placement
+     * @throws IllegalArgumentException if an id or an amount is invalid, or if the batch does not fit (the mapping is unchanged)
+     */
+    public void addVmResourcesOnPms(int[] vmIds, int[] pmIds, int[] vmCores, int[] vmGbs) throws IllegalArgumentException {
+        if (!placementBatch.stage(vmIds, pmIds, vmCores, vmGbs))
+            throw new IllegalArgumentException(placementBatch.getRejection());
+        writeStagedBatch();
+    }
+
+    /**
+     * Add the cores and memory GBs of a batch of placements if all of them fit (see addVmResourcesOnPms), e.g. to fall back
+     * to placing them one at a time otherwise.
+     * @param vmIds the VM id of each placement
+     * @param pmIds the PM id of each placement
+     * @param vmCores the number of cores to be added for each placement
+     * @param vmGbs the number of memory GBs to be added for each placement
+     * @return true if the batch was added, false if it does not fit (the mapping is unchanged)
+     * @throws IllegalArgumentException if an id or an amount is invalid
+     */
+    public boolean tryAddVmResourcesOnPms(int[] vmIds, int[] pmIds, int[] vmCores, int[] vmGbs) throws IllegalArgumentException {
+        if (!placementBatch.stage(vmIds, pmIds, vmCores, vmGbs))
+            return false;
+        writeStagedBatch();
+        return true;
+    }
+
+    private void writeStagedBatch() {
+        // the batch fits: the amounts are within the int capacities, and the cells are written without further checks
+        for (int cell = 0; cell < placementBatch.getTotalCells(); cell++) {
+            int cores = placementBatch.getCellCores(cell);
+            int gbs = placementBatch.getCellGbs(cell);
+            if (cores == 0 && gbs == 0)
+                continue;
+
+            int vmId = placementBatch.getCellVm(cell);
+            int pmId = placementBatch.getCellPm(cell);
+            mapping.setVmCores2Pm(vmId, pmId, mapping.getVmResource2Pm(ResourceType.CORES, vmId, pmId) + cores);
+            mapping.setVmGb2Pm(vmId, pmId, mapping.getVmResource2Pm(ResourceType.MEMORY_GB, vmId, pmId) + gbs);
+            feasibilityIndex.update(vmId, pmId);
+        }
+    }
+
+    /**
+     * Set the amount of every resource type of a specific VM assigned to a specific PM, checking all the resource types at once
+     * @param vmId the VM id
+     * @param pmId the PM id
+     * @param resources the resources to be assigned to the VM on the PM
+     */
+    public void setVmResourcesOnPm(int vmId, int pmId, ResourceVector resources) throws IllegalArgumentException {
+        if (resources.equals(ResourceVector.zero())) {
+            setVmResourcesOnPm(vmId, pmId, 0, 0);
+            return;
+        }
+
+        if (!checkAssignmentAllowed(vmId, pmId) || !checkEnoughResources(vmId, pmId, resources))
+            return;
+
+        for (ResourceType type : ResourceType.values()) {
+            mapping.setVmResource2Pm(type, vmId, pmId, resources.get(type));
+        }
+        feasibilityIndex.update(vmId, pmId);
+    }
+
+    /**
+     * Add resources of every resource type of a specific VM to a specific PM
+     * @param vmId the VM id
+     * @param pmId the PM id
+     * @param resources the resources to be added to the VM on the PM
+     */
+    public void addVMResourcesOnPm(int vmId, int pmId, ResourceVector resources) throws IllegalArgumentException {
+        int[] amounts = getVmResources2Pm(vmId, pmId).toArray();
+        for (int type = 0; type < ResourceType.COUNT; type++) {
+            amounts[type] += resources.get(type);
+        }
+        setVmResourcesOnPm(vmId, pmId, ResourceVector.of(amounts));
+    }
+
+    /**
+     * Remove resources of every resource type of a specific VM from a specific PM
+     * @param vmId the VM id
+     * @param pmId the PM id
+     * @param resources the resources to be removed from the VM on the PM
+     */
+    public void removeVMResourcesOnPm(int vmId, int pmId, ResourceVector resources) throws IllegalArgumentException {
+        int[] amounts = getVmResources2Pm(vmId, pmId).toArray();
+        for (int type = 0; type < ResourceType.COUNT; type++) {
+            amounts[type] -= resources.get(type);
+            if (amounts[type] < 0)
+                throw new IllegalArgumentException("Cannot remove more resources than assigned");
+        }
+        setVmResourcesOnPm(vmId, pmId, ResourceVector.of(amounts));
+    }
+
+    /**
+     * Check if the VM and the PM have enough resources of every type to set the resources of the VM on the PM
+     * @param vmId the VM id
+     * @param pmId the PM id
+     * @param resources the resources to be assigned to the VM on the PM (replacing the current ones)
+     * @return true if both the VM and the PM have enough resources, false otherwise
+     */
+    public boolean checkEnoughResources(int vmId, int pmId, ResourceVector resources) {
+        if (vmId < 0 || vmId >= mecSystem.getNumberOfVMs() || pmId < 0 || pmId >= mecSystem.getNumberOfPMs())
+            throw new IllegalArgumentException("Invalid VM or PM id");
+
+        VM vm = mecSystem.getVM(vmId);
+        PM pm = mecSystem.getPM(pmId);
+        for (ResourceType type : ResourceType.values()) {
+            int delta = resources.get(type) - mapping.getVmResource2Pm(type, vmId, pmId);
+            if (mapping.getUsedResourceByVm(type, vmId) + delta > vm.getCapacity(type) || mapping.getUsedResourceByPm(type, pmId) + delta > pm.getCapacity(type))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Check if a VM can be placed on a PM with the specified resources of every type (as checkPlacementFeasible for cores and memory GBs)
+     * @param vmId the VM id
+     * @param pmId the PM id
+     * @param resources the resources to be assigned to the VM on the PM
+     * @return true if the placement is feasible, false otherwise
+     */
+    public boolean checkPlacementFeasible(int vmId, int pmId, ResourceVector resources) {
+        return checkPlacementFeasible(vmId, pmId, resources.get(ResourceType.CORES), resources.get(ResourceType.MEMORY_GB))
+                && fitsOtherResources(vmId, pmId, resources);
+    }
+
+    /**
+     * Get the first PM (with id greater than or equal to the specified one) where a VM can be placed with the specified resources of every type
+     * @param vmId the VM id
+     * @param resources the resources to be assigned to the VM on the PM
+     * @param fromPmId the first PM id to consider
+     * @return the PM id, or -1 if no PM can host the VM
+     */
+    public int getNextFeasiblePm(int vmId, ResourceVector resources, int fromPmId) {
+        int cores = resources.get(ResourceType.CORES);
+        int gbs = resources.get(ResourceType.MEMORY_GB);
+        int pmId = getNextFeasiblePm(vmId, cores, gbs, fromPmId);
+        while (pmId != -1 && !fitsOtherResources(vmId, pmId, resources)) {
+            pmId = getNextFeasiblePm(vmId, cores, gbs, pmId + 1);
+        }
+        return pmId;
+    }
+
+    // cores and memory GBs are checked by the feasibility index, the other resource types here
+    private boolean fitsOtherResources(int vmId, int pmId, ResourceVector resources) {
+        for (ResourceType type : ResourceType.values()) {
+            if (type == ResourceType.CORES || type == ResourceType.MEMORY_GB)
+                continue;
+            if (resources.get(type) > mecSystem.getVM(vmId).getCapacity(type) || getRemainingResourceInPm(type, pmId) < resources.get(type))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the resources of every type of a specific VM assigned to a specific PM
+     * @param vmId the VM id
+     * @param pmId the PM id
+     * @return the resources assigned to the VM on the PM
+     */
+    public ResourceVector getVmResources2Pm(int vmId, int pmId) {
+        int[] amounts = new int[ResourceType.COUNT];
+        for (ResourceType type : ResourceType.values()) {
+            amounts[type.ordinal()] = mapping.getVmResource2Pm(type, vmId, pmId);
+        }
+        return ResourceVector.of(amounts);
+    }
+
+    /**
+     * Get the remaining available amount of a resource type in a specific PM
+     * @param type the resource type
+     * @param pmId the PM id
+     * @return the remaining available amount of the resource
+     */
+    public int getRemainingResourceInPm(ResourceType type, int pmId) {
+        return mecSystem.getPM(pmId).getCapacity(type) - mapping.getUsedResourceByPm(type, pmId);
+    }
+
+    /**
+     * Get the remaining available amount of a resource type in a specific VM
+     * @param type the resource type
+     * @param vmId the VM id
+     * @return the remaining available amount of the resource
+     */
+    public int getRemainingResourceInVm(ResourceType type, int vmId) {
+        return mecSystem.getVM(vmId).getCapacity(type) - mapping.getUsedResourceByVm(type, vmId);
+    }
+
     /**
      * Get the number of memory GBs of a specific VM assigned to a specific PM
      * @param vmId the VM id
@@ -318,7 +596,7 @@ public class MecSystemService {
      * @return the number of cores assigned to the VM on the PM
      */
     public int getVmGb2Pm(int vmId, int pmId) {
-        return mapping.getVmGb2PmPlacement().get(vmId).get(pmId);
+        return mapping.getVmResource2Pm(ResourceType.MEMORY_GB, vmId, pmId);
     }
 
     /**
@@ -327,7 +605,7 @@ public class MecSystemService {
      * @return the number of cores assigned to the VM on all PMs
      */
     public ArrayList<Integer> getVmGb2Pms(int vmId) {
-        return mapping.getVmGb2PmPlacement().get(vmId);
+        return mapping.getVmResources2Pms(ResourceType.MEMORY_GB, vmId);
     }
 
     /**
@@ -337,7 +615,7 @@ public class MecSystemService {
      * @return the number of cores assigned to the VM on the PM
      */
     public int getVmCores2Pm(int vmId, int pmId) {
-        return mapping.getVmCores2PmPlacement().get(vmId).get(pmId);
+        return mapping.getVmResource2Pm(ResourceType.CORES, vmId, pmId);
     }
 
     /**
@@ -346,7 +624,7 @@ public class MecSystemService {
      * @return the number of cores assigned to the VM on all PMs
      */
     public ArrayList<Integer> getVmCores2Pms(int vmId) {
-        return mapping.getVmCores2PmPlacement().get(vmId);
+        return mapping.getVmResources2Pms(ResourceType.CORES, vmId);
     }
 
     /**
@@ -355,7 +633,7 @@ public class MecSystemService {
      * @return the number of cores of all VMs assigned to the PM
      */
     public ArrayList<Integer> getHostedVmsCoresByPm(int pmId) {
-        return (ArrayList<Integer>) mapping.getVmCores2PmPlacement().stream().map(row -> row.get(pmId)).collect(Collectors.toList());
+        return mapping.getHostedVmsResources(ResourceType.CORES, pmId);
     }
 
     /**
@@ -364,7 +642,7 @@ public class MecSystemService {
      * @return the number of memory GBs of all VMs assigned to the PM
      */
     public ArrayList<Integer> getHostedVmsGbsByPm(int pmId) {
-        return (ArrayList<Integer>) mapping.getVmGb2PmPlacement().stream().map(row -> row.get(pmId)).collect(Collectors.toList());
+        return mapping.getHostedVmsResources(ResourceType.MEMORY_GB, pmId);
     }
 
     /**
@@ -373,7 +651,7 @@ public class MecSystemService {
      * @return the number of remaining available cores
      */
     public int getRemainingCoresInPm(int pmId) {
-        return mecSystem.getPM(pmId).getTotCores() - getHostedVmsCoresByPm(pmId).stream().mapToInt(Integer::intValue).sum();
+        return mecSystem.getPM(pmId).getTotCores() - mapping.getUsedCoresByPm(pmId);
     }
 
     /**
@@ -382,7 +660,7 @@ public class MecSystemService {
      * @return the number of remaining available memory GBs
      */
     public int getRemainingGbsInPm(int pmId) {
-        return mecSystem.getPM(pmId).getTotMemoryGB() - getHostedVmsGbsByPm(pmId).stream().mapToInt(Integer::intValue).sum();
+        return mecSystem.getPM(pmId).getTotMemoryGB() - mapping.getUsedGbByPm(pmId);
     }
 
     /**
@@ -391,7 +669,7 @@ public class MecSystemService {
      * @return the number of remaining available cores
      */
     public int getRemainingCoresInVm(int vmId) {
-        return mecSystem.getVM(vmId).getTotCores() - getVmCores2Pms(vmId).stream().mapToInt(Integer::intValue).sum();
+        return mecSystem.getVM(vmId).getTotCores() - mapping.getUsedCoresByVm(vmId);
     }
 
     /**
@@ -400,7 +678,7 @@ public class MecSystemService {
      * @return the number of remaining available memory GBs
      */
     public int getRemainingGbsInVm(int vmId) {
-        return mecSystem.getVM(vmId).getTotMemoryGB() - getVmGb2Pms(vmId).stream().mapToInt(Integer::intValue).sum();
+        return mecSystem.getVM(vmId).getTotMemoryGB() - mapping.getUsedGbByVm(vmId);
     }
 
     /**
@@ -410,6 +688,7 @@ public class MecSystemService {
     public void addVM(VM vm){
         mecSystem.addVM(vm);
         mapping.addVm();
+        feasibilityIndex.addVm();
     }
 
     /**
@@ -419,6 +698,7 @@ public class MecSystemService {
     public void addPM(PM pm){
         mecSystem.addPM(pm);
         mapping.addPm();
+        feasibilityIndex.addPm();
     }
 
     /**
@@ -428,6 +708,7 @@ public class MecSystemService {
     public void removeVM(VM vm){
         mecSystem.removeVM(vm);
         mapping.removeVm(vm.getId());
+        feasibilityIndex.rebuild();
     }
 
     /**
@@ -437,6 +718,7 @@ public class MecSystemService {
     public void removePM(PM pm){
         mecSystem.removePM(pm);
         mapping.removePm(pm.getId());
+        feasibilityIndex.rebuild();
     }
 
     /**
@@ -497,6 +779,22 @@ public class MecSystemService {
         return mecSystem.getVirtualMachines().get(vmId);
     }
 
+    /**
+     * Keep the UEs in an off-heap store instead of a list of UE objects (see MecSystem.setOffHeapUeStore)
+     * @param offHeap whether the UEs are stored off-heap
+     */
+    public void setOffHeapUeStore(boolean offHeap) {
+        mecSystem.setOffHeapUeStore(offHeap);
+    }
+
+    /**
+     * Get the off-heap store of the UEs, to scan them without building UE objects
+     * @return the store, or null if the UEs are on the heap
+     */
+    public UeStore getUeStore() {
+        return mecSystem.getUeStore();
+    }
+
     /**
      * Get the user equipment with the specified id
      * @param ueId the user equipment id
@@ -526,7 +824,7 @@ public class MecSystemService {
      * Get the list of user equipments in the system
      * @return list of user equipments
      */
-    public ArrayList<UE> getUEs(){
+    public List<UE> getUEs(){
         return mecSystem.getUserEquipments();
     }
 
@@ -559,6 +857,7 @@ public class MecSystemService {
      */
     public void resetMapping(){
         mapping.resetMapping();
+        feasibilityIndex.reset();
     }
 
     /**
@@ -567,6 +866,7 @@ public class MecSystemService {
     public void resetSystem(){
         mapping.resetSystem();
         mecSystem.resetSystem();
+        feasibilityIndex.rebuild();
     }
 
     /**
@@ -592,12 +892,8 @@ public class MecSystemService {
     public int getTotalAllocatedPms(){
         int totalPms = 0;
         for (int i = 0; i < mecSystem.getNumberOfPMs(); i++) {
-            for (int j = 0; j < mecSystem.getNumberOfVMs(); j++) {
-                if (mapping.getVm2PmPlacement().get(j).get(i) == 1) {
-                    totalPms++;
-                    break;
-                }
-            }
+            if (mapping.getTotVmsHostedByPm(i) > 0)
+                totalPms++;
         }
 
         return totalPms;
@@ -608,7 +904,13 @@ public class MecSystemService {
      * @return the number of total allocated VMs
      */
     public int getTotalAllocatedVms(){
-        return (int) mapping.getVm2PmPlacement().stream().filter(row -> row.contains(1)).count();
+        int totalVms = 0;
+        for (int i = 0; i < mecSystem.getNumberOfVMs(); i++) {
+            if (mapping.getTotPmsHostingVm(i) > 0)
+                totalVms++;
+        }
+
+        return totalVms;
     }
 
     /**
@@ -0,0 +1,250 @@
+package service;
+
+import model.MecMapping;
+import model.MecSystem;
+import model.PM;
+import model.VM;
+
+import java.util.Arrays;
+
+/**
+ * Staging of a batch of placements (see MecSystemService.addVmResourcesOnPms): the placements on the same VM/PM cell are
+ * merged, and the resources and assignment limits of each VM and PM of the batch are checked once against the mapping.
+ * The scratch arrays are reused across batches: the entries of the VMs, PMs and cells are valid only if their stamp is the
+ * one of the current batch (or VM group), so that staging a batch costs O(batch size) rather than O(VMs + PMs).
+ */
+class PlacementBatch {
+    private final MecSystem mecSystem;
+    private final MecMapping mapping;
+    private int stamp = 0;
+
+    // distinct VMs of the batch by VM id (one slot each), with the slot of each VM
+    private int[] vmStamps = new int[0];
+    private int[] vmSlots = new int[0];
+    private int[] batchVms = new int[0];
+    // placements grouped by VM slot: the placements of slot s are order[slotStarts[s]] to order[slotStarts[s + 1] - 1]
+    private int[] slotStarts = new int[1];
+    private int[] slotNext = new int[0];
+    private int[] order = new int[0];
+    // the merged cells of the batch
+    private int totalCells;
+    private int[] cellVms = new int[0];
+    private int[] cellPms = new int[0];
+    private long[] cellCores = new long[0];
+    private long[] cellGbs = new long[0];
+    // the cell of the current VM on each PM (valid if cellStamps holds the stamp of the VM group)
+    private int[] cellStamps = new int[0];
+    private int[] cellByPm = new int[0];
+    // distinct PMs of the batch, with the resources added to each of them and the number of VMs newly placed on it
+    private int totalBatchPms;
+    private int[] pmStamps = new int[0];
+    private int[] batchPms = new int[0];
+    private long[] addedPmCores = new long[0];
+    private long[] addedPmGbs = new long[0];
+    private int[] newVmsByPm = new int[0];
+    // why the last staged batch does not fit (null if it does)
+    private String rejection;
+
+    PlacementBatch(MecSystem mecSystem, MecMapping mapping) {
+        this.mecSystem = mecSystem;
+        this.mapping = mapping;
+    }
+
+    /**
+     * Merge a batch of placements into cells and check it against the residual resources and the assignment limits.
+     * Nothing is written to the mapping.
+     * @param vmIds the VM id of each placement
+     * @param pmIds the PM id of each placement
+     * @param vmCores the number of cores to be added for each placement
+     * @param vmGbs the number of memory GBs to be added for each placement
+     * @return true if the batch fits, false otherwise (see getRejection)
+     * @throws IllegalArgumentException if an id or an amount is invalid
+     */
+    boolean stage(int[] vmIds, int[] pmIds, int[] vmCores, int[] vmGbs) {
+        int size = vmIds.length;
+        if (pmIds.length != size || vmCores.length != size || vmGbs.length != size)
+            throw new IllegalArgumentException("Inconsistent batch lengths");
+
+        int totalVms = mecSystem.getNumberOfVMs();
+        int totalPms = mecSystem.getNumberOfPMs();
+        ensureCapacity(size, totalVms, totalPms);
+        // one stamp for the batch and one for each of its VM groups
+        if (stamp > Integer.MAX_VALUE - size - 1) {
+            Arrays.fill(vmStamps, 0);
+            Arrays.fill(pmStamps, 0);
+            Arrays.fill(cellStamps, 0);
+            stamp = 0;
+        }
+        int batchStamp = ++stamp;
+
+        // group the placements by VM (counting sort on the distinct VMs, in VM id order), so that the placements on the same
+        // cell are merged and the cells are written VM by VM
+        int totalBatchVms = 0;
+        for (int i = 0; i < size; i++) {
+            if (vmIds[i] < 0 || vmIds[i] >= totalVms || pmIds[i] < 0 || pmIds[i] >= totalPms)
+                throw new IllegalArgumentException("Invalid VM or PM id");
+            if (vmCores[i] < 0 || vmGbs[i] < 0)
+                throw new IllegalArgumentException("Invalid number of cores or GBs");
+
+            int vmId = vmIds[i];
+            if (vmStamps[vmId] != batchStamp) {
+                vmStamps[vmId] = batchStamp;
+                vmSlots[vmId] = 0;
+                batchVms[totalBatchVms++] = vmId;
+            }
+            // number of placements of the VM, until its slot is known
+            vmSlots[vmId]++;
+        }
+        Arrays.sort(batchVms, 0, totalBatchVms);
+        slotStarts[0] = 0;
+        for (int slot = 0; slot < totalBatchVms; slot++) {
+            int vmId = batchVms[slot];
+            slotStarts[slot + 1] = slotStarts[slot] + vmSlots[vmId];
+            vmSlots[vmId] = slot;
+            // next free position of the slot in order
+            slotNext[slot] = slotStarts[slot];
+        }
+        for (int i = 0; i < size; i++)
+            order[slotNext[vmSlots[vmIds[i]]]++] = i;
+
+        totalCells = 0;
+        totalBatchPms = 0;
+        rejection = null;
+        for (int slot = 0; slot < totalBatchVms; slot++) {
+            int vmId = batchVms[slot];
+            int groupStamp = ++stamp;
+            int firstCell = totalCells;
+            for (int k = slotStarts[slot]; k < slotStarts[slot + 1]; k++) {
+                int i = order[k];
+                int pmId = pmIds[i];
+                if (cellStamps[pmId] != groupStamp) {
+                    cellStamps[pmId] = groupStamp;
+                    cellByPm[pmId] = totalCells;
+                    cellVms[totalCells] = vmId;
+                    cellPms[totalCells] = pmId;
+                    cellCores[totalCells] = 0;
+                    cellGbs[totalCells++] = 0;
+                }
+                cellCores[cellByPm[pmId]] += vmCores[i];
+                cellGbs[cellByPm[pmId]] += vmGbs[i];
+            }
+
+            long addedVmCores = 0;
+            long addedVmGbs = 0;
+            int newPms = 0;
+            for (int cell = firstCell; cell < totalCells; cell++) {
+                int pmId = cellPms[cell];
+                if (pmStamps[pmId] != batchStamp) {
+                    pmStamps[pmId] = batchStamp;
+                    batchPms[totalBatchPms++] = pmId;
+                    addedPmCores[pmId] = 0;
+                    addedPmGbs[pmId] = 0;
+                    newVmsByPm[pmId] = 0;
+                }
+                addedVmCores += cellCores[cell];
+                addedVmGbs += cellGbs[cell];
+                addedPmCores[pmId] += cellCores[cell];
+                addedPmGbs[pmId] += cellGbs[cell];
+                // empty placements do not place the VM (as setVmResourcesOnPm with no resources)
+                if ((cellCores[cell] > 0 || cellGbs[cell] > 0) && !mapping.isVmPlacedOnPm(vmId, pmId)) {
+                    newPms++;
+                    newVmsByPm[pmId]++;
+                }
+            }
+
+            VM vm = mecSystem.getVM(vmId);
+            if (mapping.getUsedCoresByVm(vmId) + addedVmCores > vm.getTotCores() || mapping.getUsedGbByVm(vmId) + addedVmGbs > vm.getTotMemoryGB())
+                return reject("Not enough resources in VM " + vmId);
+            if (newPms > 0 && mapping.getTotPmsHostingVm(vmId) + newPms > vm.getMaxPmPlacements())
+                return reject("Too many PMs hosting VM " + vmId);
+        }
+
+        Arrays.sort(batchPms, 0, totalBatchPms);
+        for (int p = 0; p < totalBatchPms; p++) {
+            int pmId = batchPms[p];
+            PM pm = mecSystem.getPM(pmId);
+            if (mapping.getUsedCoresByPm(pmId) + addedPmCores[pmId] > pm.getTotCores() || mapping.getUsedGbByPm(pmId) + addedPmGbs[pmId] > pm.getTotMemoryGB())
+                return reject("Not enough resources in PM " + pmId);
+            if (newVmsByPm[pmId] > 0 && mapping.getTotVmsHostedByPm(pmId) + newVmsByPm[pmId] > pm.getMaxVmsHosted())
+                return reject("Too many VMs hosted by PM " + pmId);
+        }
+        return true;
+    }
+
+    /**
+     * Get why the last staged batch does not fit.
+     * @return the reason, or null if the batch fits
+     */
+    String getRejection() {
+        return rejection;
+    }
+
+    /**
+     * Get the number of cells of the last staged batch (valid only if it fits).
+     * @return the number of cells
+     */
+    int getTotalCells() {
+        return totalCells;
+    }
+
+    int getCellVm(int cell) {
+        return cellVms[cell];
+    }
+
+    int getCellPm(int cell) {
+        return cellPms[cell];
+    }
+
+    /**
+     * Get the number of cores added to a cell (within the int capacities, as the batch fits).
+     * @param cell the cell index
+     * @return the number of cores
+     */
+    int getCellCores(int cell) {
+        return (int) cellCores[cell];
+    }
+
+    /**
+     * Get the number of memory GBs added to a cell (within the int capacities, as the batch fits).
+     * @param cell the cell index
+     * @return the number of memory GBs
+     */
+    int getCellGbs(int cell) {
+        return (int) cellGbs[cell];
+    }
+
+    private boolean reject(String reason) {
+        rejection = reason;
+        totalCells = 0;
+        return false;
+    }
+
+    private void ensureCapacity(int size, int totalVms, int totalPms) {
+        if (order.length < size) {
+            int capacity = Math.max(size, 2 * order.length);
+            order = new int[capacity];
+            cellVms = new int[capacity];
+            cellPms = new int[capacity];
+            cellCores = new long[capacity];
+            cellGbs = new long[capacity];
+            batchVms = new int[capacity];
+            slotStarts = new int[capacity + 1];
+            slotNext = new int[capacity];
+        }
+        if (vmStamps.length < totalVms) {
+            // the stamps of the new VMs are 0, older than any batch
+            vmStamps = Arrays.copyOf(vmStamps, Math.max(totalVms, 2 * vmStamps.length));
+            vmSlots = new int[vmStamps.length];
+        }
+        if (pmStamps.length < totalPms) {
+            int capacity = Math.max(totalPms, 2 * pmStamps.length);
+            pmStamps = Arrays.copyOf(pmStamps, capacity);
+            cellStamps = Arrays.copyOf(cellStamps, capacity);
+            cellByPm = new int[capacity];
+            batchPms = new int[capacity];
+            addedPmCores = new long[capacity];
+            addedPmGbs = new long[capacity];
+            newVmsByPm = new int[capacity];
+        }
+    }
+}
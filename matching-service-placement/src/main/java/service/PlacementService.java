@@ -0,0 +1,97 @@
+package service;
+
+/**
+ * Thread-safe entry point to place (and release) UE/VM requests on the PMs of the system, for concurrent callers.
+ * Placements are made on a concurrent copy of the mapping (see ConcurrentMapping): requests for different VMs run in parallel
+ * and the PM capacity is reserved atomically, so that no PM is ever overcommitted.
+ * The copy is taken from the system mapping with refresh() and written back with commit().
+ */
+public class PlacementService {
+    private static PlacementService instance = null;
+    private final MecSystemService mecService;
+    private volatile ConcurrentMapping mapping;
+
+    private PlacementService() {
+        this.mecService = MecSystemService.getInstance();
+        this.mapping = new ConcurrentMapping(mecService);
+    }
+
+    public static synchronized PlacementService getInstance() {
+        if (instance == null) {
+            instance = new PlacementService();
+        }
+        return instance;
+    }
+
+    /**
+     * Take a new copy of the system mapping (e.g. after a mapping reset or after adding VMs or PMs).
+     * It must not run concurrently with place/release.
+     */
+    public void refresh() {
+        mapping = new ConcurrentMapping(mecService);
+    }
+
+    /**
+     * Write the placements made so far back to the system mapping. It must not run concurrently with place/release.
+     */
+    public void commit() {
+        mapping.store(mecService);
+    }
+
+    /**
+     * Place the resources requested for a VM on a PM that can host them (next fit from the last PM used by the VM)
+     * @param vmId the VM id
+     * @param vmCores the number of cores to be placed
+     * @param vmGbs the number of memory GBs to be placed
+     * @return the id of the PM hosting the resources, or -1 if no PM can host them
+     */
+    public int place(int vmId, int vmCores, int vmGbs) {
+        return mapping.place(vmId, vmCores, vmGbs);
+    }
+
+    /**
+     * Place a batch of requests round robin on the PMs from many threads (see RoundRobinDispatcher): each thread places a
+     * part of the requests on its own shard of the PMs first, with its own cursor. The PMs freed by concurrent releases
+     * during the dispatch may be skipped.
+     * @param vmIds the VM id of each request
+     * @param vmCores the number of cores of each request
+     * @param vmGbs the number of memory GBs of each request
+     * @param totalThreads the number of threads
+     * @return the id of the PM hosting each request, or -1 for the requests that could not be placed and for the requests
+     * without resources (which are not placed)
+     */
+    public int[] placeRoundRobin(int[] vmIds, int[] vmCores, int[] vmGbs, int totalThreads) {
+        return new RoundRobinDispatcher(mapping, vmIds, vmCores, vmGbs).dispatch(totalThreads);
+    }
+
+    /**
+     * Release the resources previously placed for a VM on a PM
+     * @param vmId the VM id
+     * @param pmId the PM id
+     * @param vmCores the number of cores to be released
+     * @param vmGbs the number of memory GBs to be released
+     */
+    public void release(int vmId, int pmId, int vmCores, int vmGbs) {
+        mapping.release(vmId, pmId, vmCores, vmGbs);
+    }
+
+    public int getUsedCoresByPm(int pmId) {
+        return mapping.getUsedCoresByPm(pmId);
+    }
+
+    public int getUsedGbByPm(int pmId) {
+        return mapping.getUsedGbByPm(pmId);
+    }
+
+    public int getTotVmsHostedByPm(int pmId) {
+        return mapping.getTotVmsHostedByPm(pmId);
+    }
+
+    public int getVmCores2Pm(int vmId, int pmId) {
+        return mapping.getVmCores2Pm(vmId, pmId);
+    }
+
+    public int getVmGb2Pm(int vmId, int pmId) {
+        return mapping.getVmGb2Pm(vmId, pmId);
+    }
+}
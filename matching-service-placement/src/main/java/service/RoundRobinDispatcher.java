@@ -0,0 +1,186 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Round-robin placement of a batch of requests from many threads on a concurrent mapping (see ConcurrentMapping).
+ * Each worker takes a contiguous part of the requests and owns a shard of the PMs (a contiguous range of PM ids) with its
+ * own cursor: it places each request on the next PM of its shard that can host it, as the sequential round robin does on
+ * all the PMs, and goes on to the next shards only when its own has no PM for the request. The PMs without room for the
+ * smallest request of the batch are marked in a bit set shared by the workers, so that the scans skip them 64 at a time
+ * once the system fills up.
+ */
+class RoundRobinDispatcher {
+    private final ConcurrentMapping mapping;
+    private final int totalPms;
+    private final int[] vmIds;
+    private final int[] vmCores;
+    private final int[] vmGbs;
+    // smallest request of the batch (with some resources): a PM without room for it cannot host any request of the batch
+    private final int minCores;
+    private final int minGbs;
+    // PMs marked full (bits are only set, by any worker)
+    private final AtomicLongArray fullPms;
+    // PM hosting each request (-1 if not placed), written by the worker of the request
+    private final int[] pmIds;
+
+    /**
+     * @param mapping the concurrent mapping
+     * @param vmIds the VM id of each request
+     * @param vmCores the number of cores of each request
+     * @param vmGbs the number of memory GBs of each request
+     */
+    RoundRobinDispatcher(ConcurrentMapping mapping, int[] vmIds, int[] vmCores, int[] vmGbs) {
+        int size = vmIds.length;
+        if (vmCores.length != size || vmGbs.length != size)
+            throw new IllegalArgumentException("Inconsistent batch lengths");
+
+        int minCores = Integer.MAX_VALUE;
+        int minGbs = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            if (vmIds[i] < 0 || vmIds[i] >= mapping.getTotalVms())
+                throw new IllegalArgumentException("Invalid VM id");
+            if (vmCores[i] < 0 || vmGbs[i] < 0)
+                throw new IllegalArgumentException("Invalid number of cores or GBs");
+            // the requests without resources need no PM
+            if (vmCores[i] == 0 && vmGbs[i] == 0)
+                continue;
+            minCores = Math.min(minCores, vmCores[i]);
+            minGbs = Math.min(minGbs, vmGbs[i]);
+        }
+
+        this.mapping = mapping;
+        this.totalPms = mapping.getTotalPms();
+        this.vmIds = vmIds;
+        this.vmCores = vmCores;
+        this.vmGbs = vmGbs;
+        this.minCores = minCores;
+        this.minGbs = minGbs;
+        this.fullPms = new AtomicLongArray((totalPms + Long.SIZE - 1) / Long.SIZE);
+        this.pmIds = new int[size];
+        Arrays.fill(pmIds, -1);
+        for (int pmId = 0; pmId < totalPms; pmId++)
+            markIfFull(pmId);
+    }
+
+    /**
+     * Place the requests with the specified number of worker threads (with a single worker, the requests are placed in
+     * order, as by the sequential round robin).
+     * @param totalThreads the number of worker threads
+     * @return the id of the PM hosting each request, or -1 for the requests that could not be placed and for the requests
+     * without resources (which are not placed)
+     * @throws IllegalStateException if a worker failed (with its exception as the cause) or the dispatch was interrupted
+     */
+    int[] dispatch(int totalThreads) {
+        if (totalThreads <= 0)
+            throw new IllegalArgumentException("Invalid number of threads");
+
+        int totalWorkers = Math.min(totalThreads, Math.max(pmIds.length, 1));
+        if (totalWorkers == 1) {
+            runWorker(0, 1);
+            return pmIds;
+        }
+        List<Callable<Void>> workers = new ArrayList<>(totalWorkers);
+        for (int w = 0; w < totalWorkers; w++) {
+            int worker = w;
+            workers.add(() -> {
+                runWorker(worker, totalWorkers);
+                return null;
+            });
+        }
+        try (ExecutorService executor = Executors.newFixedThreadPool(totalWorkers)) {
+            // a failed worker fails the whole dispatch
+            for (Future<Void> result : executor.invokeAll(workers))
+                result.get();
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Round robin dispatch failed", e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Round robin dispatch interrupted", e);
+        }
+        return pmIds;
+    }
+
+    private void runWorker(int worker, int totalWorkers) {
+        int firstRequest = (int) ((long) pmIds.length * worker / totalWorkers);
+        int lastRequest = (int) ((long) pmIds.length * (worker + 1) / totalWorkers);
+        int shardStart = (int) ((long) totalPms * worker / totalWorkers);
+        int shardEnd = (int) ((long) totalPms * (worker + 1) / totalWorkers);
+
+        int cursor = shardStart;
+        for (int i = firstRequest; i < lastRequest; i++) {
+            if (vmCores[i] == 0 && vmGbs[i] == 0)
+                continue;
+
+            int pmId = place(i, cursor);
+            pmIds[i] = pmId;
+            // the cursor moves past the PM used when it is in the shard (wrapping around at the end of the shard)
+            if (pmId >= shardStart && pmId < shardEnd)
+                cursor = pmId + 1 < shardEnd ? pmId + 1 : shardStart;
+        }
+    }
+
+    /**
+     * Place a request on the first PM that can host it, from the cursor of the worker to the last PM, then from the first one.
+     * @param request the request index
+     * @param cursor the PM to start from
+     * @return the id of the PM hosting the request, or -1 if no PM can host it
+     */
+    private int place(int request, int cursor) {
+        int vmId = vmIds[request];
+        int cores = vmCores[request];
+        int gbs = vmGbs[request];
+        int start = cursor < totalPms ? cursor : 0;
+        for (int segment = 0; segment < 2; segment++) {
+            int to = segment == 0 ? totalPms : start;
+            for (int pmId = nextNotFull(segment == 0 ? start : 0, to); pmId != -1; pmId = nextNotFull(pmId + 1, to)) {
+                int outcome = mapping.placeOn(vmId, pmId, cores, gbs);
+                if (outcome == ConcurrentMapping.VM_FULL)
+                    return -1;
+                if (outcome == ConcurrentMapping.VM_SATURATED) {
+                    // only the PMs already hosting the VM can take the request: next fit from the last one used by the VM
+                    return mapping.place(vmId, cores, gbs);
+                }
+
+                markIfFull(pmId);
+                if (outcome == ConcurrentMapping.PLACED)
+                    return pmId;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the first PM not marked full in a range of PMs.
+     * @param fromPmId the first PM id of the range (inclusive)
+     * @param toPmId the last PM id of the range (exclusive)
+     * @return the PM id, or -1 if all the PMs of the range are full
+     */
+    private int nextNotFull(int fromPmId, int toPmId) {
+        while (fromPmId < toPmId) {
+            int word = fromPmId / Long.SIZE;
+            long notFull = ~fullPms.get(word) & (-1L << fromPmId);
+            if (notFull != 0) {
+                int pmId = word * Long.SIZE + Long.numberOfTrailingZeros(notFull);
+                return pmId < toPmId ? pmId : -1;
+            }
+            fromPmId = (word + 1) * Long.SIZE;
+        }
+        return -1;
+    }
+
+    private void markIfFull(int pmId) {
+        if (!mapping.hasRoom(pmId, minCores, minGbs))
+            fullPms.getAndAccumulate(pmId / Long.SIZE, 1L << pmId, (word, bit) -> word | bit);
+    }
+}
@@ -0,0 +1,112 @@
+package simulation;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Priority queue of simulation events keyed by time: a binary heap stored in primitive arrays (time, scheduling order and
+ * event word of each entry), so that scheduling and polling events allocate nothing. Events with the same time are
+ * returned in scheduling order, which keeps the simulation deterministic.
+ */
+class EventQueue {
+    private double[] times;
+    private long[] sequences;
+    private long[] events;
+    private int size = 0;
+    private long nextSequence = 0;
+
+    EventQueue(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        this.times = new double[capacity];
+        this.sequences = new long[capacity];
+        this.events = new long[capacity];
+    }
+
+    /**
+     * Schedule an event.
+     * @param time the time of the event
+     * @param event the event word
+     */
+    void schedule(double time, long event) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, 2 * size);
+            sequences = Arrays.copyOf(sequences, 2 * size);
+            events = Arrays.copyOf(events, 2 * size);
+        }
+        siftUp(size++, time, nextSequence++, event);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the time of the earliest event.
+     * @return the time
+     */
+    double peekTime() {
+        if (size == 0)
+            throw new NoSuchElementException("No scheduled events");
+        return times[0];
+    }
+
+    /**
+     * Remove the earliest event (its time is given by peekTime before the call).
+     * @return the event word
+     */
+    long poll() {
+        if (size == 0)
+            throw new NoSuchElementException("No scheduled events");
+
+        long event = events[0];
+        if (--size > 0)
+            siftDown(0, times[size], sequences[size], events[size]);
+        return event;
+    }
+
+    private void siftUp(int position, double time, long sequence, long event) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!before(time, sequence, times[parent], sequences[parent]))
+                break;
+            move(parent, position);
+            position = parent;
+        }
+        set(position, time, sequence, event);
+    }
+
+    private void siftDown(int position, double time, long sequence, long event) {
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && before(times[child + 1], sequences[child + 1], times[child], sequences[child]))
+                child++;
+            if (!before(times[child], sequences[child], time, sequence))
+                break;
+            move(child, position);
+            position = child;
+        }
+        set(position, time, sequence, event);
+    }
+
+    private static boolean before(double time, long sequence, double otherTime, long otherSequence) {
+        return time < otherTime || (time == otherTime && sequence < otherSequence);
+    }
+
+    private void move(int from, int to) {
+        times[to] = times[from];
+        sequences[to] = sequences[from];
+        events[to] = events[from];
+    }
+
+    private void set(int position, double time, long sequence, long event) {
+        times[position] = time;
+        sequences[position] = sequence;
+        events[position] = event;
+    }
+}
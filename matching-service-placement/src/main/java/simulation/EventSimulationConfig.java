@@ -0,0 +1,38 @@
+package simulation;
+
+/**
+ * Parameters of a discrete-event simulation.
+ * @param horizon the simulated time (in seconds)
+ * @param arrivalRate the UE arrival rate (UEs per second)
+ * @param serviceTimePerTaskUnit the mean time (in seconds) a placement is held per unit of offloaded task size
+ * @param pmIdlePower the power of a powered on PM with no running tasks
+ * @param pmBootEnergy the energy spent each time a PM is powered on
+ * @param pmIdleTimeout the time (in seconds) after which an idle PM is powered off
+ * @param matchingInterval the time (in seconds) between two runs of the matching algorithm (0 to run it at each arrival)
+ * @param seed the seed of the random arrivals and service times
+ */
+public record EventSimulationConfig(double horizon, double arrivalRate, double serviceTimePerTaskUnit, double pmIdlePower,
+                                    double pmBootEnergy, double pmIdleTimeout, double matchingInterval, long seed) {
+
+    public EventSimulationConfig {
+        if (horizon <= 0 || arrivalRate <= 0)
+            throw new IllegalArgumentException("Invalid horizon or arrival rate");
+        if (serviceTimePerTaskUnit < 0 || pmIdlePower < 0 || pmBootEnergy < 0 || pmIdleTimeout < 0 || matchingInterval < 0)
+            throw new IllegalArgumentException("Invalid service time, PM power or time interval");
+    }
+
+    public static EventSimulationConfig defaultConfig(long seed) {
+        return new EventSimulationConfig(3600, 1000, 1e-2, 50, 500, 30, 1, seed);
+    }
+
+    /**
+     * Default parameters for the matching placers: a matching run costs far more than an online placement, and grows faster
+     * than linearly with the requests waiting for it, so the requests are matched every 10 ms (about 10 arrivals per run)
+     * and the simulated time is shortened to a few PM idle timeouts.
+     * @param seed the seed of the random arrivals and service times
+     * @return the parameters
+     */
+    public static EventSimulationConfig defaultMatchingConfig(long seed) {
+        return new EventSimulationConfig(120, 1000, 1e-2, 50, 500, 30, 0.01, seed);
+    }
+}
@@ -0,0 +1,23 @@
+package simulation;
+
+/**
+ * Results of a discrete-event simulation: processed events, placed and blocked UE arrivals, PM power cycles, energy
+ * integrated over the simulated time and speed of the simulation (events per second of wall-clock time).
+ */
+public record EventSimulationReport(String placer, long events, long arrivals, long placed, long blocked, long pmPowerOns,
+                                    long pmPowerOffs, double simulatedTime, double energy, double elapsedSeconds) {
+
+    public double averagePower() {
+        return simulatedTime == 0 ? 0 : energy / simulatedTime;
+    }
+
+    public double eventsPerSecond() {
+        return elapsedSeconds == 0 ? 0 : events / elapsedSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: events=%d, arrivals=%d, placed=%d, blocked=%d, PM power on/off=%d/%d, simulated=%.0fs, energy=%.4g, avg power=%.4g, elapsed=%.3fs, %.0f events/s",
+                placer, events, arrivals, placed, blocked, pmPowerOns, pmPowerOffs, simulatedTime, energy, averagePower(), elapsedSeconds, eventsPerSecond());
+    }
+}
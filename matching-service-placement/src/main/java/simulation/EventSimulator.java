@@ -0,0 +1,352 @@
+package simulation;
+
+import algorithm.AuctionAlg;
+import algorithm.GaleShapleyAlg;
+import algorithm.MatchingAlg;
+import algorithm.model.MatchingState;
+import algorithm.model.Preference;
+import algorithm.model.Ue2VmMapping;
+import model.PM;
+import service.MecSystemService;
+import service.PlacementService;
+import utils.TestSystemSetup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Discrete-event simulation of a time-varying MEC workload: UEs arrive as a Poisson process, hold the placed resources
+ * for the (exponential) service time of their offloaded task and leave, while PMs idle for longer than a timeout are
+ * powered off and powered on again by the next placement they receive.
+ * The energy is integrated over time from the power of the PMs: an idle power for each powered on PM, plus the power of
+ * each running task (compute speed of the PM times the placed cores and the energy per core operation of the VM, as in
+ * EnergyConsumptionService), plus a boot energy each time a PM is powered on.
+ * Each arrival is a copy of a UE/VM mapping of the system picked at random, placed either by the online placer
+ * (PlacementService) when it arrives, or by a matching algorithm run at matching events (every matchingInterval, or at
+ * each arrival),
+ * warm-started from its previous matching so that each run only matches the arrivals of the interval.
+ * Events are kept in an EventQueue of primitive event words, and only the next arrival is scheduled ahead, so the queue
+ * holds at most one event per running task and per PM.
+ */
+public class EventSimulator {
+    // event types, stored in the high bits of the event words
+    private static final int UE_ARRIVAL = 0;
+    private static final int TASK_COMPLETION = 1;
+    private static final int PM_POWER_OFF = 2;
+    private static final int MATCHING = 3;
+
+    private final MecSystemService mecService;
+    private final PlacementService placementService;
+    private final EventSimulationConfig config;
+    private final Supplier<MatchingAlg> algorithm;
+
+    // request templates (the UE/VM mappings of the system), as primitive arrays
+    private Ue2VmMapping[] templates;
+    private int[] templateVms;
+    private int[] templateCores;
+    private int[] templateGbs;
+    private double[] templateServiceTimes;
+    private double[] templatePowers;
+
+    // PM state
+    private double[] pmOps;
+    private int[] pmRunningTasks;
+    private int[] pmIdleEpochs;
+    private boolean[] pmOn;
+    private int totalPmsOn;
+    private int totalRunningTasks;
+    private double taskPower;
+
+    private EventQueue queue;
+    private SplittableRandom random;
+    private double energy;
+    private long pmPowerOns;
+    private long pmPowerOffs;
+    private long placed;
+    private long blocked;
+
+    // matching mode: active requests (running or waiting) keyed by request id, and the waiting ones
+    private HashMap<Integer, Integer> requestTemplates;
+    private BitSet waitingRequests;
+    private BitSet finishedRequests;
+    private MatchingState matchingState;
+    private int nextRequestId;
+
+    /**
+     * Simulation with the online placer.
+     * @param config the simulation parameters
+     */
+    public EventSimulator(EventSimulationConfig config) {
+        this(config, null);
+    }
+
+    /**
+     * Simulation with a matching algorithm run at matching events.
+     * @param config the simulation parameters
+     * @param algorithm the matching algorithm (a new instance for each run), which must support warm start, or null for the online placer
+     */
+    public EventSimulator(EventSimulationConfig config, Supplier<MatchingAlg> algorithm) {
+        if (algorithm != null && !algorithm.get().supportsWarmStart())
+            throw new IllegalArgumentException("The matching algorithm must support warm start");
+        this.mecService = MecSystemService.getInstance();
+        this.placementService = PlacementService.getInstance();
+        this.config = config;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Run the simulation from an empty placement (the mapping of the system is reset) up to the horizon.
+     * The UE/VM mappings of the system are the request templates; in matching mode they are replaced by the active
+     * requests during the run and restored afterwards.
+     * @return the report of the simulation
+     */
+    public EventSimulationReport run() {
+        ArrayList<Ue2VmMapping> mappings = mecService.getUe2VmMappings();
+        if (mappings.isEmpty())
+            throw new IllegalArgumentException("No UE/VM mappings to be used as requests");
+        init(mappings);
+
+        long totalEvents = 0;
+        long arrivals = 0;
+        double lastTime = 0;
+        long startTime = System.nanoTime();
+
+        queue.schedule(nextArrival(0), event(UE_ARRIVAL, 0, 0));
+        if (algorithm != null && config.matchingInterval() > 0)
+            queue.schedule(config.matchingInterval(), event(MATCHING, 0, 0));
+        // idle PMs are powered off after the timeout, unless a task is placed on them before
+        for (int pmId = 0; pmId < pmOn.length; pmId++)
+            queue.schedule(config.pmIdleTimeout(), event(PM_POWER_OFF, pmId, 0));
+
+        while (!queue.isEmpty() && queue.peekTime() <= config.horizon()) {
+            double time = queue.peekTime();
+            long event = queue.poll();
+            totalEvents++;
+            energy += (totalPmsOn * config.pmIdlePower() + taskPower) * (time - lastTime);
+            lastTime = time;
+
+            int pmId = (int) (event >>> 32) & 0xFFFFFF;
+            int value = (int) event;
+            switch ((int) (event >>> 56)) {
+                case UE_ARRIVAL -> {
+                    arrivals++;
+                    int template = random.nextInt(templates.length);
+                    if (algorithm == null) {
+                        placeOnline(time, template);
+                    }
+                    else {
+                        addRequest(template);
+                        if (config.matchingInterval() == 0)
+                            runMatching(time);
+                    }
+                    queue.schedule(nextArrival(time), event(UE_ARRIVAL, 0, 0));
+                }
+                case TASK_COMPLETION -> completeTask(time, pmId, value);
+                case PM_POWER_OFF -> {
+                    if (pmOn[pmId] && pmRunningTasks[pmId] == 0 && pmIdleEpochs[pmId] == value) {
+                        pmOn[pmId] = false;
+                        totalPmsOn--;
+                        pmPowerOffs++;
+                    }
+                }
+                case MATCHING -> {
+                    runMatching(time);
+                    queue.schedule(time + config.matchingInterval(), event(MATCHING, 0, 0));
+                }
+                default -> throw new IllegalStateException("Unknown event type");
+            }
+        }
+        energy += (totalPmsOn * config.pmIdlePower() + taskPower) * (config.horizon() - lastTime);
+        double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+
+        if (algorithm != null) {
+            mappings.clear();
+            mappings.addAll(Arrays.asList(templates));
+        }
+        mecService.resetMapping();
+        String placer = algorithm == null ? "Online placer" : algorithm.get().getName();
+        return new EventSimulationReport(placer, totalEvents, arrivals, placed, blocked, pmPowerOns, pmPowerOffs,
+                config.horizon(), energy, elapsedSeconds);
+    }
+
+    private void init(ArrayList<Ue2VmMapping> mappings) {
+        templates = mappings.toArray(new Ue2VmMapping[0]);
+        templateVms = new int[templates.length];
+        templateCores = new int[templates.length];
+        templateGbs = new int[templates.length];
+        templateServiceTimes = new double[templates.length];
+        templatePowers = new double[templates.length];
+        for (int i = 0; i < templates.length; i++) {
+            Ue2VmMapping mapping = templates[i];
+            templateVms[i] = mapping.getVmId();
+            templateCores[i] = mapping.getCores();
+            templateGbs[i] = mapping.getMemory();
+            templateServiceTimes[i] = mecService.getUE(mapping.getUeId()).getOffloadedTaskSize() * config.serviceTimePerTaskUnit();
+            // power of the task without the compute speed of its PM
+            templatePowers[i] = mapping.getCores() * mecService.getVM(mapping.getVmId()).getEnergyConsumptionPerCoreOps();
+        }
+
+        int totalPms = mecService.getNumberOfPMs();
+        pmOps = new double[totalPms];
+        for (PM pm : mecService.getPMs())
+            pmOps[pm.getId()] = pm.getCoreComputeOpsPerSec();
+        pmRunningTasks = new int[totalPms];
+        pmIdleEpochs = new int[totalPms];
+        pmOn = new boolean[totalPms];
+        Arrays.fill(pmOn, true);
+        totalPmsOn = totalPms;
+        totalRunningTasks = 0;
+        taskPower = 0;
+
+        queue = new EventQueue(totalPms + 1024);
+        random = new SplittableRandom(config.seed());
+        energy = 0;
+        pmPowerOns = 0;
+        pmPowerOffs = 0;
+        placed = 0;
+        blocked = 0;
+
+        mecService.resetMapping();
+        if (algorithm == null) {
+            placementService.refresh();
+        }
+        else {
+            mappings.clear();
+            requestTemplates = new HashMap<>();
+            waitingRequests = new BitSet();
+            finishedRequests = new BitSet();
+            matchingState = null;
+            nextRequestId = 0;
+        }
+    }
+
+    private double nextArrival(double time) {
+        return time - Math.log(1 - random.nextDouble()) / config.arrivalRate();
+    }
+
+    private double serviceTime(int template) {
+        return -Math.log(1 - random.nextDouble()) * templateServiceTimes[template];
+    }
+
+    private static long event(int type, int pmId, int value) {
+        return ((long) type << 56) | ((long) pmId << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    private void placeOnline(double time, int template) {
+        int pmId = placementService.place(templateVms[template], templateCores[template], templateGbs[template]);
+        if (pmId == -1) {
+            blocked++;
+            return;
+        }
+        startTask(time, pmId, template, template);
+    }
+
+    /**
+     * Start a task on a PM (powering the PM on if needed) and schedule its completion.
+     * @param value the template (online placer) or the request id (matching mode) of the task
+     */
+    private void startTask(double time, int pmId, int template, int value) {
+        placed++;
+        if (!pmOn[pmId]) {
+            pmOn[pmId] = true;
+            totalPmsOn++;
+            pmPowerOns++;
+            energy += config.pmBootEnergy();
+        }
+        pmRunningTasks[pmId]++;
+        totalRunningTasks++;
+        taskPower += pmOps[pmId] * templatePowers[template];
+        queue.schedule(time + serviceTime(template), event(TASK_COMPLETION, pmId, value));
+    }
+
+    private void completeTask(double time, int pmId, int value) {
+        int template = value;
+        if (algorithm == null) {
+            placementService.release(templateVms[template], pmId, templateCores[template], templateGbs[template]);
+        }
+        else {
+            // the resources are released by the next matching run, as the request is no longer mapped
+            template = requestTemplates.remove(value);
+            finishedRequests.set(value);
+        }
+        // the sum is reset when no task runs, so that rounding errors do not accumulate
+        taskPower = --totalRunningTasks == 0 ? 0 : taskPower - pmOps[pmId] * templatePowers[template];
+        if (--pmRunningTasks[pmId] == 0)
+            queue.schedule(time + config.pmIdleTimeout(), event(PM_POWER_OFF, pmId, ++pmIdleEpochs[pmId]));
+    }
+
+    private void addRequest(int template) {
+        // request ids follow the arrival order, and replace the UE ids in the mappings of the matching runs
+        int requestId = nextRequestId++;
+        Ue2VmMapping mapping = templates[template];
+        requestTemplates.put(requestId, template);
+        waitingRequests.set(requestId);
+        mecService.addUe2VmMapping(new Ue2VmMapping(requestId, mapping.getVmId(), mapping.getCores(), mapping.getMemory()));
+    }
+
+    /**
+     * Match the waiting requests (warm start from the previous matching, so the running requests keep their PM): the
+     * matched ones start their task, the others are blocked and leave.
+     */
+    private void runMatching(double time) {
+        if (waitingRequests.isEmpty())
+            return;
+        ArrayList<Ue2VmMapping> mappings = mecService.getUe2VmMappings();
+        mappings.removeIf(mapping -> finishedRequests.get(mapping.getUeId()));
+
+        MatchingAlg alg = algorithm.get();
+        alg.setInitialState(matchingState);
+        alg.run(false);
+        matchingState = alg.getMatchingState();
+
+        for (Preference match : matchingState.getMatches()) {
+            int requestId = match.getUe2VmMapping().getUeId();
+            if (waitingRequests.get(requestId)) {
+                waitingRequests.clear(requestId);
+                startTask(time, match.getReceiver(), requestTemplates.get(requestId), requestId);
+            }
+        }
+        for (int requestId = waitingRequests.nextSetBit(0); requestId >= 0; requestId = waitingRequests.nextSetBit(requestId + 1)) {
+            requestTemplates.remove(requestId);
+            finishedRequests.set(requestId);
+            blocked++;
+        }
+        waitingRequests.clear();
+    }
+
+    /**
+     * @param args the placer ("online", "gale-shapley" or "auction"), the number of PMs, VMs and UEs (request templates),
+     *             the simulated time, the arrival rate, the seed and the matching interval (see defaultConfig and
+     *             defaultMatchingConfig of EventSimulationConfig for the defaults)
+     */
+    public static void main(String[] args) {
+        String placer = args.length > 0 ? args[0] : "online";
+        int totalPms = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int totalVms = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int totalUes = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : 0;
+        EventSimulationConfig defaults = placer.equals("online") ? EventSimulationConfig.defaultConfig(seed) : EventSimulationConfig.defaultMatchingConfig(seed);
+        double horizon = args.length > 4 ? Double.parseDouble(args[4]) : defaults.horizon();
+        double arrivalRate = args.length > 5 ? Double.parseDouble(args[5]) : defaults.arrivalRate();
+        double matchingInterval = args.length > 7 ? Double.parseDouble(args[7]) : defaults.matchingInterval();
+        EventSimulationConfig config = new EventSimulationConfig(horizon, arrivalRate, defaults.serviceTimePerTaskUnit(),
+                defaults.pmIdlePower(), defaults.pmBootEnergy(), defaults.pmIdleTimeout(), matchingInterval, defaults.seed());
+
+        Supplier<MatchingAlg> algorithm = switch (placer) {
+            case "online" -> null;
+            case "gale-shapley" -> () -> new GaleShapleyAlg(true, true, false);
+            case "auction" -> AuctionAlg::new;
+            default -> throw new IllegalArgumentException("Unknown placer: " + placer);
+        };
+
+        MecSystemService mecService = MecSystemService.getInstance(0.5);
+        mecService.resetSystem();
+        mecService.setTotalDurationTime(0.5);
+        TestSystemSetup.setupTestInstance(config.seed(), totalPms, totalVms, totalUes);
+        System.out.println(new EventSimulator(config, algorithm).run());
+    }
+}
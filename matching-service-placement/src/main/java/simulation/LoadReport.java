@@ -0,0 +1,15 @@
+package simulation;
+
+/**
+ * Results of a load simulation: throughput of the placement requests and percentiles of their end-to-end latency
+ * (uplink transmission plus placement), in milliseconds.
+ */
+public record LoadReport(int totalUes, int totalRequests, int placedRequests, double elapsedSeconds,
+                         double throughput, double p50Millis, double p99Millis, double p999Millis) {
+
+    @Override
+    public String toString() {
+        return String.format("UEs=%d, requests=%d, placed=%d, elapsed=%.3fs, throughput=%.0f req/s, p50=%.3fms, p99=%.3fms, p999=%.3fms",
+                totalUes, totalRequests, placedRequests, elapsedSeconds, throughput, p50Millis, p99Millis, p999Millis);
+    }
+}
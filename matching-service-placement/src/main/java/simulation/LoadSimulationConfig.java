@@ -0,0 +1,21 @@
+package simulation;
+
+/**
+ * Parameters of a load simulation.
+ * @param requestsPerUe the number of offloading requests issued by each UE
+ * @param uplinkRatePerWatt the uplink rate of the UEs per watt of transmit power (task size units per second)
+ * @param serviceTimePerTaskUnit the time (in seconds) a placement is held per unit of offloaded task size
+ */
+public record LoadSimulationConfig(int requestsPerUe, double uplinkRatePerWatt, double serviceTimePerTaskUnit) {
+
+    public LoadSimulationConfig {
+        if (requestsPerUe <= 0)
+            throw new IllegalArgumentException("Invalid number of requests per UE");
+        if (uplinkRatePerWatt <= 0 || serviceTimePerTaskUnit < 0)
+            throw new IllegalArgumentException("Invalid uplink rate or service time");
+    }
+
+    public static LoadSimulationConfig defaultConfig() {
+        return new LoadSimulationConfig(2, 1e5, 1e-4);
+    }
+}
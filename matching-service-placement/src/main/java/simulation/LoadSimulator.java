@@ -0,0 +1,129 @@
+package simulation;
+
+import algorithm.model.Ue2VmMapping;
+import model.UE;
+import service.MecSystemService;
+import service.PlacementService;
+import utils.TestSystemSetup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load simulator of the placement layer: every UE is a virtual thread that sends its offloaded task over the uplink,
+ * submits a placement request to the PlacementService, holds the placed resources for the service time and releases them.
+ */
+public class LoadSimulator {
+    private final MecSystemService mecService;
+    private final PlacementService placementService;
+    private final LoadSimulationConfig config;
+
+    public LoadSimulator(LoadSimulationConfig config) {
+        this.mecService = MecSystemService.getInstance();
+        this.placementService = PlacementService.getInstance();
+        this.config = config;
+    }
+
+    /**
+     * Run the simulation with all the UEs mapped to a VM, starting all the UEs at the same time.
+     * @return the load report of the simulation
+     */
+    public LoadReport run() {
+        List<Ue2VmMapping> ue2VmMappings = new ArrayList<>(mecService.getUe2VmMappings());
+        placementService.refresh();
+        int totalRequests = ue2VmMappings.size() * config.requestsPerUe();
+
+        // latencies are written by the UE threads in a preallocated array, to keep the measurement allocation-free
+        long[] latencies = new long[totalRequests];
+        AtomicInteger completedRequests = new AtomicInteger();
+        AtomicInteger placedRequests = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        long startTime;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Ue2VmMapping ue2VmMapping : ue2VmMappings) {
+                UE ue = mecService.getUE(ue2VmMapping.getUeId());
+                executor.submit(() -> {
+                    start.await();
+                    simulateUe(ue, ue2VmMapping, latencies, completedRequests, placedRequests);
+                    return null;
+                });
+            }
+
+            startTime = System.nanoTime();
+            start.countDown();
+        }
+        // closing the executor waits for all the UE threads to complete
+        long elapsed = System.nanoTime() - startTime;
+
+        int completed = completedRequests.get();
+        Arrays.sort(latencies, 0, completed);
+        double elapsedSeconds = elapsed / 1e9;
+        return new LoadReport(ue2VmMappings.size(), completed, placedRequests.get(), elapsedSeconds,
+                completed / elapsedSeconds, percentileMillis(latencies, completed, 0.5),
+                percentileMillis(latencies, completed, 0.99), percentileMillis(latencies, completed, 0.999));
+    }
+
+    private void simulateUe(UE ue, Ue2VmMapping ue2VmMapping, long[] latencies, AtomicInteger completedRequests, AtomicInteger placedRequests) throws InterruptedException {
+        // uplink transmission time of the offloaded task, given the transmit power of the UE
+        Duration transmissionTime = seconds(ue.getOffloadedTaskSize() / (config.uplinkRatePerWatt() * ue.getTransmitPower()));
+        Duration serviceTime = seconds(ue.getOffloadedTaskSize() * config.serviceTimePerTaskUnit());
+        int vmId = ue2VmMapping.getVmId();
+        int cores = ue2VmMapping.getCores();
+        int gbs = ue2VmMapping.getMemory();
+
+        for (int i = 0; i < config.requestsPerUe(); i++) {
+            long requestTime = System.nanoTime();
+            Thread.sleep(transmissionTime);
+            int pmId = placementService.place(vmId, cores, gbs);
+            latencies[completedRequests.getAndIncrement()] = System.nanoTime() - requestTime;
+
+            if (pmId != -1) {
+                placedRequests.incrementAndGet();
+                Thread.sleep(serviceTime);
+                placementService.release(vmId, pmId, cores, gbs);
+            }
+        }
+    }
+
+    private static Duration seconds(double seconds) {
+        return Duration.ofNanos((long) (seconds * 1e9));
+    }
+
+    private static double percentileMillis(long[] sortedLatencies, int size, double percentile) {
+        if (size == 0)
+            return 0;
+        int index = (int) Math.ceil(percentile * size) - 1;
+        return sortedLatencies[Math.max(index, 0)] / 1e6;
+    }
+
+    /**
+     * Run the simulation with a growing number of UEs (e.g. 1000 10000 100000), on a fixed set of PMs and VMs.
+     * @param args the UE counts to be simulated
+     */
+    public static void main(String[] args) {
+        int[] ueCounts = args.length > 0 ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray() : new int[]{1000, 10000, 100000};
+        long seed = new Random().nextLong();
+
+        MecSystemService mecService = MecSystemService.getInstance(0.5);
+        TestSystemSetup.setupTestInstance(seed, 500, 500, 0);
+        LoadSimulator simulator = new LoadSimulator(LoadSimulationConfig.defaultConfig());
+
+        for (int totalUes : ueCounts) {
+            // UEs are only added, so that each step extends the population of the previous one
+            int newUes = totalUes - mecService.getNumberOfUEs();
+            if (newUes > 0)
+                TestSystemSetup.addTestUes(seed + totalUes, newUes);
+
+            mecService.resetMapping();
+            System.out.println(simulator.run());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package simulation;
+
+import model.PM;
+import service.MecSystemService;
+import service.PlacementService;
+import utils.TestSystemSetup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Stress check of the PlacementService: many threads place and release random requests at the same time, while the
+ * capacity of the PMs is checked continuously. At the end, the resources held by the threads must match the mapping
+ * exactly, both in the concurrent mapping and in the system mapping after the commit.
+ */
+public class PlacementStressCheck {
+    private static final int OPERATIONS_PER_THREAD = 200_000;
+    private static final int MAX_HELD_REQUESTS = 16;
+
+    private final MecSystemService mecService;
+    private final PlacementService placementService;
+
+    public PlacementStressCheck() {
+        this.mecService = MecSystemService.getInstance();
+        this.placementService = PlacementService.getInstance();
+    }
+
+    /**
+     * Run the check with the specified number of threads.
+     * @param totalThreads the number of threads placing and releasing requests
+     * @param seed the seed of the random number generators
+     * @return the number of invariant violations found
+     */
+    public int run(int totalThreads, long seed) throws InterruptedException {
+        placementService.refresh();
+
+        List<List<int[]>> heldRequests = new ArrayList<>(totalThreads);
+        List<Thread> threads = new ArrayList<>(totalThreads);
+        for (int t = 0; t < totalThreads; t++) {
+            List<int[]> held = new ArrayList<>(MAX_HELD_REQUESTS);
+            heldRequests.add(held);
+            Random rand = new Random(seed + t);
+            threads.add(new Thread(() -> placeAndRelease(rand, held)));
+        }
+
+        // check the PM capacity while the threads are running
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger violations = new AtomicInteger();
+        Thread monitor = new Thread(() -> {
+            while (running.get())
+                violations.addAndGet(checkPmCapacity());
+        });
+        monitor.start();
+
+        long startTime = System.nanoTime();
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+        double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+        running.set(false);
+        monitor.join();
+
+        violations.addAndGet(checkHeldResources(heldRequests));
+
+        // release everything: the system must be empty again
+        for (List<int[]> held : heldRequests) {
+            for (int[] request : held)
+                placementService.release(request[0], request[1], request[2], request[3]);
+            held.clear();
+        }
+        violations.addAndGet(checkHeldResources(heldRequests));
+
+        System.out.printf("threads=%d, throughput=%.0f ops/s, violations=%d%n", totalThreads,
+                totalThreads * (double) OPERATIONS_PER_THREAD / elapsedSeconds, violations.get());
+        return violations.get();
+    }
+
+    private void placeAndRelease(Random rand, List<int[]> held) {
+        int totalVms = mecService.getNumberOfVMs();
+        for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+            if (held.size() == MAX_HELD_REQUESTS || (!held.isEmpty() && rand.nextBoolean())) {
+                int[] request = held.remove(rand.nextInt(held.size()));
+                placementService.release(request[0], request[1], request[2], request[3]);
+            }
+            else {
+                int vmId = rand.nextInt(totalVms);
+                int cores = rand.nextInt(1, 4);
+                int gbs = rand.nextInt(1, 4);
+                int pmId = placementService.place(vmId, cores, gbs);
+                if (pmId != -1)
+                    held.add(new int[]{vmId, pmId, cores, gbs});
+            }
+        }
+    }
+
+    private int checkPmCapacity() {
+        int violations = 0;
+        for (int pmId = 0; pmId < mecService.getNumberOfPMs(); pmId++) {
+            PM pm = mecService.getPM(pmId);
+            if (placementService.getUsedCoresByPm(pmId) > pm.getTotCores() || placementService.getUsedGbByPm(pmId) > pm.getTotMemoryGB()
+                    || placementService.getTotVmsHostedByPm(pmId) > pm.getMaxVmsHosted())
+                violations++;
+        }
+        return violations;
+    }
+
+    private int checkHeldResources(List<List<int[]>> heldRequests) {
+        int totalVms = mecService.getNumberOfVMs();
+        int totalPms = mecService.getNumberOfPMs();
+        int[][] heldCores = new int[totalVms][totalPms];
+        int[][] heldGbs = new int[totalVms][totalPms];
+        for (List<int[]> held : heldRequests) {
+            for (int[] request : held) {
+                heldCores[request[0]][request[1]] += request[2];
+                heldGbs[request[0]][request[1]] += request[3];
+            }
+        }
+
+        // the same resources must be in the concurrent mapping and, after the commit, in the system mapping
+        placementService.commit();
+        int violations = checkPmCapacity();
+        for (int pmId = 0; pmId < totalPms; pmId++) {
+            int cores = 0, gbs = 0, vms = 0;
+            for (int vmId = 0; vmId < totalVms; vmId++) {
+                cores += heldCores[vmId][pmId];
+                gbs += heldGbs[vmId][pmId];
+                if (heldCores[vmId][pmId] > 0 || heldGbs[vmId][pmId] > 0)
+                    vms++;
+                if (placementService.getVmCores2Pm(vmId, pmId) != heldCores[vmId][pmId] || mecService.getVmCores2Pm(vmId, pmId) != heldCores[vmId][pmId]
+                        || placementService.getVmGb2Pm(vmId, pmId) != heldGbs[vmId][pmId] || mecService.getVmGb2Pm(vmId, pmId) != heldGbs[vmId][pmId])
+                    violations++;
+            }
+            PM pm = mecService.getPM(pmId);
+            if (placementService.getUsedCoresByPm(pmId) != cores || pm.getTotCores() - mecService.getRemainingCoresInPm(pmId) != cores)
+                violations++;
+            if (placementService.getUsedGbByPm(pmId) != gbs || pm.getTotMemoryGB() - mecService.getRemainingGbsInPm(pmId) != gbs)
+                violations++;
+            if (placementService.getTotVmsHostedByPm(pmId) != vms || mecService.getTotVmsHostedByPm(pmId) != vms)
+                violations++;
+        }
+        return violations;
+    }
+
+    /**
+     * Run the check with a growing number of threads (by default from 1 to twice the number of available processors).
+     * @param args the thread counts to be checked
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = 2 * Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = args.length > 0 ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : IntStream.iterate(1, t -> t <= maxThreads, t -> t * 2).toArray();
+        long seed = new Random().nextLong();
+
+        MecSystemService.getInstance(0.5);
+        TestSystemSetup.setupTestInstance(seed, 200, 200, 0);
+        PlacementStressCheck check = new PlacementStressCheck();
+
+        int violations = 0;
+        for (int totalThreads : threadCounts)
+            violations += check.run(totalThreads, seed);
+
+        System.out.println(violations == 0 ? "All invariants hold" : "Invariant violations: " + violations);
+        if (violations > 0)
+            System.exit(1);
+    }
+}
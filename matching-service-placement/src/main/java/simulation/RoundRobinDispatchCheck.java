@@ -0,0 +1,115 @@
+package simulation;
+
+import model.PM;
+import service.MecSystemService;
+import service.PlacementService;
+import utils.TestSystemSetup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Throughput and load spread of the concurrent round robin (PlacementService.placeRoundRobin) with a growing number of
+ * threads, on a batch of random requests. The placements must respect the PM capacity, and the resources of the placed
+ * requests must match the concurrent mapping exactly.
+ */
+public class RoundRobinDispatchCheck {
+    private static final int RUNS = 5;
+
+    private final MecSystemService mecService;
+    private final PlacementService placementService;
+
+    public RoundRobinDispatchCheck() {
+        this.mecService = MecSystemService.getInstance();
+        this.placementService = PlacementService.getInstance();
+    }
+
+    /**
+     * Dispatch the batch with the specified number of threads (best of a few runs, each on an empty concurrent mapping).
+     * @param totalThreads the number of threads
+     * @param vmIds the VM id of each request
+     * @param vmCores the number of cores of each request
+     * @param vmGbs the number of memory GBs of each request
+     * @return the number of invariant violations found
+     */
+    public int run(int totalThreads, int[] vmIds, int[] vmCores, int[] vmGbs) {
+        int[] pmIds = null;
+        double elapsedSeconds = Double.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            placementService.refresh();
+            long startTime = System.nanoTime();
+            pmIds = placementService.placeRoundRobin(vmIds, vmCores, vmGbs, totalThreads);
+            elapsedSeconds = Math.min(elapsedSeconds, (System.nanoTime() - startTime) / 1e9);
+        }
+
+        int totalPms = mecService.getNumberOfPMs();
+        long[] placedCores = new long[totalPms];
+        long[] placedGbs = new long[totalPms];
+        int placed = 0;
+        for (int i = 0; i < pmIds.length; i++) {
+            if (pmIds[i] != -1) {
+                placedCores[pmIds[i]] += vmCores[i];
+                placedGbs[pmIds[i]] += vmGbs[i];
+                placed++;
+            }
+        }
+
+        int violations = 0;
+        double totalLoad = 0;
+        double totalSquaredLoad = 0;
+        for (int pmId = 0; pmId < totalPms; pmId++) {
+            PM pm = mecService.getPM(pmId);
+            int usedCores = placementService.getUsedCoresByPm(pmId);
+            int usedGbs = placementService.getUsedGbByPm(pmId);
+            if (usedCores > pm.getTotCores() || usedGbs > pm.getTotMemoryGB() || placementService.getTotVmsHostedByPm(pmId) > pm.getMaxVmsHosted())
+                violations++;
+            if (usedCores != placedCores[pmId] || usedGbs != placedGbs[pmId])
+                violations++;
+
+            double load = Math.max((double) usedCores / pm.getTotCores(), (double) usedGbs / pm.getTotMemoryGB());
+            totalLoad += load;
+            totalSquaredLoad += load * load;
+        }
+        double meanLoad = totalLoad / totalPms;
+
+        System.out.printf("threads=%d, throughput=%.0f requests/s, placed=%d/%d, PM load mean %.3f, std dev %.3f, violations=%d%n",
+                totalThreads, pmIds.length / elapsedSeconds, placed, pmIds.length, meanLoad,
+                Math.sqrt(Math.max(totalSquaredLoad / totalPms - meanLoad * meanLoad, 0)), violations);
+        return violations;
+    }
+
+    /**
+     * Run the check with a growing number of threads (by default from 1 to twice the number of available processors).
+     * @param args the thread counts to be checked
+     */
+    public static void main(String[] args) {
+        int maxThreads = 2 * Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = args.length > 0 ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : IntStream.iterate(1, t -> t <= maxThreads, t -> t * 2).toArray();
+        long seed = new Random().nextLong();
+
+        // more VMs than PMs, so that the batch is bound by the PM capacity
+        MecSystemService mecService = MecSystemService.getInstance(0.5);
+        TestSystemSetup.setupTestInstance(seed, 1000, 5000, 0);
+        Random rand = new Random(seed);
+        int totalRequests = 8000;
+        int[] vmIds = new int[totalRequests];
+        int[] vmCores = new int[totalRequests];
+        int[] vmGbs = new int[totalRequests];
+        for (int i = 0; i < totalRequests; i++) {
+            vmIds[i] = rand.nextInt(mecService.getNumberOfVMs());
+            vmCores[i] = rand.nextInt(1, 4);
+            vmGbs[i] = rand.nextInt(1, 4);
+        }
+
+        RoundRobinDispatchCheck check = new RoundRobinDispatchCheck();
+        int violations = 0;
+        for (int totalThreads : threadCounts)
+            violations += check.run(totalThreads, vmIds, vmCores, vmGbs);
+
+        System.out.println(violations == 0 ? "All invariants hold" : "Invariant violations: " + violations);
+        if (violations > 0)
+            System.exit(1);
+    }
+}
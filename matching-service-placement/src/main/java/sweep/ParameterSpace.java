@@ -0,0 +1,138 @@
+package sweep;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Search space over the constructor parameters of a sweep target: either a grid (every combination of the listed values)
+ * or a random search (a number of samples drawn from the listed values or ranges). Parameters not in the space keep their default value.
+ */
+public class ParameterSpace {
+    private final SweepTarget target;
+    private final int samples; // 0 for a grid search
+    private final long seed;
+    private final HashMap<Integer, double[]> values;
+    private final HashMap<Integer, double[]> ranges;
+
+    private ParameterSpace(SweepTarget target, int samples, long seed) {
+        this.target = target;
+        this.samples = samples;
+        this.seed = seed;
+        this.values = new HashMap<>();
+        this.ranges = new HashMap<>();
+    }
+
+    /**
+     * Build a grid search space: every combination of the values of the parameters is a point of the space.
+     * @param target the sweep target
+     * @return the (empty) parameter space
+     */
+    public static ParameterSpace grid(SweepTarget target) {
+        return new ParameterSpace(target, 0, 0);
+    }
+
+    /**
+     * Build a random search space: each point of the space draws every parameter from its values or its range.
+     * @param target the sweep target
+     * @param samples the number of points of the space
+     * @param seed the seed of the random number generator
+     * @return the (empty) parameter space
+     */
+    public static ParameterSpace random(SweepTarget target, int samples, long seed) {
+        if (samples <= 0)
+            throw new IllegalArgumentException("Invalid number of samples");
+        return new ParameterSpace(target, samples, seed);
+    }
+
+    public SweepTarget getTarget() {
+        return target;
+    }
+
+    /**
+     * Set the values of a parameter.
+     * @param name the parameter name
+     * @param parameterValues the values of the parameter
+     * @return the parameter space
+     */
+    public ParameterSpace values(String name, double... parameterValues) {
+        if (parameterValues.length == 0)
+            throw new IllegalArgumentException("No values for parameter " + name);
+        int index = target.indexOf(name);
+        values.put(index, parameterValues.clone());
+        ranges.remove(index);
+        return this;
+    }
+
+    /**
+     * Set a boolean parameter to both false and true.
+     * @param name the parameter name
+     * @return the parameter space
+     */
+    public ParameterSpace flag(String name) {
+        return values(name, 0, 1);
+    }
+
+    /**
+     * Set the range of a parameter (only for random search spaces).
+     * @param name the parameter name
+     * @param min the minimum value of the parameter (inclusive)
+     * @param max the maximum value of the parameter (exclusive)
+     * @return the parameter space
+     */
+    public ParameterSpace range(String name, double min, double max) {
+        if (samples == 0)
+            throw new IllegalArgumentException("Ranges are only allowed in random search spaces");
+        if (min >= max)
+            throw new IllegalArgumentException("Invalid range for parameter " + name);
+        int index = target.indexOf(name);
+        ranges.put(index, new double[]{min, max});
+        values.remove(index);
+        return this;
+    }
+
+    /**
+     * Get all the points of the space.
+     * @return the parameter values of each point, in the order of the target parameters
+     */
+    public List<double[]> combinations() {
+        List<double[]> combinations = new ArrayList<>();
+        double[] defaults = target.getDefaultValues();
+
+        if (samples == 0) {
+            // mixed radix counter over the values of the parameters
+            int totalParameters = defaults.length;
+            int[] counters = new int[totalParameters];
+            while (true) {
+                double[] combination = defaults.clone();
+                for (int i = 0; i < totalParameters; i++) {
+                    if (values.containsKey(i))
+                        combination[i] = values.get(i)[counters[i]];
+                }
+                combinations.add(combination);
+
+                int i = totalParameters - 1;
+                while (i >= 0 && (!values.containsKey(i) || ++counters[i] == values.get(i).length)) {
+                    counters[i--] = 0;
+                }
+                if (i < 0)
+                    break;
+            }
+        }
+        else {
+            Random rand = new Random(seed);
+            for (int s = 0; s < samples; s++) {
+                double[] combination = defaults.clone();
+                for (int i = 0; i < combination.length; i++) {
+                    if (values.containsKey(i))
+                        combination[i] = values.get(i)[rand.nextInt(values.get(i).length)];
+                    else if (ranges.containsKey(i))
+                        combination[i] = rand.nextDouble(ranges.get(i)[0], ranges.get(i)[1]);
+                }
+                combinations.add(combination);
+            }
+        }
+        return combinations;
+    }
+}
@@ -0,0 +1,148 @@
+package sweep;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parameter sweep engine: runs an algorithm with every point of a parameter space on many seeded scenarios, in parallel,
+ * and streams the results (one CSV line per run) to a file as soon as they are available.
+ * Scenarios run in parallel worker processes (see SweepWorker); the combinations of a scenario run in the same worker,
+ * sharing the scenario precomputations (see ScenarioCache).
+ */
+public class ParameterSweep {
+    private final ParameterSpace space;
+    private final List<Long> scenarioSeeds;
+    private final int totalPms;
+    private final int totalVms;
+    private final int totalUes;
+    private final int parallelism;
+
+    public ParameterSweep(ParameterSpace space, List<Long> scenarioSeeds, int totalPms, int totalVms, int totalUes, int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("Invalid parallelism");
+        this.space = space;
+        this.scenarioSeeds = scenarioSeeds;
+        this.totalPms = totalPms;
+        this.totalVms = totalVms;
+        this.totalUes = totalUes;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Run the sweep, writing the results to a CSV file.
+     * @param output the path of the results file
+     * @return the number of runs
+     */
+    public int run(Path output) throws IOException, InterruptedException {
+        List<double[]> combinations = space.combinations();
+        SweepTarget target = space.getTarget();
+        AtomicInteger totalRuns = new AtomicInteger();
+
+        // the combinations are sent to the workers with their index
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < combinations.size(); i++) {
+            input.append(i);
+            for (double value : combinations.get(i))
+                input.append(',').append(value);
+            input.append('\n');
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+            writer.write("scenario,combination," + String.join(",", target.getParameterNames())
+                    + ",algorithm,allocatedUes,totalUes,allocatedVms,allocatedPms,energy,runtimeMs\n");
+            writer.flush();
+
+            List<Future<?>> scenarios = new ArrayList<>();
+            for (long scenarioSeed : scenarioSeeds) {
+                scenarios.add(executor.submit(() -> {
+                    runScenario(target, scenarioSeed, input.toString(), writer, totalRuns);
+                    return null;
+                }));
+            }
+            for (Future<?> scenario : scenarios) {
+                scenario.get();
+            }
+        }
+        catch (ExecutionException e) {
+            throw new IOException("Sweep failed", e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return totalRuns.get();
+    }
+
+    private void runScenario(SweepTarget target, long scenarioSeed, String input, Writer writer, AtomicInteger totalRuns) throws IOException, InterruptedException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process worker = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), SweepWorker.class.getName(),
+                target.name(), String.valueOf(totalPms), String.valueOf(totalVms), String.valueOf(totalUes), String.valueOf(scenarioSeed))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        try (Writer workerInput = worker.outputWriter()) {
+            workerInput.write(input);
+        }
+        try (BufferedReader workerOutput = new BufferedReader(new InputStreamReader(worker.getInputStream()))) {
+            String line;
+            while ((line = workerOutput.readLine()) != null) {
+                synchronized (writer) {
+                    writer.write(line);
+                    writer.write('\n');
+                    writer.flush();
+                }
+                totalRuns.incrementAndGet();
+            }
+        }
+
+        if (worker.waitFor() != 0)
+            throw new IllegalStateException("Sweep worker failed on scenario " + scenarioSeed);
+    }
+
+    /**
+     * Run an example sweep of the Gale-Shapley or Auction coefficients on random scenarios.
+     * @param args the sweep target (GALE_SHAPLEY or AUCTION), the results file and the number of scenarios
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SweepTarget target = args.length > 0 ? SweepTarget.valueOf(args[0]) : SweepTarget.GALE_SHAPLEY;
+        Path output = Paths.get(args.length > 1 ? args[1] : "sweep-" + target.name().toLowerCase() + ".csv");
+        int totalScenarios = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        ParameterSpace space = switch (target) {
+            case GALE_SHAPLEY -> ParameterSpace.grid(target)
+                    .values("loadBalancingCoeff", .1, .5, 1.)
+                    .values("consolidationCoeff", 1., 4., 10.)
+                    .values("energyCoeff", 1., 4.)
+                    .flag("useDynamicPrefs");
+            case AUCTION -> ParameterSpace.random(target, 64, 42)
+                    .range("energyCoeff", 0., 1.)
+                    .range("priceCoeff", 0., .5)
+                    .range("loadCoeff", 0., .5)
+                    .range("speedCoeff", 0., .5);
+        };
+
+        Random rand = new Random();
+        List<Long> scenarioSeeds = new ArrayList<>();
+        for (int i = 0; i < totalScenarios; i++)
+            scenarioSeeds.add(rand.nextLong());
+
+        long startTime = System.nanoTime();
+        ParameterSweep sweep = new ParameterSweep(space, scenarioSeeds, 30, 30, 30, Runtime.getRuntime().availableProcessors());
+        int totalRuns = sweep.run(output);
+        System.out.printf("%d runs in %.1fs, results in %s%n", totalRuns, (System.nanoTime() - startTime) / 1e9, output);
+    }
+}
@@ -0,0 +1,62 @@
+package sweep;
+
+import algorithm.AuctionAlg;
+import algorithm.GaleShapleyAlg;
+import algorithm.MatchingAlg;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Algorithms whose constructor parameters can be swept, with the names and default values of the parameters.
+ * Boolean parameters are encoded as 0 (false) and 1 (true).
+ */
+public enum SweepTarget {
+    GALE_SHAPLEY(List.of("loadBalancingCoeff", "consolidationCoeff", "energyCoeff", "onlyAcceptsBestMatch", "useDynamicPrefs", "fragmentationInVMPreference"),
+            new double[]{.5, 1., 4., 1, 1, 0},
+            v -> new GaleShapleyAlg(v[0], v[1], v[2], v[3] != 0, v[4] != 0, v[5] != 0)),
+    AUCTION(List.of("energyCoeff", "priceCoeff", "loadCoeff", "speedCoeff"),
+            new double[]{.7, .125, .05, .125},
+            v -> new AuctionAlg(v[0], v[1], v[2], v[3]));
+
+    private final List<String> parameterNames;
+    private final double[] defaultValues;
+    private final Function<double[], MatchingAlg> factory;
+
+    SweepTarget(List<String> parameterNames, double[] defaultValues, Function<double[], MatchingAlg> factory) {
+        this.parameterNames = parameterNames;
+        this.defaultValues = defaultValues;
+        this.factory = factory;
+    }
+
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    public double[] getDefaultValues() {
+        return defaultValues.clone();
+    }
+
+    /**
+     * Get the index of a parameter in the parameter values of the target.
+     * @param name the parameter name
+     * @return the index of the parameter
+     */
+    public int indexOf(String name) {
+        int index = parameterNames.indexOf(name);
+        if (index == -1)
+            throw new IllegalArgumentException("Invalid parameter " + name + " for " + this);
+        return index;
+    }
+
+    /**
+     * Create an algorithm instance with the specified parameter values (on the current system).
+     * @param values the parameter values, in the order of getParameterNames
+     * @return the algorithm instance
+     */
+    public MatchingAlg create(double[] values) {
+        if (values.length != parameterNames.size())
+            throw new IllegalArgumentException("Invalid number of parameters for " + this);
+        return factory.apply(values);
+    }
+}
@@ -0,0 +1,66 @@
+package sweep;
+
+import algorithm.MatchingAlg;
+import algorithm.model.AlgorithmResults;
+import algorithm.utils.ScenarioCache;
+import service.MecSystemService;
+import utils.TestSystemSetup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Worker process of a parameter sweep: it sets up one scenario and runs the algorithm with every parameter combination
+ * read from the standard input (one "index,value,value,..." line per combination), writing one result line per run.
+ * Each scenario runs in its own process because the MEC system (and its element ids) is a per-process singleton.
+ */
+public class SweepWorker {
+
+    /**
+     * @param args the sweep target, the number of PMs, VMs and UEs, and the seed of the scenario
+     */
+    public static void main(String[] args) throws IOException {
+        SweepTarget target = SweepTarget.valueOf(args[0]);
+        int totalPms = Integer.parseInt(args[1]);
+        int totalVms = Integer.parseInt(args[2]);
+        int totalUes = Integer.parseInt(args[3]);
+        long scenarioSeed = Long.parseLong(args[4]);
+
+        // read all the combinations first, so that the parent process can write them without reading the results
+        List<String> combinations = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank())
+                    combinations.add(line);
+            }
+        }
+
+        MecSystemService mecService = MecSystemService.getInstance(0.5);
+        TestSystemSetup.setupTestInstance(scenarioSeed, totalPms, totalVms, totalUes);
+        ScenarioCache scenarioCache = new ScenarioCache();
+
+        PrintStream out = System.out;
+        for (String combination : combinations) {
+            String[] fields = combination.split(",");
+            double[] values = Arrays.stream(fields, 1, fields.length).mapToDouble(Double::parseDouble).toArray();
+
+            MatchingAlg alg = target.create(values);
+            alg.setScenarioCache(scenarioCache);
+            long startTime = System.nanoTime();
+            AlgorithmResults results = alg.run(false);
+            double runtimeMillis = (System.nanoTime() - startTime) / 1e6;
+            mecService.resetMapping();
+
+            out.println(scenarioSeed + "," + combination + "," + results.algorithmName() + "," + results.totalAllocatedUes() + ","
+                    + results.totalUes() + "," + results.totalAllocatedVms() + "," + results.totalAllocatedPms() + ","
+                    + results.totalEnergyConsumed() + "," + runtimeMillis);
+            out.flush();
+        }
+    }
+}
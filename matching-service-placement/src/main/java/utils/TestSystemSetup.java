@@ -15,13 +15,13 @@ public final class TestSystemSetup {
     private static MecSystemService mecService;
 
     public static void setupTestInstance(long seed) {
+        setupTestInstance(seed, 30, 30, 30);
+    }
+
+    public static void setupTestInstance(long seed, int totalPms, int totalVms, int totalUes) {
         mecService = MecSystemService.getInstance(0.5);
         mecService.setOffloadingDurationTime(0.03);
 
-        int totalPms = 30;
-        int totalVms = 30;
-        int totalUes = 30;
-
         Random rand = new Random(seed);
         for (int i = 0; i < totalPms; i++) {
             int cores = rand.nextInt(1, 32);
@@ -30,6 +30,41 @@ public final class TestSystemSetup {
             mecService.addPM(new PM(cores, gbs, opsPerSec));
         }
 
+        addTestVmsAndUes(seed, rand, totalVms, totalUes);
+    }
+
+    /**
+     * Setup a test instance whose PMs are drawn from a few PM types, as the hardware SKUs of a real fleet.
+     * @param seed the seed of the random number generator
+     * @param totalPms the number of PMs
+     * @param totalPmTypes the number of PM types
+     * @param totalVms the number of VMs
+     * @param totalUes the number of UEs
+     */
+    public static void setupFleetInstance(long seed, int totalPms, int totalPmTypes, int totalVms, int totalUes) {
+        if (totalPmTypes <= 0)
+            throw new IllegalArgumentException("Invalid number of PM types");
+        mecService = MecSystemService.getInstance(0.5);
+        mecService.setOffloadingDurationTime(0.03);
+
+        Random rand = new Random(seed);
+        int[] typeCores = new int[totalPmTypes];
+        int[] typeGbs = new int[totalPmTypes];
+        double[] typeOpsPerSec = new double[totalPmTypes];
+        for (int t = 0; t < totalPmTypes; t++) {
+            typeCores[t] = rand.nextInt(1, 32);
+            typeGbs[t] = typeCores[t] * rand.nextInt(2, 4);
+            typeOpsPerSec[t] = rand.nextDouble(1.0, 9.0) * Math.pow(10, 9);
+        }
+        for (int i = 0; i < totalPms; i++) {
+            int t = rand.nextInt(totalPmTypes);
+            mecService.addPM(new PM(typeCores[t], typeGbs[t], typeOpsPerSec[t]));
+        }
+
+        addTestVmsAndUes(seed, rand, totalVms, totalUes);
+    }
+
+    private static void addTestVmsAndUes(long seed, Random rand, int totalVms, int totalUes) {
         for (int i = 0; i < totalVms; i++) {
             int cores = rand.nextInt(1, 16);
             int gbs = cores * rand.nextInt(1, 4);
@@ -37,27 +72,50 @@ public final class TestSystemSetup {
             mecService.addVM(new VM(cores, gbs, energyConsumption));
         }
 
+        addTestUes(rand, totalUes);
+
+        // setup the (random) mapping between UEs and VMs
+        setupUe2VmMappings(seed);
+    }
+
+    /**
+     * Add new random UEs (and their random mapping to VMs) to the current test instance.
+     * @param seed the seed of the random number generator
+     * @param totalUes the number of UEs to add
+     */
+    public static void addTestUes(long seed, int totalUes) {
+        mecService = MecSystemService.getInstance();
+
+        Random rand = new Random(seed);
+        List<UE> newUes = addTestUes(rand, totalUes);
+        setupUe2VmMappings(rand, newUes);
+    }
+
+    private static List<UE> addTestUes(Random rand, int totalUes) {
+        List<UE> newUes = new ArrayList<>(totalUes);
         for (int i = 0; i < totalUes; i++) {
             int cores = rand.nextInt(1, 8);
             int gbs = rand.nextInt(1, 8);
             int taskSize = rand.nextInt(10, 40);
             double transmitPower = rand.nextDouble(0.01, 0.1);
-            mecService.addUE(new UE(cores, gbs, taskSize, transmitPower));
+            UE ue = new UE(cores, gbs, taskSize, transmitPower);
+            mecService.addUE(ue);
+            newUes.add(ue);
         }
-
-        // setup the (random) mapping between UEs and VMs
-        setupUe2VmMappings(seed);
+        return newUes;
     }
 
     public static void setupUe2VmMappings(long seed) {
 
         // set seed for random number generator
-        Random rand = new Random(seed);
+        setupUe2VmMappings(new Random(seed), mecService.getUEs());
+    }
 
+    private static void setupUe2VmMappings(Random rand, List<UE> ues) {
         int totalVms = mecService.getNumberOfVMs();
         List<Integer> testedVmIds = new ArrayList<>(totalVms);
 
-        for (UE ue : mecService.getUEs()) {
+        for (UE ue : ues) {
             int cores = ue.getRequiredOffloadedCores();
             int memory = ue.getRequiredOffloadedMemoryGB();
 
@@ -85,4 +143,4 @@ public final class TestSystemSetup {
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package utils.collections;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Map from dense int keys (the ids of the PMs, VMs or UEs, from 0 to their number) to double values, backed by a double
+ * array indexed by key and a bit set of the keys in the map: neither the keys nor the values are boxed.
+ */
+public class DenseIntDoubleMap {
+    private double[] values;
+    private final BitSet keys = new BitSet();
+
+    public DenseIntDoubleMap(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Invalid initial capacity");
+        this.values = new double[initialCapacity];
+    }
+
+    public DenseIntDoubleMap() {
+        this(16);
+    }
+
+    /**
+     * Get the value of a key.
+     * @param key the key
+     * @param defaultValue the value returned if the key is not in the map
+     * @return the value of the key, or the default value
+     */
+    public double getOrDefault(int key, double defaultValue) {
+        return containsKey(key) ? values[key] : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        return key >= 0 && keys.get(key);
+    }
+
+    /**
+     * Set the value of a key (the array grows to the key if needed).
+     * @param key the key
+     * @param value the value
+     */
+    public void put(int key, double value) {
+        if (key < 0)
+            throw new IllegalArgumentException("Invalid key " + key);
+
+        if (key >= values.length)
+            values = Arrays.copyOf(values, Math.max(key + 1, 2 * values.length));
+        values[key] = value;
+        keys.set(key);
+    }
+
+    public void remove(int key) {
+        if (key >= 0)
+            keys.clear(key);
+    }
+
+    public int size() {
+        return keys.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    public void clear() {
+        keys.clear();
+    }
+
+    /**
+     * Get the first key of the map from a key on (see DenseIntMap.nextKey).
+     * @param fromKey the key to start from (inclusive)
+     * @return the key, or -1 if there is no such key
+     */
+    public int nextKey(int fromKey) {
+        return keys.nextSetBit(Math.max(fromKey, 0));
+    }
+
+    /**
+     * Copy the map to a boxed map, for the APIs keyed by Integer (e.g. MatchingState).
+     * @return the copy of the map
+     */
+    public Map<Integer, Double> toMap() {
+        HashMap<Integer, Double> map = new HashMap<>();
+        for (int key = keys.nextSetBit(0); key >= 0; key = keys.nextSetBit(key + 1))
+            map.put(key, values[key]);
+        return map;
+    }
+}
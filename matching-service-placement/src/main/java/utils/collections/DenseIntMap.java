@@ -0,0 +1,132 @@
+package utils.collections;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Map from dense int keys (the ids of the PMs, VMs or UEs, from 0 to their number) to objects, backed by an array indexed
+ * by key: the keys are not boxed and there is no entry object per key. The keys are scanned in ascending order (see nextKey).
+ * @param <V> the type of the values (null values are not allowed)
+ */
+public class DenseIntMap<V> {
+    private Object[] values;
+    private int size = 0;
+    // all the keys are lower than the bound, so that clearing and scanning do not go over the whole array
+    private int bound = 0;
+
+    public DenseIntMap(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Invalid initial capacity");
+        this.values = new Object[initialCapacity];
+    }
+
+    public DenseIntMap() {
+        this(16);
+    }
+
+    /**
+     * Get the value of a key.
+     * @param key the key
+     * @return the value, or null if the key is not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return key >= 0 && key < bound ? (V) values[key] : null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Set the value of a key (the array grows to the key if needed).
+     * @param key the key
+     * @param value the value
+     * @return the previous value, or null if the key was not in the map
+     */
+    public V put(int key, V value) {
+        if (key < 0)
+            throw new IllegalArgumentException("Invalid key " + key);
+        if (value == null)
+            throw new IllegalArgumentException("Null values are not allowed");
+
+        if (key >= values.length)
+            values = Arrays.copyOf(values, Math.max(key + 1, 2 * values.length));
+        V previous = get(key);
+        values[key] = value;
+        if (previous == null)
+            size++;
+        bound = Math.max(bound, key + 1);
+        return previous;
+    }
+
+    /**
+     * Get the value of a key, first setting it with the mapping function if the key is not in the map.
+     * @param key the key
+     * @param mappingFunction the function computing the value of the key
+     * @return the value
+     */
+    public V computeIfAbsent(int key, IntFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Remove a key.
+     * @param key the key
+     * @return the value of the key, or null if the key was not in the map
+     */
+    public V remove(int key) {
+        V previous = get(key);
+        if (previous != null) {
+            values[key] = null;
+            size--;
+        }
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, bound, null);
+        size = 0;
+        bound = 0;
+    }
+
+    /**
+     * Get the first key of the map from a key on, to scan the keys as with BitSet.nextSetBit:
+     * {@code for (int key = map.nextKey(0); key >= 0; key = map.nextKey(key + 1))}.
+     * @param fromKey the key to start from (inclusive)
+     * @return the key, or -1 if there is no such key
+     */
+    public int nextKey(int fromKey) {
+        for (int key = Math.max(fromKey, 0); key < bound; key++) {
+            if (values[key] != null)
+                return key;
+        }
+        return -1;
+    }
+
+    /**
+     * Perform an action on each value, in ascending key order.
+     * @param action the action
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (int key = 0; key < bound; key++) {
+            if (values[key] != null)
+                action.accept((V) values[key]);
+        }
+    }
+}
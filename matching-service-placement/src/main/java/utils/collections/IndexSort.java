@@ -0,0 +1,46 @@
+package utils.collections;
+
+/**
+ * Sort of an array of int indexes by the double keys they refer to, without boxing them (e.g. the rows of a
+ * PreferenceTable by score, or PM ids by score).
+ */
+public final class IndexSort {
+
+    private IndexSort() {}
+
+    /**
+     * Sort a range of indexes in place by their keys in descending order. The sort is stable, i.e. indexes with equal keys
+     * keep their relative order.
+     * @param indexes the indexes to be sorted
+     * @param from the first position of the range (inclusive)
+     * @param to the last position of the range (exclusive)
+     * @param keys the key of each index
+     * @param buffer a scratch array at least as long as the range end (to)
+     */
+    public static void sortDescending(int[] indexes, int from, int to, double[] keys, int[] buffer) {
+        if (to - from < 2)
+            return;
+
+        int mid = (from + to) >>> 1;
+        sortDescending(indexes, from, mid, keys, buffer);
+        sortDescending(indexes, mid, to, keys, buffer);
+
+        // already in order
+        if (keys[indexes[mid - 1]] >= keys[indexes[mid]])
+            return;
+
+        System.arraycopy(indexes, from, buffer, from, to - from);
+        int left = from, right = mid, k = from;
+        while (left < mid && right < to) {
+            // take from the right half only if strictly better, to keep the sort stable
+            if (keys[buffer[right]] > keys[buffer[left]])
+                indexes[k++] = buffer[right++];
+            else
+                indexes[k++] = buffer[left++];
+        }
+        while (left < mid)
+            indexes[k++] = buffer[left++];
+        while (right < to)
+            indexes[k++] = buffer[right++];
+    }
+}
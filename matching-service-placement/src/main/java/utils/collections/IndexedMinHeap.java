@@ -0,0 +1,212 @@
+package utils.collections;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Binary min-heap of dense int ids (e.g. PM ids, from 0 to the capacity) ordered by a double key, with the position of
+ * each id in the heap, so that the key of any id can be decreased or increased in O(log n). Ties between equal keys are
+ * broken by the lower id, so that the order is deterministic.
+ */
+public class IndexedMinHeap {
+    private final int[] heap; // ids by heap position
+    private final int[] positions; // heap position of each id (-1 if the id is not in the heap)
+    private final double[] keys; // key of each id
+    private int size = 0;
+    // heap of the heap positions to visit in findFirst, reused across the searches
+    private final int[] frontier;
+
+    public IndexedMinHeap(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Invalid capacity");
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new double[capacity];
+        this.frontier = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < positions.length && positions[id] != -1;
+    }
+
+    public double getKey(int id) {
+        if (!contains(id))
+            throw new IllegalArgumentException("Id " + id + " not in the heap");
+        return keys[id];
+    }
+
+    /**
+     * Add an id to the heap.
+     * @param id the id (from 0 to the capacity)
+     * @param key the key of the id
+     */
+    public void add(int id, double key) {
+        if (id < 0 || id >= positions.length || positions[id] != -1)
+            throw new IllegalArgumentException("Invalid or duplicate id " + id);
+
+        keys[id] = key;
+        heap[size] = id;
+        positions[id] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Change the key of an id in the heap (decrease or increase key), in O(log n).
+     * @param id the id
+     * @param key the new key of the id
+     */
+    public void update(int id, double key) {
+        if (!contains(id))
+            throw new IllegalArgumentException("Id " + id + " not in the heap");
+
+        double oldKey = keys[id];
+        keys[id] = key;
+        if (key < oldKey)
+            siftUp(positions[id]);
+        else
+            siftDown(positions[id]);
+    }
+
+    /**
+     * Get the id with the lowest key, without removing it.
+     * @return the id, or -1 if the heap is empty
+     */
+    public int peek() {
+        return size == 0 ? -1 : heap[0];
+    }
+
+    /**
+     * Remove the id with the lowest key.
+     * @return the id, or -1 if the heap is empty
+     */
+    public int poll() {
+        if (size == 0)
+            return -1;
+        int id = heap[0];
+        remove(id);
+        return id;
+    }
+
+    public void remove(int id) {
+        if (!contains(id))
+            throw new IllegalArgumentException("Id " + id + " not in the heap");
+
+        int position = positions[id];
+        positions[id] = -1;
+        if (position == --size)
+            return;
+
+        // the last id takes the place of the removed one, then moves up or down
+        heap[position] = heap[size];
+        positions[heap[position]] = position;
+        siftUp(position);
+        siftDown(positions[heap[position]]);
+    }
+
+    public void clear() {
+        for (int position = 0; position < size; position++)
+            positions[heap[position]] = -1;
+        size = 0;
+    }
+
+    /**
+     * Get the id with the lowest key among the ids accepted by a predicate, without removing any id. The ids are visited
+     * in key order through a second heap of the positions to visit (the children of the rejected ids), so the search costs
+     * O(k log k) for k rejected ids, instead of polling and adding them back.
+     * @param accept the predicate of the accepted ids
+     * @return the id, or -1 if no id is accepted
+     */
+    public int findFirst(IntPredicate accept) {
+        if (size == 0)
+            return -1;
+
+        frontier[0] = 0;
+        int frontierSize = 1;
+        while (frontierSize > 0) {
+            int position = frontier[0];
+            frontier[0] = frontier[--frontierSize];
+            siftDownFrontier(0, frontierSize);
+
+            if (accept.test(heap[position]))
+                return heap[position];
+
+            // each position visited is replaced by at most two children, so the frontier never exceeds the heap size
+            for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                frontier[frontierSize] = child;
+                siftUpFrontier(frontierSize++);
+            }
+        }
+        return -1;
+    }
+
+    private boolean less(int id, int otherId) {
+        return keys[id] < keys[otherId] || (keys[id] == keys[otherId] && id < otherId);
+    }
+
+    private void siftUp(int position) {
+        int id = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!less(id, heap[parent]))
+                break;
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void siftDown(int position) {
+        int id = heap[position];
+        while (2 * position + 1 < size) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && less(heap[child + 1], heap[child]))
+                child++;
+            if (!less(heap[child], id))
+                break;
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void siftUpFrontier(int index) {
+        int position = frontier[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!less(heap[position], heap[frontier[parent]]))
+                break;
+            frontier[index] = frontier[parent];
+            index = parent;
+        }
+        frontier[index] = position;
+    }
+
+    private void siftDownFrontier(int index, int frontierSize) {
+        if (frontierSize == 0)
+            return;
+        int position = frontier[index];
+        while (2 * index + 1 < frontierSize) {
+            int child = 2 * index + 1;
+            if (child + 1 < frontierSize && less(heap[frontier[child + 1]], heap[frontier[child]]))
+                child++;
+            if (!less(heap[frontier[child]], heap[position]))
+                break;
+            frontier[index] = frontier[child];
+            index = child;
+        }
+        frontier[index] = position;
+    }
+}
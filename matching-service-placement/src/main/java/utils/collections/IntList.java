@@ -0,0 +1,62 @@
+package utils.collections;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Growable list of int values (e.g. PM or UE ids) backed by an int array, instead of a List of boxed Integers.
+ */
+public class IntList {
+    private int[] values;
+    private int size = 0;
+
+    public IntList(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Invalid initial capacity");
+        this.values = new int[initialCapacity];
+    }
+
+    public IntList() {
+        this(16);
+    }
+
+    public void add(int value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, Math.max(size + 1, 2 * size));
+        values[size++] = value;
+    }
+
+    public int get(int index) {
+        return values[Objects.checkIndex(index, size)];
+    }
+
+    public void set(int index, int value) {
+        values[Objects.checkIndex(index, size)] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all the values, keeping the array for the next ones.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sort the values in ascending order.
+     */
+    public void sort() {
+        Arrays.sort(values, 0, size);
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}